@@ -9,11 +9,17 @@ public class BufferSegment {
     private final ByteBuffer slice;
     private final BufferBuilder.DrawState drawState;
     private final RenderType type;
+    private final boolean needsSorting;
 
     public BufferSegment(ByteBuffer slice, BufferBuilder.DrawState drawState, RenderType type) {
+        this(slice, drawState, type, false);
+    }
+
+    public BufferSegment(ByteBuffer slice, BufferBuilder.DrawState drawState, RenderType type, boolean needsSorting) {
         this.slice = slice;
         this.drawState = drawState;
         this.type = type;
+        this.needsSorting = needsSorting;
     }
 
     public ByteBuffer getSlice() {
@@ -27,4 +33,11 @@ public class BufferSegment {
     public RenderType getRenderType() {
         return type;
     }
+
+    /**
+     * Whether the quads of this segment still need to be sorted before it is drawn, see {@link TranslucentQuadSorter}.
+     */
+    public boolean needsSorting() {
+        return needsSorting;
+    }
 }
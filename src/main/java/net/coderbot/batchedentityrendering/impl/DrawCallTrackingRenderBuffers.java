@@ -1,7 +1,11 @@
 package net.coderbot.batchedentityrendering.impl;
 
+import net.coderbot.batchedentityrendering.impl.statistics.BatchingStatistics;
+import net.minecraft.client.renderer.RenderType;
+
 public interface DrawCallTrackingRenderBuffers {
 	int getDrawCalls();
 	int getRenderTypes();
 	void resetDrawCounts();
+	BatchingStatistics<RenderType> getStatistics();
 }
@@ -2,8 +2,10 @@ package net.coderbot.batchedentityrendering.impl;
 
 import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.coderbot.batchedentityrendering.impl.instancing.InstancedModelBatcher;
 import net.coderbot.batchedentityrendering.impl.ordering.GraphTranslucencyRenderOrderManager;
 import net.coderbot.batchedentityrendering.impl.ordering.RenderOrderManager;
+import net.coderbot.batchedentityrendering.impl.statistics.BatchingStatistics;
 import net.coderbot.iris.fantastic.WrappingMultiBufferSource;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.MultiBufferSource;
@@ -13,10 +15,12 @@ import net.minecraft.util.profiling.ProfilerFiller;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSource implements MemoryTrackingBuffer, Groupable, WrappingMultiBufferSource {
@@ -24,14 +28,17 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 	private final RenderOrderManager renderOrderManager;
 	private final SegmentedBufferBuilder[] builders;
+	private final InstancedModelBatcher instancedModelBatcher;
 	/**
 	 * An LRU cache mapping RenderType objects to a relevant buffer.
 	 */
 	private final LinkedHashMap<RenderType, Integer> affinities;
 	private int drawCalls;
 	private int renderTypes;
+	private final BatchingStatistics<RenderType> statistics;
 
 	private final BufferSegmentRenderer segmentRenderer;
+	private final TranslucentQuadSorter quadSorter;
 	private final UnflushableWrapper unflushableWrapper;
 	private final List<Function<RenderType, RenderType>> wrappingFunctionStack;
 	private Function<RenderType, RenderType> wrappingFunction = null;
@@ -41,16 +48,19 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 		this.renderOrderManager = new GraphTranslucencyRenderOrderManager();
 		this.builders = new SegmentedBufferBuilder[NUM_BUFFERS];
+		this.instancedModelBatcher = new InstancedModelBatcher();
 
 		for (int i = 0; i < this.builders.length; i++) {
-			this.builders[i] = new SegmentedBufferBuilder();
+			this.builders[i] = new SegmentedBufferBuilder(instancedModelBatcher);
 		}
 
 		// use accessOrder=true so our LinkedHashMap works as an LRU cache.
 		this.affinities = new LinkedHashMap<>(32, 0.75F, true);
 
 		this.drawCalls = 0;
+		this.statistics = new BatchingStatistics<>();
 		this.segmentRenderer = new BufferSegmentRenderer();
+		this.quadSorter = new TranslucentQuadSorter();
 		this.unflushableWrapper = new UnflushableWrapper(this);
 		this.wrappingFunctionStack = new ArrayList<>();
 	}
@@ -93,13 +103,24 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 		profiler.push("collect");
 
+		statistics.recordFlush();
+
 		Map<RenderType, List<BufferSegment>> typeToSegment = new HashMap<>();
+		Map<BufferSegment, CompletableFuture<int[]>> pendingSorts = new IdentityHashMap<>();
 
 		for (SegmentedBufferBuilder builder : builders) {
 			List<BufferSegment> segments = builder.getSegments();
 
 			for (BufferSegment segment : segments) {
 				typeToSegment.computeIfAbsent(segment.getRenderType(), (type) -> new ArrayList<>()).add(segment);
+				statistics.recordSegment(segment.getRenderType(), segment.getDrawState().vertexCount(),
+					segment.getSlice().remaining());
+
+				if (segment.needsSorting()) {
+					// Start sorting as early as possible, so that it can overlap with resolving the render order and
+					// drawing the segments that come before this one.
+					pendingSorts.put(segment, TranslucentQuadSorter.sortAsync(segment));
+				}
 			}
 		}
 
@@ -107,6 +128,13 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 
 		Iterable<RenderType> renderOrder = renderOrderManager.getRenderOrder();
 
+		if (renderOrderManager instanceof GraphTranslucencyRenderOrderManager) {
+			GraphTranslucencyRenderOrderManager graphManager = (GraphTranslucencyRenderOrderManager) renderOrderManager;
+
+			statistics.recordRenderOrder(graphManager.getLastVertexCount(), graphManager.getLastEdgeCount(),
+				graphManager.getLastFeedbackArcSetNanos());
+		}
+
 		profiler.popPush("draw buffers");
 
 		for (RenderType type : renderOrder) {
@@ -115,17 +143,32 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 			renderTypes += 1;
 
 			for (BufferSegment segment : typeToSegment.getOrDefault(type, Collections.emptyList())) {
+				CompletableFuture<int[]> pendingSort = pendingSorts.remove(segment);
+
+				if (pendingSort != null) {
+					quadSorter.apply(segment, pendingSort.join());
+				}
+
 				segmentRenderer.drawInner(segment);
 				drawCalls += 1;
 			}
 
+			drawCalls += instancedModelBatcher.draw(type);
+
 			type.clearRenderState();
 		}
 
 		profiler.popPush("reset");
 
+		// The sorting tasks read directly from the buffers, so they must not outlive this batch even if their segments
+		// were never drawn.
+		for (CompletableFuture<int[]> pendingSort : pendingSorts.values()) {
+			pendingSort.join();
+		}
+
 		renderOrderManager.reset();
 		affinities.clear();
+		instancedModelBatcher.reset();
 
 		profiler.pop();
 	}
@@ -138,7 +181,13 @@ public class FullyBufferedMultiBufferSource extends MultiBufferSource.BufferSour
 		return renderTypes;
 	}
 
+	public BatchingStatistics<RenderType> getStatistics() {
+		return statistics;
+	}
+
 	public void resetDrawCalls() {
+		statistics.endBatch(drawCalls, renderTypes);
+
 		drawCalls = 0;
 		renderTypes = 0;
 	}
@@ -3,9 +3,12 @@ package net.coderbot.batchedentityrendering.impl;
 import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.datafixers.util.Pair;
+import net.coderbot.batchedentityrendering.impl.instancing.InstancedModelBatcher;
+import net.coderbot.batchedentityrendering.impl.instancing.InstancingBufferBuilder;
 import net.coderbot.batchedentityrendering.mixin.RenderTypeAccessor;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.RenderType;
+import org.lwjgl.opengl.GL11C;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -14,13 +17,13 @@ import java.util.List;
 import java.util.Objects;
 
 public class SegmentedBufferBuilder implements MultiBufferSource, MemoryTrackingBuffer {
-    private final BufferBuilder buffer;
+    private final InstancingBufferBuilder buffer;
     private final List<RenderType> usedTypes;
     private RenderType currentType;
 
-    public SegmentedBufferBuilder() {
+    public SegmentedBufferBuilder(InstancedModelBatcher batcher) {
         // 2 MB initial allocation
-        this.buffer = new BufferBuilder(512 * 1024);
+        this.buffer = new InstancingBufferBuilder(512 * 1024, batcher);
         this.usedTypes = new ArrayList<>(256);
 
         this.currentType = null;
@@ -30,7 +33,7 @@ public class SegmentedBufferBuilder implements MultiBufferSource, MemoryTracking
     public VertexConsumer getBuffer(RenderType renderType) {
         if (!Objects.equals(currentType, renderType)) {
             if (currentType != null) {
-                if (shouldSortOnUpload(currentType)) {
+                if (shouldSortOnRenderThread(currentType)) {
                     buffer.sortQuads(0, 0, 0);
                 }
 
@@ -39,6 +42,7 @@ public class SegmentedBufferBuilder implements MultiBufferSource, MemoryTracking
             }
 
             buffer.begin(renderType.mode(), renderType.format());
+            buffer.setCurrentType(renderType);
 
             currentType = renderType;
         }
@@ -61,11 +65,12 @@ public class SegmentedBufferBuilder implements MultiBufferSource, MemoryTracking
 
         usedTypes.add(currentType);
 
-        if (shouldSortOnUpload(currentType)) {
+        if (shouldSortOnRenderThread(currentType)) {
             buffer.sortQuads(0, 0, 0);
         }
 
         buffer.end();
+        buffer.setCurrentType(null);
         currentType = null;
 
         List<BufferSegment> segments = new ArrayList<>(usedTypes.size());
@@ -76,7 +81,7 @@ public class SegmentedBufferBuilder implements MultiBufferSource, MemoryTracking
             BufferBuilder.DrawState drawState = pair.getFirst();
             ByteBuffer slice = pair.getSecond();
 
-            segments.add(new BufferSegment(slice, drawState, type));
+            segments.add(new BufferSegment(slice, drawState, type, shouldSortOffThread(type)));
         }
 
         usedTypes.clear();
@@ -88,6 +93,14 @@ public class SegmentedBufferBuilder implements MultiBufferSource, MemoryTracking
         return ((RenderTypeAccessor) type).shouldSortOnUpload();
     }
 
+    private static boolean shouldSortOffThread(RenderType type) {
+        return shouldSortOnUpload(type) && type.mode() == GL11C.GL_QUADS && TranslucentQuadSorter.isEnabled();
+    }
+
+    private static boolean shouldSortOnRenderThread(RenderType type) {
+        return shouldSortOnUpload(type) && !shouldSortOffThread(type);
+    }
+
     @Override
     public int getAllocatedSize() {
         return ((MemoryTrackingBuffer) buffer).getAllocatedSize();
@@ -0,0 +1,167 @@
+package net.coderbot.batchedentityrendering.impl;
+
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import net.coderbot.iris.Iris;
+import net.minecraft.Util;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sorts the quads of translucent buffer segments on worker threads, as a replacement for calling
+ * {@link BufferBuilder#sortQuads(float, float, float)} on the render thread.
+ *
+ * <p>The sort order is computed from the segment data without modifying it, and only applied right before the segment
+ * is drawn. Quads are ordered back to front by the squared distance of their centroid (the average of all four
+ * vertices) to the camera, and quads with equal distances keep their original relative order. This isn't guaranteed to
+ * be the exact order that vanilla's sortQuads would produce, since vanilla may pick a different point of each quad to
+ * sort by, which can differ for quads that aren't parallelograms and can resolve ties differently.</p>
+ */
+public class TranslucentQuadSorter {
+	private static final int VERTICES_PER_QUAD = 4;
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX_SIZE = 1 << RADIX_BITS;
+	private static final int RADIX_MASK = RADIX_SIZE - 1;
+
+	private ByteBuffer scratch;
+
+	public TranslucentQuadSorter() {
+		this.scratch = MemoryUtil.memAlloc(64 * 1024);
+	}
+
+	public static boolean isEnabled() {
+		return Iris.getIrisConfig() != null && Iris.getIrisConfig().isParallelTranslucentSortingEnabled();
+	}
+
+	/**
+	 * Starts computing the back to front order of the quads in the given segment. The segment data must not be modified
+	 * until the returned future has completed.
+	 */
+	public static CompletableFuture<int[]> sortAsync(BufferSegment segment) {
+		BufferBuilder.DrawState drawState = segment.getDrawState();
+		long address = MemoryUtil.memAddress(segment.getSlice());
+		int stride = drawState.format().getVertexSize();
+		int quadCount = drawState.vertexCount() / VERTICES_PER_QUAD;
+
+		return CompletableFuture.supplyAsync(() -> sortBackToFront(computeDistances(address, stride, quadCount)),
+			Util.backgroundExecutor());
+	}
+
+	/**
+	 * Computes the squared distance from the origin (the camera) to the centroid of each quad. This assumes that the
+	 * position is the first element of the vertex format, just like vanilla does.
+	 */
+	private static float[] computeDistances(long address, int stride, int quadCount) {
+		float[] distances = new float[quadCount];
+		int quadStride = stride * VERTICES_PER_QUAD;
+
+		for (int quad = 0; quad < quadCount; quad++) {
+			long vertex = address + (long) quad * quadStride;
+
+			float x = 0.0F;
+			float y = 0.0F;
+			float z = 0.0F;
+
+			for (int i = 0; i < VERTICES_PER_QUAD; i++) {
+				x += MemoryUtil.memGetFloat(vertex);
+				y += MemoryUtil.memGetFloat(vertex + 4);
+				z += MemoryUtil.memGetFloat(vertex + 8);
+
+				vertex += stride;
+			}
+
+			x *= 0.25F;
+			y *= 0.25F;
+			z *= 0.25F;
+
+			distances[quad] = x * x + y * y + z * z;
+		}
+
+		return distances;
+	}
+
+	/**
+	 * Returns the indices of the given distances ordered from the largest distance to the smallest one, using a stable
+	 * least significant digit radix sort.
+	 */
+	public static int[] sortBackToFront(float[] distances) {
+		int length = distances.length;
+		int[] keys = new int[length];
+		int[] indices = new int[length];
+
+		for (int i = 0; i < length; i++) {
+			int bits = Float.floatToRawIntBits(distances[i]);
+
+			// Map the float to an int that sorts the same way when treated as unsigned, then invert it so that larger
+			// distances come first.
+			keys[i] = ~(bits ^ ((bits >> 31) | 0x80000000));
+			indices[i] = i;
+		}
+
+		int[] keysTemp = new int[length];
+		int[] indicesTemp = new int[length];
+		int[] counts = new int[RADIX_SIZE];
+
+		for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+			Arrays.fill(counts, 0);
+
+			for (int i = 0; i < length; i++) {
+				counts[(keys[i] >>> shift) & RADIX_MASK] += 1;
+			}
+
+			// If every key has the same digit, this pass wouldn't change anything.
+			if (length == 0 || counts[(keys[0] >>> shift) & RADIX_MASK] == length) {
+				continue;
+			}
+
+			int offset = 0;
+
+			for (int digit = 0; digit < RADIX_SIZE; digit++) {
+				int count = counts[digit];
+				counts[digit] = offset;
+				offset += count;
+			}
+
+			for (int i = 0; i < length; i++) {
+				int destination = counts[(keys[i] >>> shift) & RADIX_MASK]++;
+
+				keysTemp[destination] = keys[i];
+				indicesTemp[destination] = indices[i];
+			}
+
+			int[] swap = keys;
+			keys = keysTemp;
+			keysTemp = swap;
+
+			swap = indices;
+			indices = indicesTemp;
+			indicesTemp = swap;
+		}
+
+		return indices;
+	}
+
+	/**
+	 * Rearranges the quads of the segment according to the given order. Must be called on the render thread.
+	 */
+	public void apply(BufferSegment segment, int[] order) {
+		ByteBuffer slice = segment.getSlice();
+		int quadBytes = segment.getDrawState().format().getVertexSize() * VERTICES_PER_QUAD;
+		int size = order.length * quadBytes;
+
+		if (scratch.capacity() < size) {
+			scratch = MemoryUtil.memRealloc(scratch, Math.max(size, scratch.capacity() * 2));
+		}
+
+		long sliceAddress = MemoryUtil.memAddress(slice);
+		long scratchAddress = MemoryUtil.memAddress0(scratch);
+
+		MemoryUtil.memCopy(sliceAddress, scratchAddress, size);
+
+		for (int i = 0; i < order.length; i++) {
+			MemoryUtil.memCopy(scratchAddress + (long) order[i] * quadBytes, sliceAddress + (long) i * quadBytes, quadBytes);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package net.coderbot.batchedentityrendering.impl.instancing;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.vertex.VertexFormat;
+
+/**
+ * The model-space vertices of a single model part, uploaded once to a static vertex buffer.
+ */
+public class CachedModelGeometry {
+	private final int buffer;
+	private final VertexFormat format;
+	private final int vertexCount;
+	private final int cubeCount;
+
+	public CachedModelGeometry(int buffer, VertexFormat format, int vertexCount, int cubeCount) {
+		this.buffer = buffer;
+		this.format = format;
+		this.vertexCount = vertexCount;
+		this.cubeCount = cubeCount;
+	}
+
+	public int getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * The actual format of the stored vertices, which is the extended entity format if shaders are enabled.
+	 */
+	public VertexFormat getFormat() {
+		return format;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public int getCubeCount() {
+		return cubeCount;
+	}
+
+	public void destroy() {
+		GlStateManager._glDeleteBuffers(buffer);
+	}
+}
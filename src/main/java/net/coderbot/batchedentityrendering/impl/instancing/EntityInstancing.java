@@ -0,0 +1,88 @@
+package net.coderbot.batchedentityrendering.impl.instancing;
+
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import net.coderbot.batchedentityrendering.mixin.RenderTypeAccessor;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.gl.IrisRenderSystem;
+import net.minecraft.client.renderer.RenderType;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11C;
+
+/**
+ * Shared constants and switches for the instanced model rendering path.
+ *
+ * <p>Instanced draws pass the model transform of each instance as three rows of an affine matrix, followed by a
+ * vector holding the lightmap coordinate, the packed overlay coordinate, and a marker value. The attribute locations
+ * are chosen to avoid the locations that NVIDIA aliases with the fixed-function vertex attributes, as well as the
+ * locations already used by the extended vertex formats (11 to 14).</p>
+ */
+public class EntityInstancing {
+	public static final int ROW_0_LOCATION = 1;
+	public static final int ROW_1_LOCATION = 6;
+	public static final int ROW_2_LOCATION = 7;
+	public static final int LIGHT_LOCATION = 15;
+
+	public static final String ROW_0_ATTRIBUTE = "iris_InstanceRow0";
+	public static final String ROW_1_ATTRIBUTE = "iris_InstanceRow1";
+	public static final String ROW_2_ATTRIBUTE = "iris_InstanceRow2";
+	public static final String LIGHT_ATTRIBUTE = "iris_InstanceLight";
+
+	/**
+	 * The value written to the w component of the light attribute of every instance. The default value of a generic
+	 * vertex attribute is (0, 0, 0, 1), so anything above 1 lets the shader tell instanced draws apart from regular
+	 * draws without needing an extra uniform.
+	 */
+	public static final float INSTANCE_MARKER = 2.0F;
+
+	public static final int FLOATS_PER_INSTANCE = 16;
+	public static final int BYTES_PER_INSTANCE = FLOATS_PER_INSTANCE * Float.BYTES;
+
+	private static Boolean supported;
+
+	/**
+	 * Instancing requires glDrawArraysInstanced (OpenGL 3.1) and glVertexAttribDivisor (OpenGL 3.3).
+	 */
+	public static boolean isSupported() {
+		if (supported == null) {
+			supported = GL.getCapabilities().OpenGL33;
+		}
+
+		return supported;
+	}
+
+	/**
+	 * Whether model parts should be captured as instances instead of being written to the vertex buffer. This only
+	 * takes effect if the user has opted in, since it changes how entity vertex shaders are patched.
+	 */
+	public static boolean isEnabled() {
+		return Iris.getIrisConfig() != null && Iris.getIrisConfig().isEntityInstancingEnabled() && isSupported();
+	}
+
+	/**
+	 * Only simple quad-based entity geometry that does not need to be sorted can be instanced, since instanced draws
+	 * are issued after all regular geometry of the same render type.
+	 */
+	public static boolean canInstance(RenderType type) {
+		return type.mode() == GL11C.GL_QUADS && type.format() == DefaultVertexFormat.NEW_ENTITY
+			&& !((RenderTypeAccessor) type).shouldSortOnUpload();
+	}
+
+	/**
+	 * Checks whether the given program was patched to read per-instance data. Vanilla rendering (program 0) and
+	 * programs that were not patched fall back to expanding the instances on the CPU.
+	 */
+	public static boolean isProgramCompatible(int program) {
+		if (program == 0) {
+			return false;
+		}
+
+		return IrisRenderSystem.getAttribLocation(program, LIGHT_ATTRIBUTE) == LIGHT_LOCATION;
+	}
+
+	public static void bindAttributeLocations(int program) {
+		IrisRenderSystem.bindAttributeLocation(program, ROW_0_LOCATION, ROW_0_ATTRIBUTE);
+		IrisRenderSystem.bindAttributeLocation(program, ROW_1_LOCATION, ROW_1_ATTRIBUTE);
+		IrisRenderSystem.bindAttributeLocation(program, ROW_2_LOCATION, ROW_2_ATTRIBUTE);
+		IrisRenderSystem.bindAttributeLocation(program, LIGHT_LOCATION, LIGHT_ATTRIBUTE);
+	}
+}
@@ -0,0 +1,57 @@
+package net.coderbot.batchedentityrendering.impl.instancing;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+
+import java.util.Arrays;
+
+/**
+ * Holds the per-instance parameters of a single model part within a single render type.
+ *
+ * <p>The pose objects are stored by reference. This is safe because {@link net.minecraft.client.model.geom.ModelPart}
+ * always pushes a fresh pose before compiling its cubes and pops it afterwards, so the pose passed to compile is never
+ * modified once it has been captured.</p>
+ */
+public class InstanceList {
+	private PoseStack.Pose[] poses;
+	private int[] lights;
+	private int[] overlays;
+	private int size;
+
+	public InstanceList() {
+		this.poses = new PoseStack.Pose[16];
+		this.lights = new int[16];
+		this.overlays = new int[16];
+		this.size = 0;
+	}
+
+	public void add(PoseStack.Pose pose, int light, int overlay) {
+		if (size == poses.length) {
+			int capacity = size * 2;
+
+			poses = Arrays.copyOf(poses, capacity);
+			lights = Arrays.copyOf(lights, capacity);
+			overlays = Arrays.copyOf(overlays, capacity);
+		}
+
+		poses[size] = pose;
+		lights[size] = light;
+		overlays[size] = overlay;
+		size += 1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public PoseStack.Pose getPose(int index) {
+		return poses[index];
+	}
+
+	public int getLight(int index) {
+		return lights[index];
+	}
+
+	public int getOverlay(int index) {
+		return overlays[index];
+	}
+}
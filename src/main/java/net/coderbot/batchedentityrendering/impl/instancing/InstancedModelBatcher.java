@@ -0,0 +1,227 @@
+package net.coderbot.batchedentityrendering.impl.instancing;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.BufferUploader;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.PoseStack;
+import it.unimi.dsi.fastutil.ints.Int2BooleanOpenHashMap;
+import net.coderbot.batchedentityrendering.mixin.ModelPartAccessor;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.gl.IrisRenderSystem;
+import net.coderbot.iris.pipeline.WorldRenderingPipeline;
+import net.coderbot.iris.shadows.Matrix4fAccess;
+import net.minecraft.client.model.geom.ModelPart;
+import net.minecraft.client.renderer.RenderType;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL20C;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Collects model parts that are rendered many times within a frame, and draws every copy of each part with a single
+ * instanced draw call.
+ *
+ * <p>The geometry of each model part is only built once and kept in a static vertex buffer, while the model matrix,
+ * lightmap coordinate, and overlay coordinate of each copy are uploaded as per-instance vertex attributes. This only
+ * works with shader programs that were patched to read the per-instance attributes. When drawing with any other
+ * program, the captured instances are expanded on the CPU instead, which produces the exact same output as the
+ * regular path.</p>
+ */
+public class InstancedModelBatcher {
+	private static final int INITIAL_INSTANCE_CAPACITY = 256;
+
+	private final Map<RenderType, Map<ModelPart, InstanceList>> instances;
+	private final ModelGeometryCache geometryCache;
+	private final Int2BooleanOpenHashMap programCompatibility;
+	private final BufferBuilder fallbackBuilder;
+	private final float[] matrix;
+	private FloatBuffer instanceData;
+	private int instanceBuffer;
+
+	public InstancedModelBatcher() {
+		this.instances = new HashMap<>();
+		this.geometryCache = new ModelGeometryCache();
+		this.programCompatibility = new Int2BooleanOpenHashMap();
+		this.fallbackBuilder = new BufferBuilder(256 * 1024);
+		this.matrix = new float[16];
+		this.instanceData = MemoryUtil.memAllocFloat(INITIAL_INSTANCE_CAPACITY * EntityInstancing.FLOATS_PER_INSTANCE);
+		this.instanceBuffer = 0;
+	}
+
+	public boolean capture(RenderType type, ModelPart part, PoseStack.Pose pose, int light, int overlay) {
+		if (!EntityInstancing.isEnabled() || !EntityInstancing.canInstance(type)) {
+			return false;
+		}
+
+		if (((ModelPartAccessor) part).getCubes().isEmpty()) {
+			// Nothing to draw, but the model part still needs to render its children.
+			return false;
+		}
+
+		instances.computeIfAbsent(type, t -> new IdentityHashMap<>())
+			.computeIfAbsent(part, p -> new InstanceList())
+			.add(pose, light, overlay);
+
+		return true;
+	}
+
+	/**
+	 * Draws all instances captured for the given render type. The render state of the type must already be set up.
+	 *
+	 * @return the number of draw calls issued
+	 */
+	public int draw(RenderType type) {
+		Map<ModelPart, InstanceList> parts = instances.get(type);
+
+		if (parts == null || parts.isEmpty()) {
+			return 0;
+		}
+
+		// Iris binds the program for the current render phase lazily, right before drawing.
+		Iris.getPipelineManager().getPipeline().ifPresent(WorldRenderingPipeline::syncProgram);
+
+		int program = GlStateManager._getInteger(GL20C.GL_CURRENT_PROGRAM);
+
+		if (!programCompatibility.containsKey(program)) {
+			programCompatibility.put(program, EntityInstancing.isProgramCompatible(program));
+		}
+
+		if (!programCompatibility.get(program)) {
+			return drawExpanded(type, parts);
+		}
+
+		return drawInstanced(parts);
+	}
+
+	private int drawInstanced(Map<ModelPart, InstanceList> parts) {
+		if (instanceBuffer == 0) {
+			instanceBuffer = GlStateManager._glGenBuffers();
+		}
+
+		int drawCalls = 0;
+
+		for (Map.Entry<ModelPart, InstanceList> entry : parts.entrySet()) {
+			CachedModelGeometry geometry = geometryCache.getOrBuild(entry.getKey(), DefaultVertexFormat.NEW_ENTITY);
+			InstanceList list = entry.getValue();
+
+			if (geometry.getVertexCount() == 0) {
+				continue;
+			}
+
+			writeInstanceData(list);
+
+			GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, instanceBuffer);
+			GL15C.glBufferData(GL15C.GL_ARRAY_BUFFER, instanceData, GL15C.GL_STREAM_DRAW);
+			setupInstanceAttribute(EntityInstancing.ROW_0_LOCATION, 0);
+			setupInstanceAttribute(EntityInstancing.ROW_1_LOCATION, 4);
+			setupInstanceAttribute(EntityInstancing.ROW_2_LOCATION, 8);
+			setupInstanceAttribute(EntityInstancing.LIGHT_LOCATION, 12);
+
+			GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, geometry.getBuffer());
+			geometry.getFormat().setupBufferState(0L);
+
+			IrisRenderSystem.drawArraysInstanced(GL11C.GL_QUADS, 0, geometry.getVertexCount(), list.size());
+			drawCalls += 1;
+
+			geometry.getFormat().clearBufferState();
+			clearInstanceAttribute(EntityInstancing.ROW_0_LOCATION);
+			clearInstanceAttribute(EntityInstancing.ROW_1_LOCATION);
+			clearInstanceAttribute(EntityInstancing.ROW_2_LOCATION);
+			clearInstanceAttribute(EntityInstancing.LIGHT_LOCATION);
+		}
+
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, 0);
+
+		// Restore the default value of the generic attribute, so that regular draws with the same program don't
+		// mistake themselves for instanced draws.
+		IrisRenderSystem.vertexAttrib4f(EntityInstancing.LIGHT_LOCATION, 0.0F, 0.0F, 0.0F, 1.0F);
+
+		return drawCalls;
+	}
+
+	private void writeInstanceData(InstanceList list) {
+		int required = list.size() * EntityInstancing.FLOATS_PER_INSTANCE;
+
+		if (instanceData.capacity() < required) {
+			instanceData = MemoryUtil.memRealloc(instanceData, Math.max(required, instanceData.capacity() * 2));
+		}
+
+		instanceData.clear();
+
+		for (int i = 0; i < list.size(); i++) {
+			((Matrix4fAccess) (Object) list.getPose(i).pose()).copyIntoArray(matrix);
+
+			// The matrix is in column-major order, and we need its first three rows.
+			for (int row = 0; row < 3; row++) {
+				instanceData.put(matrix[row]);
+				instanceData.put(matrix[4 + row]);
+				instanceData.put(matrix[8 + row]);
+				instanceData.put(matrix[12 + row]);
+			}
+
+			int light = list.getLight(i);
+			int overlay = list.getOverlay(i);
+
+			instanceData.put(light & 0xFFFF);
+			instanceData.put(light >>> 16);
+			// Both overlay coordinates are at most 15, so they can be packed together without losing precision.
+			instanceData.put((overlay & 0xFFFF) + (overlay >>> 16) * 16);
+			instanceData.put(EntityInstancing.INSTANCE_MARKER);
+		}
+
+		instanceData.flip();
+	}
+
+	private static void setupInstanceAttribute(int location, int offsetFloats) {
+		GlStateManager._enableVertexAttribArray(location);
+		GlStateManager._vertexAttribPointer(location, 4, GL11C.GL_FLOAT, false,
+			EntityInstancing.BYTES_PER_INSTANCE, (long) offsetFloats * Float.BYTES);
+		IrisRenderSystem.vertexAttribDivisor(location, 1);
+	}
+
+	private static void clearInstanceAttribute(int location) {
+		IrisRenderSystem.vertexAttribDivisor(location, 0);
+		GlStateManager._disableVertexAttribArray(location);
+	}
+
+	/**
+	 * Produces the same vertices that the regular path would have produced, for programs that can't read instance
+	 * data. This still saves on draw calls, since all instances of all model parts end up in a single draw.
+	 */
+	private int drawExpanded(RenderType type, Map<ModelPart, InstanceList> parts) {
+		fallbackBuilder.begin(type.mode(), type.format());
+
+		for (Map.Entry<ModelPart, InstanceList> entry : parts.entrySet()) {
+			ModelPartAccessor part = (ModelPartAccessor) entry.getKey();
+			InstanceList list = entry.getValue();
+
+			for (int i = 0; i < list.size(); i++) {
+				part.invokeCompile(list.getPose(i), fallbackBuilder, list.getLight(i), list.getOverlay(i),
+					1.0F, 1.0F, 1.0F, 1.0F);
+			}
+		}
+
+		fallbackBuilder.end();
+		BufferUploader.end(fallbackBuilder);
+
+		return 1;
+	}
+
+	/**
+	 * Forgets all captured instances. The cached model geometry is kept, since the same models are very likely to be
+	 * rendered again in the next frame.
+	 */
+	public void reset() {
+		// Don't hold on to any poses, they are only valid for a single frame.
+		instances.clear();
+
+		// Program IDs may be reused after a shader pack reload.
+		programCompatibility.clear();
+	}
+}
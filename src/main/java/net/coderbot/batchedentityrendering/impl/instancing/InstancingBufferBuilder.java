@@ -0,0 +1,38 @@
+package net.coderbot.batchedentityrendering.impl.instancing;
+
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.PoseStack;
+import net.minecraft.client.model.geom.ModelPart;
+import net.minecraft.client.renderer.RenderType;
+
+/**
+ * A buffer builder that can hand entire model parts off to an {@link InstancedModelBatcher} instead of writing their
+ * transformed vertices into the buffer.
+ */
+public class InstancingBufferBuilder extends BufferBuilder {
+	private final InstancedModelBatcher batcher;
+	private RenderType currentType;
+
+	public InstancingBufferBuilder(int capacity, InstancedModelBatcher batcher) {
+		super(capacity);
+
+		this.batcher = batcher;
+	}
+
+	public void setCurrentType(RenderType currentType) {
+		this.currentType = currentType;
+	}
+
+	/**
+	 * Attempts to capture a model part as an instance.
+	 *
+	 * @return true if the model part was captured and should not be compiled into this buffer, false otherwise
+	 */
+	public boolean captureInstance(ModelPart part, PoseStack.Pose pose, int light, int overlay) {
+		if (currentType == null) {
+			return false;
+		}
+
+		return batcher.capture(currentType, part, pose, light, overlay);
+	}
+}
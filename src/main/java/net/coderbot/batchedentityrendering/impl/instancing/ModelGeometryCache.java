@@ -0,0 +1,103 @@
+package net.coderbot.batchedentityrendering.impl.instancing;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.mojang.datafixers.util.Pair;
+import net.coderbot.batchedentityrendering.mixin.ModelPartAccessor;
+import net.coderbot.iris.block_rendering.BlockRenderingSettings;
+import net.minecraft.client.model.geom.ModelPart;
+import net.minecraft.client.renderer.texture.OverlayTexture;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL15C;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the model-space geometry of model parts so that it only needs to be built and uploaded once, instead of being
+ * transformed and uploaded again for every instance in every frame.
+ */
+public class ModelGeometryCache {
+	private static final int MAX_ENTRIES = 2048;
+
+	/**
+	 * An LRU cache mapping model parts to their uploaded geometry. Model parts don't override equals, so this is
+	 * effectively an identity map.
+	 */
+	private final LinkedHashMap<ModelPart, CachedModelGeometry> entries;
+	private final BufferBuilder scratchBuilder;
+	private final PoseStack.Pose identityPose;
+	private boolean builtWithExtendedFormat;
+
+	public ModelGeometryCache() {
+		// use accessOrder=true so our LinkedHashMap works as an LRU cache.
+		this.entries = new LinkedHashMap<>(256, 0.75F, true);
+		this.scratchBuilder = new BufferBuilder(4096);
+		this.identityPose = new PoseStack().last();
+	}
+
+	public CachedModelGeometry getOrBuild(ModelPart part, VertexFormat format) {
+		boolean extended = BlockRenderingSettings.INSTANCE.shouldUseExtendedVertexFormat();
+
+		if (extended != builtWithExtendedFormat) {
+			// The vertex layout changes when shaders are toggled, none of the cached geometry is usable anymore.
+			clear();
+			builtWithExtendedFormat = extended;
+		}
+
+		int cubeCount = ((ModelPartAccessor) part).getCubes().size();
+		CachedModelGeometry geometry = entries.get(part);
+
+		if (geometry != null && geometry.getCubeCount() == cubeCount) {
+			return geometry;
+		}
+
+		if (geometry != null) {
+			// Some mods add cubes to existing model parts after they have been rendered.
+			geometry.destroy();
+		}
+
+		geometry = build(part, format, cubeCount);
+		entries.put(part, geometry);
+
+		if (entries.size() > MAX_ENTRIES) {
+			// With how we've configured our LinkedHashMap, the first element is the one used least recently.
+			Iterator<Map.Entry<ModelPart, CachedModelGeometry>> iterator = entries.entrySet().iterator();
+			iterator.next().getValue().destroy();
+			iterator.remove();
+		}
+
+		return geometry;
+	}
+
+	private CachedModelGeometry build(ModelPart part, VertexFormat format, int cubeCount) {
+		// Compile the part with an identity pose, this gives us the vertices in model space. The lightmap and overlay
+		// coordinates written here are never read, since instanced draws take them from the instance data instead.
+		scratchBuilder.begin(GL11C.GL_QUADS, format);
+		((ModelPartAccessor) part).invokeCompile(identityPose, scratchBuilder, 0, OverlayTexture.NO_OVERLAY,
+			1.0F, 1.0F, 1.0F, 1.0F);
+		scratchBuilder.end();
+
+		Pair<BufferBuilder.DrawState, ByteBuffer> pair = scratchBuilder.popNextBuffer();
+		BufferBuilder.DrawState drawState = pair.getFirst();
+
+		int buffer = GlStateManager._glGenBuffers();
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, buffer);
+		GL15C.glBufferData(GL15C.GL_ARRAY_BUFFER, pair.getSecond(), GL15C.GL_STATIC_DRAW);
+		GlStateManager._glBindBuffer(GL15C.GL_ARRAY_BUFFER, 0);
+
+		return new CachedModelGeometry(buffer, drawState.format(), drawState.vertexCount(), cubeCount);
+	}
+
+	public void clear() {
+		for (CachedModelGeometry geometry : entries.values()) {
+			geometry.destroy();
+		}
+
+		entries.clear();
+	}
+}
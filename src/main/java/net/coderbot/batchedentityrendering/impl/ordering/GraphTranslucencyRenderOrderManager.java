@@ -23,6 +23,10 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
     private boolean inGroup = false;
     private final EnumMap<TransparencyType, RenderType> currentTypes;
 
+    private int lastVertexCount;
+    private int lastEdgeCount;
+    private long lastFeedbackArcSetNanos;
+
     public GraphTranslucencyRenderOrderManager() {
         feedbackArcSetProvider = new SimpleFeedbackArcSetProvider();
         types = new EnumMap<>(TransparencyType.class);
@@ -104,9 +108,12 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
 
     public Iterable<RenderType> getRenderOrder() {
         int layerCount = 0;
+        int edgeCount = 0;
+        long feedbackArcSetNanos = 0;
 
         for (Digraph<RenderType> graph : types.values()) {
             layerCount += graph.getVertexCount();
+            edgeCount += graph.getEdgeCount();
         }
 
         List<RenderType> allLayers = new ArrayList<>(layerCount);
@@ -116,8 +123,10 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
             // Running NP-hard algorithms in a real time rendering loop might not be an amazing idea.
             // This shouldn't be necessary in sane scenes, though, and if there aren't cycles,
             // then this *should* be relatively inexpensive, since it'll bail out and return an empty set.
+            long start = System.nanoTime();
             FeedbackArcSet<RenderType> arcSet =
                     feedbackArcSetProvider.getFeedbackArcSet(graph, graph, FeedbackArcSetPolicy.MIN_WEIGHT);
+            feedbackArcSetNanos += System.nanoTime() - start;
 
             if (arcSet.getEdgeCount() > 0) {
                 // This means that our dependency graph had cycles!!!
@@ -135,6 +144,29 @@ public class GraphTranslucencyRenderOrderManager implements RenderOrderManager {
             allLayers.addAll(Digraphs.toposort(graph, false));
         }
 
+        lastVertexCount = layerCount;
+        lastEdgeCount = edgeCount;
+        lastFeedbackArcSetNanos = feedbackArcSetNanos;
+
         return allLayers;
     }
+
+    /**
+     * The number of render types in the graph during the last call to {@link #getRenderOrder()}.
+     */
+    public int getLastVertexCount() {
+        return lastVertexCount;
+    }
+
+    /**
+     * The number of ordering constraints in the graph during the last call to {@link #getRenderOrder()}, before any
+     * cycles were broken.
+     */
+    public int getLastEdgeCount() {
+        return lastEdgeCount;
+    }
+
+    public long getLastFeedbackArcSetNanos() {
+        return lastFeedbackArcSetNanos;
+    }
 }
@@ -0,0 +1,38 @@
+package net.coderbot.batchedentityrendering.impl.statistics;
+
+/**
+ * The values recorded for each batch, that is, for everything rendered between two resets of the draw call counters.
+ */
+public enum BatchingMetric {
+	/**
+	 * The number of times that all buffered geometry was flushed.
+	 */
+	FLUSHES("flushes"),
+	DRAW_CALLS("drawCalls"),
+	RENDER_TYPES("renderTypes"),
+	SEGMENTS("segments"),
+	VERTICES("vertices"),
+	BYTES_UPLOADED("bytesUploaded"),
+	/**
+	 * The number of render types in the render order graph, summed over all flushes.
+	 */
+	ORDER_GRAPH_VERTICES("orderGraphVertices"),
+	/**
+	 * The number of ordering constraints in the render order graph, summed over all flushes.
+	 */
+	ORDER_GRAPH_EDGES("orderGraphEdges"),
+	/**
+	 * The total time spent finding feedback arc sets while resolving the render order, in nanoseconds.
+	 */
+	FEEDBACK_ARC_SET_NANOS("feedbackArcSetNanos");
+
+	private final String name;
+
+	BatchingMetric(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+}
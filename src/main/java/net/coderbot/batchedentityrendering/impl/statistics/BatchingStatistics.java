@@ -0,0 +1,126 @@
+package net.coderbot.batchedentityrendering.impl.statistics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps a history of the work done by the entity batching system, both in aggregate and per render type.
+ *
+ * <p>Render types are told apart by {@link Object#equals}, since wrapped render types such as
+ * OuterWrappedRenderType are created again for every entity on every frame, but are equal as long as they wrap the
+ * same render type.</p>
+ *
+ * <p>Recording only involves incrementing counters, so this is always enabled. Once a batch has ended, its counters are
+ * moved into ring buffers that hold the most recent {@link #HISTORY_SIZE} batches. Everything here must only be
+ * accessed from the render thread.</p>
+ */
+public class BatchingStatistics<T> {
+	public static final int HISTORY_SIZE = 256;
+
+	private static final int TYPE_VERTICES = 0;
+	private static final int TYPE_BYTES = 1;
+	private static final int TYPE_SEGMENTS = 2;
+	private static final int TYPE_COLUMNS = 3;
+
+	private static final BatchingMetric[] METRICS = BatchingMetric.values();
+
+	private final long[] current;
+	private final MetricRingBuffer history;
+	private final Map<T, TypeHistory> typeHistories;
+	private long batchIndex;
+
+	public BatchingStatistics() {
+		this.current = new long[METRICS.length];
+		this.history = new MetricRingBuffer(HISTORY_SIZE, METRICS.length);
+		this.typeHistories = new HashMap<>();
+		this.batchIndex = 0;
+	}
+
+	public void recordFlush() {
+		current[BatchingMetric.FLUSHES.ordinal()] += 1;
+	}
+
+	public void recordSegment(T type, int vertexCount, int byteCount) {
+		current[BatchingMetric.SEGMENTS.ordinal()] += 1;
+		current[BatchingMetric.VERTICES.ordinal()] += vertexCount;
+		current[BatchingMetric.BYTES_UPLOADED.ordinal()] += byteCount;
+
+		TypeHistory typeHistory = typeHistories.computeIfAbsent(type, t -> new TypeHistory());
+		typeHistory.current[TYPE_VERTICES] += vertexCount;
+		typeHistory.current[TYPE_BYTES] += byteCount;
+		typeHistory.current[TYPE_SEGMENTS] += 1;
+		typeHistory.lastSeenBatch = batchIndex;
+	}
+
+	public void recordRenderOrder(int graphVertices, int graphEdges, long feedbackArcSetNanos) {
+		current[BatchingMetric.ORDER_GRAPH_VERTICES.ordinal()] += graphVertices;
+		current[BatchingMetric.ORDER_GRAPH_EDGES.ordinal()] += graphEdges;
+		current[BatchingMetric.FEEDBACK_ARC_SET_NANOS.ordinal()] += feedbackArcSetNanos;
+	}
+
+	/**
+	 * Moves the counters of the current batch into the history.
+	 */
+	public void endBatch(int drawCalls, int renderTypes) {
+		current[BatchingMetric.DRAW_CALLS.ordinal()] = drawCalls;
+		current[BatchingMetric.RENDER_TYPES.ordinal()] = renderTypes;
+
+		history.push(current);
+		Arrays.fill(current, 0);
+
+		Iterator<TypeHistory> iterator = typeHistories.values().iterator();
+
+		while (iterator.hasNext()) {
+			TypeHistory typeHistory = iterator.next();
+
+			if (batchIndex - typeHistory.lastSeenBatch >= HISTORY_SIZE) {
+				// All of the recorded values of this type have fallen out of the history.
+				iterator.remove();
+				continue;
+			}
+
+			// Record a row for every type in every batch, so that the rows of all ring buffers line up.
+			typeHistory.history.push(typeHistory.current);
+			Arrays.fill(typeHistory.current, 0);
+		}
+
+		batchIndex += 1;
+	}
+
+	public long getBatchIndex() {
+		return batchIndex;
+	}
+
+	public MetricRingBuffer getHistory() {
+		return history;
+	}
+
+	public Map<T, TypeHistory> getTypeHistories() {
+		return Collections.unmodifiableMap(typeHistories);
+	}
+
+	public static class TypeHistory {
+		private final long[] current = new long[TYPE_COLUMNS];
+		private final MetricRingBuffer history = new MetricRingBuffer(HISTORY_SIZE, TYPE_COLUMNS);
+		private long lastSeenBatch;
+
+		public int size() {
+			return history.size();
+		}
+
+		public long getVertices(int row) {
+			return history.get(row, TYPE_VERTICES);
+		}
+
+		public long getBytes(int row) {
+			return history.get(row, TYPE_BYTES);
+		}
+
+		public long getSegments(int row) {
+			return history.get(row, TYPE_SEGMENTS);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package net.coderbot.batchedentityrendering.impl.statistics;
+
+import com.google.gson.stream.JsonWriter;
+import net.minecraft.Util;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Writes the contents of {@link BatchingStatistics} as CSV or JSON.
+ */
+public class BatchingStatisticsExporter {
+	private static final Logger LOGGER = LogManager.getLogger(BatchingStatisticsExporter.class);
+	private static final BatchingMetric[] METRICS = BatchingMetric.values();
+
+	/**
+	 * Writes one row per batch with the aggregate metrics, followed by one row per batch and render type.
+	 */
+	public static void writeCsv(BatchingStatistics<?> statistics, Writer writer) throws IOException {
+		MetricRingBuffer history = statistics.getHistory();
+		long firstBatch = statistics.getBatchIndex() - history.size();
+
+		writer.write("batch");
+
+		for (BatchingMetric metric : METRICS) {
+			writer.write(',');
+			writer.write(metric.getName());
+		}
+
+		writer.write('\n');
+
+		for (int row = 0; row < history.size(); row++) {
+			writer.write(Long.toString(firstBatch + row));
+
+			for (int column = 0; column < METRICS.length; column++) {
+				writer.write(',');
+				writer.write(Long.toString(history.get(row, column)));
+			}
+
+			writer.write('\n');
+		}
+
+		writer.write('\n');
+		writer.write("batch,renderType,vertices,bytesUploaded,segments\n");
+
+		for (Map.Entry<?, BatchingStatistics.TypeHistory> entry : statistics.getTypeHistories().entrySet()) {
+			BatchingStatistics.TypeHistory typeHistory = entry.getValue();
+			String name = escapeCsv(entry.getKey().toString());
+			long firstTypeBatch = statistics.getBatchIndex() - typeHistory.size();
+
+			for (int row = 0; row < typeHistory.size(); row++) {
+				if (typeHistory.getSegments(row) == 0) {
+					continue;
+				}
+
+				writer.write(Long.toString(firstTypeBatch + row));
+				writer.write(',');
+				writer.write(name);
+				writer.write(',');
+				writer.write(Long.toString(typeHistory.getVertices(row)));
+				writer.write(',');
+				writer.write(Long.toString(typeHistory.getBytes(row)));
+				writer.write(',');
+				writer.write(Long.toString(typeHistory.getSegments(row)));
+				writer.write('\n');
+			}
+		}
+	}
+
+	public static void writeJson(BatchingStatistics<?> statistics, Writer writer) throws IOException {
+		MetricRingBuffer history = statistics.getHistory();
+		long firstBatch = statistics.getBatchIndex() - history.size();
+
+		JsonWriter json = new JsonWriter(writer);
+		json.setIndent("  ");
+
+		json.beginObject();
+		json.name("batches").beginArray();
+
+		for (int row = 0; row < history.size(); row++) {
+			json.beginObject();
+			json.name("batch").value(firstBatch + row);
+
+			for (int column = 0; column < METRICS.length; column++) {
+				json.name(METRICS[column].getName()).value(history.get(row, column));
+			}
+
+			json.endObject();
+		}
+
+		json.endArray();
+		json.name("renderTypes").beginArray();
+
+		for (Map.Entry<?, BatchingStatistics.TypeHistory> entry : statistics.getTypeHistories().entrySet()) {
+			BatchingStatistics.TypeHistory typeHistory = entry.getValue();
+			long firstTypeBatch = statistics.getBatchIndex() - typeHistory.size();
+
+			json.beginObject();
+			json.name("name").value(entry.getKey().toString());
+			json.name("batches").beginArray();
+
+			for (int row = 0; row < typeHistory.size(); row++) {
+				if (typeHistory.getSegments(row) == 0) {
+					continue;
+				}
+
+				json.beginObject();
+				json.name("batch").value(firstTypeBatch + row);
+				json.name("vertices").value(typeHistory.getVertices(row));
+				json.name("bytesUploaded").value(typeHistory.getBytes(row));
+				json.name("segments").value(typeHistory.getSegments(row));
+				json.endObject();
+			}
+
+			json.endArray();
+			json.endObject();
+		}
+
+		json.endArray();
+		json.endObject();
+		json.flush();
+	}
+
+	/**
+	 * Exports the statistics as both CSV and JSON into the given directory. The statistics are serialized on the
+	 * calling thread, but the files are written asynchronously.
+	 *
+	 * @return the base name of the exported files, without an extension
+	 */
+	public static String export(BatchingStatistics<?> statistics, File directory) throws IOException {
+		StringWriter csv = new StringWriter();
+		StringWriter json = new StringWriter();
+
+		writeCsv(statistics, csv);
+		writeJson(statistics, json);
+
+		String baseName = "entity-batching-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date());
+
+		Util.ioPool().execute(() -> {
+			try {
+				directory.mkdirs();
+				Files.write(new File(directory, baseName + ".csv").toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+				Files.write(new File(directory, baseName + ".json").toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				LOGGER.error("Failed to export entity batching statistics", e);
+			}
+		});
+
+		return baseName;
+	}
+
+	private static String escapeCsv(String value) {
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1) {
+			return value;
+		}
+
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
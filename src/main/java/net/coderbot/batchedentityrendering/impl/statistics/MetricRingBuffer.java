@@ -0,0 +1,56 @@
+package net.coderbot.batchedentityrendering.impl.statistics;
+
+/**
+ * A fixed-size ring buffer of rows of long values. Once the buffer is full, adding a new row overwrites the oldest one.
+ */
+public class MetricRingBuffer {
+	private final int capacity;
+	private final int columns;
+	private final long[] values;
+	private int head;
+	private int size;
+
+	public MetricRingBuffer(int capacity, int columns) {
+		this.capacity = capacity;
+		this.columns = columns;
+		this.values = new long[capacity * columns];
+		this.head = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds a new row. The passed array is not retained.
+	 */
+	public void push(long[] row) {
+		System.arraycopy(row, 0, values, head * columns, columns);
+
+		head = (head + 1) % capacity;
+		size = Math.min(size + 1, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * Gets a value, where row 0 is the oldest row still in the buffer.
+	 */
+	public long get(int row, int column) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of bounds for size " + size);
+		}
+
+		int index = (head - size + row + capacity) % capacity;
+
+		return values[index * columns + column];
+	}
+
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+}
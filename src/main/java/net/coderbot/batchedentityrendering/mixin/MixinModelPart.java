@@ -0,0 +1,35 @@
+package net.coderbot.batchedentityrendering.mixin;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.coderbot.batchedentityrendering.impl.instancing.InstancingBufferBuilder;
+import net.minecraft.client.model.geom.ModelPart;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Hands the cubes of a model part off to the instanced model batcher when possible. Only the cubes of this specific
+ * part are skipped, child parts are rendered (and captured) separately.
+ */
+@Mixin(value = ModelPart.class, priority = 1010)
+public class MixinModelPart {
+	@Inject(method = "compile", at = @At("HEAD"), cancellable = true)
+	private void batchedentityrendering$captureInstance(PoseStack.Pose pose, VertexConsumer consumer, int light,
+														int overlay, float red, float green, float blue, float alpha,
+														CallbackInfo ci) {
+		if (!(consumer instanceof InstancingBufferBuilder)) {
+			return;
+		}
+
+		// Tinted model parts are uncommon, so don't bother passing the color through the instance data.
+		if (red != 1.0F || green != 1.0F || blue != 1.0F || alpha != 1.0F) {
+			return;
+		}
+
+		if (((InstancingBufferBuilder) consumer).captureInstance((ModelPart) (Object) this, pose, light, overlay)) {
+			ci.cancel();
+		}
+	}
+}
@@ -5,9 +5,11 @@ import net.coderbot.batchedentityrendering.impl.FullyBufferedMultiBufferSource;
 import net.coderbot.batchedentityrendering.impl.MemoryTrackingBuffer;
 import net.coderbot.batchedentityrendering.impl.MemoryTrackingRenderBuffers;
 import net.coderbot.batchedentityrendering.impl.RenderBuffersExt;
+import net.coderbot.batchedentityrendering.impl.statistics.BatchingStatistics;
 import net.minecraft.client.renderer.MultiBufferSource;
 import net.minecraft.client.renderer.OutlineBufferSource;
 import net.minecraft.client.renderer.RenderBuffers;
+import net.minecraft.client.renderer.RenderType;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -119,4 +121,9 @@ public class MixinRenderBuffers implements RenderBuffersExt, MemoryTrackingRende
 	public void resetDrawCounts() {
 		buffered.resetDrawCalls();
 	}
+
+	@Override
+	public BatchingStatistics<RenderType> getStatistics() {
+		return buffered.getStatistics();
+	}
 }
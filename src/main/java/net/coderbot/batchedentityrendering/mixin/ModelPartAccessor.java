@@ -0,0 +1,19 @@
+package net.coderbot.batchedentityrendering.mixin;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import net.minecraft.client.model.geom.ModelPart;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(ModelPart.class)
+public interface ModelPartAccessor {
+	@Accessor("cubes")
+	ObjectList<ModelPart.Cube> getCubes();
+
+	@Invoker("compile")
+	void invokeCompile(PoseStack.Pose pose, VertexConsumer consumer, int light, int overlay,
+					   float red, float green, float blue, float alpha);
+}
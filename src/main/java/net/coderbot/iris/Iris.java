@@ -3,6 +3,9 @@ package net.coderbot.iris;
 import com.google.common.base.Throwables;
 import com.mojang.blaze3d.platform.GlDebug;
 import com.mojang.blaze3d.platform.InputConstants;
+import net.coderbot.batchedentityrendering.impl.DrawCallTrackingRenderBuffers;
+import net.coderbot.batchedentityrendering.impl.statistics.BatchingStatistics;
+import net.coderbot.batchedentityrendering.impl.statistics.BatchingStatisticsExporter;
 import net.coderbot.iris.compat.sodium.SodiumVersionCheck;
 import net.coderbot.iris.config.IrisConfig;
 import net.coderbot.iris.gl.GLDebug;
@@ -35,6 +38,7 @@ import net.minecraft.world.level.dimension.DimensionType;
 import org.jetbrains.annotations.NotNull;
 import org.lwjgl.glfw.GLFW;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.FileSystem;
@@ -78,6 +82,7 @@ public class Iris {
 	private static KeyMapping reloadKeybind;
 	private static KeyMapping toggleShadersKeybind;
 	private static KeyMapping shaderpackScreenKeybind;
+	private static KeyMapping exportBatchingStatisticsKeybind;
 
 	private static final Map<String, String> shaderPackOptionQueue = new HashMap<>();
 	// Flag variable used when reloading
@@ -142,6 +147,8 @@ public class Iris {
 		reloadKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.reload", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_R, "iris.keybinds"));
 		toggleShadersKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.toggleShaders", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_K, "iris.keybinds"));
 		shaderpackScreenKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.shaderPackSelection", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_O, "iris.keybinds"));
+		// Unbound by default, this is only useful for people tuning their resource packs.
+		exportBatchingStatisticsKeybind = KeyBindingHelper.registerKeyBinding(new KeyMapping("iris.keybind.exportBatchingStatistics", InputConstants.Type.KEYSYM, GLFW.GLFW_KEY_UNKNOWN, "iris.keybinds"));
 
 		setupCommands(Minecraft.getInstance());
 
@@ -247,6 +254,30 @@ public class Iris {
 			}
 		} else if (shaderpackScreenKeybind.consumeClick()) {
 			minecraft.setScreen(new ShaderPackScreen(null));
+		} else if (exportBatchingStatisticsKeybind.consumeClick()) {
+			exportBatchingStatistics(minecraft);
+		}
+	}
+
+	private static void exportBatchingStatistics(Minecraft minecraft) {
+		if (!(minecraft.renderBuffers() instanceof DrawCallTrackingRenderBuffers)) {
+			return;
+		}
+
+		BatchingStatistics<?> statistics = ((DrawCallTrackingRenderBuffers) minecraft.renderBuffers()).getStatistics();
+
+		try {
+			String name = BatchingStatisticsExporter.export(statistics, new File(minecraft.gameDirectory, "debug"));
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.batching.exported", name), false);
+			}
+		} catch (IOException e) {
+			logger.error("Error while exporting entity batching statistics!", e);
+
+			if (minecraft.player != null) {
+				minecraft.player.displayClientMessage(new TranslatableComponent("iris.batching.exported.failure", Throwables.getRootCause(e).getMessage()).withStyle(ChatFormatting.RED), false);
+			}
 		}
 	}
 
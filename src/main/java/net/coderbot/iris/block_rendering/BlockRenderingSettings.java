@@ -21,6 +21,7 @@ public class BlockRenderingSettings {
 	private boolean disableDirectionalShading;
 	private boolean useSeparateAo;
 	private boolean useExtendedVertexFormat;
+	private boolean useCompactVertexFormat;
 
 	public BlockRenderingSettings() {
 		reloadRequired = false;
@@ -30,6 +31,7 @@ public class BlockRenderingSettings {
 		disableDirectionalShading = false;
 		useSeparateAo = false;
 		useExtendedVertexFormat = false;
+		useCompactVertexFormat = false;
 	}
 
 	public boolean isReloadRequired() {
@@ -130,4 +132,21 @@ public class BlockRenderingSettings {
 		this.reloadRequired = true;
 		this.useExtendedVertexFormat = useExtendedVertexFormat;
 	}
+
+	/**
+	 * Whether the extended vertex format should use the compact layout. Terrain shaders are patched differently
+	 * depending on this, so it must not change without rebuilding the world renderer and the terrain programs.
+	 */
+	public boolean shouldUseCompactVertexFormat() {
+		return useCompactVertexFormat;
+	}
+
+	public void setUseCompactVertexFormat(boolean useCompactVertexFormat) {
+		if (useCompactVertexFormat == this.useCompactVertexFormat) {
+			return;
+		}
+
+		this.reloadRequired = true;
+		this.useCompactVertexFormat = useCompactVertexFormat;
+	}
 }
@@ -0,0 +1,48 @@
+package net.coderbot.iris.block_rendering;
+
+import java.util.Arrays;
+
+/**
+ * Holds the directional shading / ambient occlusion brightnesses of the quad that is currently being written, so that
+ * they can be moved from the vertex color RGB into the alpha of each vertex. See
+ * {@link net.coderbot.iris.mixin.vertices.block_rendering.MixinBufferBuilder_SeparateAo}.
+ */
+public class SeparateAoBrightnesses {
+	private float[] brightnesses;
+	private int brightnessIndex;
+
+	/**
+	 * Remembers the brightnesses of a quad, which will be applied to the alpha of its vertices.
+	 *
+	 * @return brightnesses of 1.0 to use in place of the given ones, so that they aren't multiplied into the color
+	 */
+	public float[] begin(float[] brightnesses) {
+		this.brightnesses = brightnesses;
+		this.brightnessIndex = 0;
+
+		float[] neutral = new float[brightnesses.length];
+		Arrays.fill(neutral, 1.0f);
+
+		return neutral;
+	}
+
+	public boolean isPending() {
+		return brightnesses != null;
+	}
+
+	/**
+	 * @return the brightness of the next vertex of the quad, or the given alpha if all of them have been used
+	 */
+	public float apply(float alpha) {
+		if (brightnesses == null) {
+			return alpha;
+		}
+
+		if (brightnessIndex < brightnesses.length) {
+			return brightnesses[brightnessIndex++];
+		}
+
+		brightnesses = null;
+		return alpha;
+	}
+}
@@ -36,6 +36,41 @@ public class IrisConfig {
 	 */
 	private boolean disableUpdateMessage;
 
+	/**
+	 * If repeated entity model parts should be drawn with instanced draw calls. This changes how entity vertex shaders
+	 * are patched, so it is disabled by default.
+	 */
+	private boolean enableEntityInstancing;
+
+	/**
+	 * If translucent entity geometry should be sorted on worker threads instead of on the render thread.
+	 */
+	private boolean enableParallelTranslucentSorting;
+
+	/**
+	 * If Sodium terrain should use the compact extended vertex format, which quantizes midTexCoord and the normal
+	 * and relies on the patched terrain vertex shader to decode them.
+	 */
+	private boolean enableCompactTerrainVertexFormat;
+
+	/**
+	 * The time in milliseconds that the shadow pass may take each frame before the shadow render distance is reduced
+	 * automatically. Zero or less disables the automatic adjustment.
+	 */
+	private float shadowFrameBudget;
+
+	/**
+	 * If the processed PBR atlases should be stored on disk, so that they don't need to be stitched and mipmapped again
+	 * when resources are reloaded without any changes to the PBR textures.
+	 */
+	private boolean enablePBRAtlasCache;
+
+	/**
+	 * If the decoded custom textures of the shader pack should be kept in memory, so that they don't need to be decoded
+	 * again when the same pack is reloaded, such as after changing its options.
+	 */
+	private boolean enableCustomTextureCache;
+
 	private final Path propertiesPath;
 
 	public IrisConfig(Path propertiesPath) {
@@ -43,6 +78,12 @@ public class IrisConfig {
 		enableShaders = true;
 		enableDebugOptions = false;
 		disableUpdateMessage = false;
+		enableEntityInstancing = false;
+		enableParallelTranslucentSorting = false;
+		enableCompactTerrainVertexFormat = false;
+		shadowFrameBudget = 0.0F;
+		enablePBRAtlasCache = false;
+		enableCustomTextureCache = false;
 		this.propertiesPath = propertiesPath;
 	}
 
@@ -104,6 +145,30 @@ public class IrisConfig {
 		return disableUpdateMessage;
 	}
 
+	public boolean isEntityInstancingEnabled() {
+		return enableEntityInstancing;
+	}
+
+	public boolean isParallelTranslucentSortingEnabled() {
+		return enableParallelTranslucentSorting;
+	}
+
+	public boolean isCompactTerrainVertexFormatEnabled() {
+		return enableCompactTerrainVertexFormat;
+	}
+
+	public float getShadowFrameBudget() {
+		return shadowFrameBudget;
+	}
+
+	public boolean isPBRAtlasCacheEnabled() {
+		return enablePBRAtlasCache;
+	}
+
+	public boolean isCustomTextureCacheEnabled() {
+		return enableCustomTextureCache;
+	}
+
 	public void setDebugEnabled(boolean enabled) {
 		enableDebugOptions = enabled;
 	}
@@ -133,6 +198,11 @@ public class IrisConfig {
 		enableShaders = !"false".equals(properties.getProperty("enableShaders"));
 		enableDebugOptions = "true".equals(properties.getProperty("enableDebugOptions"));
 		disableUpdateMessage = "true".equals(properties.getProperty("disableUpdateMessage"));
+		enableEntityInstancing = "true".equals(properties.getProperty("enableEntityInstancing"));
+		enableParallelTranslucentSorting = "true".equals(properties.getProperty("enableParallelTranslucentSorting"));
+		enableCompactTerrainVertexFormat = "true".equals(properties.getProperty("enableCompactTerrainVertexFormat"));
+		enablePBRAtlasCache = "true".equals(properties.getProperty("enablePBRAtlasCache"));
+		enableCustomTextureCache = "true".equals(properties.getProperty("enableCustomTextureCache"));
 		try {
 			IrisVideoSettings.shadowDistance = Integer.parseInt(properties.getProperty("maxShadowRenderDistance", "32"));
 		} catch (NumberFormatException e) {
@@ -140,6 +210,13 @@ public class IrisConfig {
 			IrisVideoSettings.shadowDistance = 32;
 			save();
 		}
+		try {
+			shadowFrameBudget = Float.parseFloat(properties.getProperty("shadowFrameBudget", "0"));
+		} catch (NumberFormatException e) {
+			Iris.logger.error("Shadow frame budget setting reset; value is invalid.");
+			shadowFrameBudget = 0.0F;
+			save();
+		}
 
 		if (shaderPackName != null) {
 			if (shaderPackName.equals("(internal)") || shaderPackName.isEmpty()) {
@@ -159,7 +236,13 @@ public class IrisConfig {
 		properties.setProperty("enableShaders", enableShaders ? "true" : "false");
 		properties.setProperty("enableDebugOptions", enableDebugOptions ? "true" : "false");
 		properties.setProperty("disableUpdateMessage", disableUpdateMessage ? "true" : "false");
+		properties.setProperty("enableEntityInstancing", enableEntityInstancing ? "true" : "false");
+		properties.setProperty("enableParallelTranslucentSorting", enableParallelTranslucentSorting ? "true" : "false");
+		properties.setProperty("enableCompactTerrainVertexFormat", enableCompactTerrainVertexFormat ? "true" : "false");
+		properties.setProperty("enablePBRAtlasCache", enablePBRAtlasCache ? "true" : "false");
+		properties.setProperty("enableCustomTextureCache", enableCustomTextureCache ? "true" : "false");
 		properties.setProperty("maxShadowRenderDistance", String.valueOf(IrisVideoSettings.shadowDistance));
+		properties.setProperty("shadowFrameBudget", String.valueOf(shadowFrameBudget));
 		// NB: This uses ISO-8859-1 with unicode escapes as the encoding
 		properties.store(Files.newOutputStream(propertiesPath), COMMENT);
 	}
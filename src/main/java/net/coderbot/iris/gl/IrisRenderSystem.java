@@ -2,8 +2,11 @@ package net.coderbot.iris.gl;
 
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.coderbot.iris.vendored.joml.Vector3i;
 import net.coderbot.iris.Iris;
+import net.coderbot.iris.texture.TextureInfoCache;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.ARBDirectStateAccess;
 import org.lwjgl.opengl.EXTShaderImageLoadStore;
@@ -11,6 +14,8 @@ import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30C;
+import org.lwjgl.opengl.GL31C;
+import org.lwjgl.opengl.GL33C;
 import org.lwjgl.opengl.GL40C;
 import org.lwjgl.opengl.GL42C;
 import org.lwjgl.opengl.GL45C;
@@ -27,6 +32,11 @@ public class IrisRenderSystem {
 	private static DSAAccess dsaState;
 	private static boolean hasMultibind;
 	private static boolean supportsCompute;
+	private static final Int2IntMap textureTargets = new Int2IntOpenHashMap();
+
+	static {
+		textureTargets.defaultReturnValue(GL30C.GL_TEXTURE_2D);
+	}
 
 	public static void initRenderer() {
 		if (GL.getCapabilities().OpenGL45) {
@@ -69,10 +79,54 @@ public class IrisRenderSystem {
 		GL30C.glBindAttribLocation(program, index, name);
 	}
 
+	public static void texImage1D(int texture, int target, int level, int internalformat, int width, int border, int format, int type, @Nullable ByteBuffer pixels) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		bindTexture(target, texture);
+		GL30C.glTexImage1D(target, level, internalformat, width, border, format, type, pixels);
+	}
+
 	public static void texImage2D(int texture, int target, int level, int internalformat, int width, int height, int border, int format, int type, @Nullable ByteBuffer pixels) {
 		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
-		GlStateManager._bindTexture(texture);
+		bindTexture(target, texture);
 		GL30C.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+		TextureInfoCache.INSTANCE.onTexImage2D(texture, level, internalformat, width, height);
+	}
+
+	public static void texImage3D(int texture, int target, int level, int internalformat, int width, int height, int depth, int border, int format, int type, @Nullable ByteBuffer pixels) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		bindTexture(target, texture);
+		GL30C.glTexImage3D(target, level, internalformat, width, height, depth, border, format, type, pixels);
+	}
+
+	/**
+	 * Records the target of a texture that isn't a 2D texture. Without DSA, a texture can only be bound through its
+	 * target, and textures that weren't recorded here are bound as 2D textures.
+	 */
+	public static void setTextureTarget(int texture, int target) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+
+		if (target == GL30C.GL_TEXTURE_2D) {
+			textureTargets.remove(texture);
+		} else {
+			textureTargets.put(texture, target);
+		}
+	}
+
+	/**
+	 * Forgets the target of a texture, which must be done when it's deleted since its name may be reused.
+	 */
+	public static void removeTextureTarget(int texture) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		textureTargets.remove(texture);
+	}
+
+	private static void bindTexture(int target, int texture) {
+		if (target == GL30C.GL_TEXTURE_2D) {
+			// Goes through GlStateManager so that its cached binding stays correct
+			GlStateManager._bindTexture(texture);
+		} else {
+			GL30C.glBindTexture(target, texture);
+		}
 	}
 
 	public static void uniformMatrix4fv(int location, boolean transpose, FloatBuffer matrix) {
@@ -194,6 +248,16 @@ public class IrisRenderSystem {
 		GL30C.glVertexAttrib4f(index, v0, v1, v2, v3);
 	}
 
+	public static void vertexAttribDivisor(int index, int divisor) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL33C.glVertexAttribDivisor(index, divisor);
+	}
+
+	public static void drawArraysInstanced(int mode, int first, int count, int instanceCount) {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL31C.glDrawArraysInstanced(mode, first, count, instanceCount);
+	}
+
 	public static void detachShader(int program, int shader) {
 		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
 		GL30C.glDetachShader(program, shader);
@@ -417,19 +481,19 @@ public class IrisRenderSystem {
 
 		@Override
 		public void texParameteri(int texture, int target, int pname, int param) {
-			GlStateManager._bindTexture(texture);
+			bindTexture(target, texture);
 			GL30C.glTexParameteri(target, pname, param);
 		}
 
 		@Override
 		public void texParameterf(int texture, int target, int pname, float param) {
-			GlStateManager._bindTexture(texture);
+			bindTexture(target, texture);
 			GL30C.glTexParameterf(target, pname, param);
 		}
 
 		@Override
 		public void texParameteriv(int texture, int target, int pname, int[] params) {
-			GlStateManager._bindTexture(texture);
+			bindTexture(target, texture);
 			GL30C.glTexParameteriv(target, pname, params);
 		}
 
@@ -462,7 +526,7 @@ public class IrisRenderSystem {
 		@Override
 		public void bindTextureToUnit(int unit, int texture) {
 			GlStateManager._activeTexture(GL30C.GL_TEXTURE0 + unit);
-			GlStateManager._bindTexture(texture);
+			bindTexture(textureTargets.get(texture), texture);
 		}
 
 		@Override
@@ -498,7 +562,8 @@ public class IrisRenderSystem {
 		@Override
 		public int createTexture(int target) {
 			int texture = GlStateManager._genTexture();
-			GlStateManager._bindTexture(texture);
+			// The first binding decides the type of the texture, so it must be bound to the right target
+			bindTexture(target, texture);
 			return texture;
 		}
 	}
@@ -0,0 +1,88 @@
+package net.coderbot.iris.gl.query;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL15C;
+import org.lwjgl.opengl.GL33C;
+
+/**
+ * Measures the GPU time taken by a sequence of commands with timer queries.
+ *
+ * <p>Query results only become available a few frames after the commands have been submitted, and waiting for them
+ * would stall the CPU. So a small ring of queries is kept in flight, and the latest result that is available is
+ * reported. If every query is still in flight, that frame simply isn't measured.</p>
+ *
+ * <p>Timer queries can't be nested, so only one timer may be running at a time.</p>
+ */
+public class GlTimer {
+	private static final int QUERY_COUNT = 4;
+
+	private final int[] queries = new int[QUERY_COUNT];
+	private final boolean[] pending = new boolean[QUERY_COUNT];
+	private int next;
+	private boolean running;
+	private float lastTime = -1.0F;
+
+	public GlTimer() {
+		RenderSystem.assertThread(RenderSystem::isOnRenderThreadOrInit);
+		GL15C.glGenQueries(queries);
+	}
+
+	public static boolean isSupported() {
+		return GL.getCapabilities().OpenGL33;
+	}
+
+	public void begin() {
+		poll();
+
+		if (pending[next]) {
+			return;
+		}
+
+		GL15C.glBeginQuery(GL33C.GL_TIME_ELAPSED, queries[next]);
+		running = true;
+	}
+
+	public void end() {
+		if (!running) {
+			return;
+		}
+
+		GL15C.glEndQuery(GL33C.GL_TIME_ELAPSED);
+		pending[next] = true;
+		next = (next + 1) % QUERY_COUNT;
+		running = false;
+	}
+
+	/**
+	 * Collects the results of finished queries, from the oldest to the newest.
+	 */
+	private void poll() {
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			int index = (next + i) % QUERY_COUNT;
+
+			if (!pending[index]) {
+				continue;
+			}
+
+			if (GL15C.glGetQueryObjecti(queries[index], GL15C.GL_QUERY_RESULT_AVAILABLE) == 0) {
+				// Queries finish in order, so the newer ones can't be available either
+				return;
+			}
+
+			lastTime = GL33C.glGetQueryObjecti64(queries[index], GL15C.GL_QUERY_RESULT) / 1_000_000.0F;
+			pending[index] = false;
+		}
+	}
+
+	/**
+	 * Returns the most recent measurement in milliseconds, or a negative value if nothing has been measured yet.
+	 */
+	public float getLastTime() {
+		return lastTime;
+	}
+
+	public void destroy() {
+		GL15C.glDeleteQueries(queries);
+	}
+}
@@ -3,6 +3,7 @@
 package net.coderbot.iris.gl.shader;
 
 import com.mojang.blaze3d.platform.GlStateManager;
+import net.coderbot.batchedentityrendering.impl.instancing.EntityInstancing;
 import net.coderbot.iris.gl.GLDebug;
 import net.coderbot.iris.gl.IrisRenderSystem;
 import org.apache.logging.log4j.LogManager;
@@ -22,6 +23,7 @@ public class ProgramCreator {
 		IrisRenderSystem.bindAttributeLocation(program, 12, "mc_midTexCoord");
 		IrisRenderSystem.bindAttributeLocation(program, 13, "at_tangent");
 		IrisRenderSystem.bindAttributeLocation(program, 14, "at_midBlock");
+		EntityInstancing.bindAttributeLocations(program);
 
 		for (GlShader shader : shaders) {
 			GlStateManager.glAttachShader(program, shader.getHandle());
@@ -15,4 +15,5 @@ public class StateUpdateNotifiers {
 	public static ValueUpdateNotifier normalTextureChangeNotifier;
 	public static ValueUpdateNotifier specularTextureChangeNotifier;
 	public static ValueUpdateNotifier phaseChangeNotifier;
+	public static ValueUpdateNotifier shadowCascadeNotifier;
 }
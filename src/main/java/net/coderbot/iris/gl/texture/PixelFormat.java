@@ -8,24 +8,26 @@ import org.lwjgl.opengl.GL30C;
 import java.util.Optional;
 
 public enum PixelFormat {
-	RED(GL11C.GL_RED, GlVersion.GL_11),
-	RG(GL30C.GL_RG, GlVersion.GL_30),
-	RGB(GL11C.GL_RGB, GlVersion.GL_11),
-	BGR(GL12C.GL_BGR, GlVersion.GL_12),
-	RGBA(GL11C.GL_RGBA, GlVersion.GL_11),
-	BGRA(GL12C.GL_BGRA, GlVersion.GL_12),
-	RED_INTEGER(GL30C.GL_RED_INTEGER, GlVersion.GL_30),
-	RG_INTEGER(GL30C.GL_RG_INTEGER, GlVersion.GL_30),
-	RGB_INTEGER(GL30C.GL_RGB_INTEGER, GlVersion.GL_30),
-	BGR_INTEGER(GL30C.GL_BGR_INTEGER, GlVersion.GL_30),
-	RGBA_INTEGER(GL30C.GL_RGBA_INTEGER, GlVersion.GL_30),
-	BGRA_INTEGER(GL30C.GL_BGRA_INTEGER, GlVersion.GL_30);
+	RED(GL11C.GL_RED, 1, GlVersion.GL_11),
+	RG(GL30C.GL_RG, 2, GlVersion.GL_30),
+	RGB(GL11C.GL_RGB, 3, GlVersion.GL_11),
+	BGR(GL12C.GL_BGR, 3, GlVersion.GL_12),
+	RGBA(GL11C.GL_RGBA, 4, GlVersion.GL_11),
+	BGRA(GL12C.GL_BGRA, 4, GlVersion.GL_12),
+	RED_INTEGER(GL30C.GL_RED_INTEGER, 1, GlVersion.GL_30),
+	RG_INTEGER(GL30C.GL_RG_INTEGER, 2, GlVersion.GL_30),
+	RGB_INTEGER(GL30C.GL_RGB_INTEGER, 3, GlVersion.GL_30),
+	BGR_INTEGER(GL30C.GL_BGR_INTEGER, 3, GlVersion.GL_30),
+	RGBA_INTEGER(GL30C.GL_RGBA_INTEGER, 4, GlVersion.GL_30),
+	BGRA_INTEGER(GL30C.GL_BGRA_INTEGER, 4, GlVersion.GL_30);
 
 	private final int glFormat;
+	private final int componentCount;
 	private final GlVersion minimumGlVersion;
 
-	PixelFormat(int glFormat, GlVersion minimumGlVersion) {
+	PixelFormat(int glFormat, int componentCount, GlVersion minimumGlVersion) {
 		this.glFormat = glFormat;
+		this.componentCount = componentCount;
 		this.minimumGlVersion = minimumGlVersion;
 	}
 
@@ -41,6 +43,10 @@ public enum PixelFormat {
 		return glFormat;
 	}
 
+	public int getComponentCount() {
+		return componentCount;
+	}
+
 	public GlVersion getMinimumGlVersion() {
 		return minimumGlVersion;
 	}
@@ -8,32 +8,36 @@ import org.lwjgl.opengl.GL30C;
 import java.util.Optional;
 
 public enum PixelType {
-	BYTE(GL11C.GL_BYTE, GlVersion.GL_11),
-	SHORT(GL11C.GL_SHORT, GlVersion.GL_11),
-	INT(GL11C.GL_INT, GlVersion.GL_11),
-	HALF_FLOAT(GL30C.GL_HALF_FLOAT, GlVersion.GL_30),
-	FLOAT(GL11C.GL_FLOAT, GlVersion.GL_11),
-	UNSIGNED_BYTE(GL11C.GL_UNSIGNED_BYTE, GlVersion.GL_11),
-	UNSIGNED_BYTE_3_3_2(GL12C.GL_UNSIGNED_BYTE_3_3_2, GlVersion.GL_12),
-	UNSIGNED_BYTE_2_3_3_REV(GL12C.GL_UNSIGNED_BYTE_2_3_3_REV, GlVersion.GL_12),
-	UNSIGNED_SHORT(GL11C.GL_UNSIGNED_SHORT, GlVersion.GL_11),
-	UNSIGNED_SHORT_5_6_5(GL12C.GL_UNSIGNED_SHORT_5_6_5, GlVersion.GL_12),
-	UNSIGNED_SHORT_5_6_5_REV(GL12C.GL_UNSIGNED_SHORT_5_6_5_REV, GlVersion.GL_12),
-	UNSIGNED_SHORT_4_4_4_4(GL12C.GL_UNSIGNED_SHORT_4_4_4_4, GlVersion.GL_12),
-	UNSIGNED_SHORT_4_4_4_4_REV(GL12C.GL_UNSIGNED_SHORT_4_4_4_4_REV, GlVersion.GL_12),
-	UNSIGNED_SHORT_5_5_5_1(GL12C.GL_UNSIGNED_SHORT_5_5_5_1, GlVersion.GL_12),
-	UNSIGNED_SHORT_1_5_5_5_REV(GL12C.GL_UNSIGNED_SHORT_1_5_5_5_REV, GlVersion.GL_12),
-	UNSIGNED_INT(GL11C.GL_UNSIGNED_BYTE, GlVersion.GL_11),
-	UNSIGNED_INT_8_8_8_8(GL12C.GL_UNSIGNED_INT_8_8_8_8, GlVersion.GL_12),
-	UNSIGNED_INT_8_8_8_8_REV(GL12C.GL_UNSIGNED_INT_8_8_8_8_REV, GlVersion.GL_12),
-	UNSIGNED_INT_10_10_10_2(GL12C.GL_UNSIGNED_INT_10_10_10_2, GlVersion.GL_12),
-	UNSIGNED_INT_2_10_10_10_REV(GL12C.GL_UNSIGNED_INT_2_10_10_10_REV, GlVersion.GL_12);
+	BYTE(GL11C.GL_BYTE, 1, false, GlVersion.GL_11),
+	SHORT(GL11C.GL_SHORT, 2, false, GlVersion.GL_11),
+	INT(GL11C.GL_INT, 4, false, GlVersion.GL_11),
+	HALF_FLOAT(GL30C.GL_HALF_FLOAT, 2, false, GlVersion.GL_30),
+	FLOAT(GL11C.GL_FLOAT, 4, false, GlVersion.GL_11),
+	UNSIGNED_BYTE(GL11C.GL_UNSIGNED_BYTE, 1, false, GlVersion.GL_11),
+	UNSIGNED_BYTE_3_3_2(GL12C.GL_UNSIGNED_BYTE_3_3_2, 1, true, GlVersion.GL_12),
+	UNSIGNED_BYTE_2_3_3_REV(GL12C.GL_UNSIGNED_BYTE_2_3_3_REV, 1, true, GlVersion.GL_12),
+	UNSIGNED_SHORT(GL11C.GL_UNSIGNED_SHORT, 2, false, GlVersion.GL_11),
+	UNSIGNED_SHORT_5_6_5(GL12C.GL_UNSIGNED_SHORT_5_6_5, 2, true, GlVersion.GL_12),
+	UNSIGNED_SHORT_5_6_5_REV(GL12C.GL_UNSIGNED_SHORT_5_6_5_REV, 2, true, GlVersion.GL_12),
+	UNSIGNED_SHORT_4_4_4_4(GL12C.GL_UNSIGNED_SHORT_4_4_4_4, 2, true, GlVersion.GL_12),
+	UNSIGNED_SHORT_4_4_4_4_REV(GL12C.GL_UNSIGNED_SHORT_4_4_4_4_REV, 2, true, GlVersion.GL_12),
+	UNSIGNED_SHORT_5_5_5_1(GL12C.GL_UNSIGNED_SHORT_5_5_5_1, 2, true, GlVersion.GL_12),
+	UNSIGNED_SHORT_1_5_5_5_REV(GL12C.GL_UNSIGNED_SHORT_1_5_5_5_REV, 2, true, GlVersion.GL_12),
+	UNSIGNED_INT(GL11C.GL_UNSIGNED_INT, 4, false, GlVersion.GL_11),
+	UNSIGNED_INT_8_8_8_8(GL12C.GL_UNSIGNED_INT_8_8_8_8, 4, true, GlVersion.GL_12),
+	UNSIGNED_INT_8_8_8_8_REV(GL12C.GL_UNSIGNED_INT_8_8_8_8_REV, 4, true, GlVersion.GL_12),
+	UNSIGNED_INT_10_10_10_2(GL12C.GL_UNSIGNED_INT_10_10_10_2, 4, true, GlVersion.GL_12),
+	UNSIGNED_INT_2_10_10_10_REV(GL12C.GL_UNSIGNED_INT_2_10_10_10_REV, 4, true, GlVersion.GL_12);
 
 	private final int glFormat;
+	private final int byteSize;
+	private final boolean packed;
 	private final GlVersion minimumGlVersion;
 
-	PixelType(int glFormat, GlVersion minimumGlVersion) {
+	PixelType(int glFormat, int byteSize, boolean packed, GlVersion minimumGlVersion) {
 		this.glFormat = glFormat;
+		this.byteSize = byteSize;
+		this.packed = packed;
 		this.minimumGlVersion = minimumGlVersion;
 	}
 
@@ -49,6 +53,20 @@ public enum PixelType {
 		return glFormat;
 	}
 
+	/**
+	 * @return the size in bytes of a single component, or of a whole pixel if this is a packed type
+	 */
+	public int getByteSize() {
+		return byteSize;
+	}
+
+	/**
+	 * @return whether all components of a pixel are packed into a single value of this type
+	 */
+	public boolean isPacked() {
+		return packed;
+	}
+
 	public GlVersion getMinimumGlVersion() {
 		return minimumGlVersion;
 	}
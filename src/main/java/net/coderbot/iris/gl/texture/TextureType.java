@@ -0,0 +1,48 @@
+package net.coderbot.iris.gl.texture;
+
+import net.coderbot.iris.gl.GlVersion;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL12C;
+import org.lwjgl.opengl.GL31C;
+
+import java.util.Optional;
+
+public enum TextureType {
+	TEXTURE_1D(GL11C.GL_TEXTURE_1D, 1, GlVersion.GL_11),
+	TEXTURE_2D(GL11C.GL_TEXTURE_2D, 2, GlVersion.GL_11),
+	TEXTURE_3D(GL12C.GL_TEXTURE_3D, 3, GlVersion.GL_12),
+	TEXTURE_RECTANGLE(GL31C.GL_TEXTURE_RECTANGLE, 2, GlVersion.GL_31);
+
+	private final int glTarget;
+	private final int dimensions;
+	private final GlVersion minimumGlVersion;
+
+	TextureType(int glTarget, int dimensions, GlVersion minimumGlVersion) {
+		this.glTarget = glTarget;
+		this.dimensions = dimensions;
+		this.minimumGlVersion = minimumGlVersion;
+	}
+
+	public static Optional<TextureType> fromString(String name) {
+		try {
+			return Optional.of(TextureType.valueOf(name));
+		} catch (IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+
+	public int getGlTarget() {
+		return glTarget;
+	}
+
+	/**
+	 * @return the number of sizes needed to describe a texture of this type
+	 */
+	public int getDimensions() {
+		return dimensions;
+	}
+
+	public GlVersion getMinimumGlVersion() {
+		return minimumGlVersion;
+	}
+}
@@ -58,6 +58,26 @@ public class MixinMatrix4f implements Matrix4fAccess {
 		};
 	}
 
+	@Override
+	public void copyIntoArray(float[] m) {
+		m[0] = m00;
+		m[1] = m10;
+		m[2] = m20;
+		m[3] = m30;
+		m[4] = m01;
+		m[5] = m11;
+		m[6] = m21;
+		m[7] = m31;
+		m[8] = m02;
+		m[9] = m12;
+		m[10] = m22;
+		m[11] = m32;
+		m[12] = m03;
+		m[13] = m13;
+		m[14] = m23;
+		m[15] = m33;
+	}
+
 	@Override
 	public net.coderbot.iris.vendored.joml.Matrix4f convertToJOML() {
 		return new net.coderbot.iris.vendored.joml.Matrix4f(
@@ -67,4 +87,14 @@ public class MixinMatrix4f implements Matrix4fAccess {
 				m03, m13, m23, m33
 		);
 	}
+
+	@Override
+	public void copyIntoJOML(net.coderbot.iris.vendored.joml.Matrix4f dest) {
+		dest.set(
+				m00, m10, m20, m30,
+				m01, m11, m21, m31,
+				m02, m12, m22, m32,
+				m03, m13, m23, m33
+		);
+	}
 }
@@ -0,0 +1,11 @@
+package net.coderbot.iris.mixin.shadows;
+
+import net.minecraft.client.renderer.culling.Frustum;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(Frustum.class)
+public interface FrustumAccessor {
+	@Invoker("cubeInFrustum")
+	boolean invokeCubeInFrustum(double minX, double minY, double minZ, double maxX, double maxY, double maxZ);
+}
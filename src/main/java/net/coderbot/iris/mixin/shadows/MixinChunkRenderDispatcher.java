@@ -0,0 +1,24 @@
+package net.coderbot.iris.mixin.shadows;
+
+import net.coderbot.iris.shadows.ShadowVisibilityCache;
+import net.minecraft.client.renderer.chunk.ChunkRenderDispatcher;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Newly uploaded chunks may change which chunks are visible to the shadow camera, so the cached shadow chunk list
+ * needs to be recomputed.
+ *
+ * This is not relevant with Sodium installed, see the Sodium shadow_map mixins for the equivalent.
+ */
+@Mixin(ChunkRenderDispatcher.class)
+public class MixinChunkRenderDispatcher {
+	@Inject(method = "uploadAllPendingUploads()Z", at = @At("RETURN"))
+	private void iris$invalidateShadowVisibility(CallbackInfoReturnable<Boolean> cir) {
+		if (cir.getReturnValue()) {
+			ShadowVisibilityCache.onChunksChanged();
+		}
+	}
+}
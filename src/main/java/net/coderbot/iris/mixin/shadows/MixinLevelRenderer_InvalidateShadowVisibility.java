@@ -0,0 +1,22 @@
+package net.coderbot.iris.mixin.shadows;
+
+import net.coderbot.iris.shadows.ShadowVisibilityCache;
+import net.minecraft.client.renderer.LevelRenderer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Makes sure that the cached shadow chunk list is discarded when all chunks are reloaded, since the cached list would
+ * otherwise refer to chunks that no longer exist.
+ *
+ * Uses a priority of 1010 to apply after Sodium's overwrite of allChanged.
+ */
+@Mixin(value = LevelRenderer.class, priority = 1010)
+public class MixinLevelRenderer_InvalidateShadowVisibility {
+	@Inject(method = "allChanged()V", at = @At("HEAD"))
+	private void iris$invalidateShadowVisibility(CallbackInfo ci) {
+		ShadowVisibilityCache.onChunksChanged();
+	}
+}
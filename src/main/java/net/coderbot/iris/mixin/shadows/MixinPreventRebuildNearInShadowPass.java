@@ -2,18 +2,30 @@ package net.coderbot.iris.mixin.shadows;
 
 import it.unimi.dsi.fastutil.objects.ObjectList;
 import net.coderbot.iris.pipeline.ShadowRenderer;
+import net.coderbot.iris.shadows.frustum.advanced.AabbBatch;
+import net.coderbot.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowClippingPlanes;
+import net.coderbot.iris.shadows.occlusion.LightSpaceOcclusionCuller;
+import net.coderbot.iris.shadows.occlusion.RenderChunkVisibilityGraph;
 import net.minecraft.client.Camera;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.chunk.ChunkRenderDispatcher;
 import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Group;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Prevent nearby chunks from being rebuilt on the main thread in the shadow pass. Aside from causing  FPS to tank,
  * this also causes weird chunk corruption! It's critical to make sure that it's disabled as a result.
@@ -31,6 +43,18 @@ public class MixinPreventRebuildNearInShadowPass {
 	@Final
 	private ObjectList<LevelRenderer.RenderChunkInfo> renderChunks;
 
+	@Unique
+	private final RenderChunkVisibilityGraph iris$shadowVisibilityGraph = new RenderChunkVisibilityGraph();
+
+	@Unique
+	private final List<ChunkRenderDispatcher.RenderChunk> iris$shadowFrustumChunks = new ArrayList<>();
+
+	@Unique
+	private final AabbBatch iris$blockEntityBatch = new AabbBatch(64);
+
+	@Unique
+	private byte[] iris$blockEntityResults = new byte[64];
+
 	@Group(name = "iris_MixinPreventRebuildNearInShadowPass", min = 1, max = 1)
 	@Inject(method = "setupRender",
 			at = @At(value = "INVOKE_STRING",
@@ -41,14 +65,94 @@ public class MixinPreventRebuildNearInShadowPass {
 	private void iris$preventRebuildNearInShadowPass(Camera camera, Frustum frustum, boolean hasForcedFrustum,
 													 int frame, boolean spectator, CallbackInfo callback) {
 		if (ShadowRenderer.ACTIVE) {
+			LightSpaceOcclusionCuller occlusionCuller = ShadowRenderer.OCCLUSION_CULLER;
+
+			// The chunk list is only rebuilt if the frustum isn't forced, see ShadowVisibilityCache.
+			if (occlusionCuller != null && !hasForcedFrustum) {
+				iris$cullOccludedShadowChunks(occlusionCuller);
+			}
+
 			for (LevelRenderer.RenderChunkInfo chunk : this.renderChunks) {
-				ShadowRenderer.visibleBlockEntities.addAll(((ChunkInfoAccessor) chunk).getChunk().getCompiledChunk().getRenderableBlockEntities());
+				ChunkRenderDispatcher.RenderChunk renderChunk = ((ChunkInfoAccessor) chunk).getChunk();
+				List<BlockEntity> blockEntities = renderChunk.getCompiledChunk().getRenderableBlockEntities();
+
+				if (frustum instanceof AdvancedShadowCullingFrustum && !blockEntities.isEmpty()) {
+					iris$addVisibleBlockEntities((AdvancedShadowCullingFrustum) frustum, renderChunk, blockEntities);
+				} else {
+					ShadowRenderer.visibleBlockEntities.addAll(blockEntities);
+				}
 			}
 			Minecraft.getInstance().getProfiler().pop();
 			callback.cancel();
 		}
 	}
 
+	/**
+	 * Only tests the block entities of a chunk against the frustum if the chunk itself isn't fully inside of it.
+	 */
+	@Unique
+	private void iris$addVisibleBlockEntities(AdvancedShadowCullingFrustum frustum,
+											  ChunkRenderDispatcher.RenderChunk renderChunk,
+											  List<BlockEntity> blockEntities) {
+		int visibility = frustum.checkVisibility(renderChunk.bb);
+
+		if (visibility == ShadowClippingPlanes.INSIDE) {
+			ShadowRenderer.visibleBlockEntities.addAll(blockEntities);
+			return;
+		} else if (visibility == ShadowClippingPlanes.OUTSIDE) {
+			return;
+		}
+
+		BlockPos origin = renderChunk.getOrigin();
+		AabbBatch batch = iris$blockEntityBatch;
+		batch.reset(origin.getX(), origin.getY(), origin.getZ());
+
+		for (BlockEntity blockEntity : blockEntities) {
+			BlockPos pos = blockEntity.getBlockPos();
+			float x = pos.getX() - origin.getX();
+			float y = pos.getY() - origin.getY();
+			float z = pos.getZ() - origin.getZ();
+
+			// Leave some leeway, since block entities can render slightly outside of their block.
+			batch.addRelative(x - 1.0F, y - 1.0F, z - 1.0F, x + 2.0F, y + 2.0F, z + 2.0F);
+		}
+
+		if (iris$blockEntityResults.length < batch.size()) {
+			iris$blockEntityResults = new byte[batch.size()];
+		}
+
+		frustum.checkVisibility(batch, iris$blockEntityResults);
+
+		for (int i = 0; i < blockEntities.size(); i++) {
+			if (iris$blockEntityResults[i] != ShadowClippingPlanes.OUTSIDE) {
+				ShadowRenderer.visibleBlockEntities.add(blockEntities.get(i));
+			}
+		}
+	}
+
+	@Unique
+	private void iris$cullOccludedShadowChunks(LightSpaceOcclusionCuller occlusionCuller) {
+		List<ChunkRenderDispatcher.RenderChunk> chunks = iris$shadowFrustumChunks;
+
+		for (LevelRenderer.RenderChunkInfo chunk : this.renderChunks) {
+			chunks.add(((ChunkInfoAccessor) chunk).getChunk());
+		}
+
+		// Only chunks within the shadow frustum can occlude other chunks, since anything else isn't rendered.
+		RenderChunkVisibilityGraph graph = iris$shadowVisibilityGraph;
+		graph.update(chunks);
+		chunks.clear();
+
+		occlusionCuller.compute(graph, graph.getMinX(), graph.getMinY(), graph.getMinZ(),
+			graph.getMaxX(), graph.getMaxY(), graph.getMaxZ());
+
+		this.renderChunks.removeIf(chunk -> {
+			BlockPos origin = ((ChunkInfoAccessor) chunk).getChunk().getOrigin();
+
+			return !occlusionCuller.isVisible(origin.getX() >> 4, origin.getY() >> 4, origin.getZ() >> 4);
+		});
+	}
+
 	@Group(name = "iris_MixinPreventRebuildNearInShadowPass", min = 1, max = 1)
 	@Inject(method = "setupRender",
 			at = @At(value = "INVOKE",
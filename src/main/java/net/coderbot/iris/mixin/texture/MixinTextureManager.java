@@ -2,7 +2,10 @@ package net.coderbot.iris.mixin.texture;
 
 import net.coderbot.iris.texture.format.TextureFormatLoader;
 import net.coderbot.iris.texture.pbr.PBRTextureManager;
+import net.minecraft.client.renderer.texture.AbstractTexture;
+import net.minecraft.client.renderer.texture.TextureAtlas;
 import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.ResourceManager;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -13,12 +16,23 @@ import java.util.concurrent.Executor;
 
 @Mixin(TextureManager.class)
 public class MixinTextureManager {
-	@Inject(method = "lambda$reload$4(Lnet/minecraft/server/packs/resources/ResourceManager;Ljava/util/concurrent/Executor;Ljava/lang/Void;)V", at = @At("TAIL"))
-	private void iris$onTailReloadLambda(ResourceManager resourceManager, Executor applyExecutor, Void void1, CallbackInfo ci) {
+	// The lambda resets every texture, which registers them again and starts preloading their PBR textures, so
+	// everything from before the reload needs to be cleared before that happens.
+	@Inject(method = "lambda$reload$4(Lnet/minecraft/server/packs/resources/ResourceManager;Ljava/util/concurrent/Executor;Ljava/lang/Void;)V", at = @At("HEAD"))
+	private void iris$onHeadReloadLambda(ResourceManager resourceManager, Executor applyExecutor, Void void1, CallbackInfo ci) {
 		TextureFormatLoader.reload(resourceManager);
 		PBRTextureManager.INSTANCE.clear();
 	}
 
+	@Inject(method = "register(Lnet/minecraft/resources/ResourceLocation;Lnet/minecraft/client/renderer/texture/AbstractTexture;)V", at = @At("TAIL"))
+	private void iris$onTailRegister(ResourceLocation location, AbstractTexture texture, CallbackInfo ci) {
+		// Atlases are preloaded whenever they are stitched, which may happen before they are registered (ModelBakery) or
+		// long after, and registering an atlas doesn't change its sprites.
+		if (!(texture instanceof TextureAtlas)) {
+			PBRTextureManager.INSTANCE.preloadHolder(texture);
+		}
+	}
+
 	@Inject(method = "close()V", at = @At("TAIL"), remap = false)
 	private void iris$onTailClose(CallbackInfo ci) {
 		PBRTextureManager.INSTANCE.close();
@@ -0,0 +1,11 @@
+package net.coderbot.iris.mixin.texture;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(NativeImage.class)
+public interface NativeImageAccessor {
+	@Accessor("pixels")
+	long getPixels();
+}
@@ -0,0 +1,26 @@
+package net.coderbot.iris.mixin.texture.pbr;
+
+import net.coderbot.iris.texture.pbr.CompiledChunkExtension;
+import net.minecraft.client.renderer.chunk.ChunkRenderDispatcher;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(ChunkRenderDispatcher.CompiledChunk.class)
+public class MixinCompiledChunk implements CompiledChunkExtension {
+	@Unique
+	@Nullable
+	private TextureAtlasSprite[] renderedSprites;
+
+	@Override
+	@Nullable
+	public TextureAtlasSprite[] getRenderedSprites() {
+		return renderedSprites;
+	}
+
+	@Override
+	public void setRenderedSprites(@Nullable TextureAtlasSprite[] sprites) {
+		renderedSprites = sprites;
+	}
+}
@@ -0,0 +1,28 @@
+package net.coderbot.iris.mixin.texture.pbr;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.coderbot.iris.texture.pbr.PBRSpriteVisibility;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.entity.ItemRenderer;
+import net.minecraft.world.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.List;
+
+/**
+ * Uses a priority of 1010 to apply after Sodium's overwrite of renderQuadList.
+ */
+@Mixin(value = ItemRenderer.class, priority = 1010)
+public class MixinItemRenderer {
+	@Inject(method = "renderQuadList", at = @At("HEAD"))
+	private void iris$onRenderQuadList(PoseStack poseStack, VertexConsumer consumer, List<BakedQuad> quads,
+									   ItemStack stack, int light, int overlay, CallbackInfo ci) {
+		for (BakedQuad quad : quads) {
+			PBRSpriteVisibility.onSpriteRendered(quad.getSprite());
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package net.coderbot.iris.mixin.texture.pbr;
+
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import net.coderbot.iris.mixin.shadows.ChunkInfoAccessor;
+import net.coderbot.iris.texture.pbr.CompiledChunkExtension;
+import net.coderbot.iris.texture.pbr.PBRSpriteVisibility;
+import net.minecraft.client.Camera;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Marks the sprites in every chunk that is going to be rendered as visible. This only happens on the first frame after
+ * the visibility of sprites was reset, see {@link PBRSpriteVisibility}.
+ *
+ * The shadow pass cancels setupRender before reaching its tail, so only chunks visible to the player are considered.
+ * This is not relevant with Sodium installed, since Sodium has its own chunk list. Uses a priority of 1010 to apply
+ * after Sodium's overwrite of setupRender.
+ */
+@Mixin(value = LevelRenderer.class, priority = 1010)
+public class MixinLevelRenderer {
+	@Shadow
+	@Final
+	private ObjectList<LevelRenderer.RenderChunkInfo> renderChunks;
+
+	@Inject(method = "setupRender", at = @At("TAIL"), require = 0)
+	private void iris$markVisibleSprites(Camera camera, Frustum frustum, boolean hasForcedFrustum, int frame,
+										 boolean spectator, CallbackInfo ci) {
+		if (!PBRSpriteVisibility.shouldMarkChunks()) {
+			return;
+		}
+
+		for (LevelRenderer.RenderChunkInfo chunk : renderChunks) {
+			CompiledChunkExtension compiledChunk = (CompiledChunkExtension) ((ChunkInfoAccessor) chunk).getChunk().getCompiledChunk();
+			TextureAtlasSprite[] sprites = compiledChunk.getRenderedSprites();
+
+			if (sprites != null) {
+				PBRSpriteVisibility.markVisible(sprites);
+			}
+		}
+
+		PBRSpriteVisibility.onChunksMarked();
+	}
+}
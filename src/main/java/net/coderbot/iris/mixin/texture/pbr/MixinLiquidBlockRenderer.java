@@ -0,0 +1,41 @@
+package net.coderbot.iris.mixin.texture.pbr;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.coderbot.iris.texture.pbr.PBRSpriteVisibility;
+import net.minecraft.client.renderer.block.LiquidBlockRenderer;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.core.BlockPos;
+import net.minecraft.tags.FluidTags;
+import net.minecraft.world.level.BlockAndTintGetter;
+import net.minecraft.world.level.material.FluidState;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Fluids aren't rendered from baked quads, so their still and flowing sprites are marked separately.
+ */
+@Mixin(LiquidBlockRenderer.class)
+public class MixinLiquidBlockRenderer {
+	@Shadow
+	@Final
+	private TextureAtlasSprite[] lavaIcons;
+
+	@Shadow
+	@Final
+	private TextureAtlasSprite[] waterIcons;
+
+	@Inject(method = "tesselate", at = @At("HEAD"))
+	private void iris$onTesselate(BlockAndTintGetter level, BlockPos pos, VertexConsumer consumer, FluidState fluidState,
+								  CallbackInfoReturnable<Boolean> cir) {
+		TextureAtlasSprite[] sprites = fluidState.is(FluidTags.LAVA) ? lavaIcons : waterIcons;
+		for (TextureAtlasSprite sprite : sprites) {
+			if (sprite != null) {
+				PBRSpriteVisibility.onSpriteRendered(sprite);
+			}
+		}
+	}
+}
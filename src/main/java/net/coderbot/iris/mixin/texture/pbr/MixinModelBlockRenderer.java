@@ -0,0 +1,25 @@
+package net.coderbot.iris.mixin.texture.pbr;
+
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.coderbot.iris.texture.pbr.PBRSpriteVisibility;
+import net.minecraft.client.renderer.block.ModelBlockRenderer;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.BlockAndTintGetter;
+import net.minecraft.world.level.block.state.BlockState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ModelBlockRenderer.class)
+public class MixinModelBlockRenderer {
+	@Inject(method = "putQuadData", at = @At("HEAD"))
+	private void iris$onPutQuadData(BlockAndTintGetter level, BlockState state, BlockPos pos, VertexConsumer consumer,
+									PoseStack.Pose pose, BakedQuad quad, float brightness0, float brightness1,
+									float brightness2, float brightness3, int light0, int light1, int light2, int light3,
+									int overlay, CallbackInfo ci) {
+		PBRSpriteVisibility.onSpriteRendered(quad.getSprite());
+	}
+}
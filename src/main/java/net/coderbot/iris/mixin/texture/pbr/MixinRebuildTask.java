@@ -0,0 +1,34 @@
+package net.coderbot.iris.mixin.texture.pbr;
+
+import net.coderbot.iris.texture.pbr.CompiledChunkExtension;
+import net.coderbot.iris.texture.pbr.PBRSpriteVisibility;
+import net.minecraft.client.renderer.ChunkBufferBuilderPack;
+import net.minecraft.client.renderer.chunk.ChunkRenderDispatcher;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.Set;
+
+/**
+ * Remembers which sprites a chunk contains while it is being built, so that they can be marked as visible whenever
+ * the chunk is rendered.
+ */
+@Mixin(targets = "net.minecraft.client.renderer.chunk.ChunkRenderDispatcher$RenderChunk$RebuildTask")
+public class MixinRebuildTask {
+	private static final String COMPILE = "compile(FFFLnet/minecraft/client/renderer/chunk/ChunkRenderDispatcher$CompiledChunk;Lnet/minecraft/client/renderer/ChunkBufferBuilderPack;)Ljava/util/Set;";
+
+	@Inject(method = COMPILE, at = @At("HEAD"))
+	private void iris$beginCollectingSprites(float cameraX, float cameraY, float cameraZ, ChunkRenderDispatcher.CompiledChunk compiledChunk,
+											 ChunkBufferBuilderPack buffers, CallbackInfoReturnable<Set<BlockEntity>> cir) {
+		PBRSpriteVisibility.beginCollecting();
+	}
+
+	@Inject(method = COMPILE, at = @At("RETURN"))
+	private void iris$finishCollectingSprites(float cameraX, float cameraY, float cameraZ, ChunkRenderDispatcher.CompiledChunk compiledChunk,
+											  ChunkBufferBuilderPack buffers, CallbackInfoReturnable<Set<BlockEntity>> cir) {
+		((CompiledChunkExtension) compiledChunk).setRenderedSprites(PBRSpriteVisibility.finishCollecting());
+	}
+}
@@ -1,6 +1,7 @@
 package net.coderbot.iris.mixin.texture.pbr;
 
 import net.coderbot.iris.texture.pbr.PBRAtlasHolder;
+import net.coderbot.iris.texture.pbr.PBRTextureManager;
 import net.coderbot.iris.texture.pbr.TextureAtlasExtension;
 import net.minecraft.client.renderer.texture.AbstractTexture;
 import net.minecraft.client.renderer.texture.TextureAtlas;
@@ -22,6 +23,11 @@ public abstract class MixinTextureAtlas extends AbstractTexture implements Textu
 		}
 	}
 
+	@Inject(method = "reload(Lnet/minecraft/client/renderer/texture/TextureAtlas$Preparations;)V", at = @At("TAIL"))
+	private void iris$onTailReload(TextureAtlas.Preparations preparations, CallbackInfo ci) {
+		PBRTextureManager.INSTANCE.preloadHolder(this);
+	}
+
 	@Override
 	public PBRAtlasHolder getPBRHolder() {
 		return pbrHolder;
@@ -3,6 +3,7 @@ package net.coderbot.iris.mixin.vertices;
 import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.BufferVertexConsumer;
 import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.DefaultedVertexConsumer;
 import com.mojang.blaze3d.vertex.VertexFormat;
 import com.mojang.blaze3d.vertex.VertexFormatElement;
 import net.coderbot.iris.block_rendering.BlockRenderingSettings;
@@ -10,11 +11,14 @@ import net.coderbot.iris.vendored.joml.Vector3f;
 import net.coderbot.iris.vertices.BlockSensitiveBufferBuilder;
 import net.coderbot.iris.vertices.BufferBuilderPolygonView;
 import net.coderbot.iris.vertices.ExtendedDataHelper;
+import net.coderbot.iris.vertices.ExtendedVertexWriter;
 import net.coderbot.iris.vertices.ExtendingBufferBuilder;
 import net.coderbot.iris.vertices.IrisVertexFormats;
 import net.coderbot.iris.vertices.NormalHelper;
+import net.coderbot.iris.vertices.SeparateAoBufferBuilder;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.system.MemoryUtil;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
@@ -28,7 +32,7 @@ import java.nio.ByteBuffer;
  * Dynamically and transparently extends the vanilla vertex formats with additional data
  */
 @Mixin(BufferBuilder.class)
-public abstract class MixinBufferBuilder implements BufferVertexConsumer, BlockSensitiveBufferBuilder, ExtendingBufferBuilder {
+public abstract class MixinBufferBuilder extends DefaultedVertexConsumer implements BufferVertexConsumer, BlockSensitiveBufferBuilder, ExtendingBufferBuilder {
 	@Unique
 	private boolean extending;
 
@@ -86,6 +90,15 @@ public abstract class MixinBufferBuilder implements BufferVertexConsumer, BlockS
 	@Shadow
 	private @Nullable VertexFormatElement currentElement;
 
+	@Shadow
+	private int elementIndex;
+
+	@Shadow
+	private int vertices;
+
+	@Shadow
+	protected abstract void ensureVertexCapacity();
+
 	@Shadow
 	public abstract void begin(int drawMode, VertexFormat vertexFormat);
 
@@ -141,6 +154,58 @@ public abstract class MixinBufferBuilder implements BufferVertexConsumer, BlockS
 		fullFormat = false;
 	}
 
+	/**
+	 * Vanilla has a fast path for writing entire vertices at once, but it only supports the vanilla vertex formats, and
+	 * we have to disable it when extending. This restores an equivalent fast path for the extended vertex formats.
+	 */
+	@Inject(method = "vertex(FFFFFFFFFIIFFF)V", at = @At("HEAD"), cancellable = true)
+	private void iris$onFullVertex(float x, float y, float z, float red, float green, float blue, float alpha,
+								   float u, float v, int overlay, int light, float normalX, float normalY, float normalZ,
+								   CallbackInfo ci) {
+		// If a vertex was partially written through the element-wise methods, or a default color was set, let vanilla
+		// handle (and reject) it.
+		if (!extending || injectNormal || elementIndex != 0 || defaultColorSet) {
+			return;
+		}
+
+		// Other draw modes may rely on per-element hooks, such as the strip splitting in batched entity rendering.
+		if (mode != GL11.GL_QUADS && mode != GL11.GL_TRIANGLES) {
+			return;
+		}
+
+		// The buffer normally has room for the next vertex after endVertex, but not right after begin switched to a
+		// larger extended format. This may also reallocate the buffer, so it has to happen before taking its address.
+		ensureVertexCapacity();
+
+		// This replaces the method body of MixinBufferBuilder_SeparateAo, so it has to move the ambient occlusion into
+		// the alpha itself.
+		alpha = ((SeparateAoBufferBuilder) this).iris$applySeparateAo(alpha);
+
+		long pointer = MemoryUtil.memAddress0(buffer) + nextElementByte;
+
+		if (iris$isTerrain) {
+			int midBlock = ExtendedDataHelper.computeMidBlock(x, y, z, currentLocalPosX, currentLocalPosY, currentLocalPosZ);
+
+			nextElementByte += ExtendedVertexWriter.writeTerrainVertex(pointer, x, y, z, red, green, blue, alpha, u, v,
+				light, normalX, normalY, normalZ, currentBlock, currentRenderType, midBlock);
+		} else {
+			nextElementByte += ExtendedVertexWriter.writeEntityVertex(pointer, x, y, z, red, green, blue, alpha, u, v,
+				overlay, light, normalX, normalY, normalZ);
+		}
+
+		vertexCount++;
+
+		if (mode == GL11.GL_QUADS && vertexCount == 4 || mode == GL11.GL_TRIANGLES && vertexCount == 3) {
+			fillExtendedData(vertexCount);
+		}
+
+		// This is what vanilla endVertex does, we can't call it since that would run our element-wise logic.
+		vertices++;
+		ensureVertexCapacity();
+
+		ci.cancel();
+	}
+
 	@Inject(method = "endVertex", at = @At("HEAD"))
 	private void iris$beforeNext(CallbackInfo ci) {
 		if (!extending) {
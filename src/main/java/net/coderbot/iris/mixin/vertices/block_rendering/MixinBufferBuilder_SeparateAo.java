@@ -4,12 +4,12 @@ import com.mojang.blaze3d.vertex.BufferBuilder;
 import com.mojang.blaze3d.vertex.DefaultedVertexConsumer;
 import com.mojang.blaze3d.vertex.PoseStack;
 import net.coderbot.iris.block_rendering.BlockRenderingSettings;
+import net.coderbot.iris.block_rendering.SeparateAoBrightnesses;
+import net.coderbot.iris.vertices.SeparateAoBufferBuilder;
 import net.minecraft.client.renderer.block.model.BakedQuad;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 
-import java.util.Arrays;
-
 /**
  * Allows directional shading and ambient occlusion data to be stored separately in the vertex format.
  *
@@ -20,24 +20,20 @@ import java.util.Arrays;
  * Since the alpha field of the vertex color is unused for blocks (always set to 1.0), it is possible to use the alpha
  * field to store the directional shading / ambient occlusion coefficient for each vertex. This mixin implements that
  * behavior, though conditionally controlled by the current shader pack of course.
+ *
+ * The fast path for writing entire vertices in MixinBufferBuilder runs before this method and skips it, so it applies
+ * the brightnesses through {@link SeparateAoBufferBuilder} itself.
  */
 @Mixin(BufferBuilder.class)
-public abstract class MixinBufferBuilder_SeparateAo extends DefaultedVertexConsumer {
-	@Unique
-	private float[] brightnesses;
-
+public abstract class MixinBufferBuilder_SeparateAo extends DefaultedVertexConsumer implements SeparateAoBufferBuilder {
 	@Unique
-	private int brightnessIndex;
+	private final SeparateAoBrightnesses brightnesses = new SeparateAoBrightnesses();
 
 	@Override
 	public void putBulkData(PoseStack.Pose matrixEntry, BakedQuad quad, float[] brightnesses, float red, float green,
 					 float blue, int[] lights, int overlay, boolean useQuadColorData) {
 		if (BlockRenderingSettings.INSTANCE.shouldUseSeparateAo()) {
-			this.brightnesses = brightnesses;
-			this.brightnessIndex = 0;
-
-			brightnesses = new float[brightnesses.length];
-			Arrays.fill(brightnesses, 1.0f);
+			brightnesses = this.brightnesses.begin(brightnesses);
 		}
 
 		super.putBulkData(matrixEntry, quad, brightnesses, red, green, blue, lights, overlay, useQuadColorData);
@@ -46,14 +42,17 @@ public abstract class MixinBufferBuilder_SeparateAo extends DefaultedVertexConsu
 	@Override
 	public void vertex(float x, float y, float z, float red, float green, float blue, float alpha, float u, float v,
 					   int overlay, int light, float normalX, float normalY, float normalZ) {
-		if (brightnesses != null && BlockRenderingSettings.INSTANCE.shouldUseSeparateAo()) {
-			if (brightnessIndex < brightnesses.length) {
-				alpha = brightnesses[brightnessIndex++];
-			} else {
-				brightnesses = null;
-			}
-		}
+		alpha = iris$applySeparateAo(alpha);
 
 		super.vertex(x, y, z, red, green, blue, alpha, u, v, overlay, light, normalX, normalY, normalZ);
 	}
+
+	@Override
+	public float iris$applySeparateAo(float alpha) {
+		if (brightnesses.isPending() && BlockRenderingSettings.INSTANCE.shouldUseSeparateAo()) {
+			return brightnesses.apply(alpha);
+		}
+
+		return alpha;
+	}
 }
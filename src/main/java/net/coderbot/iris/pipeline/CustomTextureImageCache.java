@@ -0,0 +1,129 @@
+package net.coderbot.iris.pipeline;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import net.coderbot.iris.mixin.texture.NativeImageAccessor;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.system.MemoryUtil;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the decoded images of the custom PNG textures of a shader pack across reloads, so that reloading the same pack
+ * (usually because its options were changed) doesn't need to decode all of them again.
+ *
+ * <p>Images are looked up by the contents of their PNG files, since the files are read again on every reload. The
+ * cache owns its own copy of each image, since textures close their images when they are deleted. Only the images
+ * that were used by the most recently created pipeline are kept, so switching to a different pack releases the images
+ * of the previous one.</p>
+ *
+ * <p>This must only be accessed from the render thread.</p>
+ */
+public class CustomTextureImageCache {
+	public static final CustomTextureImageCache INSTANCE = new CustomTextureImageCache();
+
+	private final Map<ContentKey, NativeImage> images = new HashMap<>();
+	private final Set<ContentKey> used = new HashSet<>();
+
+	private CustomTextureImageCache() {
+	}
+
+	/**
+	 * @return a copy of the cached image decoded from the given PNG file contents, owned by the caller, or null if
+	 *         there is no such image
+	 */
+	@Nullable
+	public NativeImage copyOf(byte[] content) {
+		ContentKey key = new ContentKey(content);
+		NativeImage image = images.get(key);
+
+		if (image == null) {
+			return null;
+		}
+
+		used.add(key);
+
+		return copy(image);
+	}
+
+	/**
+	 * Stores a copy of an image decoded from the given PNG file contents, unless an image decoded from the same contents
+	 * is already cached. The caller keeps ownership of the image.
+	 */
+	public void put(byte[] content, NativeImage image) {
+		ContentKey key = new ContentKey(content);
+
+		if (!images.containsKey(key)) {
+			images.put(key, copy(image));
+		}
+
+		used.add(key);
+	}
+
+	/**
+	 * Releases every image that hasn't been used since the last call to this method.
+	 */
+	public void releaseUnused() {
+		Iterator<Map.Entry<ContentKey, NativeImage>> iterator = images.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Map.Entry<ContentKey, NativeImage> entry = iterator.next();
+
+			if (!used.contains(entry.getKey())) {
+				entry.getValue().close();
+				iterator.remove();
+			}
+		}
+
+		used.clear();
+	}
+
+	public void clear() {
+		images.values().forEach(NativeImage::close);
+		images.clear();
+		used.clear();
+	}
+
+	private static NativeImage copy(NativeImage image) {
+		NativeImage copy = new NativeImage(image.format(), image.getWidth(), image.getHeight(), false);
+		long size = (long) image.getWidth() * image.getHeight() * image.format().components();
+
+		MemoryUtil.memCopy(((NativeImageAccessor) (Object) image).getPixels(), ((NativeImageAccessor) (Object) copy).getPixels(), size);
+
+		return copy;
+	}
+
+	private static final class ContentKey {
+		private final byte[] content;
+		private final int hash;
+
+		private ContentKey(byte[] content) {
+			this.content = content;
+			this.hash = Arrays.hashCode(content);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof ContentKey)) {
+				return false;
+			}
+
+			ContentKey other = (ContentKey) obj;
+
+			return hash == other.hash && Arrays.equals(content, other.content);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
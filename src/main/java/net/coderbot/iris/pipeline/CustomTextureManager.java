@@ -1,13 +1,17 @@
 package net.coderbot.iris.pipeline;
 
 import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.platform.NativeImage;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import net.coderbot.iris.Iris;
+import net.coderbot.iris.gl.GlResource;
 import net.coderbot.iris.mixin.LightTextureAccessor;
 import net.coderbot.iris.rendertarget.NativeImageBackedCustomTexture;
 import net.coderbot.iris.rendertarget.NativeImageBackedNoiseTexture;
+import net.coderbot.iris.rendertarget.RawCustomTexture;
 import net.coderbot.iris.shaderpack.PackDirectives;
 import net.coderbot.iris.shaderpack.texture.CustomTextureData;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
@@ -17,6 +21,7 @@ import net.coderbot.iris.texture.pbr.PBRTextureHolder;
 import net.coderbot.iris.texture.pbr.PBRTextureManager;
 import net.coderbot.iris.texture.pbr.PBRType;
 import net.minecraft.ResourceLocationException;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.AbstractTexture;
 import net.minecraft.client.renderer.texture.MissingTextureAtlasSprite;
@@ -28,7 +33,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.IntSupplier;
 
 public class CustomTextureManager {
@@ -42,48 +50,160 @@ public class CustomTextureManager {
 	 */
 	private final List<AbstractTexture> ownedTextures = new ArrayList<>();
 
+	/**
+	 * Textures owned by this CustomTextureManager that aren't backed by a vanilla texture object, such as raw textures.
+	 */
+	private final List<GlResource> ownedResources = new ArrayList<>();
+
 	public CustomTextureManager(PackDirectives packDirectives,
 								EnumMap<TextureStage, Object2ObjectMap<String, CustomTextureData>> customTextureDataMap,
 								Optional<CustomTextureData> customNoiseTextureData) {
-		customTextureDataMap.forEach((textureStage, customTextureStageDataMap) -> {
-			Object2ObjectMap<String, IntSupplier> customTextureIds = new Object2ObjectOpenHashMap<>();
+		boolean cacheEnabled = Iris.getIrisConfig().isCustomTextureCacheEnabled();
+		Map<CustomTextureData.PngData, CompletableFuture<NativeImage>> decodedImages =
+			decodeImages(customTextureDataMap, customNoiseTextureData, cacheEnabled);
+
+		try {
+			customTextureDataMap.forEach((textureStage, customTextureStageDataMap) -> {
+				Object2ObjectMap<String, IntSupplier> customTextureIds = new Object2ObjectOpenHashMap<>();
+
+				customTextureStageDataMap.forEach((samplerName, textureData) -> {
+					try {
+						customTextureIds.put(samplerName, createCustomTexture(textureData, decodedImages, cacheEnabled));
+					} catch (IOException | ResourceLocationException e) {
+						Iris.logger.error("Unable to parse the image data for the custom texture on stage "
+								+ textureStage + ", sampler " + samplerName, e);
+					}
+				});
 
-			customTextureStageDataMap.forEach((samplerName, textureData) -> {
+				customTextureIdMap.put(textureStage, customTextureIds);
+			});
+
+			noise = customNoiseTextureData.flatMap(textureData -> {
 				try {
-					customTextureIds.put(samplerName, createCustomTexture(textureData));
+					return Optional.of(createCustomTexture(textureData, decodedImages, cacheEnabled));
 				} catch (IOException | ResourceLocationException e) {
-					Iris.logger.error("Unable to parse the image data for the custom texture on stage "
-							+ textureStage + ", sampler " + samplerName, e);
+					Iris.logger.error("Unable to parse the image data for the custom noise texture", e);
+
+					return Optional.empty();
 				}
+			}).orElseGet(() -> {
+				final int noiseTextureResolution = packDirectives.getNoiseTextureResolution();
+
+				AbstractTexture texture = new NativeImageBackedNoiseTexture(noiseTextureResolution);
+				ownedTextures.add(texture);
+
+				return texture::getId;
 			});
+		} finally {
+			// Only reached with images left over if creating a texture threw
+			releaseDecodedImages(decodedImages);
+		}
 
-			customTextureIdMap.put(textureStage, customTextureIds);
-		});
+		if (cacheEnabled) {
+			CustomTextureImageCache.INSTANCE.releaseUnused();
+		} else {
+			CustomTextureImageCache.INSTANCE.clear();
+		}
+	}
 
-		noise = customNoiseTextureData.flatMap(textureData -> {
-			try {
-				return Optional.of(createCustomTexture(textureData));
-			} catch (IOException | ResourceLocationException e) {
-				Iris.logger.error("Unable to parse the image data for the custom noise texture", e);
+	/**
+	 * Starts decoding the images of all PNG textures on the background executor, so that packs with many custom
+	 * textures don't decode them one at a time on the render thread. The textures are still created and uploaded on the
+	 * render thread, once their images are needed.
+	 */
+	private static Map<CustomTextureData.PngData, CompletableFuture<NativeImage>> decodeImages(
+			EnumMap<TextureStage, Object2ObjectMap<String, CustomTextureData>> customTextureDataMap,
+			Optional<CustomTextureData> customNoiseTextureData, boolean cacheEnabled) {
+		List<CustomTextureData> textures = new ArrayList<>();
+		customTextureDataMap.values().forEach(customTextureStageDataMap -> textures.addAll(customTextureStageDataMap.values()));
+		customNoiseTextureData.ifPresent(textures::add);
 
-				return Optional.empty();
+		Map<CustomTextureData.PngData, CompletableFuture<NativeImage>> decodedImages = new Reference2ObjectOpenHashMap<>();
+
+		for (CustomTextureData textureData : textures) {
+			if (!(textureData instanceof CustomTextureData.PngData) || decodedImages.containsKey(textureData)) {
+				continue;
 			}
-		}).orElseGet(() -> {
-			final int noiseTextureResolution = packDirectives.getNoiseTextureResolution();
 
-			AbstractTexture texture = new NativeImageBackedNoiseTexture(noiseTextureResolution);
-			ownedTextures.add(texture);
+			CustomTextureData.PngData pngData = (CustomTextureData.PngData) textureData;
+			NativeImage cachedImage = cacheEnabled ? CustomTextureImageCache.INSTANCE.copyOf(pngData.getContent()) : null;
 
-			return texture::getId;
-		});
+			if (cachedImage != null) {
+				decodedImages.put(pngData, CompletableFuture.completedFuture(cachedImage));
+			} else {
+				decodedImages.put(pngData, CompletableFuture.supplyAsync(() -> {
+					try {
+						return NativeImageBackedCustomTexture.decode(pngData.getContent());
+					} catch (IOException e) {
+						throw new CompletionException(e);
+					}
+				}, Util.backgroundExecutor()));
+			}
+		}
+
+		return decodedImages;
+	}
+
+	/**
+	 * Closes the images that were decoded but never used to create a texture, including the ones still being decoded.
+	 */
+	private static void releaseDecodedImages(Map<CustomTextureData.PngData, CompletableFuture<NativeImage>> decodedImages) {
+		for (CompletableFuture<NativeImage> future : decodedImages.values()) {
+			future.thenAccept(NativeImage::close);
+		}
+
+		decodedImages.clear();
+	}
+
+	private static NativeImage getDecodedImage(CustomTextureData.PngData textureData,
+											   Map<CustomTextureData.PngData, CompletableFuture<NativeImage>> decodedImages) throws IOException {
+		// Each image is owned by the texture created from it, so it's removed once it has been used. If the same
+		// texture data is used a second time, it's simply decoded again.
+		CompletableFuture<NativeImage> future = decodedImages.remove(textureData);
+
+		if (future == null) {
+			return NativeImageBackedCustomTexture.decode(textureData.getContent());
+		}
+
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw e;
+		}
 	}
 
-	private IntSupplier createCustomTexture(CustomTextureData textureData) throws IOException, ResourceLocationException {
+	private IntSupplier createCustomTexture(CustomTextureData textureData,
+											Map<CustomTextureData.PngData, CompletableFuture<NativeImage>> decodedImages,
+											boolean cacheEnabled) throws IOException, ResourceLocationException {
 		if (textureData instanceof CustomTextureData.PngData) {
-			AbstractTexture texture = new NativeImageBackedCustomTexture((CustomTextureData.PngData) textureData);
+			CustomTextureData.PngData pngData = (CustomTextureData.PngData) textureData;
+			NativeImage image = getDecodedImage(pngData, decodedImages);
+
+			AbstractTexture texture;
+
+			try {
+				if (cacheEnabled) {
+					CustomTextureImageCache.INSTANCE.put(pngData.getContent(), image);
+				}
+
+				texture = new NativeImageBackedCustomTexture(image, pngData.getFilteringData());
+			} catch (RuntimeException e) {
+				image.close();
+				throw e;
+			}
+
 			ownedTextures.add(texture);
 
 			return texture::getId;
+		} else if (textureData instanceof CustomTextureData.RawData) {
+			RawCustomTexture texture = new RawCustomTexture((CustomTextureData.RawData) textureData);
+			ownedResources.add(texture);
+
+			return texture::getTextureId;
 		} else if (textureData instanceof CustomTextureData.LightmapMarker) {
 			// Special code path for the light texture. While shader packs hardcode the primary light texture, it's
 			// possible that a mod will create a different light texture, so this code path is robust to that.
@@ -175,5 +295,6 @@ public class CustomTextureManager {
 
 	public void destroy() {
 		ownedTextures.forEach(AbstractTexture::close);
+		ownedResources.forEach(GlResource::destroy);
 	}
 }
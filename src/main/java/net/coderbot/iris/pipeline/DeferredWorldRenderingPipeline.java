@@ -7,6 +7,7 @@ import com.mojang.blaze3d.pipeline.RenderTarget;
 import com.mojang.blaze3d.platform.GlStateManager;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.datafixers.util.Pair;
+import net.coderbot.batchedentityrendering.impl.instancing.EntityInstancing;
 import net.coderbot.iris.Iris;
 import net.coderbot.iris.block_rendering.BlockMaterialMapping;
 import net.coderbot.iris.block_rendering.BlockRenderingSettings;
@@ -50,6 +51,7 @@ import net.coderbot.iris.shaderpack.ProgramSet;
 import net.coderbot.iris.shaderpack.ProgramSource;
 import net.coderbot.iris.shaderpack.loading.ProgramId;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
+import net.coderbot.iris.shadows.ShadowCascades;
 import net.coderbot.iris.shadows.ShadowRenderTargets;
 import net.coderbot.iris.texture.TextureInfoCache;
 import net.coderbot.iris.texture.format.TextureFormat;
@@ -60,6 +62,7 @@ import net.coderbot.iris.texture.pbr.PBRType;
 import net.coderbot.iris.uniforms.CapturedRenderingState;
 import net.coderbot.iris.uniforms.CommonUniforms;
 import net.coderbot.iris.uniforms.FrameUpdateNotifier;
+import net.coderbot.iris.uniforms.SystemTimeUniforms;
 import net.coderbot.iris.vendored.joml.Vector3d;
 import net.coderbot.iris.vendored.joml.Vector4f;
 import net.minecraft.client.Camera;
@@ -204,6 +207,7 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		BlockRenderingSettings.INSTANCE.setDisableDirectionalShading(shouldDisableDirectionalShading());
 		BlockRenderingSettings.INSTANCE.setUseSeparateAo(programs.getPackDirectives().shouldUseSeparateAo());
 		BlockRenderingSettings.INSTANCE.setUseExtendedVertexFormat(true);
+		BlockRenderingSettings.INSTANCE.setUseCompactVertexFormat(Iris.getIrisConfig().isCompactTerrainVertexFormatEnabled());
 
 		// Don't clobber anything in texture unit 0. It probably won't cause issues, but we're just being cautious here.
 		GlStateManager._activeTexture(GL20C.GL_TEXTURE2);
@@ -598,7 +602,7 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			source.getVertexSource().orElseThrow(NullPointerException::new),
 			source.getGeometrySource().orElse(null),
 			source.getFragmentSource().orElseThrow(NullPointerException::new),
-			availability);
+			availability, EntityInstancing.isEnabled());
 		String vertex = transformed.get(PatchShaderType.VERTEX);
 		String geometry = transformed.get(PatchShaderType.GEOMETRY);
 		String fragment = transformed.get(PatchShaderType.FRAGMENT);
@@ -675,6 +679,10 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		builder.bindAttributeLocation(12, "mc_midTexCoord");
 		builder.bindAttributeLocation(13, "at_tangent");
 		builder.bindAttributeLocation(14, "at_midBlock");
+		builder.bindAttributeLocation(EntityInstancing.ROW_0_LOCATION, EntityInstancing.ROW_0_ATTRIBUTE);
+		builder.bindAttributeLocation(EntityInstancing.ROW_1_LOCATION, EntityInstancing.ROW_1_ATTRIBUTE);
+		builder.bindAttributeLocation(EntityInstancing.ROW_2_LOCATION, EntityInstancing.ROW_2_ATTRIBUTE);
+		builder.bindAttributeLocation(EntityInstancing.LIGHT_LOCATION, EntityInstancing.LIGHT_ATTRIBUTE);
 
 		AlphaTestOverride alphaTestOverride = programDirectives.getAlphaTestOverride().orElse(null);
 
@@ -754,7 +762,8 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			}
 
 			if (shadowViewport) {
-				RenderSystem.viewport(0, 0, shadowMapResolution, shadowMapResolution);
+				// With cascaded shadow maps, this only covers the region of the cascade that is currently being rendered.
+				shadowRenderer.setupViewport();
 			} else {
 				RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
 				RenderSystem.viewport(0, 0, main.width, main.height);
@@ -835,6 +844,10 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		// would help performance.
 		renderTargets.destroy();
 
+		if (shadowRenderer != null) {
+			shadowRenderer.destroy();
+		}
+
 		// destroy the shadow render targets
 		if (shadowRenderTargets != null) {
 			shadowRenderTargets.destroy();
@@ -862,14 +875,52 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 		});
 	}
 
+	/**
+	 * Runs the given clear operation on the regions of the cascades that are rendered this frame, so that cascades
+	 * which aren't updated keep their contents. If cascades is null, the whole shadow map is cleared.
+	 */
+	private static void clearShadowCascades(@Nullable ShadowCascades cascades, Runnable clear) {
+		if (cascades == null) {
+			clear.run();
+			return;
+		}
+
+		int size = cascades.getViewportSize();
+
+		for (int cascade = 0; cascade < cascades.getCount(); cascade++) {
+			if (cascades.shouldUpdate(cascade)) {
+				RenderSystem.enableScissor(cascades.getViewportX(cascade), cascades.getViewportY(cascade), size, size);
+				clear.run();
+			}
+		}
+
+		RenderSystem.disableScissor();
+	}
+
 	private void prepareRenderTargets() {
 		// Make sure we're using texture unit 0 for this.
 		RenderSystem.activeTexture(GL15C.GL_TEXTURE0);
 
 		if (shadowRenderTargets != null) {
+			ShadowCascades cascades = shadowRenderer.getCascades();
+			boolean fullClearRequired = shadowRenderTargets.isFullClearRequired();
+
+			if (cascades != null) {
+				// A full clear wipes out cascades that wouldn't be rendered this frame, so render all of them again.
+				if (fullClearRequired) {
+					cascades.invalidate();
+				}
+
+				cascades.beginFrame(SystemTimeUniforms.COUNTER.getAsInt());
+
+				if (cascades.isUpdatingAll()) {
+					cascades = null;
+				}
+			}
+
 			// Clear depth first, regardless of any color clearing.
 			shadowRenderTargets.getDepthSourceFb().bind();
-			RenderSystem.clear(GL21C.GL_DEPTH_BUFFER_BIT, Minecraft.ON_OSX);
+			clearShadowCascades(cascades, () -> RenderSystem.clear(GL21C.GL_DEPTH_BUFFER_BIT, Minecraft.ON_OSX));
 
 			Vector4f emptyClearColor = new Vector4f(1.0F);
 			ImmutableList<ClearPass> passes;
@@ -877,19 +928,22 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 			for (ComputeProgram computeProgram : shadowComputes) {
 				if (computeProgram != null) {
 					computeProgram.dispatch(shadowMapResolution, shadowMapResolution);
+					shadowRenderer.markMipmapsDirty();
 				}
 			}
 
-			if (shadowRenderTargets.isFullClearRequired()) {
+			if (fullClearRequired) {
 				passes = shadowClearPassesFull;
 				shadowRenderTargets.onFullClear();
 			} else {
 				passes = shadowClearPasses;
 			}
 
-			for (ClearPass clearPass : passes) {
-				clearPass.execute(emptyClearColor);
-			}
+			clearShadowCascades(cascades, () -> {
+				for (ClearPass clearPass : passes) {
+					clearPass.execute(emptyClearColor);
+				}
+			});
 		}
 
 		RenderTarget main = Minecraft.getInstance().getMainRenderTarget();
@@ -1103,6 +1157,8 @@ public class DeferredWorldRenderingPipeline implements WorldRenderingPipeline, R
 
 		updateNotifier.onNewFrame();
 
+		PBRTextureManager.INSTANCE.processPendingUploads();
+
 		// Get ready for world rendering
 		prepareRenderTargets();
 
@@ -4,34 +4,49 @@ import com.google.common.collect.ImmutableList;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Matrix4f;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
 import net.coderbot.batchedentityrendering.impl.BatchingDebugMessageHelper;
 import net.coderbot.batchedentityrendering.impl.DrawCallTrackingRenderBuffers;
 import net.coderbot.batchedentityrendering.impl.RenderBuffersExt;
 import net.coderbot.iris.Iris;
 import net.coderbot.iris.gl.IrisRenderSystem;
 import net.coderbot.iris.gl.program.ComputeProgram;
+import net.coderbot.iris.gl.query.GlTimer;
 import net.coderbot.iris.gl.texture.DepthCopyStrategy;
 import net.coderbot.iris.gui.option.IrisVideoSettings;
 import net.coderbot.iris.mixin.LevelRendererAccessor;
+import net.coderbot.iris.mixin.shadows.ChunkInfoAccessor;
 import net.coderbot.iris.shaderpack.ComputeSource;
+import net.coderbot.iris.shaderpack.MipmapReduction;
 import net.coderbot.iris.shaderpack.OptionalBoolean;
 import net.coderbot.iris.shaderpack.PackDirectives;
 import net.coderbot.iris.shaderpack.PackShadowDirectives;
 import net.coderbot.iris.shaderpack.ProgramSource;
 import net.coderbot.iris.shadow.ShadowMatrices;
 import net.coderbot.iris.shadows.CullingDataCache;
+import net.coderbot.iris.shadows.DepthMipmapReducer;
 import net.coderbot.iris.shadows.Matrix4fAccess;
+import net.coderbot.iris.shadows.ShadowCamera;
+import net.coderbot.iris.shadows.ShadowCascades;
+import net.coderbot.iris.shadows.ShadowDistanceController;
+import net.coderbot.iris.shadows.ShadowEntityBands;
 import net.coderbot.iris.shadows.ShadowRenderTargets;
+import net.coderbot.iris.shadows.ShadowVisibilityCache;
 import net.coderbot.iris.shadows.frustum.BoxCuller;
+import net.coderbot.iris.shadows.frustum.CascadeFrustum;
 import net.coderbot.iris.shadows.frustum.CullEverythingFrustum;
 import net.coderbot.iris.shadows.frustum.FrustumHolder;
 import net.coderbot.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.coderbot.iris.shadows.frustum.advanced.MethodOverrideCache;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowCasterGrid;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowClippingPlanes;
 import net.coderbot.iris.shadows.frustum.fallback.BoxCullingFrustum;
 import net.coderbot.iris.shadows.frustum.fallback.NonCullingFrustum;
-import net.coderbot.iris.uniforms.CameraUniforms;
+import net.coderbot.iris.shadows.occlusion.LightSpaceOcclusionCuller;
 import net.coderbot.iris.uniforms.CapturedRenderingState;
 import net.coderbot.iris.uniforms.CelestialUniforms;
-import net.coderbot.iris.vendored.joml.Vector3d;
+import net.coderbot.iris.uniforms.SystemTimeUniforms;
 import net.coderbot.iris.vendored.joml.Vector3i;
 import net.coderbot.iris.vendored.joml.Vector4f;
 import net.minecraft.client.Camera;
@@ -44,25 +59,50 @@ import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
 import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import net.minecraft.client.renderer.entity.EntityRenderer;
+import net.minecraft.client.renderer.entity.MobRenderer;
 import net.minecraft.core.BlockPos;
 import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.ARBTextureSwizzle;
 import org.lwjgl.opengl.GL20C;
 import org.lwjgl.opengl.GL30C;
 import org.lwjgl.opengl.GL43C;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
 public class ShadowRenderer {
-	public static Matrix4f MODELVIEW;
-	public static Matrix4f PROJECTION;
-	public static List<BlockEntity> visibleBlockEntities;
+	public static final Matrix4f MODELVIEW = new Matrix4f();
+	public static final Matrix4f PROJECTION = new Matrix4f();
+	public static final List<BlockEntity> visibleBlockEntities = new ArrayList<>();
 	public static boolean ACTIVE = false;
+	/**
+	 * The light-space occlusion culler for the current shadow pass, or null if the pack hasn't enabled shadow culling.
+	 */
+	public static LightSpaceOcclusionCuller OCCLUSION_CULLER;
+	/**
+	 * The cascades of the current shadow map, or null if the pack doesn't use cascaded shadow maps.
+	 */
+	public static ShadowCascades CASCADES;
+	/**
+	 * The normalized direction towards the shadow light in the current shadow pass. Terrain is drawn front to back
+	 * along this direction.
+	 */
+	public static final net.coderbot.iris.vendored.joml.Vector3f LIGHT_DIRECTION = new net.coderbot.iris.vendored.joml.Vector3f(0.0F, 1.0F, 0.0F);
+	/**
+	 * Whether translucent terrain should be drawn back to front along {@link #LIGHT_DIRECTION} in the current shadow
+	 * pass, instead of in the order of the main pass.
+	 */
+	public static boolean SORT_TRANSLUCENT_BY_LIGHT;
 	private final float halfPlaneLength;
 	private final float renderDistanceMultiplier;
 	private final float entityShadowDistanceMultiplier;
@@ -77,6 +117,7 @@ public class ShadowRenderer {
 	private final boolean shouldRenderEntities;
 	private final boolean shouldRenderPlayer;
 	private final boolean shouldRenderBlockEntities;
+	private final boolean sortTranslucentByLight;
 	private final float sunPathRotation;
 	private final RenderBuffers buffers;
 	private final RenderBuffersExt renderBuffersExt;
@@ -84,11 +125,83 @@ public class ShadowRenderer {
 	private final String debugStringOverall;
 	private FrustumHolder terrainFrustumHolder;
 	private FrustumHolder entityFrustumHolder;
+	private final ShadowVisibilityCache visibilityCache = new ShadowVisibilityCache();
+	private final LightSpaceOcclusionCuller occlusionCuller;
+	private final ShadowCascades cascades;
+	@Nullable
+	private final ShadowDistanceController distanceController;
+	@Nullable
+	private final GlTimer shadowPassTimer;
+	private final ShadowEntityBands entityBands;
+	private final ShadowEntityBands blockEntityBands;
+	private final ShadowCasterGrid casterGrid = new ShadowCasterGrid(SHADOW_CASTER_CELL_SHIFT);
+	private final List<Entity> casterEntities = new ArrayList<>();
+
+	// State that is reused across frames, so that setting up the shadow pass doesn't allocate every frame.
+	private final PoseStack modelView = new PoseStack();
+	private final ShadowCamera shadowCamera = new ShadowCamera();
+	private final float[] projMatrix;
+	private final float[][] cascadeProjMatrices;
+	private final CelestialUniforms celestialUniforms;
+	private final Vector4f shadowLightPosition = new Vector4f();
+	private final net.coderbot.iris.vendored.joml.Matrix4f playerView = new net.coderbot.iris.vendored.joml.Matrix4f();
+	private final net.coderbot.iris.vendored.joml.Matrix4f playerProjection = new net.coderbot.iris.vendored.joml.Matrix4f();
+	private final List<Entity> renderedEntities = new ArrayList<>(32);
+	private final List<BlockEntity> sortedBlockEntities = new ArrayList<>();
+
+	// The camera position that entities are sorted by. The comparators read it from these fields, so that they don't
+	// have to be created again on every shadow frame.
+	private double sortCameraX;
+	private double sortCameraY;
+	private double sortCameraZ;
+	private final Comparator<Entity> entityDistanceOrder = (a, b) -> Double.compare(
+		a.distanceToSqr(sortCameraX, sortCameraY, sortCameraZ), b.distanceToSqr(sortCameraX, sortCameraY, sortCameraZ));
+	private final Comparator<BlockEntity> blockEntityDistanceOrder = (a, b) -> Double.compare(
+		a.getBlockPos().distSqr(sortCameraX, sortCameraY, sortCameraZ, true),
+		b.getBlockPos().distSqr(sortCameraX, sortCameraY, sortCameraZ, true));
+	private BoxCuller blockEntityCuller;
 	private String debugStringTerrain = "(unavailable)";
 	private int renderedShadowEntities = 0;
 	private int renderedShadowBlockEntities = 0;
+	private int deferredShadowEntities = 0;
+	private int deferredShadowBlockEntities = 0;
+	/**
+	 * The number of entities and block entities rendered into each cascade the last time it was rendered.
+	 */
+	private final int[] cascadeShadowEntities;
+	private final int[] cascadeShadowBlockEntities;
+	/**
+	 * The full chunk list of the level renderer, while it is restricted to the chunks within a single cascade.
+	 */
+	private final ObjectArrayList<LevelRenderer.RenderChunkInfo> shadowRenderChunks = new ObjectArrayList<>();
+	/**
+	 * Whether anything was drawn into the shadow map, or into each cascade of it, the last time it was rendered.
+	 */
+	private final boolean[] regionHasGeometry;
 	private ProfilerFiller profiler;
 
+	/**
+	 * Chunk faces within this margin of being parallel to the light direction are never crossed by light during chunk
+	 * occlusion culling.
+	 */
+	private static final float OCCLUSION_CULLING_MARGIN = 1.0E-4f;
+
+	/**
+	 * Shadow casters are grouped into grid cells of 16x16x16 blocks for culling.
+	 */
+	private static final int SHADOW_CASTER_CELL_SHIFT = 4;
+
+	private static final Frustum ALWAYS_VISIBLE = new NonCullingFrustum();
+	private static final Comparator<Entity> ENTITY_TYPE_ORDER = Comparator.comparingInt(entity -> entity.getType().hashCode());
+
+	/**
+	 * Renderers that override shouldRender may render entities whose culling box is outside of the frustum, such as the
+	 * beams of guardians and end crystals. The override in MobRenderer only adds leashes, which are handled separately.
+	 */
+	private static final MethodOverrideCache SHOULD_RENDER_OVERRIDES = new MethodOverrideCache(EntityRenderer.class,
+		boolean.class, new Class<?>[] { Entity.class, Frustum.class, double.class, double.class, double.class },
+		MobRenderer.class);
+
 	public ShadowRenderer(ProgramSource shadow, PackDirectives directives,
 						  ShadowRenderTargets shadowRenderTargets) {
 
@@ -100,14 +213,24 @@ public class ShadowRenderer {
 		this.renderDistanceMultiplier = shadowDirectives.getDistanceRenderMul();
 		this.entityShadowDistanceMultiplier = shadowDirectives.getEntityShadowDistanceMul();
 		this.resolution = shadowDirectives.getResolution();
+
+		float shadowFrameBudget = Iris.getIrisConfig() != null ? Iris.getIrisConfig().getShadowFrameBudget() : 0.0F;
+
+		if (shadowFrameBudget > 0.0F) {
+			this.distanceController = new ShadowDistanceController(shadowFrameBudget);
+			this.shadowPassTimer = GlTimer.isSupported() ? new GlTimer() : null;
+		} else {
+			this.distanceController = null;
+			this.shadowPassTimer = null;
+		}
+
 		this.intervalSize = shadowDirectives.getIntervalSize();
 		this.shouldRenderTerrain = shadowDirectives.shouldRenderTerrain();
 		this.shouldRenderTranslucent = shadowDirectives.shouldRenderTranslucent();
 		this.shouldRenderEntities = shadowDirectives.shouldRenderEntities();
 		this.shouldRenderPlayer = shadowDirectives.shouldRenderPlayer();
 		this.shouldRenderBlockEntities = shadowDirectives.shouldRenderBlockEntities();
-
-		debugStringOverall = "half plane = " + halfPlaneLength + " meters @ " + resolution + "x" + resolution;
+		this.sortTranslucentByLight = shadowDirectives.shouldSortTranslucentByLight();
 
 		this.terrainFrustumHolder = new FrustumHolder();
 		this.entityFrustumHolder = new FrustumHolder();
@@ -126,6 +249,60 @@ public class ShadowRenderer {
 		}
 
 		this.sunPathRotation = directives.getSunPathRotation();
+		this.celestialUniforms = new CelestialUniforms(sunPathRotation);
+
+		// Only cull chunks that are hidden from the light if the pack explicitly asks for culling, since packs that
+		// rely on voxelization or that sample geometry outside of the lit area would otherwise break.
+		if (packCullingState == OptionalBoolean.TRUE) {
+			this.occlusionCuller = new LightSpaceOcclusionCuller(OCCLUSION_CULLING_MARGIN);
+		} else {
+			this.occlusionCuller = null;
+		}
+
+		if (shadowDirectives.getCascadeCount() > 1) {
+			if (fov != null) {
+				Iris.logger.warn("Ignoring shadowCascadeCount since cascaded shadow maps require an orthographic projection, but shadowMapFov is set");
+				this.cascades = null;
+			} else {
+				this.cascades = new ShadowCascades(shadowDirectives.getCascadeCount(),
+					shadowDirectives.getCascadeUpdateInterval(), halfPlaneLength, resolution);
+			}
+		} else {
+			this.cascades = null;
+		}
+
+		if (this.fov != null) {
+			// If FOV is not null, the pack wants a perspective based projection matrix. (This is to support legacy packs)
+			this.projMatrix = ShadowMatrices.createPerspectiveMatrix(this.fov);
+		} else {
+			this.projMatrix = ShadowMatrices.createOrthoMatrix(halfPlaneLength);
+		}
+
+		// Everything counts as drawn initially, so that the mipmaps of the first frame are built.
+		this.regionHasGeometry = new boolean[cascades != null ? cascades.getCount() : 1];
+		Arrays.fill(regionHasGeometry, true);
+		this.cascadeShadowEntities = new int[regionHasGeometry.length];
+		this.cascadeShadowBlockEntities = new int[regionHasGeometry.length];
+
+		if (cascades != null) {
+			this.cascadeProjMatrices = new float[cascades.getCount()][];
+
+			for (int cascade = 0; cascade < cascades.getCount(); cascade++) {
+				cascadeProjMatrices[cascade] = ShadowMatrices.createOrthoMatrix(cascades.getHalfPlaneLength(cascade));
+			}
+		} else {
+			this.cascadeProjMatrices = null;
+		}
+
+		if (cascades != null) {
+			debugStringOverall = "half plane = " + halfPlaneLength + " meters @ " + resolution + "x" + resolution
+				+ ", " + cascades.getCount() + " cascades";
+		} else {
+			debugStringOverall = "half plane = " + halfPlaneLength + " meters @ " + resolution + "x" + resolution;
+		}
+
+		this.entityBands = new ShadowEntityBands(shadowDirectives.getEntityShadowBands(), shadowDirectives.getEntityShadowBudget());
+		this.blockEntityBands = new ShadowEntityBands(shadowDirectives.getEntityShadowBands(), shadowDirectives.getEntityShadowBudget());
 
 		this.buffers = new RenderBuffers();
 
@@ -143,20 +320,29 @@ public class ShadowRenderer {
 	}
 
 	public static PoseStack createShadowModelView(float sunPathRotation, float intervalSize) {
-		// Determine the camera position
-		Vector3d cameraPos = CameraUniforms.getUnshiftedCameraPosition();
-
-		double cameraX = cameraPos.x;
-		double cameraY = cameraPos.y;
-		double cameraZ = cameraPos.z;
+		float[] matrix = createShadowModelView(sunPathRotation, intervalSize, new net.coderbot.iris.vendored.joml.Matrix4f())
+			.get(new float[16]);
 
 		// Set up our modelview matrix stack
 		PoseStack modelView = new PoseStack();
-		ShadowMatrices.createModelViewMatrix(modelView.last().pose(), getShadowAngle(), intervalSize, sunPathRotation, cameraX, cameraY, cameraZ);
+		((Matrix4fAccess) (Object) modelView.last().pose()).copyFromArray(matrix);
 
 		return modelView;
 	}
 
+	/**
+	 * Computes the shadow model view matrix into an existing matrix, without allocating.
+	 */
+	public static net.coderbot.iris.vendored.joml.Matrix4f createShadowModelView(float sunPathRotation, float intervalSize,
+																				  net.coderbot.iris.vendored.joml.Matrix4f target) {
+		// Determine the camera position
+		Vec3 cameraPos = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+
+		ShadowMatrices.createModelViewMatrix(target, getShadowAngle(), intervalSize, sunPathRotation, cameraPos.x, cameraPos.y, cameraPos.z);
+
+		return target;
+	}
+
 	private static ClientLevel getLevel() {
 		return Objects.requireNonNull(Minecraft.getInstance().level);
 	}
@@ -201,7 +387,7 @@ public class ShadowRenderer {
 		for (int i = 0; i < colorSamplingSettings.size(); i++) {
 			int glTextureId = targets.get(i).getMainTexture();
 
-			configureSampler(glTextureId, colorSamplingSettings.get(i));
+			configureSampler(glTextureId, colorSamplingSettings.get(i), null);
 		}
 
 		RenderSystem.activeTexture(GL20C.GL_TEXTURE0);
@@ -219,13 +405,21 @@ public class ShadowRenderer {
 		IrisRenderSystem.texParameteriv(glTextureId, GL20C.GL_TEXTURE_2D, ARBTextureSwizzle.GL_TEXTURE_SWIZZLE_RGBA,
 			new int[] { GL30C.GL_RED, GL30C.GL_RED, GL30C.GL_RED, GL30C.GL_ONE });
 
-		configureSampler(glTextureId, settings);
+		DepthMipmapReducer reducer = null;
+
+		if (settings.getMipmap() && settings.getMipmapReduction() != MipmapReduction.AVERAGE) {
+			reducer = DepthMipmapReducer.create(glTextureId, resolution, settings.getMipmapReduction(),
+				settings.getHardwareFiltering());
+		}
+
+		configureSampler(glTextureId, settings, reducer);
 	}
 
-	private void configureSampler(int glTextureId, PackShadowDirectives.SamplingSettings settings) {
+	private void configureSampler(int glTextureId, PackShadowDirectives.SamplingSettings settings,
+								  @Nullable DepthMipmapReducer reducer) {
 		if (settings.getMipmap()) {
 			int filteringMode = settings.getNearest() ? GL20C.GL_NEAREST_MIPMAP_NEAREST : GL20C.GL_LINEAR_MIPMAP_LINEAR;
-			mipmapPasses.add(new MipmapPass(glTextureId, filteringMode));
+			mipmapPasses.add(new MipmapPass(glTextureId, filteringMode, reducer));
 		}
 
 		if (!settings.getNearest()) {
@@ -242,7 +436,20 @@ public class ShadowRenderer {
 		RenderSystem.activeTexture(GL20C.GL_TEXTURE4);
 
 		for (MipmapPass mipmapPass : mipmapPasses) {
-			setupMipmappingForTexture(mipmapPass.getTexture(), mipmapPass.getTargetFilteringMode());
+			// If nothing was drawn to the texture since its mipmaps were last built, they are still up to date.
+			if (!mipmapPass.isDirty()) {
+				continue;
+			}
+
+			if (mipmapPass.getReducer() != null) {
+				reduceMipmapsForTexture(mipmapPass.getReducer());
+				IrisRenderSystem.texParameteri(mipmapPass.getTexture(), GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER,
+					mipmapPass.getTargetFilteringMode());
+			} else {
+				setupMipmappingForTexture(mipmapPass.getTexture(), mipmapPass.getTargetFilteringMode());
+			}
+
+			mipmapPass.markClean();
 		}
 
 		RenderSystem.activeTexture(GL20C.GL_TEXTURE0);
@@ -253,12 +460,53 @@ public class ShadowRenderer {
 		IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MIN_FILTER, filteringMode);
 	}
 
-	private FrustumHolder createShadowFrustum(float renderMultiplier, FrustumHolder holder) {
+	/**
+	 * Rebuilds the reduced mipmaps of a depth texture. With cascades, only the regions of the cascades that were
+	 * rendered this frame are rebuilt, since the other cascades still hold their contents from a previous frame.
+	 */
+	private void reduceMipmapsForTexture(DepthMipmapReducer reducer) {
+		if (cascades == null || cascades.isUpdatingAll()) {
+			reducer.reduce(0, 0, resolution, resolution);
+			return;
+		}
+
+		int size = cascades.getViewportSize();
+
+		for (int cascade = 0; cascade < cascades.getCount(); cascade++) {
+			if (cascades.shouldUpdate(cascade)) {
+				reducer.reduce(cascades.getViewportX(cascade), cascades.getViewportY(cascade), size, size);
+			}
+		}
+	}
+
+	public void destroy() {
+		for (MipmapPass mipmapPass : mipmapPasses) {
+			if (mipmapPass.getReducer() != null) {
+				mipmapPass.getReducer().destroy();
+			}
+		}
+
+		if (shadowPassTimer != null) {
+			shadowPassTimer.destroy();
+		}
+
+		// Don't let the uniforms read the cascades of a destroyed pipeline, or keep them alive. The next pipeline may
+		// already have rendered a shadow pass, in which case its cascades are left alone.
+		if (CASCADES == cascades) {
+			CASCADES = null;
+		}
+	}
+
+	private FrustumHolder createShadowFrustum(float renderMultiplier, FrustumHolder holder, float distanceScale) {
 		// TODO: Cull entities / block entities with Advanced Frustum Culling even if voxelization is detected.
-		String distanceInfo;
-		String cullingInfo;
+		//
+		// NB: This runs every frame, so the frustums are reused, and the info strings are only built when the settings
+		// that they describe change.
+		int renderDistance = Minecraft.getInstance().options.renderDistance * 16;
+
 		if ((packCullingState == OptionalBoolean.FALSE || packHasVoxelization) && packCullingState != OptionalBoolean.TRUE) {
 			double distance = halfPlaneLength * renderMultiplier;
+			String setter = "(set by shader pack)";
 
 			String reason;
 
@@ -268,16 +516,28 @@ public class ShadowRenderer {
 				reason = "(voxelization detected)";
 			}
 
-			if (distance <= 0 || distance > Minecraft.getInstance().options.renderDistance * 16) {
-				distanceInfo = Minecraft.getInstance().options.renderDistance * 16
-					+ " blocks (capped by normal render distance)";
-				cullingInfo = "disabled " + reason;
-				return holder.setInfo(new NonCullingFrustum(), distanceInfo, cullingInfo);
+			if (distanceScale < 1.0F) {
+				// An unlimited distance is capped by the normal render distance anyways
+				if (distance <= 0 || distance > renderDistance) {
+					distance = renderDistance;
+				}
+
+				distance *= distanceScale;
+				setter = "(reduced to fit the shadow frame budget)";
+			}
+
+			if (!holder.updateInputs(false, reason, distance, renderDistance)) {
+				return holder;
+			}
+
+			if (distance <= 0 || distance > renderDistance) {
+				String distanceInfo = renderDistance + " blocks (capped by normal render distance)";
+				String cullingInfo = "disabled " + reason;
+				return holder.setInfo(holder.getNonCullingFrustum(), distanceInfo, cullingInfo);
 			} else {
-				distanceInfo = distance + " blocks (set by shader pack)";
-				cullingInfo = "distance only " + reason;
-				BoxCuller boxCuller = new BoxCuller(distance);
-				holder.setInfo(new BoxCullingFrustum(boxCuller), distanceInfo, cullingInfo);
+				String distanceInfo = distance + " blocks " + setter;
+				String cullingInfo = "distance only " + reason;
+				holder.setInfo(holder.getBoxCullingFrustum(distance), distanceInfo, cullingInfo);
 			}
 		} else {
 			BoxCuller boxCuller;
@@ -290,33 +550,40 @@ public class ShadowRenderer {
 				setter = "(set by user)";
 			}
 
-			if (distance >= Minecraft.getInstance().options.renderDistance * 16) {
-				distanceInfo = Minecraft.getInstance().options.renderDistance * 16
-					+ " blocks (capped by normal render distance)";
+			if (distanceScale < 1.0F) {
+				distance = Math.min(distance, renderDistance) * distanceScale;
+				setter = "(reduced to fit the shadow frame budget)";
+			}
+
+			boolean changed = holder.updateInputs(true, setter, distance, renderDistance);
+			String distanceInfo = holder.getDistanceInfo();
+
+			if (distance >= renderDistance) {
+				if (changed) {
+					distanceInfo = renderDistance + " blocks (capped by normal render distance)";
+				}
+
 				boxCuller = null;
 			} else {
-				distanceInfo = distance + " blocks " + setter;
+				if (changed) {
+					distanceInfo = distance + " blocks " + setter;
 
-				if (distance == 0.0) {
-					cullingInfo = "no shadows rendered";
-					holder.setInfo(new CullEverythingFrustum(), distanceInfo, cullingInfo);
+					if (distance == 0.0) {
+						holder.setInfo(new CullEverythingFrustum(), distanceInfo, "no shadows rendered");
+					}
 				}
 
-				boxCuller = new BoxCuller(distance);
+				boxCuller = holder.getBoxCuller(distance);
 			}
 
-			cullingInfo = "Advanced Frustum Culling enabled";
-
-			Vector4f shadowLightPosition = new CelestialUniforms(sunPathRotation).getShadowLightPositionInWorldSpace();
-
-			net.coderbot.iris.vendored.joml.Vector3f shadowLightVectorFromOrigin =
-				new net.coderbot.iris.vendored.joml.Vector3f(shadowLightPosition.x(), shadowLightPosition.y(), shadowLightPosition.z());
+			celestialUniforms.getShadowLightPositionInWorldSpace(shadowLightPosition);
+			shadowCamera.updateLightVector(shadowLightPosition.x(), shadowLightPosition.y(), shadowLightPosition.z());
 
-			shadowLightVectorFromOrigin.normalize();
-
-			return holder.setInfo(new AdvancedShadowCullingFrustum(((Matrix4fAccess) (Object) CapturedRenderingState.INSTANCE.getGbufferModelView()).convertToJOML(),
-				((Matrix4fAccess) (Object) CapturedRenderingState.INSTANCE.getGbufferProjection()).convertToJOML(), shadowLightVectorFromOrigin, boxCuller), distanceInfo, cullingInfo);
+			((Matrix4fAccess) (Object) CapturedRenderingState.INSTANCE.getGbufferModelView()).copyIntoJOML(playerView);
+			((Matrix4fAccess) (Object) CapturedRenderingState.INSTANCE.getGbufferProjection()).copyIntoJOML(playerProjection);
 
+			return holder.setInfo(holder.getAdvancedFrustum(playerView, playerProjection, shadowCamera.getLightVectorFromOrigin(), boxCuller),
+				distanceInfo, changed ? "Advanced Frustum Culling enabled" : holder.getCullingInfo());
 		}
 
 		return holder;
@@ -350,6 +617,35 @@ public class ShadowRenderer {
 		targets.copyPreTranslucentDepth();
 	}
 
+	private void copyPreTranslucentDepth(int cascade) {
+		profiler.popPush("translucent depth copy");
+
+		int size = cascades.getViewportSize();
+		targets.copyPreTranslucentDepth(cascades.getViewportX(cascade), cascades.getViewportY(cascade), size, size);
+	}
+
+	/**
+	 * Sets the viewport to the whole shadow map, or to the region of the cascade that is currently being rendered.
+	 */
+	public void setupViewport() {
+		int cascade = ShadowCascades.getCurrentCascade();
+
+		if (cascades != null && cascade >= 0) {
+			int size = cascades.getViewportSize();
+			RenderSystem.viewport(cascades.getViewportX(cascade), cascades.getViewportY(cascade), size, size);
+		} else {
+			RenderSystem.viewport(0, 0, resolution, resolution);
+		}
+	}
+
+	/**
+	 * Returns the cascades of the shadow map, or null if the pack doesn't use cascaded shadow maps.
+	 */
+	@Nullable
+	public ShadowCascades getCascades() {
+		return cascades;
+	}
+
 	private void renderEntities(LevelRendererAccessor levelRenderer, Frustum frustum, MultiBufferSource.BufferSource bufferSource, PoseStack modelView, double cameraX, double cameraY, double cameraZ, float tickDelta) {
 		EntityRenderDispatcher dispatcher = levelRenderer.getEntityRenderDispatcher();
 
@@ -357,21 +653,49 @@ public class ShadowRenderer {
 
 		profiler.push("cull");
 
-		List<Entity> renderedEntities = new ArrayList<>(32);
+		List<Entity> renderedEntities = this.renderedEntities;
+		renderedEntities.clear();
 
-		// TODO: I'm sure that this can be improved / optimized.
-		for (Entity entity : getLevel().entitiesForRendering()) {
-			if (!dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ) || entity.isSpectator()) {
-				continue;
+		AdvancedShadowCullingFrustum casterFrustum = getAdvancedFrustum(frustum);
+
+		if (casterFrustum != null) {
+			cullShadowCasters(dispatcher, frustum, casterFrustum, renderedEntities, cameraX, cameraY, cameraZ);
+		} else {
+			for (Entity entity : getLevel().entitiesForRendering()) {
+				if (!dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ) || entity.isSpectator()) {
+					continue;
+				}
+
+				renderedEntities.add(entity);
+			}
+		}
+
+		if (entityBands.isEnabled()) {
+			profiler.popPush("schedule");
+
+			// Offer entities from near to far, so that the budget is spent on the closest ones
+			setSortCamera(cameraX, cameraY, cameraZ);
+			renderedEntities.sort(entityDistanceOrder);
+
+			int kept = 0;
+
+			for (int i = 0; i < renderedEntities.size(); i++) {
+				Entity entity = renderedEntities.get(i);
+
+				if (entityBands.shouldRender(entity, entity.distanceToSqr(cameraX, cameraY, cameraZ))) {
+					renderedEntities.set(kept++, entity);
+				}
 			}
 
-			renderedEntities.add(entity);
+			while (renderedEntities.size() > kept) {
+				renderedEntities.remove(renderedEntities.size() - 1);
+			}
 		}
 
 		profiler.popPush("sort");
 
 		// Sort the entities by type first in order to allow vanilla's entity batching system to work better.
-		renderedEntities.sort(Comparator.comparingInt(entity -> entity.getType().hashCode()));
+		renderedEntities.sort(ENTITY_TYPE_ORDER);
 
 		profiler.popPush("build geometry");
 
@@ -380,11 +704,96 @@ public class ShadowRenderer {
 			shadowEntities++;
 		}
 
-		renderedShadowEntities = shadowEntities;
+		renderedShadowEntities += shadowEntities;
+
+		// Don't keep entities alive until the next frame
+		renderedEntities.clear();
 
 		profiler.pop();
 	}
 
+	/**
+	 * Culls entities as shadow casters against the Advanced Frustum Culling planes, which already extrude the player
+	 * frustum towards the light. The bounding boxes are tested in bulk using a spatial grid, so that entities in a grid
+	 * cell that is entirely inside or outside don't need to be tested individually.
+	 */
+	private void cullShadowCasters(EntityRenderDispatcher dispatcher, Frustum frustum, AdvancedShadowCullingFrustum casterFrustum,
+								   List<Entity> renderedEntities, double cameraX, double cameraY, double cameraZ) {
+		casterEntities.clear();
+		casterGrid.reset(cameraX, cameraY, cameraZ);
+
+		for (Entity entity : getLevel().entitiesForRendering()) {
+			if (entity.isSpectator()) {
+				continue;
+			}
+
+			if (!canCullAsShadowCaster(dispatcher, entity)) {
+				if (dispatcher.shouldRender(entity, frustum, cameraX, cameraY, cameraZ)) {
+					renderedEntities.add(entity);
+				}
+
+				continue;
+			}
+
+			// This is the same box that EntityRenderer#shouldRender tests against the frustum
+			AABB box = entity.getBoundingBoxForCulling().inflate(0.5);
+			casterGrid.add(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+			casterEntities.add(entity);
+		}
+
+		casterGrid.test(casterFrustum);
+
+		// Entities that passed the grid test don't need to be tested against the planes again, but the renderer still
+		// needs to check the render distance. If we're rendering a cascade, the cascade bounds need to be checked too.
+		Frustum visibleFrustum = frustum == casterFrustum ? ALWAYS_VISIBLE : frustum;
+
+		for (int i = 0; i < casterEntities.size(); i++) {
+			if (casterGrid.getResult(i) == ShadowClippingPlanes.OUTSIDE) {
+				continue;
+			}
+
+			Entity entity = casterEntities.get(i);
+
+			if (dispatcher.shouldRender(entity, visibleFrustum, cameraX, cameraY, cameraZ)) {
+				renderedEntities.add(entity);
+			}
+		}
+
+		casterEntities.clear();
+	}
+
+	/**
+	 * Entities whose renderer doesn't only test the culling box against the frustum are excluded from the shadow caster
+	 * grid, and are culled normally instead.
+	 */
+	private static boolean canCullAsShadowCaster(EntityRenderDispatcher dispatcher, Entity entity) {
+		if (entity.noCulling) {
+			return false;
+		}
+
+		if (SHOULD_RENDER_OVERRIDES.isOverridden(dispatcher.getRenderer(entity).getClass())) {
+			return false;
+		}
+
+		// Leashed mobs are also rendered if the leash holder is visible
+		if (entity instanceof Mob && ((Mob) entity).getLeashHolder() != null) {
+			return false;
+		}
+
+		AABB box = entity.getBoundingBoxForCulling();
+
+		return !box.hasNaN() && box.getSize() != 0.0;
+	}
+
+	@Nullable
+	private static AdvancedShadowCullingFrustum getAdvancedFrustum(Frustum frustum) {
+		if (frustum instanceof CascadeFrustum) {
+			frustum = ((CascadeFrustum) frustum).getParent();
+		}
+
+		return frustum instanceof AdvancedShadowCullingFrustum ? (AdvancedShadowCullingFrustum) frustum : null;
+	}
+
 	private void renderPlayerEntity(LevelRendererAccessor levelRenderer, Frustum frustum, MultiBufferSource.BufferSource bufferSource, PoseStack modelView, double cameraX, double cameraY, double cameraZ, float tickDelta) {
 		EntityRenderDispatcher dispatcher = levelRenderer.getEntityRenderDispatcher();
 
@@ -416,28 +825,55 @@ public class ShadowRenderer {
 
 		shadowEntities++;
 
-		renderedShadowEntities = shadowEntities;
+		renderedShadowEntities += shadowEntities;
 
 		profiler.pop();
 	}
 
-	private void renderBlockEntities(MultiBufferSource.BufferSource bufferSource, PoseStack modelView, double cameraX, double cameraY, double cameraZ, float tickDelta, boolean hasEntityFrustum) {
+	private void renderBlockEntities(MultiBufferSource.BufferSource bufferSource, PoseStack modelView, double cameraX, double cameraY, double cameraZ, float tickDelta, boolean hasEntityFrustum, @Nullable CascadeFrustum cascadeFrustum) {
 		profiler.push("build blockentities");
 
 		int shadowBlockEntities = 0;
 		BoxCuller culler = null;
 		if (hasEntityFrustum) {
-			culler = new BoxCuller(halfPlaneLength * (renderDistanceMultiplier * entityShadowDistanceMultiplier));
+			double distance = renderDistanceMultiplier < 0 ? IrisVideoSettings.shadowDistance * 16
+				: halfPlaneLength * (renderDistanceMultiplier * getEntityDistanceMultiplier());
+			distance *= getEntityDistanceScale();
+
+			if (blockEntityCuller == null || blockEntityCuller.getMaxDistance() != distance) {
+				blockEntityCuller = new BoxCuller(distance);
+			}
+
+			culler = blockEntityCuller;
 			culler.setPosition(cameraX, cameraY, cameraZ);
 		}
 
-		for (BlockEntity entity : visibleBlockEntities) {
+		List<BlockEntity> blockEntities = visibleBlockEntities;
+
+		if (blockEntityBands.isEnabled()) {
+			// Offer block entities from near to far, so that the budget is spent on the closest ones
+			blockEntities = sortedBlockEntities;
+			blockEntities.clear();
+			blockEntities.addAll(visibleBlockEntities);
+			setSortCamera(cameraX, cameraY, cameraZ);
+			blockEntities.sort(blockEntityDistanceOrder);
+		}
+
+		for (BlockEntity entity : blockEntities) {
 			BlockPos pos = entity.getBlockPos();
 			if (hasEntityFrustum) {
 				if (culler.isCulled(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1, pos.getX() + 1, pos.getY() + 1, pos.getZ() + 1)) {
 					continue;
 				}
 			}
+			// Block entities are already within the parent frustum, since they come from the visible chunks
+			if (cascadeFrustum != null && !cascadeFrustum.isInsideCascade(pos.getX() - 1, pos.getY() - 1, pos.getZ() - 1,
+				pos.getX() + 2, pos.getY() + 2, pos.getZ() + 2)) {
+				continue;
+			}
+			if (blockEntityBands.isEnabled() && !blockEntityBands.shouldRender(entity, pos.distSqr(cameraX, cameraY, cameraZ, true))) {
+				continue;
+			}
 			modelView.pushPose();
 			modelView.translate(pos.getX() - cameraX, pos.getY() - cameraY, pos.getZ() - cameraZ);
 			BlockEntityRenderDispatcher.instance.render(entity, tickDelta, modelView, bufferSource);
@@ -446,11 +882,130 @@ public class ShadowRenderer {
 			shadowBlockEntities++;
 		}
 
-		renderedShadowBlockEntities = shadowBlockEntities;
+		renderedShadowBlockEntities += shadowBlockEntities;
+
+		if (blockEntityBands.isEnabled()) {
+			sortedBlockEntities.clear();
+		}
 
 		profiler.pop();
 	}
 
+	private void setSortCamera(double cameraX, double cameraY, double cameraZ) {
+		sortCameraX = cameraX;
+		sortCameraY = cameraY;
+		sortCameraZ = cameraZ;
+	}
+
+	/**
+	 * Marks the mipmaps of the shadow map as out of date, for example after a shadow compute program wrote to it.
+	 */
+	public void markMipmapsDirty() {
+		for (MipmapPass mipmapPass : mipmapPasses) {
+			mipmapPass.markDirty();
+		}
+	}
+
+	/**
+	 * Marks the mipmaps as out of date if the contents of a region of the shadow map changed when it was cleared and
+	 * rendered again. If nothing was drawn into it both this time and the last time, it is still empty.
+	 */
+	private void onRegionRendered(int region, boolean drewGeometry) {
+		if (drewGeometry || regionHasGeometry[region]) {
+			markMipmapsDirty();
+		}
+
+		regionHasGeometry[region] = drewGeometry;
+	}
+
+	/**
+	 * Renders terrain, entities, and block entities into the shadow map, or into a single cascade of it if a cascade
+	 * frustum is given.
+	 *
+	 * @return whether anything may have been drawn
+	 */
+	private boolean renderShadowGeometry(LevelRendererAccessor levelRenderer, PoseStack modelView, Frustum entityShadowFrustum,
+										 MultiBufferSource.BufferSource bufferSource, boolean hasEntityFrustum,
+										 @Nullable CascadeFrustum cascadeFrustum, double cameraX, double cameraY, double cameraZ,
+										 float tickDelta) {
+		int previousEntities = renderedShadowEntities;
+		int previousBlockEntities = renderedShadowBlockEntities;
+
+		// Sodium has its own chunk list, so chunks always count as drawn with it installed.
+		boolean drewTerrain = (shouldRenderTerrain || shouldRenderTranslucent)
+			&& (Iris.isSodiumInstalled() || !levelRenderer.getRenderChunks().isEmpty());
+
+		// Render all opaque terrain unless pack requests not to
+		if (shouldRenderTerrain) {
+			levelRenderer.invokeRenderChunkLayer(RenderType.solid(), modelView, cameraX, cameraY, cameraZ);
+			levelRenderer.invokeRenderChunkLayer(RenderType.cutout(), modelView, cameraX, cameraY, cameraZ);
+			levelRenderer.invokeRenderChunkLayer(RenderType.cutoutMipped(), modelView, cameraX, cameraY, cameraZ);
+		}
+
+		profiler.popPush("entities");
+
+		if (shouldRenderEntities) {
+			renderEntities(levelRenderer, entityShadowFrustum, bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta);
+		} else if (shouldRenderPlayer) {
+			renderPlayerEntity(levelRenderer, entityShadowFrustum, bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta);
+		}
+
+		if (shouldRenderBlockEntities) {
+			renderBlockEntities(bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta, hasEntityFrustum, cascadeFrustum);
+		}
+
+		profiler.popPush("draw entities");
+
+		// NB: Don't try to draw the translucent parts of entities afterwards. It'll cause problems since some
+		// shader packs assume that everything drawn afterwards is actually translucent and should cast a colored
+		// shadow...
+		bufferSource.endBatch();
+
+		if (cascadeFrustum != null) {
+			copyPreTranslucentDepth(ShadowCascades.getCurrentCascade());
+		} else {
+			copyPreTranslucentDepth();
+		}
+
+		profiler.popPush("translucent terrain");
+
+		// TODO: Prevent these calls from scheduling translucent sorting...
+		// It doesn't matter a ton, since this just means that they won't be sorted in the normal rendering pass.
+		// Just something to watch out for, however...
+		if (shouldRenderTranslucent) {
+			levelRenderer.invokeRenderChunkLayer(RenderType.translucent(), modelView, cameraX, cameraY, cameraZ);
+		}
+
+		// Note: Apparently tripwire isn't rendered in the shadow pass.
+		// worldRenderer.invokeRenderType(RenderType.getTripwire(), modelView, cameraX, cameraY, cameraZ);
+
+		int region = Math.max(ShadowCascades.getCurrentCascade(), 0);
+		cascadeShadowEntities[region] = renderedShadowEntities - previousEntities;
+		cascadeShadowBlockEntities[region] = renderedShadowBlockEntities - previousBlockEntities;
+
+		return drewTerrain || renderedShadowEntities != previousEntities
+			|| renderedShadowBlockEntities != previousBlockEntities;
+	}
+
+	/**
+	 * Restricts the chunk list of the level renderer to the chunks within a cascade, so that each cascade only draws
+	 * the chunks it covers instead of relying on the GPU to clip the rest. The full list must have been saved to
+	 * {@link #shadowRenderChunks} beforehand.
+	 */
+	private void cullRenderChunks(LevelRendererAccessor levelRenderer, CascadeFrustum cascadeFrustum) {
+		ObjectList<LevelRenderer.RenderChunkInfo> renderChunks = levelRenderer.getRenderChunks();
+		renderChunks.clear();
+
+		for (int i = 0; i < shadowRenderChunks.size(); i++) {
+			LevelRenderer.RenderChunkInfo chunk = shadowRenderChunks.get(i);
+			AABB bb = ((ChunkInfoAccessor) chunk).getChunk().bb;
+
+			if (cascadeFrustum.isInsideCascade(bb.minX, bb.minY, bb.minZ, bb.maxX, bb.maxY, bb.maxZ)) {
+				renderChunks.add(chunk);
+			}
+		}
+	}
+
 	public void renderShadows(LevelRendererAccessor levelRenderer, Camera playerCamera) {
 		// We have to re-query this each frame since this changes based on whether the profiler is active
 		// If the profiler is inactive, it will return InactiveProfiler.INSTANCE
@@ -461,24 +1016,24 @@ public class ShadowRenderer {
 		profiler.popPush("shadows");
 		ACTIVE = true;
 
+		long startTime = System.nanoTime();
+
+		if (shadowPassTimer != null) {
+			shadowPassTimer.begin();
+		}
+
 		// NB: We store the previous player buffers in order to be able to allow mods rendering entities in the shadow pass (Flywheel) to use the shadow buffers instead.
 		RenderBuffers playerBuffers = levelRenderer.getRenderBuffers();
 		levelRenderer.setRenderBuffers(buffers);
 
-		visibleBlockEntities = new ArrayList<>();
+		visibleBlockEntities.clear();
 
 		// Create our camera
-		PoseStack modelView = createShadowModelView(this.sunPathRotation, this.intervalSize);
-		MODELVIEW = modelView.last().pose().copy();
-		float[] projMatrix;
-		if (this.fov != null) {
-			// If FOV is not null, the pack wants a perspective based projection matrix. (This is to support legacy packs)
-			projMatrix = ShadowMatrices.createPerspectiveMatrix(this.fov);
-		} else {
-			projMatrix = ShadowMatrices.createOrthoMatrix(halfPlaneLength);
-		}
-
-		PROJECTION = new Matrix4f();
+		Vec3 shadowCameraPos = client.gameRenderer.getMainCamera().getPosition();
+		shadowCamera.updateModelView(getShadowAngle(), intervalSize, sunPathRotation, shadowCameraPos.x, shadowCameraPos.y, shadowCameraPos.z);
+		float[] modelViewArray = shadowCamera.getModelViewArray();
+		((Matrix4fAccess) (Object) modelView.last().pose()).copyFromArray(modelViewArray);
+		((Matrix4fAccess) (Object) MODELVIEW).copyFromArray(modelViewArray);
 		((Matrix4fAccess) (Object) PROJECTION).copyFromArray(projMatrix);
 
 		profiler.push("terrain_setup");
@@ -489,37 +1044,58 @@ public class ShadowRenderer {
 
 		profiler.push("initialize frustum");
 
-		terrainFrustumHolder = createShadowFrustum(renderDistanceMultiplier, terrainFrustumHolder);
+		terrainFrustumHolder = createShadowFrustum(renderDistanceMultiplier, terrainFrustumHolder, getTerrainDistanceScale());
 
 		// Determine the player camera position
-		Vector3d cameraPos = CameraUniforms.getUnshiftedCameraPosition();
+		Vec3 cameraPos = playerCamera.getPosition();
 
-		double cameraX = cameraPos.x();
-		double cameraY = cameraPos.y();
-		double cameraZ = cameraPos.z();
+		double cameraX = cameraPos.x;
+		double cameraY = cameraPos.y;
+		double cameraZ = cameraPos.z;
 
 		// Center the frustum on the player camera position
 		terrainFrustumHolder.getFrustum().prepare(cameraX, cameraY, cameraZ);
 
 		profiler.pop();
 
-		// Disable chunk occlusion culling - it's a bit complex to get this properly working with shadow rendering
-		// as-is, however in the future it will be good to work on restoring it for a nice performance boost.
-		//
-		// TODO: Get chunk occlusion working with shadows
+		// Disable the vanilla chunk occlusion culling, since it floods outwards from the player camera and doesn't make
+		// sense for the shadow camera. If the pack enables culling, chunks that light can't reach are culled by
+		// LightSpaceOcclusionCuller instead.
+		celestialUniforms.getShadowLightPositionInWorldSpace(shadowLightPosition);
+
+		if (occlusionCuller != null) {
+			occlusionCuller.setLightDirection(shadowLightPosition.x(), shadowLightPosition.y(), shadowLightPosition.z());
+		}
+
+		OCCLUSION_CULLER = occlusionCuller;
+
+		LIGHT_DIRECTION.set(shadowLightPosition.x(), shadowLightPosition.y(), shadowLightPosition.z()).normalize();
+		SORT_TRANSLUCENT_BY_LIGHT = sortTranslucentByLight;
+
 		boolean wasChunkCullingEnabled = client.smartCull;
 		client.smartCull = false;
 
-		// Always schedule a terrain update
-		// TODO: Only schedule a terrain update if the sun / moon is moving, or the shadow map camera moved.
-		// We have to ensure that we don't regenerate clouds every frame, since that's what needsUpdate ends up doing.
-		// This took up to 10% of the frame time before we applied this fix! That's really bad!
-		boolean regenerateClouds = levelRenderer.shouldRegenerateClouds();
-		((LevelRenderer) levelRenderer).needsUpdate();
-		levelRenderer.setShouldRegenerateClouds(regenerateClouds);
+		// Only schedule a terrain update if the inputs of shadow culling changed, or chunks changed. Otherwise, the chunk
+		// list from the previous shadow pass is still valid.
+		Frustum terrainFrustum = terrainFrustumHolder.getFrustum();
+		boolean advancedCulling = terrainFrustum instanceof AdvancedShadowCullingFrustum;
+		boolean reuseVisibility = visibilityCache.checkAndUpdate(LIGHT_DIRECTION, advancedCulling || occlusionCuller != null,
+			cameraX, cameraY, cameraZ, client.options.renderDistance, terrainFrustum.getClass(),
+			terrainFrustumHolder.getDistanceInfo(), advancedCulling);
+
+		if (!reuseVisibility) {
+			// We have to ensure that we don't regenerate clouds every frame, since that's what needsUpdate ends up doing.
+			// This took up to 10% of the frame time before we applied this fix! That's really bad!
+			boolean regenerateClouds = levelRenderer.shouldRegenerateClouds();
+			((LevelRenderer) levelRenderer).needsUpdate();
+			levelRenderer.setShouldRegenerateClouds(regenerateClouds);
+		}
 
 		// Execute the vanilla terrain setup / culling routines using our shadow frustum.
-		levelRenderer.invokeSetupRender(playerCamera, terrainFrustumHolder.getFrustum(), false, levelRenderer.getFrameId(), false);
+		//
+		// When reusing the previous visibility, we pretend that the frustum is forced. This makes both vanilla and
+		// Sodium skip rebuilding the visibility graph, while still collecting the visible block entities.
+		levelRenderer.invokeSetupRender(playerCamera, terrainFrustum, reuseVisibility, levelRenderer.getFrameId(), false);
 
 		// Don't forget to increment the frame counter! This variable is arbitrary and only used in terrain setup,
 		// and if it's not incremented, the vanilla culling code will get confused and think that it's already seen
@@ -532,15 +1108,6 @@ public class ShadowRenderer {
 
 		setupGlState(projMatrix);
 
-		// Render all opaque terrain unless pack requests not to
-		if (shouldRenderTerrain) {
-			levelRenderer.invokeRenderChunkLayer(RenderType.solid(), modelView, cameraX, cameraY, cameraZ);
-			levelRenderer.invokeRenderChunkLayer(RenderType.cutout(), modelView, cameraX, cameraY, cameraZ);
-			levelRenderer.invokeRenderChunkLayer(RenderType.cutoutMipped(), modelView, cameraX, cameraY, cameraZ);
-		}
-
-		profiler.popPush("entities");
-
 		// Get the current tick delta. Normally this is the same as client.getTickDelta(), but when the game is paused,
 		// it is set to a fixed value.
 		final float tickDelta = CapturedRenderingState.INSTANCE.getTickDelta();
@@ -549,11 +1116,12 @@ public class ShadowRenderer {
 		// if the shader pack has requested it. Otherwise, use the same frustum as for terrain.
 		boolean hasEntityFrustum = false;
 
-		if (entityShadowDistanceMultiplier == 1.0F || entityShadowDistanceMultiplier < 0.0F) {
+		if (getEntityDistanceMultiplier() == 1.0F && getEntityDistanceScale() == getTerrainDistanceScale()) {
 			entityFrustumHolder.setInfo(terrainFrustumHolder.getFrustum(), terrainFrustumHolder.getDistanceInfo(), terrainFrustumHolder.getCullingInfo());
 		} else {
 			hasEntityFrustum = true;
-			entityFrustumHolder = createShadowFrustum(renderDistanceMultiplier * entityShadowDistanceMultiplier, entityFrustumHolder);
+			entityFrustumHolder = createShadowFrustum(renderDistanceMultiplier * getEntityDistanceMultiplier(), entityFrustumHolder,
+				getEntityDistanceScale());
 		}
 
 		Frustum entityShadowFrustum = entityFrustumHolder.getFrustum();
@@ -573,42 +1141,90 @@ public class ShadowRenderer {
 
 		MultiBufferSource.BufferSource bufferSource = buffers.bufferSource();
 
-		if (shouldRenderEntities) {
-			renderEntities(levelRenderer, entityShadowFrustum, bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta);
-		} else if (shouldRenderPlayer) {
-			renderPlayerEntity(levelRenderer, entityShadowFrustum, bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta);
-		}
+		renderedShadowEntities = 0;
+		renderedShadowBlockEntities = 0;
+		// The entity budget is shared by all cascades, and each entity is either rendered into all of the cascades it's
+		// within or none of them.
+		int frameCounter = SystemTimeUniforms.COUNTER.getAsInt();
+		entityBands.begin(frameCounter, getEntityShadowDistance());
+		blockEntityBands.begin(frameCounter, getEntityShadowDistance());
 
-		if (shouldRenderBlockEntities) {
-			renderBlockEntities(bufferSource, modelView, cameraX, cameraY, cameraZ, tickDelta, hasEntityFrustum);
-		}
+		CASCADES = cascades;
 
-		profiler.popPush("draw entities");
+		if (cascades == null) {
+			boolean drewGeometry = renderShadowGeometry(levelRenderer, modelView, entityShadowFrustum, bufferSource,
+				hasEntityFrustum, null, cameraX, cameraY, cameraZ, tickDelta);
 
-		// NB: Don't try to draw the translucent parts of entities afterwards. It'll cause problems since some
-		// shader packs assume that everything drawn afterwards is actually translucent and should cast a colored
-		// shadow...
-		bufferSource.endBatch();
+			onRegionRendered(0, drewGeometry);
+		} else {
+			// All cascades share the terrain setup above, which used the frustum of the full shadow distance. Each
+			// cascade only draws the chunks, entities, and block entities within its bounds. Sodium has its own chunk
+			// list, so chunks outside of a smaller cascade are clipped by the GPU with it installed.
+			boolean cullChunks = !Iris.isSodiumInstalled();
 
-		copyPreTranslucentDepth();
+			if (cullChunks) {
+				shadowRenderChunks.addAll(levelRenderer.getRenderChunks());
+			}
 
-		profiler.popPush("translucent terrain");
+			for (int cascade = 0; cascade < cascades.getCount(); cascade++) {
+				if (!cascades.shouldUpdate(cascade)) {
+					continue;
+				}
 
-		// TODO: Prevent these calls from scheduling translucent sorting...
-		// It doesn't matter a ton, since this just means that they won't be sorted in the normal rendering pass.
-		// Just something to watch out for, however...
-		if (shouldRenderTranslucent) {
-			levelRenderer.invokeRenderChunkLayer(RenderType.translucent(), modelView, cameraX, cameraY, cameraZ);
+				profiler.popPush("terrain");
+
+				float[] cascadeProjMatrix = cascadeProjMatrices[cascade];
+
+				IrisRenderSystem.restoreProjectionMatrix();
+				IrisRenderSystem.setupProjectionMatrix(cascadeProjMatrix);
+
+				((Matrix4fAccess) (Object) PROJECTION).copyFromArray(cascadeProjMatrix);
+
+				ShadowCascades.setCurrentCascade(cascade);
+				setupViewport();
+
+				// NB: The vanilla frustum extracts its planes in the constructor, so this is still created per cascade.
+				CascadeFrustum cascadeFrustum = new CascadeFrustum(entityShadowFrustum, MODELVIEW, PROJECTION);
+				cascadeFrustum.prepare(cameraX, cameraY, cameraZ);
+
+				if (cullChunks) {
+					cullRenderChunks(levelRenderer, cascadeFrustum);
+				}
+
+				boolean drewGeometry = renderShadowGeometry(levelRenderer, modelView, cascadeFrustum, bufferSource,
+					hasEntityFrustum, cascadeFrustum, cameraX, cameraY, cameraZ, tickDelta);
+
+				onRegionRendered(cascade, drewGeometry);
+
+				cascades.markRendered(cascade, shadowCamera.getModelViewArray(), cascadeProjMatrix, cameraX, cameraY, cameraZ);
+			}
+
+			ShadowCascades.setCurrentCascade(-1);
+
+			if (cullChunks) {
+				ObjectList<LevelRenderer.RenderChunkInfo> renderChunks = levelRenderer.getRenderChunks();
+				renderChunks.clear();
+				renderChunks.addAll(shadowRenderChunks);
+				shadowRenderChunks.clear();
+			}
+
+			// The last cascade covers the full shadow distance, matching the non-cascaded projection.
+			((Matrix4fAccess) (Object) PROJECTION).copyFromArray(projMatrix);
 		}
 
-		// Note: Apparently tripwire isn't rendered in the shadow pass.
-		// worldRenderer.invokeRenderType(RenderType.getTripwire(), modelView, cameraX, cameraY, cameraZ);
+		deferredShadowEntities = entityBands.getDeferredCount();
+		deferredShadowBlockEntities = blockEntityBands.getDeferredCount();
+		entityBands.end();
+		blockEntityBands.end();
 
 		if (renderBuffersExt != null) {
 			renderBuffersExt.endLevelRendering();
 		}
 
-		debugStringTerrain = ((LevelRenderer) levelRenderer).getChunkStatistics();
+		// Building the chunk statistics string allocates, so skip it unless the debug screen is open.
+		if (client.options.renderDebug) {
+			debugStringTerrain = ((LevelRenderer) levelRenderer).getChunkStatistics();
+		}
 
 		profiler.popPush("generate mipmaps");
 
@@ -624,6 +1240,10 @@ public class ShadowRenderer {
 
 		levelRenderer.setRenderBuffers(playerBuffers);
 
+		if (distanceController != null) {
+			updateDistanceController(System.nanoTime() - startTime);
+		}
+
 		ACTIVE = false;
 		profiler.pop();
 		profiler.popPush("updatechunks");
@@ -632,9 +1252,21 @@ public class ShadowRenderer {
 	public void addDebugText(List<String> messages) {
 		messages.add("[" + Iris.MODNAME + "] Shadow Maps: " + debugStringOverall);
 		messages.add("[" + Iris.MODNAME + "] Shadow Distance Terrain: " + terrainFrustumHolder.getDistanceInfo() + " Entity: " + entityFrustumHolder.getDistanceInfo());
-		messages.add("[" + Iris.MODNAME + "] Shadow Culling Terrain: " + terrainFrustumHolder.getCullingInfo() + " Entity: " + entityFrustumHolder.getCullingInfo());
+		messages.add("[" + Iris.MODNAME + "] Shadow Culling Terrain: " + terrainFrustumHolder.getCullingInfo()
+			+ (occlusionCuller != null ? " + light occlusion" : "") + " Entity: " + entityFrustumHolder.getCullingInfo());
+
+		if (distanceController != null) {
+			messages.add("[" + Iris.MODNAME + "] Shadow Budget: " + String.format("%.2f", distanceController.getSmoothedTime())
+				+ "/" + distanceController.getBudget() + " ms" + (shadowPassTimer != null ? "" : " (CPU only)")
+				+ ", distance x" + getTerrainDistanceScale() + " Entity: x" + getEntityDistanceScale());
+		}
 		messages.add("[" + Iris.MODNAME + "] Shadow Terrain: " + debugStringTerrain
 			+ (shouldRenderTerrain ? "" : " (no terrain) ") + (shouldRenderTranslucent ? "" : "(no translucent)"));
+
+		float visibilityHitRate = visibilityCache.getHitRate();
+		if (visibilityHitRate >= 0.0F) {
+			messages.add("[" + Iris.MODNAME + "] Shadow Visibility Reused: " + Math.round(visibilityHitRate * 100.0F) + "% of frames");
+		}
 		messages.add("[" + Iris.MODNAME + "] Shadow Entities: " + getEntitiesDebugString());
 		messages.add("[" + Iris.MODNAME + "] Shadow Block Entities: " + getBlockEntitiesDebugString());
 
@@ -645,20 +1277,94 @@ public class ShadowRenderer {
 	}
 
 	private String getEntitiesDebugString() {
-		return (shouldRenderEntities || shouldRenderPlayer) ? (renderedShadowEntities + "/" + Minecraft.getInstance().level.getEntityCount()) : "disabled by pack";
+		return (shouldRenderEntities || shouldRenderPlayer) ? (getRenderedDebugString(cascadeShadowEntities) + "/" + Minecraft.getInstance().level.getEntityCount() + getDeferredDebugString(deferredShadowEntities)) : "disabled by pack";
 	}
 
 	private String getBlockEntitiesDebugString() {
-		return shouldRenderBlockEntities ? (renderedShadowBlockEntities + "/" + Minecraft.getInstance().level.blockEntityList.size()) : "disabled by pack";
+		return shouldRenderBlockEntities ? (getRenderedDebugString(cascadeShadowBlockEntities) + "/" + Minecraft.getInstance().level.blockEntityList.size() + getDeferredDebugString(deferredShadowBlockEntities)) : "disabled by pack";
+	}
+
+	/**
+	 * Lists the number rendered into each cascade separately, since something within several cascades is rendered once
+	 * for each of them.
+	 */
+	private static String getRenderedDebugString(int[] counts) {
+		if (counts.length == 1) {
+			return String.valueOf(counts[0]);
+		}
+
+		StringBuilder builder = new StringBuilder("[");
+
+		for (int i = 0; i < counts.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+
+			builder.append(counts[i]);
+		}
+
+		return builder.append(']').toString();
+	}
+
+	private static String getDeferredDebugString(int deferred) {
+		return deferred > 0 ? " (" + deferred + " deferred)" : "";
+	}
+
+	/**
+	 * The distance covered by the entity shadow distance bands.
+	 */
+	private double getEntityShadowDistance() {
+		if (entityShadowDistanceMultiplier > 0.0F && entityShadowDistanceMultiplier < 1.0F) {
+			return halfPlaneLength * entityShadowDistanceMultiplier * getEntityDistanceScale();
+		}
+
+		return halfPlaneLength * getEntityDistanceScale();
+	}
+
+	/**
+	 * The multiplier that the pack applies to the shadow render distance for entities, or 1 if it doesn't set one.
+	 */
+	private float getEntityDistanceMultiplier() {
+		return entityShadowDistanceMultiplier < 0.0F ? 1.0F : entityShadowDistanceMultiplier;
+	}
+
+	private float getTerrainDistanceScale() {
+		return distanceController != null ? distanceController.getTerrainDistanceScale() : 1.0F;
+	}
+
+	private float getEntityDistanceScale() {
+		return distanceController != null
+			? distanceController.getTerrainDistanceScale() * distanceController.getEntityDistanceScale() : 1.0F;
+	}
+
+	/**
+	 * Feeds the time taken by this shadow pass to the distance controller. The GPU time is only known a few frames
+	 * later, so the latest available measurement is used, and the pass is limited by whichever of the two is slower.
+	 */
+	private void updateDistanceController(long cpuNanos) {
+		float cpuTime = cpuNanos / 1_000_000.0F;
+		float gpuTime = -1.0F;
+
+		if (shadowPassTimer != null) {
+			shadowPassTimer.end();
+			gpuTime = shadowPassTimer.getLastTime();
+		}
+
+		distanceController.update(Math.max(cpuTime, gpuTime));
 	}
 
 	private static class MipmapPass {
 		private final int texture;
 		private final int targetFilteringMode;
+		@Nullable
+		private final DepthMipmapReducer reducer;
+		private boolean dirty;
 
-		public MipmapPass(int texture, int targetFilteringMode) {
+		public MipmapPass(int texture, int targetFilteringMode, @Nullable DepthMipmapReducer reducer) {
 			this.texture = texture;
 			this.targetFilteringMode = targetFilteringMode;
+			this.reducer = reducer;
+			this.dirty = true;
 		}
 
 		public int getTexture() {
@@ -668,5 +1374,22 @@ public class ShadowRenderer {
 		public int getTargetFilteringMode() {
 			return targetFilteringMode;
 		}
+
+		@Nullable
+		public DepthMipmapReducer getReducer() {
+			return reducer;
+		}
+
+		public boolean isDirty() {
+			return dirty;
+		}
+
+		public void markDirty() {
+			dirty = true;
+		}
+
+		public void markClean() {
+			dirty = false;
+		}
 	}
 }
@@ -5,6 +5,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.function.IntFunction;
 
+import net.coderbot.iris.block_rendering.BlockRenderingSettings;
 import net.coderbot.iris.gl.program.ProgramImages;
 import net.coderbot.iris.gl.program.ProgramSamplers;
 import net.coderbot.iris.gl.program.ProgramUniforms;
@@ -49,11 +50,15 @@ public class SodiumTerrainPipeline {
 
 		this.programSet = programSet;
 
+		// The vertex format used by Sodium is chosen from the same setting, see IrisModelVertexFormats
+		boolean compactVertexFormat = BlockRenderingSettings.INSTANCE.shouldUseCompactVertexFormat();
+
 		terrainSource.ifPresent(sources -> {
 			Map<PatchShaderType, String> result = TransformPatcher.patchSodiumTerrain(
 				sources.getVertexSource().orElse(null),
 				sources.getGeometrySource().orElse(null),
-				sources.getFragmentSource().orElse(null));
+				sources.getFragmentSource().orElse(null),
+				compactVertexFormat);
 			terrainVertex = Optional.ofNullable(result.get(PatchShaderType.VERTEX));
 			terrainGeometry = Optional.ofNullable(result.get(PatchShaderType.GEOMETRY));
 			terrainFragment = Optional.ofNullable(result.get(PatchShaderType.FRAGMENT));
@@ -66,7 +71,8 @@ public class SodiumTerrainPipeline {
 			Map<PatchShaderType, String> result = TransformPatcher.patchSodiumTerrain(
 				sources.getVertexSource().orElse(null),
 				sources.getGeometrySource().orElse(null),
-				sources.getFragmentSource().orElse(null));
+				sources.getFragmentSource().orElse(null),
+				compactVertexFormat);
 			translucentVertex = Optional.ofNullable(result.get(PatchShaderType.VERTEX));
 			translucentGeometry = Optional.ofNullable(result.get(PatchShaderType.GEOMETRY));
 			translucentFragment = Optional.ofNullable(result.get(PatchShaderType.FRAGMENT));
@@ -79,7 +85,8 @@ public class SodiumTerrainPipeline {
 			Map<PatchShaderType, String> result = TransformPatcher.patchSodiumTerrain(
 				sources.getVertexSource().orElse(null),
 				sources.getGeometrySource().orElse(null),
-				sources.getFragmentSource().orElse(null));
+				sources.getFragmentSource().orElse(null),
+				compactVertexFormat);
 			shadowVertex = Optional.ofNullable(result.get(PatchShaderType.VERTEX));
 			shadowGeometry = Optional.ofNullable(result.get(PatchShaderType.GEOMETRY));
 			shadowFragment = Optional.ofNullable(result.get(PatchShaderType.FRAGMENT));
@@ -5,11 +5,13 @@ import net.coderbot.iris.gbuffer_overrides.matching.InputAvailability;
 class AttributeParameters extends Parameters {
 	public final boolean hasGeometry;
 	public final InputAvailability inputs;
+	public final boolean instancing;
 
-	public AttributeParameters(Patch patch, boolean hasGeometry, InputAvailability inputs) {
+	public AttributeParameters(Patch patch, boolean hasGeometry, InputAvailability inputs, boolean instancing) {
 		super(patch);
 		this.hasGeometry = hasGeometry;
 		this.inputs = inputs;
+		this.instancing = instancing;
 	}
 
 	@Override
@@ -18,6 +20,7 @@ class AttributeParameters extends Parameters {
 		int result = super.hashCode();
 		result = prime * result + (hasGeometry ? 1231 : 1237);
 		result = prime * result + ((inputs == null) ? 0 : inputs.hashCode());
+		result = prime * result + (instancing ? 1231 : 1237);
 		return result;
 	}
 
@@ -37,6 +40,8 @@ class AttributeParameters extends Parameters {
 				return false;
 		} else if (!inputs.equals(other.inputs))
 			return false;
+		if (instancing != other.instancing)
+			return false;
 		return true;
 	}
 }
@@ -5,12 +5,17 @@ import java.util.stream.Stream;
 import io.github.douira.glsl_transformer.ast.node.Identifier;
 import io.github.douira.glsl_transformer.ast.node.TranslationUnit;
 import io.github.douira.glsl_transformer.ast.node.basic.ASTNode;
+import io.github.douira.glsl_transformer.ast.node.declaration.DeclarationMember;
+import io.github.douira.glsl_transformer.ast.node.declaration.TypeAndInitDeclaration;
+import io.github.douira.glsl_transformer.ast.node.external_declaration.DeclarationExternalDeclaration;
 import io.github.douira.glsl_transformer.ast.node.external_declaration.ExternalDeclaration;
+import io.github.douira.glsl_transformer.ast.node.type.specifier.BuiltinNumericTypeSpecifier;
 import io.github.douira.glsl_transformer.ast.query.Root;
 import io.github.douira.glsl_transformer.ast.query.match.AutoHintedMatcher;
 import io.github.douira.glsl_transformer.ast.query.match.Matcher;
 import io.github.douira.glsl_transformer.ast.transform.ASTInjectionPoint;
 import io.github.douira.glsl_transformer.ast.transform.ASTParser;
+import io.github.douira.glsl_transformer.util.Type;
 import net.coderbot.iris.gl.shader.ShaderType;
 
 /**
@@ -75,6 +80,96 @@ class AttributeTransformer {
 			tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_FUNCTIONS,
 					"attribute vec4 mc_midTexCoord;");
 		}
+
+		if (parameters.type.glShaderType == ShaderType.VERTEX
+				&& parameters.inputs.overlay
+				&& parameters.instancing) {
+			patchInstancing(t, tree, root);
+		}
+	}
+
+	// Allows entity model parts to be drawn with instanced draw calls, see EntityInstancing.
+	// Instanced draws supply model-space vertices along with a per-instance model
+	// matrix, lightmap coordinate, and overlay coordinate. Regular draws leave the
+	// instance attributes at their default value of (0, 0, 0, 1), which is how the
+	// two cases are told apart.
+	private static void patchInstancing(
+			ASTParser t,
+			TranslationUnit tree,
+			Root root) {
+		root.rename("gl_Vertex", "iris_Vertex");
+		root.rename("gl_Normal", "iris_Normal");
+		root.rename("gl_MultiTexCoord1", "iris_MultiTexCoord1");
+		root.rename("gl_MultiTexCoord2", "iris_MultiTexCoord2");
+		root.rename("ftransform", "iris_ftransform");
+
+		tree.parseAndInjectNodes(t, ASTInjectionPoint.BEFORE_DECLARATIONS,
+				"attribute vec4 iris_InstanceRow0;",
+				"attribute vec4 iris_InstanceRow1;",
+				"attribute vec4 iris_InstanceRow2;",
+				"attribute vec4 iris_InstanceLight;",
+				"vec4 iris_Vertex;",
+				"vec3 iris_Normal;",
+				"vec4 iris_MultiTexCoord1;",
+				"vec4 iris_MultiTexCoord2;");
+		tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_FUNCTIONS,
+				"vec4 iris_ftransform() { return gl_ModelViewProjectionMatrix * iris_Vertex; }");
+
+		// The tangent is also generated in model space, so it needs to be rotated. The
+		// copy keeps the declared type of at_tangent, which is either a vec3 or a vec4
+		// with the handedness in w. Other types can't be rotated and are left alone.
+		Type tangentType = getDeclaredType(root, "at_tangent");
+		boolean hasTangent = tangentType == Type.F32VEC3 || tangentType == Type.F32VEC4;
+		String rotatedTangent = "";
+
+		if (hasTangent) {
+			root.replaceReferenceExpressions(t, "at_tangent", "iris_Tangent");
+			tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_FUNCTIONS,
+					tangentType.getMostCompactName() + " iris_Tangent;");
+
+			rotatedTangent = "normalize(vec3(dot(iris_InstanceRow0.xyz, iris_Tangent.xyz), dot(iris_InstanceRow1.xyz, iris_Tangent.xyz), dot(iris_InstanceRow2.xyz, iris_Tangent.xyz)))";
+
+			if (tangentType == Type.F32VEC4) {
+				rotatedTangent = "vec4(" + rotatedTangent + ", iris_Tangent.w)";
+			}
+		}
+
+		// NB: The normal is rotated with the model matrix instead of its inverse
+		// transpose, this is only exact for model matrices without non-uniform scaling.
+		// Statements are prepended in reverse order, so the instance transform ends up
+		// after the copies of the regular inputs.
+		tree.prependMain(t, "if (iris_InstanceLight.w > 1.5) {" +
+				"iris_Vertex = vec4(dot(iris_InstanceRow0, gl_Vertex), dot(iris_InstanceRow1, gl_Vertex), dot(iris_InstanceRow2, gl_Vertex), 1.0);" +
+				"iris_Normal = normalize(vec3(dot(iris_InstanceRow0.xyz, gl_Normal), dot(iris_InstanceRow1.xyz, gl_Normal), dot(iris_InstanceRow2.xyz, gl_Normal)));" +
+				(hasTangent ? "iris_Tangent = " + rotatedTangent + ";" : "") +
+				"iris_MultiTexCoord1 = vec4(mod(iris_InstanceLight.z, 16.0), floor(iris_InstanceLight.z / 16.0), 0.0, 1.0);" +
+				"iris_MultiTexCoord2 = vec4(iris_InstanceLight.xy, 0.0, 1.0);" +
+				"}");
+
+		if (hasTangent) {
+			tree.prependMain(t, "iris_Tangent = at_tangent;");
+		}
+
+		tree.prependMain(t,
+				"iris_Vertex = gl_Vertex;",
+				"iris_Normal = gl_Normal;",
+				"iris_MultiTexCoord1 = gl_MultiTexCoord1;",
+				"iris_MultiTexCoord2 = gl_MultiTexCoord2;");
+	}
+
+	// Returns the type of a global variable, or null if it isn't declared with a
+	// builtin numeric type.
+	static Type getDeclaredType(Root root, String name) {
+		return root.identifierIndex.getStream(name)
+				.filter(identifier -> identifier.getParent() instanceof DeclarationMember)
+				.map(identifier -> identifier.getAncestor(TypeAndInitDeclaration.class))
+				.filter(declaration -> declaration != null
+						&& declaration.getParent() instanceof DeclarationExternalDeclaration)
+				.map(declaration -> declaration.getType().getTypeSpecifier())
+				.filter(BuiltinNumericTypeSpecifier.class::isInstance)
+				.map(specifier -> ((BuiltinNumericTypeSpecifier) specifier).type)
+				.findFirst()
+				.orElse(null);
 	}
 
 	private static void patchTextureMatrices(
@@ -0,0 +1,32 @@
+package net.coderbot.iris.pipeline.transform;
+
+class SodiumTerrainParameters extends Parameters {
+	public final boolean compactVertexFormat;
+
+	public SodiumTerrainParameters(Patch patch, boolean compactVertexFormat) {
+		super(patch);
+		this.compactVertexFormat = compactVertexFormat;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = super.hashCode();
+		result = prime * result + (compactVertexFormat ? 1231 : 1237);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!super.equals(obj))
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SodiumTerrainParameters other = (SodiumTerrainParameters) obj;
+		if (compactVertexFormat != other.compactVertexFormat)
+			return false;
+		return true;
+	}
+}
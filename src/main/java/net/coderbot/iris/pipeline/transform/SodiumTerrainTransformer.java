@@ -14,6 +14,7 @@ import io.github.douira.glsl_transformer.ast.query.match.AutoHintedMatcher;
 import io.github.douira.glsl_transformer.ast.query.match.Matcher;
 import io.github.douira.glsl_transformer.ast.transform.ASTInjectionPoint;
 import io.github.douira.glsl_transformer.ast.transform.ASTParser;
+import io.github.douira.glsl_transformer.util.Type;
 
 /**
  * Does the sodium terrain transformations using glsl-transformer AST.
@@ -23,7 +24,7 @@ class SodiumTerrainTransformer {
 			ASTParser t,
 			TranslationUnit tree,
 			Root root,
-			Parameters parameters) {
+			SodiumTerrainParameters parameters) {
 		switch (parameters.type) {
 			// For Sodium patching, treat fragment and geometry the same
 			case FRAGMENT:
@@ -48,13 +49,19 @@ class SodiumTerrainTransformer {
 			ASTParser t,
 			TranslationUnit tree,
 			Root root,
-			Parameters parameters) {
+			SodiumTerrainParameters parameters) {
+		if (parameters.compactVertexFormat) {
+			transformCompactAttributes(t, tree, root);
+		} else {
+			tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_DECLARATIONS,
+					"attribute vec3 iris_Normal;");
+		}
+
 		tree.parseAndInjectNodes(t, ASTInjectionPoint.BEFORE_DECLARATIONS,
 				"attribute vec3 iris_Pos;",
 				"attribute vec4 iris_Color;",
 				"attribute vec2 iris_TexCoord;",
 				"attribute vec2 iris_LightCoord;",
-				"attribute vec3 iris_Normal;", // some are shared
 				"uniform vec3 u_ModelScale;",
 				"uniform vec2 u_TextureScale;",
 				"attribute vec4 iris_ModelOffset;",
@@ -73,6 +80,46 @@ class SodiumTerrainTransformer {
 		replaceLightmapForSodium(t, tree, root, parameters);
 	}
 
+	/**
+	 * Decodes the attributes that the compact extended vertex format stores in quantized form. The normal is
+	 * octahedral-encoded and midTexCoord is stored as unsigned shorts in units of 1/32768, mirroring the way that
+	 * Sodium denormalizes the regular texture coordinates. See ExtendedDataHelper and NormalHelper for the
+	 * encoding side.
+	 */
+	private static void transformCompactAttributes(
+			ASTParser t,
+			TranslationUnit tree,
+			Root root) {
+		tree.parseAndInjectNode(t, ASTInjectionPoint.BEFORE_DECLARATIONS,
+				"attribute vec2 iris_NormalOctahedral;");
+		tree.parseAndInjectNodes(t, ASTInjectionPoint.BEFORE_FUNCTIONS,
+				"vec3 iris_Normal;",
+				"vec3 iris_decodeOctahedral(vec2 e) { " +
+						"vec3 n = vec3(e, 1.0 - abs(e.x) - abs(e.y)); " +
+						"if (n.z < 0.0) { n.xy = (1.0 - abs(n.yx)) * vec2(n.x >= 0.0 ? 1.0 : -1.0, n.y >= 0.0 ? 1.0 : -1.0); } " +
+						"return normalize(n); }");
+		tree.prependMain(t, "iris_Normal = iris_decodeOctahedral(iris_NormalOctahedral);");
+
+		if (root.identifierIndex.has("mc_midTexCoord")) {
+			// Only the first two components carry data, so only those are scaled. The others are set to the defaults
+			// that GL uses for components missing from the vertex format, which is what the pack would normally get.
+			Type midTexCoordType = AttributeTransformer.getDeclaredType(root, "mc_midTexCoord");
+			String midTexCoord;
+
+			if (midTexCoordType == Type.F32VEC4) {
+				midTexCoord = "vec4(iris_MidTexCoordRaw.xy / 32768.0, 0.0, 1.0)";
+			} else if (midTexCoordType == Type.F32VEC3) {
+				midTexCoord = "vec3(iris_MidTexCoordRaw.xy / 32768.0, 0.0)";
+			} else {
+				midTexCoord = "(iris_MidTexCoordRaw / 32768.0)";
+			}
+
+			root.replaceReferenceExpressions(t, "mc_midTexCoord", midTexCoord);
+			// replaceReferenceExpressions leaves the declaration alone, so this only renames the attribute itself.
+			root.rename("mc_midTexCoord", "iris_MidTexCoordRaw");
+		}
+	}
+
 	/**
 	 * Transforms fragment shaders. The fragment shader does only the shared things
 	 * from the vertex shader.
@@ -162,7 +162,7 @@ public class TransformPatcher {
 							AttributeTransformer.transform(transformer, tree, root, (AttributeParameters) parameters);
 							break;
 						case SODIUM_TERRAIN:
-							SodiumTerrainTransformer.transform(transformer, tree, root, parameters);
+							SodiumTerrainTransformer.transform(transformer, tree, root, (SodiumTerrainParameters) parameters);
 							break;
 						case COMPOSITE:
 							CompositeTransformer.transform(transformer, tree, root);
@@ -212,12 +212,12 @@ public class TransformPatcher {
 		return result;
 	}
 
-	public static Map<PatchShaderType, String> patchAttributes(String vertex, String geometry, String fragment, InputAvailability inputs) {
-		return transform(vertex, geometry, fragment, new AttributeParameters(Patch.ATTRIBUTES, geometry != null, inputs));
+	public static Map<PatchShaderType, String> patchAttributes(String vertex, String geometry, String fragment, InputAvailability inputs, boolean instancing) {
+		return transform(vertex, geometry, fragment, new AttributeParameters(Patch.ATTRIBUTES, geometry != null, inputs, instancing));
 	}
 
-	public static Map<PatchShaderType, String> patchSodiumTerrain(String vertex, String geometry, String fragment) {
-		return transform(vertex, geometry, fragment, new Parameters(Patch.SODIUM_TERRAIN));
+	public static Map<PatchShaderType, String> patchSodiumTerrain(String vertex, String geometry, String fragment, boolean compactVertexFormat) {
+		return transform(vertex, geometry, fragment, new SodiumTerrainParameters(Patch.SODIUM_TERRAIN, compactVertexFormat));
 	}
 
 	public static Map<PatchShaderType, String> patchComposite(String vertex, String geometry, String fragment) {
@@ -4,6 +4,7 @@ import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.coderbot.iris.gl.IrisRenderSystem;
 import net.coderbot.iris.shaderpack.texture.CustomTextureData;
+import net.coderbot.iris.shaderpack.texture.TextureFilteringData;
 import net.minecraft.client.renderer.texture.DynamicTexture;
 import org.lwjgl.opengl.GL11C;
 import org.lwjgl.opengl.GL13C;
@@ -14,22 +15,33 @@ import java.util.Objects;
 
 public class NativeImageBackedCustomTexture extends DynamicTexture {
 	public NativeImageBackedCustomTexture(CustomTextureData.PngData textureData) throws IOException {
-		super(create(textureData.getContent()));
+		this(decode(textureData.getContent()), textureData.getFilteringData());
+	}
+
+	/**
+	 * Creates a texture from an image that was already decoded, usually by {@link #decode} on another thread. This
+	 * uploads the image, so it must be called on the render thread. The texture takes ownership of the image.
+	 */
+	public NativeImageBackedCustomTexture(NativeImage image, TextureFilteringData filteringData) {
+		super(image);
 
 		// By default, images are unblurred and not clamped.
 
-		if (textureData.getFilteringData().shouldBlur()) {
+		if (filteringData.shouldBlur()) {
 			IrisRenderSystem.texParameteri(getId(), GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_MIN_FILTER, GL11C.GL_LINEAR);
 			IrisRenderSystem.texParameteri(getId(), GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_MAG_FILTER, GL11C.GL_LINEAR);
 		}
 
-		if (textureData.getFilteringData().shouldClamp()) {
+		if (filteringData.shouldClamp()) {
 			IrisRenderSystem.texParameteri(getId(), GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_WRAP_S, GL13C.GL_CLAMP_TO_EDGE);
 			IrisRenderSystem.texParameteri(getId(), GL11C.GL_TEXTURE_2D, GL11C.GL_TEXTURE_WRAP_T, GL13C.GL_CLAMP_TO_EDGE);
 		}
 	}
 
-	private static NativeImage create(byte[] content) throws IOException {
+	/**
+	 * Decodes the contents of a PNG file. This doesn't touch any OpenGL state, so it can be called from any thread.
+	 */
+	public static NativeImage decode(byte[] content) throws IOException {
 		ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
 		buffer.put(content);
 		buffer.flip();
@@ -0,0 +1,106 @@
+package net.coderbot.iris.rendertarget;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import net.coderbot.iris.gl.GlResource;
+import net.coderbot.iris.gl.IrisRenderSystem;
+import net.coderbot.iris.gl.texture.TextureUploadHelper;
+import net.coderbot.iris.shaderpack.texture.CustomTextureData;
+import net.coderbot.iris.shaderpack.texture.TextureFilteringData;
+import org.lwjgl.opengl.GL11C;
+import org.lwjgl.opengl.GL12C;
+import org.lwjgl.opengl.GL13C;
+import org.lwjgl.opengl.GL31C;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A custom texture whose content is uploaded as-is from a raw texture file, without decoding it first.
+ */
+public class RawCustomTexture extends GlResource {
+	private final int target;
+
+	public RawCustomTexture(CustomTextureData.RawData textureData) {
+		this(textureData, getTarget(textureData));
+	}
+
+	private RawCustomTexture(CustomTextureData.RawData textureData, int target) {
+		super(IrisRenderSystem.createTexture(target));
+		this.target = target;
+
+		int texture = getGlId();
+		IrisRenderSystem.setTextureTarget(texture, target);
+
+		TextureFilteringData filteringData = textureData.getFilteringData();
+
+		// By default, textures are unblurred and not clamped. Raw textures have no mipmaps, so the minification
+		// filter must not use them.
+		int filter = filteringData.shouldBlur() ? GL11C.GL_LINEAR : GL11C.GL_NEAREST;
+		int wrap = filteringData.shouldClamp() ? GL13C.GL_CLAMP_TO_EDGE : GL11C.GL_REPEAT;
+
+		IrisRenderSystem.texParameteri(texture, target, GL11C.GL_TEXTURE_MIN_FILTER, filter);
+		IrisRenderSystem.texParameteri(texture, target, GL11C.GL_TEXTURE_MAG_FILTER, filter);
+		IrisRenderSystem.texParameteri(texture, target, GL12C.GL_TEXTURE_MAX_LEVEL, 0);
+
+		// Rectangle textures can't repeat
+		if (target != GL31C.GL_TEXTURE_RECTANGLE) {
+			IrisRenderSystem.texParameteri(texture, target, GL11C.GL_TEXTURE_WRAP_S, wrap);
+			IrisRenderSystem.texParameteri(texture, target, GL11C.GL_TEXTURE_WRAP_T, wrap);
+			IrisRenderSystem.texParameteri(texture, target, GL12C.GL_TEXTURE_WRAP_R, wrap);
+		}
+
+		// Raw texture files have no padding between rows or images
+		TextureUploadHelper.resetTextureUploadState();
+		GlStateManager._pixelStore(GL11C.GL_UNPACK_ALIGNMENT, 1);
+		GlStateManager._pixelStore(GL12C.GL_UNPACK_IMAGE_HEIGHT, 0);
+		GlStateManager._pixelStore(GL12C.GL_UNPACK_SKIP_IMAGES, 0);
+
+		upload(texture, textureData);
+
+		GlStateManager._pixelStore(GL11C.GL_UNPACK_ALIGNMENT, 4);
+	}
+
+	private static int getTarget(CustomTextureData.RawData textureData) {
+		if (textureData instanceof CustomTextureData.RawData1D) {
+			return GL11C.GL_TEXTURE_1D;
+		} else if (textureData instanceof CustomTextureData.RawData2D) {
+			return GL11C.GL_TEXTURE_2D;
+		} else if (textureData instanceof CustomTextureData.RawDataRect) {
+			return GL31C.GL_TEXTURE_RECTANGLE;
+		} else if (textureData instanceof CustomTextureData.RawData3D) {
+			return GL12C.GL_TEXTURE_3D;
+		} else {
+			throw new IllegalArgumentException("Unable to handle raw texture data " + textureData);
+		}
+	}
+
+	private void upload(int texture, CustomTextureData.RawData textureData) {
+		ByteBuffer content = textureData.getContent();
+		int internalFormat = textureData.getInternalFormat().getGlFormat();
+		int pixelFormat = textureData.getPixelFormat().getGlFormat();
+		int pixelType = textureData.getPixelType().getGlFormat();
+
+		if (textureData instanceof CustomTextureData.RawData1D) {
+			CustomTextureData.RawData1D data = (CustomTextureData.RawData1D) textureData;
+			IrisRenderSystem.texImage1D(texture, target, 0, internalFormat, data.getSizeX(), 0, pixelFormat, pixelType, content);
+		} else if (textureData instanceof CustomTextureData.RawData2D) {
+			CustomTextureData.RawData2D data = (CustomTextureData.RawData2D) textureData;
+			IrisRenderSystem.texImage2D(texture, target, 0, internalFormat, data.getSizeX(), data.getSizeY(), 0, pixelFormat, pixelType, content);
+		} else if (textureData instanceof CustomTextureData.RawDataRect) {
+			CustomTextureData.RawDataRect data = (CustomTextureData.RawDataRect) textureData;
+			IrisRenderSystem.texImage2D(texture, target, 0, internalFormat, data.getSizeX(), data.getSizeY(), 0, pixelFormat, pixelType, content);
+		} else if (textureData instanceof CustomTextureData.RawData3D) {
+			CustomTextureData.RawData3D data = (CustomTextureData.RawData3D) textureData;
+			IrisRenderSystem.texImage3D(texture, target, 0, internalFormat, data.getSizeX(), data.getSizeY(), data.getSizeZ(), 0, pixelFormat, pixelType, content);
+		}
+	}
+
+	public int getTextureId() {
+		return getGlId();
+	}
+
+	@Override
+	protected void destroyInternal() {
+		IrisRenderSystem.removeTextureTarget(getGlId());
+		GlStateManager._deleteTexture(getGlId());
+	}
+}
@@ -0,0 +1,30 @@
+package net.coderbot.iris.shaderpack;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * How each texel of a shadow depth mipmap level is computed from the four texels below it.
+ */
+public enum MipmapReduction {
+	/**
+	 * Averages the texels, using the driver's regular mipmap generation.
+	 */
+	AVERAGE,
+	/**
+	 * Keeps the closest depth value, which is useful for conservative blocker searches.
+	 */
+	MIN,
+	/**
+	 * Keeps the farthest depth value.
+	 */
+	MAX;
+
+	public static Optional<MipmapReduction> fromString(String name) {
+		try {
+			return Optional.of(MipmapReduction.valueOf(name.toUpperCase(Locale.ROOT)));
+		} catch (IllegalArgumentException e) {
+			return Optional.empty();
+		}
+	}
+}
@@ -5,6 +5,7 @@ import net.coderbot.iris.Iris;
 import net.coderbot.iris.gl.texture.InternalTextureFormat;
 import net.coderbot.iris.vendored.joml.Vector4f;
 
+import java.util.List;
 import java.util.Optional;
 
 public class PackShadowDirectives {
@@ -12,6 +13,8 @@ public class PackShadowDirectives {
 	// This is currently set at 2 for ShadersMod / OptiFine parity but can theoretically be bumped up to 8.
 	// TODO: Make this configurable?
 	public static final int MAX_SHADOW_COLOR_BUFFERS = 2;
+	// Cascades are laid out in a 2x2 grid within the shadow map, so at most four of them fit.
+	public static final int MAX_SHADOW_CASCADES = 4;
 
 	private int resolution;
 	// Use a boxed form so we can use null to indicate that there is not an FOV specified.
@@ -21,6 +24,11 @@ public class PackShadowDirectives {
 	private float entityShadowDistanceMul;
 	private boolean explicitRenderDistance;
 	private float intervalSize;
+	private int cascadeCount;
+	private int cascadeUpdateInterval;
+	private int entityShadowBands;
+	private int entityShadowBudget;
+	private boolean sortTranslucentByLight;
 
 	private final boolean shouldRenderTerrain;
 	private final boolean shouldRenderTranslucent;
@@ -71,6 +79,27 @@ public class PackShadowDirectives {
 		// moon move, or when the player camera moves into a different grid cell.
 		this.intervalSize = 2.0f;
 
+		// By default, a single shadow map covers the whole shadow distance. Packs may opt into cascaded shadow maps by
+		// setting shadowCascadeCount, in which case the shadow map is split into a grid of cascades that each cover a
+		// smaller part of the shadow distance at a higher effective resolution.
+		this.cascadeCount = 1;
+
+		// By default, every cascade is rendered every frame. Packs may set shadowCascadeUpdateInterval to only render
+		// the cascades other than the closest one every N frames, staggered so that they don't all update at once.
+		this.cascadeUpdateInterval = 1;
+
+		// By default, all entities and block entities within the shadow distance are rendered every frame. Packs may set
+		// entityShadowBands to split the entity shadow distance into bands, where farther bands are rendered less
+		// often, and entityShadowBudget to limit how many entities outside of the closest band are rendered per frame.
+		// Skipped entities don't cast a shadow in that frame, so this is only suitable for packs that can hide that.
+		this.entityShadowBands = 1;
+		this.entityShadowBudget = 0;
+
+		// By default, translucent terrain is drawn in the shadow pass in the same order as in the main pass, which is
+		// sorted relative to the player camera. Packs that blend translucent terrain into the shadow map for colored
+		// shadows may set shadowSortTranslucent to draw it back to front along the light direction instead.
+		this.sortTranslucentByLight = false;
+
 		this.shouldRenderTerrain = properties.getShadowTerrain().orElse(true);
 		this.shouldRenderTranslucent = properties.getShadowTranslucent().orElse(true);
 		this.shouldRenderEntities = properties.getShadowEntities().orElse(true);
@@ -97,6 +126,11 @@ public class PackShadowDirectives {
 		this.entityShadowDistanceMul = shadowDirectives.entityShadowDistanceMul;
 		this.explicitRenderDistance = shadowDirectives.explicitRenderDistance;
 		this.intervalSize = shadowDirectives.intervalSize;
+		this.cascadeCount = shadowDirectives.cascadeCount;
+		this.cascadeUpdateInterval = shadowDirectives.cascadeUpdateInterval;
+		this.entityShadowBands = shadowDirectives.entityShadowBands;
+		this.entityShadowBudget = shadowDirectives.entityShadowBudget;
+		this.sortTranslucentByLight = shadowDirectives.sortTranslucentByLight;
 		this.shouldRenderTerrain = shadowDirectives.shouldRenderTerrain;
 		this.shouldRenderTranslucent = shadowDirectives.shouldRenderTranslucent;
 		this.shouldRenderEntities = shadowDirectives.shouldRenderEntities;
@@ -135,6 +169,26 @@ public class PackShadowDirectives {
 		return intervalSize;
 	}
 
+	public int getCascadeCount() {
+		return cascadeCount;
+	}
+
+	public int getCascadeUpdateInterval() {
+		return cascadeUpdateInterval;
+	}
+
+	public int getEntityShadowBands() {
+		return entityShadowBands;
+	}
+
+	public int getEntityShadowBudget() {
+		return entityShadowBudget;
+	}
+
+	public boolean shouldSortTranslucentByLight() {
+		return sortTranslucentByLight;
+	}
+
 	public boolean shouldRenderTerrain() {
 		return shouldRenderTerrain;
 	}
@@ -179,6 +233,11 @@ public class PackShadowDirectives {
 
 		directives.acceptConstFloatDirective("entityShadowDistanceMul", distance -> this.entityShadowDistanceMul = distance);
 
+		directives.acceptConstIntDirective("entityShadowBands", bands -> this.entityShadowBands = Math.max(bands, 1));
+		directives.acceptConstIntDirective("entityShadowBudget", budget -> this.entityShadowBudget = Math.max(budget, 0));
+
+		directives.acceptConstBooleanDirective("shadowSortTranslucent", sort -> this.sortTranslucentByLight = sort);
+
 		directives.acceptConstFloatDirective("shadowDistanceRenderMul", distanceRenderMul -> {
 			this.distanceRenderMul = distanceRenderMul;
 			this.explicitRenderDistance = true;
@@ -187,8 +246,22 @@ public class PackShadowDirectives {
 		directives.acceptConstFloatDirective("shadowIntervalSize",
 				intervalSize -> this.intervalSize = intervalSize);
 
+		directives.acceptConstIntDirective("shadowCascadeCount", cascadeCount -> {
+			if (cascadeCount < 1 || cascadeCount > MAX_SHADOW_CASCADES) {
+				Iris.logger.warn("Ignoring invalid shadowCascadeCount of " + cascadeCount + ", it must be between 1 and "
+					+ MAX_SHADOW_CASCADES);
+				return;
+			}
+
+			this.cascadeCount = cascadeCount;
+		});
+
+		directives.acceptConstIntDirective("shadowCascadeUpdateInterval",
+				updateInterval -> this.cascadeUpdateInterval = Math.max(updateInterval, 1));
+
 		acceptHardwareFilteringSettings(directives, depthSamplingSettings);
 		acceptDepthMipmapSettings(directives, depthSamplingSettings);
+		acceptDepthMipmapReductionSettings(directives, depthSamplingSettings);
 		acceptColorMipmapSettings(directives, colorSamplingSettings);
 		acceptDepthFilteringSettings(directives, depthSamplingSettings);
 		acceptColorFilteringSettings(directives, colorSamplingSettings);
@@ -237,6 +310,32 @@ public class PackShadowDirectives {
 		}
 	}
 
+	/**
+	 * Handles shadowtexMipmapReduction and shadowtex*MipmapReduction directives, which choose how the mipmap levels of
+	 * the shadow depth textures are built. For example: {@code const int shadowtex0MipmapReduction = MIN;}
+	 */
+	private static void acceptDepthMipmapReductionSettings(DirectiveHolder directives, ImmutableList<DepthSamplingSettings> samplers) {
+		acceptMipmapReductionDirective(directives, "shadowtexMipmapReduction", samplers);
+
+		for (int i = 0; i < samplers.size(); i++) {
+			acceptMipmapReductionDirective(directives, "shadowtex" + i + "MipmapReduction", samplers.subList(i, i + 1));
+		}
+	}
+
+	private static void acceptMipmapReductionDirective(DirectiveHolder directives, String name, List<DepthSamplingSettings> samplers) {
+		directives.acceptConstStringDirective(name, value -> {
+			Optional<MipmapReduction> reduction = MipmapReduction.fromString(value);
+
+			if (reduction.isPresent()) {
+				for (DepthSamplingSettings samplerSettings : samplers) {
+					samplerSettings.setMipmapReduction(reduction.get());
+				}
+			} else {
+				Iris.logger.warn("Unrecognized mipmap reduction " + value + " specified for " + name + ", ignoring.");
+			}
+		});
+	}
+
 	private static void acceptColorMipmapSettings(DirectiveHolder directives, ImmutableList<SamplingSettings> samplers) {
 		// Get the default base value for the shadow depth mipmap setting
 		directives.acceptConstBooleanDirective("generateShadowColorMipmap", mipmap -> {
@@ -323,6 +422,11 @@ public class PackShadowDirectives {
 				", distanceRenderMul=" + distanceRenderMul +
 				", entityDistanceRenderMul=" + entityShadowDistanceMul +
 				", intervalSize=" + intervalSize +
+				", cascadeCount=" + cascadeCount +
+				", cascadeUpdateInterval=" + cascadeUpdateInterval +
+				", entityShadowBands=" + entityShadowBands +
+				", entityShadowBudget=" + entityShadowBudget +
+				", sortTranslucentByLight=" + sortTranslucentByLight +
 				", depthSamplingSettings=" + depthSamplingSettings +
 				", colorSamplingSettings=" + colorSamplingSettings +
 				'}';
@@ -418,24 +522,40 @@ public class PackShadowDirectives {
 	public static class DepthSamplingSettings extends SamplingSettings {
 		private boolean hardwareFiltering;
 
+		/**
+		 * How mipmap levels are built from the level below them, if mipmaps are enabled. By default they are averaged,
+		 * but packs can instead keep the minimum or maximum depth, for example for conservative blocker searches.
+		 */
+		private MipmapReduction mipmapReduction;
+
 		public DepthSamplingSettings() {
 			hardwareFiltering = false;
+			mipmapReduction = MipmapReduction.AVERAGE;
 		}
 
 		private void setHardwareFiltering(boolean hardwareFiltering) {
 			this.hardwareFiltering = hardwareFiltering;
 		}
 
+		private void setMipmapReduction(MipmapReduction mipmapReduction) {
+			this.mipmapReduction = mipmapReduction;
+		}
+
 		public boolean getHardwareFiltering() {
 			return hardwareFiltering;
 		}
 
+		public MipmapReduction getMipmapReduction() {
+			return mipmapReduction;
+		}
+
 		@Override
 		public String toString() {
 			return "DepthSamplingSettings{" +
 					"mipmap=" + getMipmap() +
 					", nearest=" + getNearest() +
 					", hardwareFiltering=" + hardwareFiltering +
+					", mipmapReduction=" + mipmapReduction +
 					'}';
 		}
 	}
@@ -70,7 +70,9 @@ public class ProgramSet {
 		//
 		// Note: Enabling blending in the shadow pass results in weird results since translucency sorting happens
 		//       relative to the player camera, not the shadow camera, so we can't rely on chunks being properly
-		//       sorted in the shadow pass.
+		//       sorted in the shadow pass. With Sodium, packs can set shadowSortTranslucent to draw translucent chunks
+		//       back to front along the light direction instead, though the geometry within each chunk is still
+		//       sorted relative to the player camera.
 		//
 		// - https://github.com/IrisShaders/Iris/issues/483
 		// - https://github.com/IrisShaders/Iris/issues/987
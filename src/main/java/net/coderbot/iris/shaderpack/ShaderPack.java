@@ -22,6 +22,7 @@ import net.coderbot.iris.shaderpack.option.values.MutableOptionValues;
 import net.coderbot.iris.shaderpack.option.values.OptionValues;
 import net.coderbot.iris.shaderpack.preprocessor.JcppProcessor;
 import net.coderbot.iris.shaderpack.texture.CustomTextureData;
+import net.coderbot.iris.shaderpack.texture.RawTextureDirective;
 import net.coderbot.iris.shaderpack.texture.TextureFilteringData;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
 import net.irisshaders.iris.api.v0.IrisApi;
@@ -33,10 +34,14 @@ import org.jetbrains.annotations.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -226,7 +231,7 @@ public class ShaderPack {
 		customNoiseTexture = shaderProperties.getNoiseTexturePath().map(path -> {
 			try {
 				return readTexture(root, path);
-			} catch (IOException e) {
+			} catch (IOException | IllegalArgumentException e) {
 				Iris.logger.error("Unable to read the custom noise texture at " + path, e);
 
 				return null;
@@ -238,7 +243,7 @@ public class ShaderPack {
 			customTexturePropertiesMap.forEach((samplerName, path) -> {
 				try {
 					innerCustomTextureDataMap.put(samplerName, readTexture(root, path));
-				} catch (IOException e) {
+				} catch (IOException | IllegalArgumentException e) {
 					Iris.logger.error("Unable to read the custom texture at " + path, e);
 				}
 			});
@@ -275,7 +280,6 @@ public class ShaderPack {
 		return Optional.of(fileContents);
 	}
 
-	// TODO: Implement raw texture data types
 	public CustomTextureData readTexture(Path root, String path) throws IOException {
 		CustomTextureData customTextureData;
 		if (path.contains(":")) {
@@ -291,6 +295,12 @@ public class ShaderPack {
 				customTextureData = new CustomTextureData.ResourceData(parts[0], parts[1]);
 			}
 		} else {
+			Optional<RawTextureDirective> rawDirective = RawTextureDirective.parse(path);
+
+			if (rawDirective.isPresent()) {
+				path = rawDirective.get().getPath();
+			}
+
 			// TODO: Make sure the resulting path is within the shaderpack?
 			if (path.startsWith("/")) {
 				// NB: This does not guarantee the resulting path is in the shaderpack as a double slash could be used,
@@ -320,13 +330,66 @@ public class ShaderPack {
 				}
 			}
 
-			byte[] content = Files.readAllBytes(root.resolve(path));
+			TextureFilteringData filteringData = new TextureFilteringData(blur, clamp);
+
+			if (rawDirective.isPresent()) {
+				customTextureData = readRawTexture(root.resolve(path), filteringData, rawDirective.get());
+			} else {
+				byte[] content = Files.readAllBytes(root.resolve(path));
 
-			customTextureData = new CustomTextureData.PngData(new TextureFilteringData(blur, clamp), content);
+				customTextureData = new CustomTextureData.PngData(filteringData, content);
+			}
 		}
 		return customTextureData;
 	}
 
+	private static CustomTextureData.RawData readRawTexture(Path file, TextureFilteringData filteringData,
+															RawTextureDirective directive) throws IOException {
+		ByteBuffer content = mapOrRead(file);
+
+		if (content.remaining() < directive.getByteSize()) {
+			throw new IOException("The raw texture at " + file + " contains " + content.remaining()
+				+ " bytes, but its size and format need " + directive.getByteSize() + " bytes");
+		}
+
+		switch (directive.getType()) {
+			case TEXTURE_1D:
+				return new CustomTextureData.RawData1D(content, filteringData, directive.getInternalFormat(),
+					directive.getPixelFormat(), directive.getPixelType(), directive.getSizeX());
+			case TEXTURE_2D:
+				return new CustomTextureData.RawData2D(content, filteringData, directive.getInternalFormat(),
+					directive.getPixelFormat(), directive.getPixelType(), directive.getSizeX(), directive.getSizeY());
+			case TEXTURE_RECTANGLE:
+				return new CustomTextureData.RawDataRect(content, filteringData, directive.getInternalFormat(),
+					directive.getPixelFormat(), directive.getPixelType(), directive.getSizeX(), directive.getSizeY());
+			case TEXTURE_3D:
+				return new CustomTextureData.RawData3D(content, filteringData, directive.getInternalFormat(),
+					directive.getPixelFormat(), directive.getPixelType(), directive.getSizeX(), directive.getSizeY(),
+					directive.getSizeZ());
+			default:
+				throw new IllegalArgumentException("Unknown texture type " + directive.getType());
+		}
+	}
+
+	/**
+	 * Maps a file into memory, so that a large raw texture isn't copied onto the heap before it's uploaded. Files in
+	 * zipped shader packs can't be mapped, so those are read into a direct buffer instead.
+	 */
+	private static ByteBuffer mapOrRead(Path file) throws IOException {
+		if (file.getFileSystem() == FileSystems.getDefault()) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		}
+
+		byte[] bytes = Files.readAllBytes(file);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+
+		return buffer;
+	}
+
 	private JsonObject loadMcMeta(Path mcMetaPath) throws IOException, JsonParseException {
 		BufferedReader reader =
 				new BufferedReader(new InputStreamReader(Files.newInputStream(mcMetaPath), StandardCharsets.UTF_8));
@@ -19,6 +19,7 @@ import net.coderbot.iris.gl.texture.TextureScaleOverride;
 import net.coderbot.iris.gl.blending.BufferBlendInformation;
 import net.coderbot.iris.shaderpack.option.ShaderPackOptions;
 import net.coderbot.iris.shaderpack.preprocessor.PropertiesPreprocessor;
+import net.coderbot.iris.shaderpack.texture.RawTextureDirective;
 import net.coderbot.iris.shaderpack.texture.TextureStage;
 
 import java.io.IOException;
@@ -275,11 +276,11 @@ public class ShaderProperties {
 			});
 
 			handleTwoArgDirective("texture.", key, value, (stageName, samplerName) -> {
-				String[] parts = value.split(" ");
-
-				// TODO: Support raw textures
-				if (parts.length > 1) {
-					Iris.logger.warn("Custom texture directive for stage " + stageName + ", sampler " + samplerName + " contains more parts than we expected: " + value);
+				try {
+					// Raw textures are only read once the pack is loaded, but invalid directives are rejected here
+					RawTextureDirective.parse(value);
+				} catch (IllegalArgumentException e) {
+					Iris.logger.warn("Invalid raw custom texture directive for stage " + stageName + ", sampler " + samplerName + ": " + value + " (" + e.getMessage() + ")");
 					return;
 				}
 
@@ -4,6 +4,8 @@ import net.coderbot.iris.gl.texture.InternalTextureFormat;
 import net.coderbot.iris.gl.texture.PixelFormat;
 import net.coderbot.iris.gl.texture.PixelType;
 
+import java.nio.ByteBuffer;
+
 public abstract class CustomTextureData {
 	private CustomTextureData() {
 
@@ -65,22 +67,35 @@ public abstract class CustomTextureData {
 		}
 	}
 
+	/**
+	 * Texture data that is uploaded to the GPU as-is, declared with a {@link RawTextureDirective}. The content may be
+	 * a memory mapped file, so it should only be read through {@link #getContent()}.
+	 */
 	public abstract static class RawData extends CustomTextureData {
-		private final byte[] content;
+		private final ByteBuffer content;
+		private final TextureFilteringData filteringData;
 		private final InternalTextureFormat internalFormat;
 		private final PixelFormat pixelFormat;
 		private final PixelType pixelType;
 
-		private RawData(byte[] content, InternalTextureFormat internalFormat,
+		private RawData(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
 						PixelFormat pixelFormat, PixelType pixelType) {
 			this.content = content;
+			this.filteringData = filteringData;
 			this.internalFormat = internalFormat;
 			this.pixelFormat = pixelFormat;
 			this.pixelType = pixelType;
 		}
 
-		public final byte[] getContent() {
-			return content;
+		/**
+		 * @return a new view of the content, so that reading it doesn't affect other readers
+		 */
+		public final ByteBuffer getContent() {
+			return content.duplicate();
+		}
+
+		public final TextureFilteringData getFilteringData() {
+			return filteringData;
 		}
 
 		public final InternalTextureFormat getInternalFormat() {
@@ -99,9 +114,9 @@ public abstract class CustomTextureData {
 	public static final class RawData1D extends RawData {
 		private final int sizeX;
 
-		private RawData1D(byte[] content, InternalTextureFormat internalFormat,
-						  PixelFormat pixelFormat, PixelType pixelType, int sizeX) {
-			super(content, internalFormat, pixelFormat, pixelType);
+		public RawData1D(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+						 PixelFormat pixelFormat, PixelType pixelType, int sizeX) {
+			super(content, filteringData, internalFormat, pixelFormat, pixelType);
 
 			this.sizeX = sizeX;
 		}
@@ -112,12 +127,36 @@ public abstract class CustomTextureData {
 	}
 
 	public static final class RawData2D extends RawData {
-		int sizeX;
-		int sizeY;
+		private final int sizeX;
+		private final int sizeY;
+
+		public RawData2D(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+						 PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY) {
+			super(content, filteringData, internalFormat, pixelFormat, pixelType);
+
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+		}
+
+		public int getSizeX() {
+			return sizeX;
+		}
+
+		public int getSizeY() {
+			return sizeY;
+		}
+	}
 
-		private RawData2D(byte[] content, InternalTextureFormat internalFormat,
-						  PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY) {
-			super(content, internalFormat, pixelFormat, pixelType);
+	/**
+	 * Like {@link RawData2D}, but for a rectangle texture, which is sampled with unnormalized texture coordinates.
+	 */
+	public static final class RawDataRect extends RawData {
+		private final int sizeX;
+		private final int sizeY;
+
+		public RawDataRect(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+						   PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY) {
+			super(content, filteringData, internalFormat, pixelFormat, pixelType);
 
 			this.sizeX = sizeX;
 			this.sizeY = sizeY;
@@ -133,13 +172,13 @@ public abstract class CustomTextureData {
 	}
 
 	public static final class RawData3D extends RawData {
-		int sizeX;
-		int sizeY;
-		int sizeZ;
+		private final int sizeX;
+		private final int sizeY;
+		private final int sizeZ;
 
-		private RawData3D(byte[] content, InternalTextureFormat internalFormat,
-						  PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY, int sizeZ) {
-			super(content, internalFormat, pixelFormat, pixelType);
+		public RawData3D(ByteBuffer content, TextureFilteringData filteringData, InternalTextureFormat internalFormat,
+						 PixelFormat pixelFormat, PixelType pixelType, int sizeX, int sizeY, int sizeZ) {
+			super(content, filteringData, internalFormat, pixelFormat, pixelType);
 
 			this.sizeX = sizeX;
 			this.sizeY = sizeY;
@@ -0,0 +1,146 @@
+package net.coderbot.iris.shaderpack.texture;
+
+import net.coderbot.iris.gl.texture.InternalTextureFormat;
+import net.coderbot.iris.gl.texture.PixelFormat;
+import net.coderbot.iris.gl.texture.PixelType;
+import net.coderbot.iris.gl.texture.TextureType;
+
+import java.util.Optional;
+
+/**
+ * A custom texture directive that points at raw texture data rather than a PNG image, using the same syntax as
+ * OptiFine:
+ *
+ * <pre>texture.&lt;stage&gt;.&lt;sampler&gt;=&lt;path&gt; &lt;type&gt; &lt;internal format&gt; &lt;sizes&gt; &lt;pixel format&gt; &lt;pixel type&gt;</pre>
+ *
+ * <p>For example, {@code textures/lut.dat TEXTURE_3D RGBA8 64 64 64 RGBA UNSIGNED_BYTE}. There is one size for each
+ * dimension of the texture type. The file contains the pixels without any header or row padding, and is uploaded to
+ * the GPU as-is.</p>
+ */
+public final class RawTextureDirective {
+	private final String path;
+	private final TextureType type;
+	private final InternalTextureFormat internalFormat;
+	private final int sizeX;
+	private final int sizeY;
+	private final int sizeZ;
+	private final PixelFormat pixelFormat;
+	private final PixelType pixelType;
+
+	public RawTextureDirective(String path, TextureType type, InternalTextureFormat internalFormat,
+							   int sizeX, int sizeY, int sizeZ, PixelFormat pixelFormat, PixelType pixelType) {
+		this.path = path;
+		this.type = type;
+		this.internalFormat = internalFormat;
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		this.sizeZ = sizeZ;
+		this.pixelFormat = pixelFormat;
+		this.pixelType = pixelType;
+	}
+
+	/**
+	 * Parses the value of a custom texture directive.
+	 *
+	 * @return the raw texture directive, or an empty optional if the value is just a path to a PNG image or a resource
+	 *         location
+	 * @throws IllegalArgumentException if the value looks like a raw texture directive but isn't a valid one
+	 */
+	public static Optional<RawTextureDirective> parse(String value) {
+		String[] parts = value.trim().split("\\s+");
+
+		if (parts.length == 1) {
+			return Optional.empty();
+		}
+
+		TextureType type = TextureType.fromString(parts[1]).orElseThrow(() ->
+			new IllegalArgumentException("Unknown texture type " + parts[1]));
+
+		// The path, type and internal format, the sizes, and the pixel format and type
+		int expectedParts = 3 + type.getDimensions() + 2;
+
+		if (parts.length != expectedParts) {
+			throw new IllegalArgumentException("A raw texture of type " + type + " needs " + expectedParts
+				+ " parts, but " + parts.length + " were given");
+		}
+
+		InternalTextureFormat internalFormat = InternalTextureFormat.fromString(parts[2]).orElseThrow(() ->
+			new IllegalArgumentException("Unknown internal texture format " + parts[2]));
+
+		int[] sizes = { 1, 1, 1 };
+
+		for (int i = 0; i < type.getDimensions(); i++) {
+			sizes[i] = parseSize(parts[3 + i]);
+		}
+
+		String pixelFormatName = parts[3 + type.getDimensions()];
+		String pixelTypeName = parts[4 + type.getDimensions()];
+
+		PixelFormat pixelFormat = PixelFormat.fromString(pixelFormatName).orElseThrow(() ->
+			new IllegalArgumentException("Unknown pixel format " + pixelFormatName));
+		PixelType pixelType = PixelType.fromString(pixelTypeName).orElseThrow(() ->
+			new IllegalArgumentException("Unknown pixel type " + pixelTypeName));
+
+		return Optional.of(new RawTextureDirective(parts[0], type, internalFormat, sizes[0], sizes[1], sizes[2],
+			pixelFormat, pixelType));
+	}
+
+	private static int parseSize(String size) {
+		int parsed;
+
+		try {
+			parsed = Integer.parseInt(size);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid texture size " + size, e);
+		}
+
+		if (parsed <= 0) {
+			throw new IllegalArgumentException("Texture sizes must be positive, but got " + parsed);
+		}
+
+		return parsed;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public TextureType getType() {
+		return type;
+	}
+
+	public InternalTextureFormat getInternalFormat() {
+		return internalFormat;
+	}
+
+	public int getSizeX() {
+		return sizeX;
+	}
+
+	public int getSizeY() {
+		return sizeY;
+	}
+
+	public int getSizeZ() {
+		return sizeZ;
+	}
+
+	public PixelFormat getPixelFormat() {
+		return pixelFormat;
+	}
+
+	public PixelType getPixelType() {
+		return pixelType;
+	}
+
+	/**
+	 * @return the number of bytes of pixel data that the texture needs, given that rows are not padded
+	 */
+	public long getByteSize() {
+		long bytesPerPixel = pixelType.isPacked()
+			? pixelType.getByteSize()
+			: (long) pixelFormat.getComponentCount() * pixelType.getByteSize();
+
+		return bytesPerPixel * sizeX * sizeY * sizeZ;
+	}
+}
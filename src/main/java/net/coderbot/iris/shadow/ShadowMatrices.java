@@ -1,9 +1,6 @@
 package net.coderbot.iris.shadow;
 
-import com.mojang.math.Matrix4f;
-import com.mojang.math.Vector3f;
-
-import java.nio.FloatBuffer;
+import net.coderbot.iris.vendored.joml.Matrix4f;
 
 public class ShadowMatrices {
 	private static final float NEAR = 0.05f;
@@ -48,11 +45,12 @@ public class ShadowMatrices {
 			skyAngle = shadowAngle - 0.25f;
 		}
 
-		target.setIdentity();
-		target.multiply(Matrix4f.createTranslateMatrix(0.0f, 0.0f, -100.0f));
-		target.multiply(Vector3f.XP.rotationDegrees(90.0F));
-		target.multiply(Vector3f.ZP.rotationDegrees(skyAngle * -360.0f));
-		target.multiply(Vector3f.XP.rotationDegrees(sunPathRotation));
+		// NB: This is computed in place with JOML, so that the shadow pass can set up its camera every frame without
+		// allocating any intermediate matrices / quaternions.
+		target.translation(0.0f, 0.0f, -100.0f);
+		target.rotateX((float) Math.toRadians(90.0F));
+		target.rotateZ((float) Math.toRadians(skyAngle * -360.0f));
+		target.rotateX((float) Math.toRadians(sunPathRotation));
 	}
 
 	public static void snapModelViewToGrid(Matrix4f target, float shadowIntervalSize, double cameraX, double cameraY, double cameraZ) {
@@ -83,7 +81,7 @@ public class ShadowMatrices {
 		offsetY -= halfIntervalSize;
 		offsetZ -= halfIntervalSize;
 
-		target.multiply(Matrix4f.createTranslateMatrix(offsetX, offsetY, offsetZ));
+		target.translate(offsetX, offsetY, offsetZ);
 	}
 
 	public static void createModelViewMatrix(Matrix4f target, float shadowAngle, float shadowIntervalSize,
@@ -160,10 +158,7 @@ public class ShadowMatrices {
 		}
 
 		private static float[] toFloatArray(Matrix4f matrix4f) {
-			FloatBuffer buffer = FloatBuffer.allocate(16);
-			matrix4f.store(buffer);
-
-			return buffer.array();
+			return matrix4f.get(new float[16]);
 		}
 
 		private static void test(String name, float[] expected, float[] created) {
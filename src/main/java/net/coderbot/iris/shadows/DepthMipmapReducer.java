@@ -0,0 +1,178 @@
+package net.coderbot.iris.shadows;
+
+import com.google.common.collect.ImmutableSet;
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.coderbot.iris.Iris;
+import net.coderbot.iris.gl.IrisRenderSystem;
+import net.coderbot.iris.gl.framebuffer.GlFramebuffer;
+import net.coderbot.iris.gl.program.Program;
+import net.coderbot.iris.gl.program.ProgramBuilder;
+import net.coderbot.iris.mixin.GlStateManagerAccessor;
+import net.coderbot.iris.mixin.statelisteners.BooleanStateAccessor;
+import net.coderbot.iris.postprocess.FullScreenQuadRenderer;
+import net.coderbot.iris.shaderpack.MipmapReduction;
+import net.minecraft.client.Minecraft;
+import org.apache.commons.io.IOUtils;
+import org.lwjgl.opengl.GL20C;
+import org.lwjgl.opengl.GL30C;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Builds the mipmap levels of a shadow depth texture by keeping the minimum or maximum depth of each 2x2 block of
+ * texels, instead of averaging them like the driver's mipmap generation does.
+ *
+ * <p>Depth textures can't be bound as images, so rather than using a compute shader, each level is rendered as a
+ * full-screen pass that reads the previous level and writes the result with {@code gl_FragDepth}. To avoid a feedback
+ * loop, the base and max level of the texture are restricted to the previous level while the next one is rendered.</p>
+ */
+public class DepthMipmapReducer {
+	private static final int DEFAULT_MAX_LEVEL = 1000;
+
+	private final int texture;
+	private final int resolution;
+	private final boolean hardwareFiltering;
+	private final Program program;
+	private final GlFramebuffer[] framebuffers;
+
+	private DepthMipmapReducer(int texture, int resolution, boolean hardwareFiltering, Program program,
+							   GlFramebuffer[] framebuffers) {
+		this.texture = texture;
+		this.resolution = resolution;
+		this.hardwareFiltering = hardwareFiltering;
+		this.program = program;
+		this.framebuffers = framebuffers;
+	}
+
+	/**
+	 * Creates a reducer for the given depth texture, or returns null if the mipmap levels of the texture can't be
+	 * rendered to on this system, in which case the caller should fall back to regular mipmap generation.
+	 */
+	public static DepthMipmapReducer create(int texture, int resolution, MipmapReduction reduction,
+											boolean hardwareFiltering) {
+		if (reduction == MipmapReduction.AVERAGE) {
+			throw new IllegalArgumentException("Averaged mipmaps are generated by the driver");
+		}
+
+		// Make sure that storage exists for every level before attaching them
+		IrisRenderSystem.generateMipmaps(texture, GL20C.GL_TEXTURE_2D);
+
+		int levels = MipmapLevels.getLevelCount(resolution);
+		GlFramebuffer[] framebuffers = new GlFramebuffer[levels - 1];
+
+		for (int level = 1; level < levels; level++) {
+			GlFramebuffer framebuffer = new GlFramebuffer();
+			framebuffers[level - 1] = framebuffer;
+
+			framebuffer.addDepthAttachment(texture, level);
+			framebuffer.noDrawBuffers();
+
+			if (!framebuffer.isComplete()) {
+				Iris.logger.warn("Unable to render to level " + level + " of a shadow depth texture, falling back"
+					+ " to regular mipmap generation instead of " + reduction + " reduction");
+
+				for (int i = 0; i < level; i++) {
+					framebuffers[i].destroy();
+				}
+
+				Minecraft.getInstance().getMainRenderTarget().bindWrite(false);
+
+				return null;
+			}
+		}
+
+		Minecraft.getInstance().getMainRenderTarget().bindWrite(false);
+
+		ProgramBuilder builder;
+
+		try {
+			String fsh = new String(IOUtils.toByteArray(Objects.requireNonNull(DepthMipmapReducer.class.getResourceAsStream("/shadowMipmapReduce.fsh"))), StandardCharsets.UTF_8);
+			String vsh = new String(IOUtils.toByteArray(Objects.requireNonNull(DepthMipmapReducer.class.getResourceAsStream("/shadowMipmapReduce.vsh"))), StandardCharsets.UTF_8);
+
+			// Defines must come after the #version line
+			int versionEnd = fsh.indexOf('\n') + 1;
+			fsh = fsh.substring(0, versionEnd) + "#define REDUCE " + (reduction == MipmapReduction.MIN ? "min" : "max")
+				+ "\n" + fsh.substring(versionEnd);
+
+			builder = ProgramBuilder.begin("shadowMipmap" + reduction, vsh, null, fsh, ImmutableSet.of());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		builder.addDynamicSampler(() -> texture, "source");
+
+		return new DepthMipmapReducer(texture, resolution, hardwareFiltering, builder.build(), framebuffers);
+	}
+
+	/**
+	 * Updates every mipmap level of the texture within the given region of the base level.
+	 */
+	public void reduce(int x, int y, int width, int height) {
+		program.use();
+
+		if (hardwareFiltering) {
+			// Comparison sampling would make texelFetch return comparison results instead of depth values
+			IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_COMPARE_MODE, GL20C.GL_NONE);
+		}
+
+		// The passes that run afterwards expect the depth state they set up themselves, so it's restored once done
+		GlStateManager.DepthState depthState = GlStateManagerAccessor.getDEPTH();
+		boolean previousDepthTest = ((BooleanStateAccessor) depthState.mode).isEnabled();
+		boolean previousDepthMask = depthState.mask;
+		int previousDepthFunc = depthState.func;
+
+		FullScreenQuadRenderer.INSTANCE.begin();
+
+		// Depth writes only happen with depth testing enabled
+		RenderSystem.enableDepthTest();
+		RenderSystem.depthFunc(GL20C.GL_ALWAYS);
+		RenderSystem.depthMask(true);
+
+		for (int level = 1; level <= framebuffers.length; level++) {
+			IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_BASE_LEVEL, level - 1);
+			IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MAX_LEVEL, level - 1);
+
+			framebuffers[level - 1].bind();
+
+			int startX = MipmapLevels.getRegionStart(x, level);
+			int startY = MipmapLevels.getRegionStart(y, level);
+			int endX = MipmapLevels.getRegionEnd(x + width, resolution, level);
+			int endY = MipmapLevels.getRegionEnd(y + height, resolution, level);
+
+			RenderSystem.viewport(startX, startY, endX - startX, endY - startY);
+			FullScreenQuadRenderer.INSTANCE.renderQuad();
+		}
+
+		RenderSystem.depthFunc(previousDepthFunc);
+		RenderSystem.depthMask(previousDepthMask);
+		FullScreenQuadRenderer.end();
+
+		// FullScreenQuadRenderer always leaves depth testing enabled
+		if (!previousDepthTest) {
+			RenderSystem.disableDepthTest();
+		}
+
+		IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_BASE_LEVEL, 0);
+		IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_MAX_LEVEL, DEFAULT_MAX_LEVEL);
+
+		if (hardwareFiltering) {
+			IrisRenderSystem.texParameteri(texture, GL20C.GL_TEXTURE_2D, GL20C.GL_TEXTURE_COMPARE_MODE, GL30C.GL_COMPARE_REF_TO_TEXTURE);
+		}
+
+		Program.unbind();
+
+		// Reset the framebuffer and the viewport
+		Minecraft.getInstance().getMainRenderTarget().bindWrite(true);
+	}
+
+	public void destroy() {
+		for (GlFramebuffer framebuffer : framebuffers) {
+			framebuffer.destroy();
+		}
+
+		program.destroy();
+	}
+}
@@ -0,0 +1,252 @@
+package net.coderbot.iris.shadows;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Orders the chunk sections in a render list front to back along the direction of the shadow light, so that the
+ * sections closest to the light are drawn first.
+ *
+ * <p>For opaque terrain, this lets early depth testing reject fragments that are hidden from the light. Drawn back to
+ * front, the same order lets translucent terrain blend properly into the shadow map for colored shadows.</p>
+ *
+ * <p>The order is maintained incrementally: sections that were already in the previous list keep their previous
+ * position, newly added sections are appended, and the result is then fixed up with an insertion sort. Since the light
+ * only moves slowly, and only a few sections are added or removed between frames, this is usually linear. If too many
+ * sections are out of place, this falls back to sorting the whole list.</p>
+ */
+public class LightSortedChunkOrder {
+	/**
+	 * The average number of positions that each section may be moved by the insertion sort before falling back to a
+	 * full sort.
+	 */
+	private static final int MAX_SHIFTS_PER_SECTION = 4;
+
+	private final Long2IntOpenHashMap previousRanks = new Long2IntOpenHashMap();
+
+	private long[] keys = new long[256];
+	private long[] previousKeys = new long[256];
+	private float[] depths = new float[256];
+	private int[] order = new int[256];
+	private int[] slots = new int[256];
+	private long[] sortKeys = new long[256];
+
+	private int size;
+	private int previousSize;
+	private boolean changed = true;
+	private boolean lastSortFull;
+
+	private float lightX;
+	private float lightY;
+	private float lightZ;
+	private int originX;
+	private int originY;
+	private int originZ;
+
+	public LightSortedChunkOrder() {
+		this.previousRanks.defaultReturnValue(-1);
+	}
+
+	/**
+	 * Starts a new list of sections.
+	 *
+	 * @param lightX the x component of the normalized direction pointing towards the light
+	 * @param lightY the y component of the normalized direction pointing towards the light
+	 * @param lightZ the z component of the normalized direction pointing towards the light
+	 * @param originX the x coordinate that section positions are made relative to, to preserve precision
+	 * @param originY the y coordinate that section positions are made relative to, to preserve precision
+	 * @param originZ the z coordinate that section positions are made relative to, to preserve precision
+	 */
+	public void begin(float lightX, float lightY, float lightZ, int originX, int originY, int originZ) {
+		if (lightX != this.lightX || lightY != this.lightY || lightZ != this.lightZ) {
+			this.changed = true;
+		}
+
+		this.lightX = lightX;
+		this.lightY = lightY;
+		this.lightZ = lightZ;
+		this.originX = originX;
+		this.originY = originY;
+		this.originZ = originZ;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds the section with the given origin in block coordinates. Sections are numbered in the order that they are
+	 * added, starting at zero.
+	 */
+	public void add(int x, int y, int z) {
+		if (size == keys.length) {
+			int capacity = size * 2;
+
+			keys = Arrays.copyOf(keys, capacity);
+			depths = Arrays.copyOf(depths, capacity);
+		}
+
+		long key = sectionKey(x >> 4, y >> 4, z >> 4);
+
+		if (size >= previousSize || previousKeys[size] != key) {
+			changed = true;
+		}
+
+		// Distance from the plane through the origin that faces the light, measured away from the light.
+		float depth = -((x + 8 - originX) * lightX + (y + 8 - originY) * lightY + (z + 8 - originZ) * lightZ);
+
+		keys[size] = key;
+		depths[size] = depth;
+		size += 1;
+	}
+
+	/**
+	 * Sorts the sections added since the last call to {@link #begin}. If neither the sections nor the light direction
+	 * changed since the previous sort, the previous order is kept as-is.
+	 */
+	public void sort() {
+		if (size != previousSize) {
+			changed = true;
+		}
+
+		if (!changed) {
+			return;
+		}
+
+		if (order.length < size) {
+			order = new int[keys.length];
+		}
+
+		int shiftBudget = size * MAX_SHIFTS_PER_SECTION;
+
+		if (seedFromPreviousOrder() && insertionSort(shiftBudget)) {
+			lastSortFull = false;
+		} else {
+			fullSort();
+			lastSortFull = true;
+		}
+
+		previousRanks.clear();
+
+		for (int i = 0; i < size; i++) {
+			previousRanks.put(keys[order[i]], i);
+		}
+
+		long[] swap = previousKeys;
+		previousKeys = keys;
+		keys = swap.length >= previousKeys.length ? swap : new long[previousKeys.length];
+		previousSize = size;
+		changed = false;
+	}
+
+	/**
+	 * Fills the order with the sections that were part of the previous list in their previous order, followed by the
+	 * new sections.
+	 *
+	 * @return false if there is no previous order worth starting from
+	 */
+	private boolean seedFromPreviousOrder() {
+		if (previousSize == 0) {
+			return false;
+		}
+
+		if (slots.length < previousSize) {
+			slots = new int[previousKeys.length];
+		}
+
+		Arrays.fill(slots, 0, previousSize, -1);
+
+		int added = 0;
+
+		for (int i = 0; i < size; i++) {
+			int rank = previousRanks.get(keys[i]);
+
+			if (rank >= 0 && slots[rank] == -1) {
+				slots[rank] = i;
+			} else {
+				// New sections go at the end of the order, in reverse, and are moved into place below.
+				order[size - 1 - added] = i;
+				added++;
+			}
+		}
+
+		int next = 0;
+
+		for (int rank = 0; rank < previousSize; rank++) {
+			int index = slots[rank];
+
+			if (index >= 0) {
+				order[next++] = index;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return false if the insertion sort was abandoned after using up the shift budget
+	 */
+	private boolean insertionSort(int shiftBudget) {
+		int shifts = 0;
+
+		for (int i = 1; i < size; i++) {
+			int index = order[i];
+			float depth = depths[index];
+			int j = i - 1;
+
+			while (j >= 0 && depths[order[j]] > depth) {
+				order[j + 1] = order[j];
+				j--;
+
+				if (++shifts > shiftBudget) {
+					return false;
+				}
+			}
+
+			order[j + 1] = index;
+		}
+
+		return true;
+	}
+
+	private void fullSort() {
+		if (sortKeys.length < size) {
+			sortKeys = new long[keys.length];
+		}
+
+		// Pack a sortable form of the depth into the high bits, and the index into the low bits, so that the whole
+		// list can be sorted as primitives without a comparator.
+		for (int i = 0; i < size; i++) {
+			int bits = Float.floatToIntBits(depths[i]);
+			bits ^= (bits >> 31) & 0x7FFFFFFF;
+
+			sortKeys[i] = ((long) bits << 32) | i;
+		}
+
+		Arrays.sort(sortKeys, 0, size);
+
+		for (int i = 0; i < size; i++) {
+			order[i] = (int) sortKeys[i];
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the index of the section that should be drawn at the given position, front to back from the light.
+	 */
+	public int get(int position) {
+		return order[position];
+	}
+
+	/**
+	 * Returns whether the last sort had to sort the whole list, instead of updating the previous order.
+	 */
+	public boolean wasLastSortFull() {
+		return lastSortFull;
+	}
+
+	private static long sectionKey(int x, int y, int z) {
+		return ((long) x & 0x1FFFFF) << 42 | ((long) y & 0x1FFFFF) << 21 | ((long) z & 0x1FFFFF);
+	}
+}
@@ -15,9 +15,19 @@ public interface Matrix4fAccess {
 	 */
 	float[] copyIntoArray();
 
+	/**
+	 * Like {@link #copyIntoArray()}, but writes into an existing array of length 16 instead of allocating a new one.
+	 */
+	void copyIntoArray(float[] m);
+
 	/**
 	 * Converts the matrix into a JOML matrix. This matrix is inherently column-major, and compatible with OpenGL.
 	 * @return JOML matrix
 	 */
 	net.coderbot.iris.vendored.joml.Matrix4f convertToJOML();
+
+	/**
+	 * Like {@link #convertToJOML()}, but writes into an existing JOML matrix instead of allocating a new one.
+	 */
+	void copyIntoJOML(net.coderbot.iris.vendored.joml.Matrix4f dest);
 }
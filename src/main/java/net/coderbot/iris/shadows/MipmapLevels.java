@@ -0,0 +1,41 @@
+package net.coderbot.iris.shadows;
+
+/**
+ * Helpers for the sizes of mipmap levels, and for the texels of a level that are covered by a region of the base level.
+ */
+public final class MipmapLevels {
+	private MipmapLevels() {
+	}
+
+	/**
+	 * Returns the number of levels in a full mipmap chain of a texture with the given size, including the base level.
+	 */
+	public static int getLevelCount(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Texture size must be positive, but got " + size);
+		}
+
+		return 32 - Integer.numberOfLeadingZeros(size);
+	}
+
+	public static int getLevelSize(int size, int level) {
+		return Math.max(size >> level, 1);
+	}
+
+	/**
+	 * Returns the first texel of the given level that is affected by a region of the base level starting at the given
+	 * texel.
+	 */
+	public static int getRegionStart(int start, int level) {
+		return start >> level;
+	}
+
+	/**
+	 * Returns the texel after the last texel of the given level that is affected by a region of the base level ending
+	 * before the given texel. Regions are rounded outwards, so that the texels along the edges of the region are
+	 * updated too.
+	 */
+	public static int getRegionEnd(int end, int size, int level) {
+		return Math.min((end + (1 << level) - 1) >> level, getLevelSize(size, level));
+	}
+}
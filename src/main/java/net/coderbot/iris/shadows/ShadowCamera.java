@@ -0,0 +1,42 @@
+package net.coderbot.iris.shadows;
+
+import net.coderbot.iris.shadow.ShadowMatrices;
+import net.coderbot.iris.vendored.joml.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3f;
+
+/**
+ * Holds the parts of the shadow camera that are recomputed every frame, so that the shadow pass can set up its camera
+ * without allocating.
+ */
+public class ShadowCamera {
+	private final Matrix4f modelView = new Matrix4f();
+	private final float[] modelViewArray = new float[16];
+	private final Vector3f lightVectorFromOrigin = new Vector3f();
+
+	/**
+	 * Recomputes the shadow model view matrix for the given shadow angle and player camera position.
+	 */
+	public void updateModelView(float shadowAngle, float intervalSize, float sunPathRotation,
+								double cameraX, double cameraY, double cameraZ) {
+		ShadowMatrices.createModelViewMatrix(modelView, shadowAngle, intervalSize, sunPathRotation, cameraX, cameraY, cameraZ);
+		modelView.get(modelViewArray);
+	}
+
+	/**
+	 * Recomputes the normalized direction from the origin towards the shadow light, from its position in world space.
+	 */
+	public void updateLightVector(float lightX, float lightY, float lightZ) {
+		lightVectorFromOrigin.set(lightX, lightY, lightZ).normalize();
+	}
+
+	/**
+	 * @return the shadow model view matrix in column-major order, which must not be modified
+	 */
+	public float[] getModelViewArray() {
+		return modelViewArray;
+	}
+
+	public Vector3f getLightVectorFromOrigin() {
+		return lightVectorFromOrigin;
+	}
+}
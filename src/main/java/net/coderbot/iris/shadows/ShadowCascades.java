@@ -0,0 +1,179 @@
+package net.coderbot.iris.shadows;
+
+import net.coderbot.iris.gl.state.StateUpdateNotifiers;
+import net.coderbot.iris.vendored.joml.Vector4f;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the layout, the update schedule, and the last used matrices of cascaded shadow maps.
+ *
+ * <p>Cascades are laid out in a 2x2 grid within the existing shadow map textures, with cascade 0 in the bottom left
+ * corner, cascade 1 to the right of it, and cascades 2 and 3 above them. Each cascade covers half of the distance of the
+ * next one, with the last cascade covering the full shadow distance. This means that the last cascade matches the
+ * projection of a regular, non-cascaded shadow map.</p>
+ *
+ * <p>Cascade 0 is updated every frame. The other cascades may be updated less often, in which case their updates are
+ * staggered over the update interval so that only a part of them is rendered within a single frame.</p>
+ */
+public class ShadowCascades {
+	private static final int GRID_SIZE = 2;
+
+	private static int currentCascade = -1;
+	private static Runnable cascadeChangeListener;
+
+	private final int count;
+	private final int updateInterval;
+	private final float distance;
+	private final int tileSize;
+	private final boolean[] updating;
+	private final boolean[] rendered;
+	private final float[][] modelViews;
+	private final float[][] projections;
+	private final double[][] cameraPositions;
+
+	public ShadowCascades(int count, int updateInterval, float distance, int resolution) {
+		if (count < 1) {
+			throw new IllegalArgumentException("There must be at least one shadow cascade, but got " + count);
+		}
+
+		this.count = count;
+		this.updateInterval = Math.max(updateInterval, 1);
+		this.distance = distance;
+		this.tileSize = count > 1 ? resolution / GRID_SIZE : resolution;
+		this.updating = new boolean[count];
+		this.rendered = new boolean[count];
+		this.modelViews = new float[count][16];
+		this.projections = new float[count][16];
+		this.cameraPositions = new double[count][3];
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the half plane length of the orthographic projection used for the given cascade.
+	 */
+	public float getHalfPlaneLength(int cascade) {
+		return distance / (1 << (count - 1 - cascade));
+	}
+
+	public int getViewportX(int cascade) {
+		return (cascade % GRID_SIZE) * tileSize;
+	}
+
+	public int getViewportY(int cascade) {
+		return (cascade / GRID_SIZE) * tileSize;
+	}
+
+	public int getViewportSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Returns the offset (xy) and the scale (zw) that transform shadow map texture coordinates of the given cascade
+	 * into texture coordinates of the whole shadow map.
+	 */
+	public Vector4f getAtlasTransform(int cascade) {
+		if (count == 1) {
+			return new Vector4f(0.0f, 0.0f, 1.0f, 1.0f);
+		}
+
+		float scale = 1.0f / GRID_SIZE;
+
+		return new Vector4f((cascade % GRID_SIZE) * scale, (cascade / GRID_SIZE) * scale, scale, scale);
+	}
+
+	/**
+	 * Determines which cascades need to be rendered in the given frame. Cascades that have never been rendered, or that
+	 * have been invalidated since, are always rendered.
+	 */
+	public void beginFrame(int frameCounter) {
+		for (int cascade = 0; cascade < count; cascade++) {
+			updating[cascade] = cascade == 0 || !rendered[cascade]
+				|| Math.floorMod(frameCounter, updateInterval) == (cascade - 1) % updateInterval;
+		}
+	}
+
+	public boolean shouldUpdate(int cascade) {
+		return updating[cascade];
+	}
+
+	/**
+	 * Returns whether every cascade is rendered in the current frame, meaning that the shadow map can be cleared and
+	 * copied as a whole.
+	 */
+	public boolean isUpdatingAll() {
+		for (boolean update : updating) {
+			if (!update) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Forces all cascades to be rendered in the next frame, for example after the shadow map has been cleared entirely.
+	 */
+	public void invalidate() {
+		Arrays.fill(rendered, false);
+	}
+
+	/**
+	 * Stores the matrices and the camera position that a cascade was rendered with, so that they can be provided to
+	 * shader programs until the cascade is rendered again.
+	 */
+	public void markRendered(int cascade, float[] modelView, float[] projection, double cameraX, double cameraY, double cameraZ) {
+		System.arraycopy(modelView, 0, modelViews[cascade], 0, 16);
+		System.arraycopy(projection, 0, projections[cascade], 0, 16);
+		cameraPositions[cascade][0] = cameraX;
+		cameraPositions[cascade][1] = cameraY;
+		cameraPositions[cascade][2] = cameraZ;
+		rendered[cascade] = true;
+	}
+
+	public boolean hasRendered(int cascade) {
+		return rendered[cascade];
+	}
+
+	public float[] getModelView(int cascade) {
+		return modelViews[cascade];
+	}
+
+	public float[] getProjection(int cascade) {
+		return projections[cascade];
+	}
+
+	public double[] getCameraPosition(int cascade) {
+		return cameraPositions[cascade];
+	}
+
+	/**
+	 * Returns the cascade that is currently being rendered, or -1 if no cascade is being rendered.
+	 */
+	public static int getCurrentCascade() {
+		return currentCascade;
+	}
+
+	public static void setCurrentCascade(int cascade) {
+		if (currentCascade == cascade) {
+			return;
+		}
+
+		currentCascade = cascade;
+
+		if (cascadeChangeListener != null) {
+			cascadeChangeListener.run();
+		}
+	}
+
+	static {
+		StateUpdateNotifiers.shadowCascadeNotifier = listener -> cascadeChangeListener = listener;
+	}
+
+	public static void init() {
+		// Empty initializer to run static
+	}
+}
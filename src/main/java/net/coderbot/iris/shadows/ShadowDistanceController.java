@@ -0,0 +1,110 @@
+package net.coderbot.iris.shadows;
+
+/**
+ * Adjusts the shadow render distance to keep the time taken by the shadow pass within a frame time budget.
+ *
+ * <p>The distance is reduced in fixed steps, first for entities and block entities, and then for terrain, but never
+ * below a fraction of the distance requested by the pack or the user. The shadow projection itself is left alone, so a
+ * change only affects which far away shadow casters are rendered, rather than the resolution of the shadow map.</p>
+ *
+ * <p>To keep the distance from pumping back and forth, the measured time is smoothed, the distance is only increased
+ * again once there is a good amount of headroom left in the budget, and every change is followed by a period in which
+ * the distance is held, which is longer after reducing the distance than after increasing it.</p>
+ */
+public class ShadowDistanceController {
+	/**
+	 * The number of steps that the entity distance, and then the terrain distance, may be reduced by.
+	 */
+	private static final int STEPS_PER_DISTANCE = 4;
+	private static final float MIN_DISTANCE_SCALE = 0.5F;
+
+	/**
+	 * How quickly the smoothed time follows the measured time.
+	 */
+	private static final float SMOOTHING = 0.1F;
+
+	/**
+	 * The fraction of the budget that the smoothed time must fall below before the distance is increased again.
+	 */
+	private static final float RECOVERY_THRESHOLD = 0.7F;
+
+	private static final int FRAMES_AFTER_REDUCING = 30;
+	private static final int FRAMES_AFTER_INCREASING = 120;
+
+	private final float budget;
+
+	private float smoothedTime = -1.0F;
+	private int reduction;
+	private int holdFrames;
+
+	/**
+	 * @param budget the time in milliseconds that the shadow pass may take each frame
+	 */
+	public ShadowDistanceController(float budget) {
+		if (budget <= 0.0F) {
+			throw new IllegalArgumentException("The shadow frame budget must be positive, but got " + budget);
+		}
+
+		this.budget = budget;
+	}
+
+	/**
+	 * Feeds the time taken by the shadow pass in the latest frame, in milliseconds, and adjusts the distance if needed.
+	 *
+	 * @return true if the distance changed
+	 */
+	public boolean update(float time) {
+		if (smoothedTime < 0.0F) {
+			smoothedTime = time;
+		} else {
+			smoothedTime += (time - smoothedTime) * SMOOTHING;
+		}
+
+		if (holdFrames > 0) {
+			holdFrames -= 1;
+			return false;
+		}
+
+		if (smoothedTime > budget && reduction < STEPS_PER_DISTANCE * 2) {
+			reduction += 1;
+			holdFrames = FRAMES_AFTER_REDUCING;
+			return true;
+		}
+
+		if (smoothedTime < budget * RECOVERY_THRESHOLD && reduction > 0) {
+			reduction -= 1;
+			holdFrames = FRAMES_AFTER_INCREASING;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the factor to multiply the terrain shadow distance with.
+	 */
+	public float getTerrainDistanceScale() {
+		return getScale(reduction - STEPS_PER_DISTANCE);
+	}
+
+	/**
+	 * Returns the factor to multiply the entity and block entity shadow distance with, on top of the terrain scale.
+	 */
+	public float getEntityDistanceScale() {
+		return getScale(reduction);
+	}
+
+	public float getSmoothedTime() {
+		return smoothedTime;
+	}
+
+	public float getBudget() {
+		return budget;
+	}
+
+	private static float getScale(int steps) {
+		steps = Math.max(0, Math.min(steps, STEPS_PER_DISTANCE));
+
+		return 1.0F - (1.0F - MIN_DISTANCE_SCALE) * steps / STEPS_PER_DISTANCE;
+	}
+}
@@ -0,0 +1,116 @@
+package net.coderbot.iris.shadows;
+
+import it.unimi.dsi.fastutil.objects.Reference2BooleanMap;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+
+/**
+ * Decides which entities / block entities are rendered into the shadow map in a given frame, based on their distance
+ * from the camera.
+ *
+ * <p>The entity shadow distance is split into a number of equally sized distance bands. The closest band is rendered
+ * every frame, while band N is only rendered every N + 1 frames, staggered so that the far bands don't all render in
+ * the same frame. On top of that, an optional budget limits how many entities outside of the closest band are rendered
+ * in a single frame, or how many entities are rendered at all if there is only one band. Callers should offer entities
+ * from near to far, so that the budget is spent on the closest ones.</p>
+ *
+ * <p>Entities that aren't rendered in a frame are simply skipped, so their shadows are missing from the shadow map for
+ * that frame. This is only acceptable far away from the player, which is why this must be enabled by the shader
+ * pack.</p>
+ */
+public class ShadowEntityBands {
+	private final int bandCount;
+	private final int budget;
+
+	private int frame;
+	private double bandSize;
+	private int budgetUsed;
+	private int deferred;
+	private final Reference2BooleanMap<Object> decisions = new Reference2BooleanOpenHashMap<>();
+
+	/**
+	 * @param bandCount the number of distance bands. With one band, entities are only limited by the budget.
+	 * @param budget the maximum number of entities outside of the closest band to render per frame, or zero for no
+	 *               limit. With one band, this limits all entities.
+	 */
+	public ShadowEntityBands(int bandCount, int budget) {
+		this.bandCount = Math.max(bandCount, 1);
+		this.budget = Math.max(budget, 0);
+	}
+
+	public boolean isEnabled() {
+		return bandCount > 1 || budget > 0;
+	}
+
+	/**
+	 * Starts deciding which entities to render in a frame. With shadow cascades, this is only called once for all of
+	 * them, so that they share the budget.
+	 *
+	 * @param frameCounter the index of the current frame
+	 * @param maxDistance the distance covered by the outermost band. Entities beyond it are part of the outermost band.
+	 */
+	public void begin(int frameCounter, double maxDistance) {
+		this.frame = frameCounter;
+		this.bandSize = maxDistance / bandCount;
+		this.budgetUsed = 0;
+		this.deferred = 0;
+		this.decisions.clear();
+	}
+
+	public int getBand(double distanceSq) {
+		if (bandSize <= 0.0) {
+			return 0;
+		}
+
+		return (int) Math.min(Math.sqrt(distanceSq) / bandSize, bandCount - 1);
+	}
+
+	/**
+	 * Returns whether an entity at the given squared distance from the camera should be rendered in this frame. This
+	 * counts the entity against the budget if it's rendered.
+	 */
+	public boolean shouldRender(double distanceSq) {
+		int band = getBand(distanceSq);
+
+		// The closest band is always rendered, unless it's the only band and only the budget applies
+		if (band == 0 && bandCount > 1) {
+			return true;
+		}
+
+		if (Math.floorMod(frame + band, band + 1) != 0 || (budget > 0 && budgetUsed >= budget)) {
+			deferred++;
+			return false;
+		}
+
+		budgetUsed++;
+		return true;
+	}
+
+	/**
+	 * Like {@link #shouldRender(double)}, but an entity that was already offered since the last call to
+	 * {@link #begin(int, double)} gets the same decision again, without counting against the budget again. This keeps
+	 * an entity that is within several shadow cascades in either all or none of them.
+	 */
+	public boolean shouldRender(Object entity, double distanceSq) {
+		if (decisions.containsKey(entity)) {
+			return decisions.getBoolean(entity);
+		}
+
+		boolean render = shouldRender(distanceSq);
+		decisions.put(entity, render);
+		return render;
+	}
+
+	/**
+	 * Forgets the entities that were offered in this frame, so that they aren't kept alive until the next frame.
+	 */
+	public void end() {
+		decisions.clear();
+	}
+
+	/**
+	 * Returns how many entities were skipped since the last call to {@link #begin(int, double)}.
+	 */
+	public int getDeferredCount() {
+		return deferred;
+	}
+}
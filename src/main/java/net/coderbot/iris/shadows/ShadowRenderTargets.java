@@ -134,6 +134,17 @@ public class ShadowRenderTargets {
 		}
 	}
 
+	/**
+	 * Copies the pre-translucent depth of a single region of the shadow map, used by cascaded shadow maps to avoid
+	 * overwriting the depth of cascades that weren't rendered this frame.
+	 */
+	public void copyPreTranslucentDepth(int x, int y, int width, int height) {
+		IrisRenderSystem.blitFramebuffer(depthSourceFb.getId(), noTranslucentsDestFb.getId(), x, y, x + width, y + height,
+			x, y, x + width, y + height,
+			GL30C.GL_DEPTH_BUFFER_BIT,
+			GL30C.GL_NEAREST);
+	}
+
 	public boolean isFullClearRequired() {
 		return fullClearRequired;
 	}
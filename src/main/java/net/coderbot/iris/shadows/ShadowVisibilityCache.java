@@ -0,0 +1,179 @@
+package net.coderbot.iris.shadows;
+
+import com.mojang.math.Matrix4f;
+import net.coderbot.iris.uniforms.CapturedRenderingState;
+import net.coderbot.iris.vendored.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Tracks the inputs that determine which chunks are visible to the shadow camera, so that the shadow pass can reuse
+ * the previous frame's chunk list (kept around via {@link CullingDataCache} and the Sodium equivalent) instead of
+ * re-running terrain setup every frame.
+ *
+ * <p>The cached visibility is keyed on the inputs of shadow culling: the camera chunk section, the render distance and
+ * the culling configuration. The shadow model-view matrix isn't one of them, since it changes with the sun angle on
+ * every frame. If culling depends on the direction of the light (Advanced Frustum Culling or light occlusion culling),
+ * the light direction is quantized to steps of about 0.06 degrees, so that the sun only invalidates the cache every few
+ * ticks. Frustums that also depend on the player camera (such as Advanced Frustum Culling) additionally key on the player
+ * model-view and projection matrices and the exact camera position. Any chunk uploads or renderer reloads invalidate the
+ * cache.
+ */
+public class ShadowVisibilityCache {
+	/**
+	 * Incremented whenever chunk meshes are uploaded or the chunk renderer is reloaded. Only touched on the render
+	 * thread.
+	 */
+	private static int chunkGeneration = 0;
+
+	/**
+	 * The number of steps that each component of the light direction is quantized to per unit.
+	 */
+	private static final float LIGHT_DIRECTION_STEPS = 1024.0F;
+
+	/**
+	 * The number of checks after which the hit rate is updated.
+	 */
+	private static final int HIT_RATE_WINDOW = 256;
+
+	private final float[] playerModelView = new float[16];
+	private final float[] playerProjection = new float[16];
+	private final float[] scratch = new float[16];
+
+	private boolean valid;
+	private int cachedChunkGeneration;
+	private int sectionX;
+	private int sectionY;
+	private int sectionZ;
+	private boolean lightDependent;
+	private int lightX;
+	private int lightY;
+	private int lightZ;
+	private int renderDistance;
+	private boolean viewDependent;
+	private double cameraX;
+	private double cameraY;
+	private double cameraZ;
+	private Class<?> frustumType;
+	private String distanceInfo;
+
+	private int checks;
+	private int hits;
+	private float hitRate = -1.0F;
+
+	public static void onChunksChanged() {
+		chunkGeneration++;
+	}
+
+	/**
+	 * Checks whether the previously computed shadow visibility can be reused, and records the current inputs so that
+	 * the next frame can be compared against them.
+	 *
+	 * @param lightDirection the normalized direction towards the shadow light
+	 * @param lightDependent whether shadow culling depends on the direction of the light
+	 * @param viewDependent whether the shadow frustum also culls against the player camera
+	 * @return true if the shadow chunk list from the previous frame is still valid
+	 */
+	public boolean checkAndUpdate(Vector3f lightDirection, boolean lightDependent, double cameraX, double cameraY,
+								  double cameraZ, int renderDistance, Class<?> frustumType, String distanceInfo,
+								  boolean viewDependent) {
+		boolean reusable = valid
+			&& cachedChunkGeneration == chunkGeneration
+			&& this.renderDistance == renderDistance
+			&& this.lightDependent == lightDependent
+			&& this.viewDependent == viewDependent
+			&& this.frustumType == frustumType
+			&& Objects.equals(this.distanceInfo, distanceInfo);
+
+		int sectionX = floorToSection(cameraX);
+		int sectionY = floorToSection(cameraY);
+		int sectionZ = floorToSection(cameraZ);
+
+		reusable &= this.sectionX == sectionX && this.sectionY == sectionY && this.sectionZ == sectionZ;
+
+		int lightX = quantize(lightDirection.x());
+		int lightY = quantize(lightDirection.y());
+		int lightZ = quantize(lightDirection.z());
+
+		if (lightDependent) {
+			reusable &= this.lightX == lightX && this.lightY == lightY && this.lightZ == lightZ;
+		}
+
+		if (viewDependent) {
+			reusable &= this.cameraX == cameraX && this.cameraY == cameraY && this.cameraZ == cameraZ;
+			reusable &= updateMatrix(CapturedRenderingState.INSTANCE.getGbufferModelView(), playerModelView);
+			reusable &= updateMatrix(CapturedRenderingState.INSTANCE.getGbufferProjection(), playerProjection);
+		}
+
+		this.valid = true;
+		this.cachedChunkGeneration = chunkGeneration;
+		this.sectionX = sectionX;
+		this.sectionY = sectionY;
+		this.sectionZ = sectionZ;
+		this.lightDependent = lightDependent;
+		this.lightX = lightX;
+		this.lightY = lightY;
+		this.lightZ = lightZ;
+		this.renderDistance = renderDistance;
+		this.viewDependent = viewDependent;
+		this.cameraX = cameraX;
+		this.cameraY = cameraY;
+		this.cameraZ = cameraZ;
+		this.frustumType = frustumType;
+		this.distanceInfo = distanceInfo;
+
+		updateHitRate(reusable);
+
+		return reusable;
+	}
+
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * @return the fraction of recent frames that reused the previous shadow visibility, or a negative value if it isn't
+	 *         known yet
+	 */
+	public float getHitRate() {
+		return hitRate;
+	}
+
+	private void updateHitRate(boolean hit) {
+		checks++;
+
+		if (hit) {
+			hits++;
+		}
+
+		if (checks == HIT_RATE_WINDOW) {
+			hitRate = (float) hits / checks;
+			checks = 0;
+			hits = 0;
+		}
+	}
+
+	/**
+	 * Copies the matrix into the cached array, returning whether it was unchanged.
+	 */
+	private boolean updateMatrix(Matrix4f matrix, float[] cached) {
+		((Matrix4fAccess) (Object) matrix).copyIntoArray(scratch);
+
+		if (Arrays.equals(scratch, cached)) {
+			return true;
+		}
+
+		System.arraycopy(scratch, 0, cached, 0, 16);
+
+		return false;
+	}
+
+	private static int quantize(float component) {
+		return Math.round(component * LIGHT_DIRECTION_STEPS);
+	}
+
+	private static int floorToSection(double coordinate) {
+		return (int) Math.floor(coordinate) >> 4;
+	}
+}
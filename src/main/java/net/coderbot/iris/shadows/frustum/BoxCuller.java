@@ -16,6 +16,10 @@ public class BoxCuller {
 		this.maxDistance = maxDistance;
 	}
 
+	public double getMaxDistance() {
+		return maxDistance;
+	}
+
 	public void setPosition(double cameraX, double cameraY, double cameraZ) {
 		this.minAllowedX = cameraX - maxDistance;
 		this.maxAllowedX = cameraX + maxDistance;
@@ -45,4 +49,18 @@ public class BoxCuller {
 
 		return false;
 	}
+
+	public boolean isContained(AABB aabb) {
+		return isContained((float) aabb.minX, (float) aabb.minY, (float) aabb.minZ,
+				(float) aabb.maxX, (float) aabb.maxY, (float) aabb.maxZ);
+	}
+
+	/**
+	 * @return whether the box lies entirely within the allowed area, so that nothing within it can be culled.
+	 */
+	public boolean isContained(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		return minX >= this.minAllowedX && maxX <= this.maxAllowedX
+			&& minY >= this.minAllowedY && maxY <= this.maxAllowedY
+			&& minZ >= this.minAllowedZ && maxZ <= this.maxAllowedZ;
+	}
 }
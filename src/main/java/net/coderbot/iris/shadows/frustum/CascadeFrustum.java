@@ -0,0 +1,47 @@
+package net.coderbot.iris.shadows.frustum;
+
+import com.mojang.math.Matrix4f;
+import net.coderbot.iris.mixin.shadows.FrustumAccessor;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.world.phys.AABB;
+
+/**
+ * Restricts another shadow frustum to the volume covered by a single shadow cascade. Since each cascade uses an
+ * orthographic projection, the vanilla frustum planes extracted from the cascade matrices exactly match the cascade
+ * bounds.
+ */
+public class CascadeFrustum extends Frustum {
+	private final Frustum parent;
+
+	public CascadeFrustum(Frustum parent, Matrix4f modelView, Matrix4f projection) {
+		super(modelView, projection);
+
+		this.parent = parent;
+	}
+
+	/**
+	 * Returns the frustum that this cascade frustum restricts.
+	 */
+	public Frustum getParent() {
+		return parent;
+	}
+
+	@Override
+	public void prepare(double cameraX, double cameraY, double cameraZ) {
+		super.prepare(cameraX, cameraY, cameraZ);
+		parent.prepare(cameraX, cameraY, cameraZ);
+	}
+
+	@Override
+	public boolean isVisible(AABB aabb) {
+		return super.isVisible(aabb) && parent.isVisible(aabb);
+	}
+
+	/**
+	 * Like {@link #isVisible(AABB)}, but only checks the bounds of the cascade and not those of the parent frustum.
+	 * This is used for boxes that are already known to be within the parent frustum, and doesn't need an AABB.
+	 */
+	public boolean isInsideCascade(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		return ((FrustumAccessor) (Object) this).invokeCubeInFrustum(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+}
@@ -1,12 +1,35 @@
 package net.coderbot.iris.shadows.frustum;
 
+import net.coderbot.iris.shadows.frustum.advanced.AdvancedShadowCullingFrustum;
+import net.coderbot.iris.shadows.frustum.fallback.BoxCullingFrustum;
+import net.coderbot.iris.shadows.frustum.fallback.NonCullingFrustum;
+import net.coderbot.iris.vendored.joml.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3f;
 import net.minecraft.client.renderer.culling.Frustum;
 
+import java.util.Objects;
+
+/**
+ * Holds the frustum used by the shadow pass, along with some debug info about it.
+ *
+ * <p>The shadow frustum is set up again every frame, so the holder also keeps the frustum instances that it has handed
+ * out, and only creates new ones (and new info strings) when the settings that they depend on change.</p>
+ */
 public class FrustumHolder {
 	private Frustum frustum;
 	private String distanceInfo = "(unavailable)";
 	private String cullingInfo = "(unavailable)";
 
+	private boolean inputsAdvanced;
+	private String inputsReason;
+	private double inputsDistance = Double.NaN;
+	private int inputsRenderDistance = -1;
+
+	private NonCullingFrustum nonCullingFrustum;
+	private BoxCuller boxCuller;
+	private BoxCullingFrustum boxCullingFrustum;
+	private AdvancedShadowCullingFrustum advancedFrustum;
+
 	public FrustumHolder setInfo(Frustum frustum, String distanceInfo, String cullingInfo) {
 		this.frustum = frustum;
 		this.distanceInfo = distanceInfo;
@@ -14,6 +37,70 @@ public class FrustumHolder {
 		return this;
 	}
 
+	/**
+	 * Records the settings that the current frustum and info strings were derived from.
+	 *
+	 * @return whether the settings changed since the last call, meaning that the info strings need to be set again
+	 */
+	public boolean updateInputs(boolean advanced, String reason, double distance, int renderDistance) {
+		if (frustum != null && advanced == inputsAdvanced && Objects.equals(reason, inputsReason)
+			&& distance == inputsDistance && renderDistance == inputsRenderDistance) {
+			return false;
+		}
+
+		this.inputsAdvanced = advanced;
+		this.inputsReason = reason;
+		this.inputsDistance = distance;
+		this.inputsRenderDistance = renderDistance;
+
+		return true;
+	}
+
+	public NonCullingFrustum getNonCullingFrustum() {
+		if (nonCullingFrustum == null) {
+			nonCullingFrustum = new NonCullingFrustum();
+		}
+
+		return nonCullingFrustum;
+	}
+
+	/**
+	 * Returns a box culler for the given distance, reusing the previous one if the distance hasn't changed.
+	 */
+	public BoxCuller getBoxCuller(double distance) {
+		if (boxCuller == null || boxCuller.getMaxDistance() != distance) {
+			boxCuller = new BoxCuller(distance);
+			boxCullingFrustum = null;
+		}
+
+		return boxCuller;
+	}
+
+	public BoxCullingFrustum getBoxCullingFrustum(double distance) {
+		BoxCuller culler = getBoxCuller(distance);
+
+		if (boxCullingFrustum == null) {
+			boxCullingFrustum = new BoxCullingFrustum(culler);
+		}
+
+		return boxCullingFrustum;
+	}
+
+	/**
+	 * Returns an advanced shadow culling frustum for the given player view and shadow light direction. The same
+	 * instance is updated in place every time this is called.
+	 */
+	public AdvancedShadowCullingFrustum getAdvancedFrustum(Matrix4f playerView, Matrix4f playerProjection,
+														   Vector3f shadowLightVectorFromOrigin, BoxCuller boxCuller) {
+		if (advancedFrustum == null) {
+			advancedFrustum = new AdvancedShadowCullingFrustum(playerView, playerProjection, shadowLightVectorFromOrigin, boxCuller);
+		} else {
+			advancedFrustum.update(playerView, playerProjection, shadowLightVectorFromOrigin, boxCuller);
+		}
+
+		return advancedFrustum;
+	}
+
 	public Frustum getFrustum() {
 		return frustum;
 	}
@@ -0,0 +1,122 @@
+package net.coderbot.iris.shadows.frustum.advanced;
+
+import java.util.Arrays;
+
+/**
+ * A batch of axis-aligned bounding boxes to be tested against {@link ShadowClippingPlanes} at once.
+ *
+ * <p>The bounds are stored in structure-of-arrays form relative to an origin, so that the plane tests can run as tight
+ * loops over primitive arrays. Keeping coordinates relative to a nearby origin also avoids losing float precision far
+ * away from the world origin.</p>
+ */
+public class AabbBatch {
+	private float[] minX;
+	private float[] minY;
+	private float[] minZ;
+	private float[] maxX;
+	private float[] maxY;
+	private float[] maxZ;
+	private int size;
+
+	private double originX;
+	private double originY;
+	private double originZ;
+
+	public AabbBatch(int initialCapacity) {
+		initialCapacity = Math.max(initialCapacity, 1);
+
+		this.minX = new float[initialCapacity];
+		this.minY = new float[initialCapacity];
+		this.minZ = new float[initialCapacity];
+		this.maxX = new float[initialCapacity];
+		this.maxY = new float[initialCapacity];
+		this.maxZ = new float[initialCapacity];
+	}
+
+	/**
+	 * Removes all boxes from this batch, and sets the origin that subsequently added boxes are relative to.
+	 */
+	public void reset(double originX, double originY, double originZ) {
+		this.size = 0;
+		this.originX = originX;
+		this.originY = originY;
+		this.originZ = originZ;
+	}
+
+	/**
+	 * Adds a box in world coordinates.
+	 */
+	public void add(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		addRelative((float) (minX - originX), (float) (minY - originY), (float) (minZ - originZ),
+			(float) (maxX - originX), (float) (maxY - originY), (float) (maxZ - originZ));
+	}
+
+	/**
+	 * Adds a box in coordinates relative to the origin of this batch.
+	 */
+	public void addRelative(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		if (size == this.minX.length) {
+			grow();
+		}
+
+		this.minX[size] = minX;
+		this.minY[size] = minY;
+		this.minZ[size] = minZ;
+		this.maxX[size] = maxX;
+		this.maxY[size] = maxY;
+		this.maxZ[size] = maxZ;
+
+		size += 1;
+	}
+
+	private void grow() {
+		int capacity = this.minX.length * 2;
+
+		this.minX = Arrays.copyOf(this.minX, capacity);
+		this.minY = Arrays.copyOf(this.minY, capacity);
+		this.minZ = Arrays.copyOf(this.minZ, capacity);
+		this.maxX = Arrays.copyOf(this.maxX, capacity);
+		this.maxY = Arrays.copyOf(this.maxY, capacity);
+		this.maxZ = Arrays.copyOf(this.maxZ, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double getOriginX() {
+		return originX;
+	}
+
+	public double getOriginY() {
+		return originY;
+	}
+
+	public double getOriginZ() {
+		return originZ;
+	}
+
+	float[] getMinX() {
+		return minX;
+	}
+
+	float[] getMinY() {
+		return minY;
+	}
+
+	float[] getMinZ() {
+		return minZ;
+	}
+
+	float[] getMaxX() {
+		return maxX;
+	}
+
+	float[] getMaxY() {
+		return maxY;
+	}
+
+	float[] getMaxZ() {
+		return maxZ;
+	}
+}
@@ -5,34 +5,43 @@ import net.coderbot.iris.vendored.joml.Vector4f;
 
 public class BaseClippingPlanes {
 	private final Vector4f[] planes = new Vector4f[6];
+	private final Matrix4f transform = new Matrix4f();
+
+	public BaseClippingPlanes() {
+		for (int i = 0; i < planes.length; i++) {
+			planes[i] = new Vector4f();
+		}
+	}
 
 	public BaseClippingPlanes(Matrix4f playerView, Matrix4f playerProjection) {
-		this.init(playerView, playerProjection);
+		this();
+		this.update(playerView, playerProjection);
 	}
 
-	private void init(Matrix4f view, Matrix4f projection) {
+	/**
+	 * Recomputes the planes in place, without allocating.
+	 */
+	public void update(Matrix4f view, Matrix4f projection) {
 		// Transform = Transpose(Projection x View)
 
-		Matrix4f transform = new Matrix4f(projection);
+		transform.set(projection);
 		transform.mul(view);
 		transform.transpose();
 
-		planes[0] = transform(transform, -1, 0, 0);
-		planes[1] = transform(transform, 1, 0, 0);
-		planes[2] = transform(transform, 0, -1, 0);
-		planes[3] = transform(transform, 0, 1, 0);
+		transform(transform, -1, 0, 0, planes[0]);
+		transform(transform, 1, 0, 0, planes[1]);
+		transform(transform, 0, -1, 0, planes[2]);
+		transform(transform, 0, 1, 0, planes[3]);
 		// FAR clipping plane
-		planes[4] = transform(transform, 0, 0, -1);
+		transform(transform, 0, 0, -1, planes[4]);
 		// NEAR clipping plane
-		planes[5] = transform(transform, 0, 0, 1);
+		transform(transform, 0, 0, 1, planes[5]);
 	}
 
-	private static Vector4f transform(Matrix4f transform, float x, float y, float z) {
-		Vector4f vector4f = new Vector4f(x, y, z, 1.0F);
-		vector4f.mul(transform);
-		vector4f.normalize();
-
-		return vector4f;
+	private static void transform(Matrix4f transform, float x, float y, float z, Vector4f dest) {
+		dest.set(x, y, z, 1.0F);
+		dest.mul(transform);
+		dest.normalize();
 	}
 
 	public Vector4f[] getPlanes() {
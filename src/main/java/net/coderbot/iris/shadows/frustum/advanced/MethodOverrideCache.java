@@ -0,0 +1,83 @@
+package net.coderbot.iris.shadows.frustum.advanced;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of which classes override a method, such as EntityRenderer#shouldRender. Overrides in the given known
+ * classes are ignored, since the caller already accounts for what they do.
+ *
+ * <p>Method names differ between development and production, so the method is looked up by its signature instead of
+ * its name. If it can't be found, every class is assumed to override it.</p>
+ */
+public class MethodOverrideCache {
+	@Nullable
+	private final Method method;
+	private final Set<Class<?>> knownClasses;
+	private final Map<Class<?>, Boolean> overrides = new HashMap<>();
+
+	public MethodOverrideCache(Class<?> declaringClass, Class<?> returnType, Class<?>[] parameterTypes,
+							   Class<?>... knownClasses) {
+		this.method = findMethod(declaringClass, returnType, parameterTypes);
+		this.knownClasses = new HashSet<>(Arrays.asList(knownClasses));
+	}
+
+	public boolean isOverridden(Class<?> clazz) {
+		Boolean overridden = overrides.get(clazz);
+
+		if (overridden == null) {
+			overridden = findOverride(clazz);
+			overrides.put(clazz, overridden);
+		}
+
+		return overridden;
+	}
+
+	private boolean findOverride(Class<?> clazz) {
+		if (method == null) {
+			return true;
+		}
+
+		Class<?> declaringClass = method.getDeclaringClass();
+
+		for (Class<?> current = clazz; current != null && current != declaringClass; current = current.getSuperclass()) {
+			if (knownClasses.contains(current)) {
+				continue;
+			}
+
+			// Overrides with a narrower parameter type also declare a bridge method with the original signature
+			for (Method declared : current.getDeclaredMethods()) {
+				if (declared.getName().equals(method.getName())
+					&& Arrays.equals(declared.getParameterTypes(), method.getParameterTypes())) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Nullable
+	private static Method findMethod(Class<?> declaringClass, Class<?> returnType, Class<?>[] parameterTypes) {
+		Method found = null;
+
+		for (Method declared : declaringClass.getDeclaredMethods()) {
+			if (declared.getReturnType() == returnType && Arrays.equals(declared.getParameterTypes(), parameterTypes)) {
+				if (found != null) {
+					// Ambiguous, so it's not safe to pick either one
+					return null;
+				}
+
+				found = declared;
+			}
+		}
+
+		return found;
+	}
+}
@@ -0,0 +1,200 @@
+package net.coderbot.iris.shadows.frustum.advanced;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Culls the bounding boxes of shadow casters such as entities in two levels, using a spatial grid.
+ *
+ * <p>Boxes are bucketed into grid cells based on their center. Each cell is first tested as a whole, using the union of
+ * the boxes within it. Boxes in cells that are fully inside or fully outside share the result of their cell, and only
+ * the boxes in intersecting cells are tested individually. Since most shadow casters are usually either well inside or
+ * well outside of the shadow culling volume, this avoids testing most boxes individually.</p>
+ *
+ * <p>The results match testing every box on its own: a box within a cell that is fully inside or outside is also fully
+ * inside or outside.</p>
+ */
+public class ShadowCasterGrid {
+	/**
+	 * Tests a batch of boxes, storing one of {@link ShadowClippingPlanes#OUTSIDE}, {@link ShadowClippingPlanes#INSIDE},
+	 * or {@link ShadowClippingPlanes#INTERSECTING} for each box.
+	 */
+	public interface BatchTest {
+		void test(AabbBatch batch, byte[] results);
+	}
+
+	private final int cellShift;
+	private final Long2IntOpenHashMap cellIndices = new Long2IntOpenHashMap();
+
+	private final AabbBatch boxes = new AabbBatch(256);
+	private final AabbBatch cells = new AabbBatch(64);
+	private final AabbBatch intersecting = new AabbBatch(64);
+
+	private int[] boxCells = new int[256];
+	private int[] intersectingBoxes = new int[64];
+	private float[] cellBounds = new float[64 * 6];
+	private int cellCount;
+
+	private byte[] boxResults = new byte[256];
+	private byte[] cellResults = new byte[64];
+	private byte[] intersectingResults = new byte[64];
+	private int individuallyTested;
+
+	/**
+	 * @param cellShift the base 2 logarithm of the cell size in blocks
+	 */
+	public ShadowCasterGrid(int cellShift) {
+		this.cellShift = cellShift;
+		this.cellIndices.defaultReturnValue(-1);
+	}
+
+	/**
+	 * Removes all boxes, and sets the origin that box coordinates are stored relative to. This should be close to the
+	 * boxes, such as the camera position.
+	 */
+	public void reset(double originX, double originY, double originZ) {
+		boxes.reset(originX, originY, originZ);
+		cells.reset(originX, originY, originZ);
+		intersecting.reset(originX, originY, originZ);
+		cellIndices.clear();
+		cellCount = 0;
+		individuallyTested = 0;
+	}
+
+	/**
+	 * Adds a box in world coordinates. Boxes are numbered in the order that they are added, starting at zero.
+	 */
+	public void add(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		int index = boxes.size();
+		boxes.add(minX, minY, minZ, maxX, maxY, maxZ);
+
+		long key = cellKey((int) Math.floor((minX + maxX) * 0.5) >> cellShift,
+			(int) Math.floor((minY + maxY) * 0.5) >> cellShift,
+			(int) Math.floor((minZ + maxZ) * 0.5) >> cellShift);
+
+		int cell = cellIndices.get(key);
+
+		float relMinX = boxes.getMinX()[index];
+		float relMinY = boxes.getMinY()[index];
+		float relMinZ = boxes.getMinZ()[index];
+		float relMaxX = boxes.getMaxX()[index];
+		float relMaxY = boxes.getMaxY()[index];
+		float relMaxZ = boxes.getMaxZ()[index];
+
+		if (cell == -1) {
+			cell = cellCount++;
+			cellIndices.put(key, cell);
+
+			if (cellBounds.length < cellCount * 6) {
+				cellBounds = Arrays.copyOf(cellBounds, cellBounds.length * 2);
+			}
+
+			int offset = cell * 6;
+			cellBounds[offset] = relMinX;
+			cellBounds[offset + 1] = relMinY;
+			cellBounds[offset + 2] = relMinZ;
+			cellBounds[offset + 3] = relMaxX;
+			cellBounds[offset + 4] = relMaxY;
+			cellBounds[offset + 5] = relMaxZ;
+		} else {
+			int offset = cell * 6;
+			cellBounds[offset] = Math.min(cellBounds[offset], relMinX);
+			cellBounds[offset + 1] = Math.min(cellBounds[offset + 1], relMinY);
+			cellBounds[offset + 2] = Math.min(cellBounds[offset + 2], relMinZ);
+			cellBounds[offset + 3] = Math.max(cellBounds[offset + 3], relMaxX);
+			cellBounds[offset + 4] = Math.max(cellBounds[offset + 4], relMaxY);
+			cellBounds[offset + 5] = Math.max(cellBounds[offset + 5], relMaxZ);
+		}
+
+		if (boxCells.length <= index) {
+			boxCells = Arrays.copyOf(boxCells, boxCells.length * 2);
+		}
+
+		boxCells[index] = cell;
+	}
+
+	/**
+	 * Tests all boxes that have been added since the last reset. The results are available from
+	 * {@link #getResult(int)} afterwards.
+	 */
+	public void test(BatchTest test) {
+		int boxCount = boxes.size();
+
+		for (int cell = 0; cell < cellCount; cell++) {
+			int offset = cell * 6;
+			cells.addRelative(cellBounds[offset], cellBounds[offset + 1], cellBounds[offset + 2],
+				cellBounds[offset + 3], cellBounds[offset + 4], cellBounds[offset + 5]);
+		}
+
+		cellResults = ensureCapacity(cellResults, cellCount);
+		boxResults = ensureCapacity(boxResults, boxCount);
+
+		test.test(cells, cellResults);
+
+		float[] minX = boxes.getMinX();
+		float[] minY = boxes.getMinY();
+		float[] minZ = boxes.getMinZ();
+		float[] maxX = boxes.getMaxX();
+		float[] maxY = boxes.getMaxY();
+		float[] maxZ = boxes.getMaxZ();
+
+		for (int box = 0; box < boxCount; box++) {
+			byte cellResult = cellResults[boxCells[box]];
+			boxResults[box] = cellResult;
+
+			if (cellResult == ShadowClippingPlanes.INTERSECTING) {
+				if (intersectingBoxes.length <= intersecting.size()) {
+					intersectingBoxes = Arrays.copyOf(intersectingBoxes, intersectingBoxes.length * 2);
+				}
+
+				intersectingBoxes[intersecting.size()] = box;
+				intersecting.addRelative(minX[box], minY[box], minZ[box], maxX[box], maxY[box], maxZ[box]);
+			}
+		}
+
+		individuallyTested = intersecting.size();
+
+		if (individuallyTested == 0) {
+			return;
+		}
+
+		intersectingResults = ensureCapacity(intersectingResults, individuallyTested);
+		test.test(intersecting, intersectingResults);
+
+		for (int i = 0; i < individuallyTested; i++) {
+			boxResults[intersectingBoxes[i]] = intersectingResults[i];
+		}
+	}
+
+	/**
+	 * Returns the result for the box with the given index, one of {@link ShadowClippingPlanes#OUTSIDE},
+	 * {@link ShadowClippingPlanes#INSIDE}, or {@link ShadowClippingPlanes#INTERSECTING}.
+	 */
+	public int getResult(int box) {
+		return boxResults[box];
+	}
+
+	public int getCellCount() {
+		return cellCount;
+	}
+
+	/**
+	 * Returns how many boxes had to be tested individually in the last call to {@link #test(BatchTest)}.
+	 */
+	public int getIndividuallyTestedCount() {
+		return individuallyTested;
+	}
+
+	private static byte[] ensureCapacity(byte[] array, int size) {
+		if (array.length >= size) {
+			return array;
+		}
+
+		return new byte[Math.max(size, array.length * 2)];
+	}
+
+	private static long cellKey(int x, int y, int z) {
+		return ((long) x & 0x1FFFFF) << 42 | ((long) y & 0x1FFFFF) << 21 | ((long) z & 0x1FFFFF);
+	}
+}
@@ -0,0 +1,352 @@
+package net.coderbot.iris.shadows.frustum.advanced;
+
+import net.coderbot.iris.vendored.joml.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vendored.joml.Vector4f;
+
+/**
+ * The clipping planes used by {@link AdvancedShadowCullingFrustum}, derived from the player's camera frustum and the
+ * direction of the shadow light. See that class for a description of the algorithm.
+ *
+ * <p>Boxes can either be tested one at a time, or as an {@link AabbBatch}. Both return the same results, which
+ * distinguish boxes that are fully inside of the planes from boxes that intersect them. This allows callers to skip
+ * testing anything contained within a box that is fully inside.</p>
+ */
+public class ShadowClippingPlanes {
+	public static final int OUTSIDE = 0;
+	public static final int INSIDE = 1;
+	public static final int INTERSECTING = 2;
+
+	private static final int MAX_CLIPPING_PLANES = 13;
+
+	/**
+	 * We store each plane equation as a 4-dimensional vector, split up into one array per component.
+	 *
+	 * <p>We can represent a plane equation of the form <code>ax + by + cz = d</code> as a 4-dimensional vector
+	 * of the form <code>(a, b, c, -d)</code>. In the special case of a plane that intersects the origin, we get
+	 * the 4-dimensional vector <code>(a, b, c, 0)</code>. (a, b, c) is the normal vector of the plane, and d is the
+	 * distance of the plane from the origin along that normal vector.</p>
+	 *
+	 * <p>Then, to test a given point (x, y, z) against the plane, we simply extend that point to a 4-component
+	 * homogenous vector (x, y, z, 1), and then compute the dot product. Computing the dot product gives us
+	 * ax + by + cz - d = 0, or, rearranged, our original plane equation of ax = by + cz = d.</p>
+	 *
+	 * <p>Note that, for the purposes of frustum culling, we usually aren't interested in computing whether a point
+	 * lies exactly on a plane. Rather, we are interested in determining which side of the plane the point exists on
+	 * - the side closer to the origin, or the side farther away from the origin. Fortunately, doing this with the
+	 * dot product is still simple. If the dot product is negative, then the point lies closer to the origin than the
+	 * plane, and if the dot product is positive, then the point lies further from the origin than the plane.</p>
+	 *
+	 * <p>In this case, if the point is closer to the origin than the plane, it is outside of the area enclosed by the
+	 * plane, and if the point is farther from the origin than the plane, it is inside the area enclosed by the plane.</p>
+	 *
+	 * <p>So:
+	 * <ul>
+	 *     <li>dot(plane, point) > 0 implies the point is inside</li>
+	 *     <li>dot(plane, point) < 0 implies that the point is outside</li>
+	 * </ul>
+	 * </p>
+	 *
+	 * <p>The components are stored in structure-of-arrays form, so that the tests below only touch primitive arrays
+	 * instead of chasing a reference to a separate object for every plane.</p>
+	 */
+	private final float[] planeX = new float[MAX_CLIPPING_PLANES];
+	private final float[] planeY = new float[MAX_CLIPPING_PLANES];
+	private final float[] planeZ = new float[MAX_CLIPPING_PLANES];
+	private final float[] planeW = new float[MAX_CLIPPING_PLANES];
+	private int planeCount = 0;
+
+	// -w for each plane, which is what the tests compare against.
+	private final float[] planeNegW = new float[MAX_CLIPPING_PLANES];
+	private final float[] batchNegW = new float[MAX_CLIPPING_PLANES];
+
+	private final Vector3f shadowLightVectorFromOrigin = new Vector3f();
+	private final BaseClippingPlanes baseClippingPlanes = new BaseClippingPlanes();
+	private final boolean[] isBack = new boolean[6];
+
+	// Scratch vectors, so that the planes can be recomputed every frame without allocating.
+	private final Vector3f backPlaneNormal = new Vector3f();
+	private final Vector3f frontPlaneNormal = new Vector3f();
+	private final Vector3f intersection = new Vector3f();
+	private final Vector3f edgePlaneNormal = new Vector3f();
+	private final Vector3f ixb = new Vector3f();
+	private final Vector3f fxi = new Vector3f();
+
+	public ShadowClippingPlanes(Matrix4f playerView, Matrix4f playerProjection, Vector3f shadowLightVectorFromOrigin) {
+		update(playerView, playerProjection, shadowLightVectorFromOrigin);
+	}
+
+	/**
+	 * Recomputes the planes in place for a new player view and shadow light direction, without allocating.
+	 */
+	public void update(Matrix4f playerView, Matrix4f playerProjection, Vector3f shadowLightVectorFromOrigin) {
+		this.shadowLightVectorFromOrigin.set(shadowLightVectorFromOrigin);
+		this.planeCount = 0;
+
+		baseClippingPlanes.update(playerView, playerProjection);
+
+		addBackPlanes(baseClippingPlanes);
+		addEdgePlanes(baseClippingPlanes);
+	}
+
+	private void addPlane(float x, float y, float z, float w) {
+		planeX[planeCount] = x;
+		planeY[planeCount] = y;
+		planeZ[planeCount] = z;
+		planeW[planeCount] = w;
+		planeNegW[planeCount] = -w;
+		planeCount += 1;
+	}
+
+	public int getPlaneCount() {
+		return planeCount;
+	}
+
+	public Vector4f getPlane(int index, Vector4f dest) {
+		return dest.set(planeX[index], planeY[index], planeZ[index], planeW[index]);
+	}
+
+	/**
+	 * Adds the back planes of the player's view frustum from the perspective of the shadow light.
+	 * This can eliminate many chunks, especially if the player is staring at the shadow light
+	 * (sun / moon).
+	 */
+	private void addBackPlanes(BaseClippingPlanes baseClippingPlanes) {
+		Vector4f[] planes = baseClippingPlanes.getPlanes();
+
+		for (int planeIndex = 0; planeIndex < planes.length; planeIndex++) {
+			Vector4f plane = planes[planeIndex];
+			Vector3f planeNormal = truncate(plane, backPlaneNormal);
+
+			// Find back planes by looking for planes with a normal vector that points
+			// in the same general direction as the vector pointing from the origin to the shadow light
+			//
+			// That is, the angle between those two vectors is less than or equal to 90 degrees,
+			// meaning that the dot product is positive or zero.
+
+			float dot = planeNormal.dot(shadowLightVectorFromOrigin);
+
+			boolean back = dot > 0.0;
+			boolean edge = dot == 0.0;
+
+			// TODO: audit behavior when the dot product is zero
+			isBack[planeIndex] = back;
+
+			if (back || edge) {
+				addPlane(plane.x(), plane.y(), plane.z(), plane.w());
+			}
+		}
+	}
+
+	private void addEdgePlanes(BaseClippingPlanes baseClippingPlanes) {
+		Vector4f[] planes = baseClippingPlanes.getPlanes();
+
+		for (int planeIndex = 0; planeIndex < planes.length; planeIndex++) {
+			if (!isBack[planeIndex]) {
+				continue;
+			}
+
+			Vector4f plane = planes[planeIndex];
+
+			NeighboringPlaneSet neighbors = NeighboringPlaneSet.forPlane(planeIndex);
+
+			if (!isBack[neighbors.getPlane0()]) {
+				addEdgePlane(plane, planes[neighbors.getPlane0()]);
+			}
+
+			if (!isBack[neighbors.getPlane1()]) {
+				addEdgePlane(plane, planes[neighbors.getPlane1()]);
+			}
+
+			if (!isBack[neighbors.getPlane2()]) {
+				addEdgePlane(plane, planes[neighbors.getPlane2()]);
+			}
+
+			if (!isBack[neighbors.getPlane3()]) {
+				addEdgePlane(plane, planes[neighbors.getPlane3()]);
+			}
+		}
+	}
+
+	private static Vector3f truncate(Vector4f base, Vector3f dest) {
+		return dest.set(base.x(), base.y(), base.z());
+	}
+
+	private float lengthSquared(Vector3f v) {
+		float x = v.x();
+		float y = v.y();
+		float z = v.z();
+
+		return x * x + y * y + z * z;
+	}
+
+	private static Vector3f cross(Vector3f first, Vector3f second, Vector3f dest) {
+		dest.set(first.x(), first.y(), first.z());
+		dest.cross(second);
+
+		return dest;
+	}
+
+	private void addEdgePlane(Vector4f backPlane4, Vector4f frontPlane4) {
+		Vector3f backPlaneNormal = truncate(backPlane4, this.backPlaneNormal);
+		Vector3f frontPlaneNormal = truncate(frontPlane4, this.frontPlaneNormal);
+
+		// vector along the intersection of the two planes
+		Vector3f intersection = cross(backPlaneNormal, frontPlaneNormal, this.intersection);
+
+		// compute edge plane normal, we want the normal vector of the edge plane
+		// to always be perpendicular to the shadow light vector (since that's
+		// what makes it an edge plane!)
+		Vector3f edgePlaneNormal = cross(intersection, shadowLightVectorFromOrigin, this.edgePlaneNormal);
+
+		// At this point, we have a normal vector for our new edge plane, but we don't
+		// have a value for distance (d). We can solve for it with a little algebra,
+		// given that we want all 3 planes to intersect at a line.
+
+		// Given the following system of equations:
+		// a₁x + b₁y + c₁z = d₁
+		// a₂x + b₂y + c₂z = d₂
+		// a₃x + b₃y + c₃z = d₃
+		//
+		// Solve for -d₃, if a₁, b₁, c₁, -d₁, a₂, b₂, c₂, -d₂, a₃, b₃, and c₃ are all known, such that
+		// the 3 planes formed by the corresponding 3 plane equations intersect at a line.
+
+		// First, we need to pick a point along the intersection line between our planes.
+		// Unfortunately, we don't have a complete line - only its vector.
+		//
+		// Fortunately, we can compute that point. If we create a plane passing through the origin
+		// with a normal vector parallel to the intersection line, then the intersection
+		// of all 3 planes will be a point on the line of intersection between the two planes we care about.
+		Vector3f point;
+
+		{
+			// "Line of intersection between two planes"
+			// https://stackoverflow.com/a/32410473 by ideasman42, CC BY-SA 3.0
+			// (a modified version of "Intersection of 2-planes" from Graphics Gems 1, page 305
+
+			// NB: We can assume that the intersection vector has a non-zero length.
+			Vector3f ixb = cross(intersection, backPlaneNormal, this.ixb);
+			Vector3f fxi = cross(frontPlaneNormal, intersection, this.fxi);
+
+			ixb.mul(-frontPlane4.w());
+			fxi.mul(-backPlane4.w());
+
+			ixb.add(fxi);
+
+			point = ixb;
+			point.mul(1.0F / lengthSquared(intersection));
+		}
+
+		// Now that we have a point and a normal vector, we can make a plane.
+
+		{
+			// dot(normal, (x, y, z) - point) = 0
+			// a(x - point.x) + b(y - point.y) + c(z - point.z) = 0
+			// d = a * point.x + b * point.y + c * point.z = dot(normal, point)
+			// w = -d
+
+			float d = edgePlaneNormal.dot(point);
+			float w = -d;
+
+			addPlane(edgePlaneNormal.x(), edgePlaneNormal.y(), edgePlaneNormal.z(), w);
+		}
+	}
+
+	/**
+	 * Tests a single box against the planes. The coordinates are relative to the origin of the planes.
+	 *
+	 * @return {@link #OUTSIDE} if nothing is visible, {@link #INSIDE} if everything is visible, and
+	 *         {@link #INTERSECTING} if only part of the box is visible.
+	 */
+	public int test(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		return test(minX, minY, minZ, maxX, maxY, maxZ, planeNegW);
+	}
+
+	private int test(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, float[] planeNegW) {
+		boolean inside = true;
+		float outsideBoundX;
+		float outsideBoundY;
+		float outsideBoundZ;
+		float insideBoundX;
+		float insideBoundY;
+		float insideBoundZ;
+
+		for (int i = 0; i < planeCount; ++i) {
+			float a = planeX[i];
+			float b = planeY[i];
+			float c = planeZ[i];
+			float negW = planeNegW[i];
+
+			// Check if plane is inside or intersecting.
+			// This is ported from JOML's FrustumIntersection.
+
+			if (a < 0) {
+				outsideBoundX = minX;
+				insideBoundX = maxX;
+			} else {
+				outsideBoundX = maxX;
+				insideBoundX = minX;
+			}
+
+			if (b < 0) {
+				outsideBoundY = minY;
+				insideBoundY = maxY;
+			} else {
+				outsideBoundY = maxY;
+				insideBoundY = minY;
+			}
+
+			if (c < 0) {
+				outsideBoundZ = minZ;
+				insideBoundZ = maxZ;
+			} else {
+				outsideBoundZ = maxZ;
+				insideBoundZ = minZ;
+			}
+
+			// NB: Same evaluation order as the fma-based version, JOML's fma is a plain multiply-add on Java 8.
+			if (a * outsideBoundX + (b * outsideBoundY + c * outsideBoundZ) < negW) {
+				return OUTSIDE;
+			}
+
+			inside &= a * insideBoundX + (b * insideBoundY + c * insideBoundZ) >= negW;
+		}
+
+		return inside ? INSIDE : INTERSECTING;
+	}
+
+	/**
+	 * Tests every box in the batch against the planes, and stores the result for each box in the results array, using
+	 * the same values as {@link #test(float, float, float, float, float, float)}.
+	 *
+	 * <p>Each box is tested against all planes before moving on to the next one, so that boxes can stop being tested
+	 * as soon as they are known to be outside. Testing each plane against the whole batch instead turned out to be
+	 * slower, since the JIT doesn't vectorize the comparisons and the early exit is lost.</p>
+	 *
+	 * @param offsetX the X coordinate of the batch origin, relative to the origin of the planes
+	 * @param offsetY the Y coordinate of the batch origin, relative to the origin of the planes
+	 * @param offsetZ the Z coordinate of the batch origin, relative to the origin of the planes
+	 * @param results the array to store results in, must hold at least as many elements as the batch
+	 */
+	public void test(AabbBatch batch, float offsetX, float offsetY, float offsetZ, byte[] results) {
+		int count = batch.size();
+
+		float[] minX = batch.getMinX();
+		float[] minY = batch.getMinY();
+		float[] minZ = batch.getMinZ();
+		float[] maxX = batch.getMaxX();
+		float[] maxY = batch.getMaxY();
+		float[] maxZ = batch.getMaxZ();
+
+		// Move the planes into the coordinate space of the batch
+		float[] negW = this.batchNegW;
+
+		for (int plane = 0; plane < planeCount; plane++) {
+			negW[plane] = -(planeW[plane] + (planeX[plane] * offsetX + (planeY[plane] * offsetY + planeZ[plane] * offsetZ)));
+		}
+
+		for (int i = 0; i < count; i++) {
+			results[i] = (byte) test(minX[i], minY[i], minZ[i], maxX[i], maxY[i], maxZ[i], negW);
+		}
+	}
+}
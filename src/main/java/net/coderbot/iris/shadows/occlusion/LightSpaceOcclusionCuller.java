@@ -0,0 +1,189 @@
+package net.coderbot.iris.shadows.occlusion;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+
+import java.util.Arrays;
+
+/**
+ * Determines which chunk sections can be reached by light coming from a directional light source, using the
+ * per-section visibility graphs. Sections that light can't reach can't cast a shadow on anything that is lit, so they
+ * don't need to be rendered in the shadow pass.
+ *
+ * <p>This is the shadow pass equivalent of the chunk occlusion culling that is done for the player camera. Instead of
+ * flooding outwards from the camera, light enters the traversal region through every section face that faces the
+ * light and that borders open space, and then floods "downstream" along the light direction. A section is entered
+ * through a face that faces the light, and light leaves through any face that faces away from the light and that
+ * the visibility graph connects to the entry face.</p>
+ *
+ * <p>Faces that are within the margin of being parallel to the light direction are never crossed by light. A ray that
+ * is that close to parallel only drifts a tiny fraction of a block per section, far less than a shadow map texel, while
+ * letting light spread sideways through every open section would make the culling nearly useless whenever the light
+ * is axis-aligned (such as at noon, or along the north / south axis without a sun path rotation).</p>
+ */
+public class LightSpaceOcclusionCuller {
+	private static final int FACE_COUNT = 6;
+	private static final int[] FACE_X = { 0, 0, 0, 0, -1, 1 };
+	private static final int[] FACE_Y = { -1, 1, 0, 0, 0, 0 };
+	private static final int[] FACE_Z = { 0, 0, -1, 1, 0, 0 };
+	private static final int REACHED = 1 << FACE_COUNT;
+
+	private final float margin;
+	private final boolean[] facesLight = new boolean[FACE_COUNT];
+	private final boolean[] facesAwayFromLight = new boolean[FACE_COUNT];
+	private final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+
+	/**
+	 * For each section in the region, the low 6 bits hold the faces that light has already entered through, and
+	 * {@link #REACHED} marks that light has reached the section at all.
+	 */
+	private byte[] state = new byte[0];
+	private int minX;
+	private int minY;
+	private int minZ;
+	private int sizeX;
+	private int sizeY;
+	private int sizeZ;
+	private int reachedCount;
+
+	public LightSpaceOcclusionCuller(float margin) {
+		this.margin = margin;
+		setLightDirection(0.0f, 1.0f, 0.0f);
+	}
+
+	/**
+	 * Sets the direction towards the light source. Does not need to be normalized.
+	 */
+	public void setLightDirection(float x, float y, float z) {
+		float length = (float) Math.sqrt(x * x + y * y + z * z);
+
+		if (length == 0.0f) {
+			// No meaningful direction, so light could cross any face in any direction.
+			Arrays.fill(facesLight, true);
+			Arrays.fill(facesAwayFromLight, true);
+
+			return;
+		}
+
+		x /= length;
+		y /= length;
+		z /= length;
+
+		for (int face = 0; face < FACE_COUNT; face++) {
+			float dot = FACE_X[face] * x + FACE_Y[face] * y + FACE_Z[face] * z;
+
+			facesLight[face] = dot > margin;
+			facesAwayFromLight[face] = dot < -margin;
+		}
+	}
+
+	/**
+	 * Computes which sections within the given bounds (in section coordinates, inclusive) are reachable by light.
+	 */
+	public void compute(SectionVisibilityGraph graph, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.sizeX = maxX - minX + 1;
+		this.sizeY = maxY - minY + 1;
+		this.sizeZ = maxZ - minZ + 1;
+		this.reachedCount = 0;
+
+		int volume = sizeX * sizeY * sizeZ;
+
+		if (state.length < volume) {
+			state = new byte[volume];
+		} else {
+			Arrays.fill(state, 0, volume, (byte) 0);
+		}
+
+		queue.clear();
+
+		// Seed the traversal with every light-facing section face that borders open space.
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				for (int z = minZ; z <= maxZ; z++) {
+					if (!graph.contains(x, y, z)) {
+						continue;
+					}
+
+					for (int face = 0; face < FACE_COUNT; face++) {
+						if (facesLight[face] && !contains(graph, x + FACE_X[face], y + FACE_Y[face], z + FACE_Z[face])) {
+							enter(x, y, z, face);
+						}
+					}
+				}
+			}
+		}
+
+		while (!queue.isEmpty()) {
+			int entry = queue.dequeueInt();
+			int face = entry % FACE_COUNT;
+			int index = entry / FACE_COUNT;
+
+			int x = minX + index / (sizeY * sizeZ);
+			int y = minY + (index / sizeZ) % sizeY;
+			int z = minZ + index % sizeZ;
+
+			for (int exit = 0; exit < FACE_COUNT; exit++) {
+				if (exit == face || !facesAwayFromLight[exit]) {
+					continue;
+				}
+
+				int nx = x + FACE_X[exit];
+				int ny = y + FACE_Y[exit];
+				int nz = z + FACE_Z[exit];
+
+				if (!contains(graph, nx, ny, nz) || !graph.canSeeThrough(x, y, z, face, exit)) {
+					continue;
+				}
+
+				// Light leaving through this face enters the neighbor through the opposite face.
+				enter(nx, ny, nz, exit ^ 1);
+			}
+		}
+	}
+
+	/**
+	 * @return whether the given section was reached by light in the last call to {@link #compute}. Sections outside
+	 *         of the computed region are considered visible.
+	 */
+	public boolean isVisible(int sectionX, int sectionY, int sectionZ) {
+		if (!inBounds(sectionX, sectionY, sectionZ)) {
+			return true;
+		}
+
+		return (state[index(sectionX, sectionY, sectionZ)] & REACHED) != 0;
+	}
+
+	public int getReachedCount() {
+		return reachedCount;
+	}
+
+	private void enter(int x, int y, int z, int face) {
+		int index = index(x, y, z);
+		int current = state[index];
+
+		if ((current & (1 << face)) != 0) {
+			return;
+		}
+
+		if ((current & REACHED) == 0) {
+			reachedCount++;
+		}
+
+		state[index] = (byte) (current | (1 << face) | REACHED);
+		queue.enqueue(index * FACE_COUNT + face);
+	}
+
+	private boolean contains(SectionVisibilityGraph graph, int x, int y, int z) {
+		return inBounds(x, y, z) && graph.contains(x, y, z);
+	}
+
+	private boolean inBounds(int x, int y, int z) {
+		return x >= minX && y >= minY && z >= minZ && x < minX + sizeX && y < minY + sizeY && z < minZ + sizeZ;
+	}
+
+	private int index(int x, int y, int z) {
+		return ((x - minX) * sizeY + (y - minY)) * sizeZ + (z - minZ);
+	}
+}
@@ -0,0 +1,135 @@
+package net.coderbot.iris.shadows.occlusion;
+
+import net.minecraft.client.renderer.chunk.ChunkRenderDispatcher;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Adapts a list of vanilla chunk sections to a {@link SectionVisibilityGraph}.
+ *
+ * <p>Only the sections in the list are part of the graph, everything else is treated as open space. When built from
+ * the chunks within the shadow frustum, this means that a section can only ever be hidden by sections that are
+ * actually rendered into the shadow map.</p>
+ */
+public class RenderChunkVisibilityGraph implements SectionVisibilityGraph {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private ChunkRenderDispatcher.RenderChunk[] sections = new ChunkRenderDispatcher.RenderChunk[0];
+	private int minX;
+	private int minY;
+	private int minZ;
+	private int maxX;
+	private int maxY;
+	private int maxZ;
+	private int sizeY;
+	private int sizeZ;
+
+	/**
+	 * Indexes the given chunks by section position. The bounds of the chunks are available afterwards.
+	 */
+	public void update(List<ChunkRenderDispatcher.RenderChunk> chunks) {
+		minX = Integer.MAX_VALUE;
+		minY = Integer.MAX_VALUE;
+		minZ = Integer.MAX_VALUE;
+		maxX = Integer.MIN_VALUE;
+		maxY = Integer.MIN_VALUE;
+		maxZ = Integer.MIN_VALUE;
+
+		for (ChunkRenderDispatcher.RenderChunk chunk : chunks) {
+			BlockPos origin = chunk.getOrigin();
+			int x = origin.getX() >> 4;
+			int y = origin.getY() >> 4;
+			int z = origin.getZ() >> 4;
+
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			minZ = Math.min(minZ, z);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+			maxZ = Math.max(maxZ, z);
+		}
+
+		if (chunks.isEmpty()) {
+			minX = minY = minZ = 0;
+			maxX = maxY = maxZ = -1;
+		}
+
+		sizeY = maxY - minY + 1;
+		sizeZ = maxZ - minZ + 1;
+
+		int volume = (maxX - minX + 1) * sizeY * sizeZ;
+
+		if (sections.length < volume) {
+			sections = new ChunkRenderDispatcher.RenderChunk[volume];
+		} else {
+			Arrays.fill(sections, 0, volume, null);
+		}
+
+		for (ChunkRenderDispatcher.RenderChunk chunk : chunks) {
+			BlockPos origin = chunk.getOrigin();
+			sections[index(origin.getX() >> 4, origin.getY() >> 4, origin.getZ() >> 4)] = chunk;
+		}
+	}
+
+	@Override
+	public boolean contains(int sectionX, int sectionY, int sectionZ) {
+		return get(sectionX, sectionY, sectionZ) != null;
+	}
+
+	@Override
+	public boolean canSeeThrough(int sectionX, int sectionY, int sectionZ, int fromFace, int toFace) {
+		ChunkRenderDispatcher.RenderChunk chunk = get(sectionX, sectionY, sectionZ);
+
+		if (chunk == null) {
+			return true;
+		}
+
+		ChunkRenderDispatcher.CompiledChunk compiled = chunk.getCompiledChunk();
+
+		if (compiled == ChunkRenderDispatcher.CompiledChunk.UNCOMPILED) {
+			// We don't know what's in this section yet, so be conservative.
+			return true;
+		}
+
+		return compiled.facesCanSeeEachother(DIRECTIONS[fromFace], DIRECTIONS[toFace]);
+	}
+
+	public int getMinX() {
+		return minX;
+	}
+
+	public int getMinY() {
+		return minY;
+	}
+
+	public int getMinZ() {
+		return minZ;
+	}
+
+	public int getMaxX() {
+		return maxX;
+	}
+
+	public int getMaxY() {
+		return maxY;
+	}
+
+	public int getMaxZ() {
+		return maxZ;
+	}
+
+	private ChunkRenderDispatcher.RenderChunk get(int x, int y, int z) {
+		if (x < minX || y < minY || z < minZ || x > maxX || y > maxY || z > maxZ) {
+			return null;
+		}
+
+		return sections[index(x, y, z)];
+	}
+
+	private int index(int x, int y, int z) {
+		return ((x - minX) * sizeY + (y - minY)) * sizeZ + (z - minZ);
+	}
+}
@@ -0,0 +1,20 @@
+package net.coderbot.iris.shadows.occlusion;
+
+/**
+ * Exposes the per-section visibility graphs that are computed when chunks are built, so that they can be traversed
+ * from the point of view of the shadow light.
+ *
+ * <p>Faces are identified by index, using the same order as {@code Direction}: down, up, north, south, west, east.</p>
+ */
+public interface SectionVisibilityGraph {
+	/**
+	 * @return whether the given section exists in the graph. Sections outside of the graph are treated as open space.
+	 */
+	boolean contains(int sectionX, int sectionY, int sectionZ);
+
+	/**
+	 * @return whether light entering the given section through one face could leave it through the other face.
+	 *         Sections whose visibility data isn't known yet must return true.
+	 */
+	boolean canSeeThrough(int sectionX, int sectionY, int sectionZ, int fromFace, int toFace);
+}
@@ -3,23 +3,47 @@ package net.coderbot.iris.texture;
 import com.mojang.blaze3d.platform.GlStateManager;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.coderbot.iris.Iris;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL20C;
 
 import java.nio.IntBuffer;
 
+/**
+ * Keeps track of the size, internal format and mip levels of textures, which are recorded whenever a texture level is
+ * allocated through {@link GlStateManager#_texImage2D} (which also covers TextureUtil.prepareImage) or
+ * {@link net.coderbot.iris.gl.IrisRenderSystem#texImage2D}.
+ *
+ * <p>Querying these from GL with glGetTexLevelParameter is synchronous and may stall the driver, so GL is only queried
+ * for textures that were allocated some other way. If GL reports that a texture hasn't been allocated, such as for
+ * texture 0, that is kept as well, so that uniforms like atlasSize don't query it again whenever they are updated. It
+ * is forgotten once the texture is allocated through one of the methods above or deleted.</p>
+ */
 public class TextureInfoCache {
-	public static final TextureInfoCache INSTANCE = new TextureInfoCache();
+	/**
+	 * Compares the recorded info of each texture against GL the first time it's used, and logs any differences.
+	 */
+	private static final boolean VERIFY = System.getProperty("iris.verifyTextureInfo") != null;
 
-	private final Int2ObjectMap<TextureInfo> cache = new Int2ObjectOpenHashMap<>();
+	public static final TextureInfoCache INSTANCE = new TextureInfoCache(new GlStateManagerQueries(), VERIFY);
 
-	private TextureInfoCache() {
+	private final Int2ObjectMap<TextureInfo> cache = new Int2ObjectOpenHashMap<>();
+	private final GlTextureQueries queries;
+	private final boolean verify;
+
+	/**
+	 * @param verify whether to compare the recorded info of each texture against GL the first time it's used. Any
+	 *               differences are logged, and the info is replaced with what GL reports.
+	 */
+	public TextureInfoCache(GlTextureQueries queries, boolean verify) {
+		this.queries = queries;
+		this.verify = verify;
 	}
 
 	public TextureInfo getInfo(int id) {
 		TextureInfo info = cache.get(id);
 		if (info == null) {
-			info = new TextureInfo(id);
+			info = new TextureInfo(id, queries, verify);
 			cache.put(id, info);
 		}
 		return info;
@@ -27,12 +51,29 @@ public class TextureInfoCache {
 
 	public void onTexImage2D(int target, int level, int internalformat, int width, int height, int border,
 							 int format, int type, @Nullable IntBuffer pixels) {
+		onTexImage2D(queries.getBoundTexture(), level, internalformat, width, height);
+	}
+
+	/**
+	 * Records a texture level that was allocated on the given texture, for call sites that don't bind the texture
+	 * through GlStateManager.
+	 */
+	public void onTexImage2D(int id, int level, int internalformat, int width, int height) {
+		TextureInfo info = getInfo(id);
+
 		if (level == 0) {
-			int id = GlStateManager.getActiveTextureName();
-			TextureInfo info = getInfo(id);
+			// Allocating the base level again replaces the texture, so the mip levels are recorded again as well.
 			info.internalFormat = internalformat;
 			info.width = width;
 			info.height = height;
+			info.mipLevel = 0;
+			info.known = true;
+			info.verified = false;
+		} else if (info.isAllocated()) {
+			info.mipLevel = Math.max(info.mipLevel, level);
+		} else {
+			// The base level was allocated without the cache noticing, so it needs to be queried again.
+			info.known = false;
 		}
 	}
 
@@ -40,14 +81,36 @@ public class TextureInfoCache {
 		cache.remove(id);
 	}
 
+	/**
+	 * The GL calls needed to fill in the info of textures that weren't recorded.
+	 */
+	public interface GlTextureQueries {
+		/**
+		 * @return the texture bound to the active texture unit
+		 */
+		int getBoundTexture();
+
+		/**
+		 * Queries a parameter of a level of a 2D texture, without changing which texture is bound.
+		 */
+		int getTexLevelParameter(int id, int level, int pname);
+	}
+
 	public static class TextureInfo {
 		private final int id;
+		private final GlTextureQueries queries;
+		private final boolean verify;
 		private int internalFormat = -1;
 		private int width = -1;
 		private int height = -1;
+		private int mipLevel = -1;
+		private boolean known;
+		private boolean verified;
 
-		private TextureInfo(int id) {
+		private TextureInfo(int id, GlTextureQueries queries, boolean verify) {
 			this.id = id;
+			this.queries = queries;
+			this.verify = verify;
 		}
 
 		public int getId() {
@@ -55,33 +118,102 @@ public class TextureInfoCache {
 		}
 
 		public int getInternalFormat() {
-			if (internalFormat == -1) {
-				internalFormat = fetchLevelParameter(GL20C.GL_TEXTURE_INTERNAL_FORMAT);
-			}
+			fetchIfUnknown();
 			return internalFormat;
 		}
 
 		public int getWidth() {
-			if (width == -1) {
-				width = fetchLevelParameter(GL20C.GL_TEXTURE_WIDTH);
-			}
+			fetchIfUnknown();
 			return width;
 		}
 
 		public int getHeight() {
-			if (height == -1) {
-				height = fetchLevelParameter(GL20C.GL_TEXTURE_HEIGHT);
-			}
+			fetchIfUnknown();
 			return height;
 		}
 
-		private int fetchLevelParameter(int pname) {
+		/**
+		 * @return the highest mip level that has been allocated, which is 0 if the texture has no mip levels
+		 */
+		public int getMipLevel() {
+			fetchIfUnknown();
+
+			if (!isAllocated()) {
+				return 0;
+			}
+
+			if (mipLevel == -1) {
+				int level = 0;
+				while ((Math.max(width, height) >> (level + 1)) > 0
+					&& queries.getTexLevelParameter(id, level + 1, GL20C.GL_TEXTURE_WIDTH) > 0) {
+					level++;
+				}
+				mipLevel = level;
+			}
+
+			return mipLevel;
+		}
+
+		/**
+		 * @return whether the base level of the texture has been allocated with a non-empty size
+		 */
+		private boolean isAllocated() {
+			return known && width > 0 && height > 0;
+		}
+
+		private void fetchIfUnknown() {
+			if (known) {
+				if (verify && !verified) {
+					verify();
+				}
+				return;
+			}
+
+			internalFormat = queries.getTexLevelParameter(id, 0, GL20C.GL_TEXTURE_INTERNAL_FORMAT);
+			width = queries.getTexLevelParameter(id, 0, GL20C.GL_TEXTURE_WIDTH);
+			height = queries.getTexLevelParameter(id, 0, GL20C.GL_TEXTURE_HEIGHT);
+			mipLevel = -1;
+
+			// An empty size means that the texture hasn't been allocated yet. That's kept as well, until the texture
+			// is allocated or deleted.
+			known = true;
+			verified = true;
+		}
+
+		private void verify() {
+			verified = true;
+
+			int queriedInternalFormat = queries.getTexLevelParameter(id, 0, GL20C.GL_TEXTURE_INTERNAL_FORMAT);
+			int queriedWidth = queries.getTexLevelParameter(id, 0, GL20C.GL_TEXTURE_WIDTH);
+			int queriedHeight = queries.getTexLevelParameter(id, 0, GL20C.GL_TEXTURE_HEIGHT);
+
+			if (queriedWidth != width || queriedHeight != height || queriedInternalFormat != internalFormat) {
+				Iris.logger.warn("Recorded info of texture " + id + " (" + width + "x" + height + ", format "
+					+ internalFormat + ") doesn't match GL (" + queriedWidth + "x" + queriedHeight + ", format "
+					+ queriedInternalFormat + ")");
+
+				internalFormat = queriedInternalFormat;
+				width = queriedWidth;
+				height = queriedHeight;
+				mipLevel = -1;
+			}
+		}
+	}
+
+	private static class GlStateManagerQueries implements GlTextureQueries {
+		@Override
+		public int getBoundTexture() {
+			return GlStateManager.getActiveTextureName();
+		}
+
+		@Override
+		public int getTexLevelParameter(int id, int level, int pname) {
 			// Keep track of what texture was bound before
 			int previousTextureBinding = GlStateManager._getInteger(GL20C.GL_TEXTURE_BINDING_2D);
 
 			// Bind this texture and grab the parameter from it.
 			GlStateManager._bindTexture(id);
-			int parameter = GlStateManager._getTexLevelParameter(GL20C.GL_TEXTURE_2D, 0, pname);
+			int parameter = GlStateManager._getTexLevelParameter(GL20C.GL_TEXTURE_2D, level, pname);
 
 			// Make sure to re-bind the previous texture to avoid issues.
 			GlStateManager._bindTexture(previousTextureBinding);
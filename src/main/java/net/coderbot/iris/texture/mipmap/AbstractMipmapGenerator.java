@@ -1,6 +1,7 @@
 package net.coderbot.iris.texture.mipmap;
 
 import com.mojang.blaze3d.platform.NativeImage;
+import net.coderbot.iris.texture.util.ParallelRows;
 
 public abstract class AbstractMipmapGenerator implements CustomMipmapGenerator {
 	@Override
@@ -13,15 +14,8 @@ public abstract class AbstractMipmapGenerator implements CustomMipmapGenerator {
 				NativeImage mipmap = new NativeImage(prevMipmap.getWidth() >> 1, prevMipmap.getHeight() >> 1, false);
 				int width = mipmap.getWidth();
 				int height = mipmap.getHeight();
-				for (int x = 0; x < width; ++x) {
-					for (int y = 0; y < height; ++y) {
-						mipmap.setPixelRGBA(x, y, blend(
-								prevMipmap.getPixelRGBA(x * 2 + 0, y * 2 + 0),
-								prevMipmap.getPixelRGBA(x * 2 + 1, y * 2 + 0),
-								prevMipmap.getPixelRGBA(x * 2 + 0, y * 2 + 1),
-								prevMipmap.getPixelRGBA(x * 2 + 1, y * 2 + 1)
-						));
-					}
+				if (width > 0 && height > 0) {
+					generateLevel(new NativeImageRows(prevMipmap), new NativeImageRows(mipmap), width, height);
 				}
 				images[level] = mipmap;
 			}
@@ -29,5 +23,41 @@ public abstract class AbstractMipmapGenerator implements CustomMipmapGenerator {
 		return images;
 	}
 
+	/**
+	 * Fills a mip level of the given size from the level above it, which must be at least twice as large. The result is
+	 * the same as calling {@link #blend} for every 2x2 block of pixels of the level above, but it is done a row at a
+	 * time, and the rows of large levels are split up over several threads with {@link ParallelRows}.
+	 */
+	public void generateLevel(ImageRows source, ImageRows target, int width, int height) {
+		ParallelRows.forEach(width, height, (startY, endY) -> generateRows(source, target, width, startY, endY));
+	}
+
+	private void generateRows(ImageRows source, ImageRows target, int width, int startY, int endY) {
+		int[] row0 = new int[width * 2];
+		int[] row1 = new int[width * 2];
+		int[] out = new int[width];
+
+		for (int y = startY; y < endY; ++y) {
+			source.readRow(y * 2, row0, width * 2);
+			source.readRow(y * 2 + 1, row1, width * 2);
+			blendRow(row0, row1, out, width);
+			target.writeRow(y, out, width);
+		}
+	}
+
+	/**
+	 * Blends each 2x2 block of pixels from two adjacent rows into a single pixel.
+	 *
+	 * @param row0 the upper row, with at least {@code width * 2} pixels
+	 * @param row1 the lower row, with at least {@code width * 2} pixels
+	 * @param out the row that receives the blended pixels
+	 * @param width the number of pixels to blend
+	 */
+	public void blendRow(int[] row0, int[] row1, int[] out, int width) {
+		for (int x = 0; x < width; ++x) {
+			out[x] = blend(row0[x * 2], row0[x * 2 + 1], row1[x * 2], row1[x * 2 + 1]);
+		}
+	}
+
 	public abstract int blend(int c0, int c1, int c2, int c3);
 }
@@ -0,0 +1,18 @@
+package net.coderbot.iris.texture.mipmap;
+
+/**
+ * Reads and writes whole rows of the pixels of an image, in the same packed format as
+ * {@link com.mojang.blaze3d.platform.NativeImage#getPixelRGBA}. Different rows may be accessed from different threads
+ * at the same time.
+ */
+public interface ImageRows {
+	/**
+	 * Copies the first {@code count} pixels of row {@code y} into the start of {@code row}.
+	 */
+	void readRow(int y, int[] row, int count);
+
+	/**
+	 * Copies the first {@code count} pixels of {@code row} into the start of row {@code y}.
+	 */
+	void writeRow(int y, int[] row, int count);
+}
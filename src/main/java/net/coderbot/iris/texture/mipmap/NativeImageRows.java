@@ -0,0 +1,52 @@
+package net.coderbot.iris.texture.mipmap;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import net.coderbot.iris.mixin.texture.NativeImageAccessor;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Accesses the rows of a {@link NativeImage} directly through its pixel memory, instead of going through the bounds
+ * and format checks of {@link NativeImage#getPixelRGBA} and {@link NativeImage#setPixelRGBA} for every pixel.
+ */
+public class NativeImageRows implements ImageRows {
+	private final long pixels;
+	private final int width;
+	private final int height;
+
+	public NativeImageRows(NativeImage image) {
+		if (image.format() != NativeImage.Format.RGBA) {
+			throw new IllegalArgumentException("Image must be in the RGBA format, but is in the " + image.format() + " format");
+		}
+
+		this.pixels = ((NativeImageAccessor) (Object) image).getPixels();
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+
+		if (pixels == 0L) {
+			throw new IllegalStateException("Image is not allocated");
+		}
+	}
+
+	@Override
+	public void readRow(int y, int[] row, int count) {
+		checkRow(y, count);
+		MemoryUtil.memIntBuffer(getRowAddress(y), count).get(row, 0, count);
+	}
+
+	@Override
+	public void writeRow(int y, int[] row, int count) {
+		checkRow(y, count);
+		MemoryUtil.memIntBuffer(getRowAddress(y), count).put(row, 0, count);
+	}
+
+	private long getRowAddress(int y) {
+		return pixels + (long) y * width * 4L;
+	}
+
+	private void checkRow(int y, int count) {
+		// Checked once per row rather than once per pixel, since an out of bounds access would touch unrelated memory
+		if (y < 0 || y >= height || count < 0 || count > width) {
+			throw new IndexOutOfBoundsException("Row " + y + " with " + count + " pixels is out of bounds for an image of size " + width + "x" + height);
+		}
+	}
+}
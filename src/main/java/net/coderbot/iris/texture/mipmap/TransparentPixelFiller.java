@@ -0,0 +1,112 @@
+package net.coderbot.iris.texture.mipmap;
+
+/**
+ * Fixes a common issue in image editing programs where fully transparent pixels are saved with fully black colors.
+ *
+ * <p>This causes issues with mipmapped texture filtering, since the black color is used to calculate the final color
+ * even though the alpha value is zero. While ideally it would be disregarded, we do not control that. Instead, this
+ * calculates a decent average color to assign to these fully-transparent pixels so that their black color does not
+ * leak over into sampling.</p>
+ *
+ * <p>The image is processed in two passes over its rows: the first computes the average color and finds the rows that
+ * contain transparent pixels, and the second only rewrites those rows. The pixels are summed in the same order as
+ * they would be a pixel at a time, so the average color is exactly the same. Images are only ever read by one thread,
+ * but different images may be filled on different threads at the same time.</p>
+ */
+public class TransparentPixelFiller {
+	// Generate some color tables for gamma correction.
+	private static final float[] SRGB_TO_LINEAR = new float[256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			SRGB_TO_LINEAR[i] = (float) Math.pow(i / 255.0, 2.2);
+		}
+	}
+
+	public static void fill(ImageRows image, int width, int height) {
+		int[] row = new int[width];
+
+		// Calculate an average color from all pixels that are not completely transparent.
+		//
+		// This average is weighted based on the (non-zero) alpha value of the pixel.
+		float r = 0.0f;
+		float g = 0.0f;
+		float b = 0.0f;
+		float totalAlpha = 0.0f;
+
+		int firstTransparentRow = -1;
+		int lastTransparentRow = -1;
+
+		for (int y = 0; y < height; y++) {
+			image.readRow(y, row, width);
+			boolean hasTransparentPixels = false;
+
+			for (int x = 0; x < width; x++) {
+				int color = row[x];
+				int alpha = color >>> 24;
+
+				if (alpha == 0) {
+					// Ignore all fully-transparent pixels for the purposes of computing an average color.
+					hasTransparentPixels = true;
+					continue;
+				}
+
+				totalAlpha += alpha;
+
+				// Make sure to convert to linear space so that we don't lose brightness.
+				r += SRGB_TO_LINEAR[color & 255] * alpha;
+				g += SRGB_TO_LINEAR[(color >> 8) & 255] * alpha;
+				b += SRGB_TO_LINEAR[(color >> 16) & 255] * alpha;
+			}
+
+			if (hasTransparentPixels) {
+				if (firstTransparentRow == -1) {
+					firstTransparentRow = y;
+				}
+
+				lastTransparentRow = y;
+			}
+		}
+
+		// If there weren't any pixels that were not fully transparent, or there are no transparent pixels to fill in,
+		// bail out.
+		if (totalAlpha == 0.0f || firstTransparentRow == -1) {
+			return;
+		}
+
+		r /= totalAlpha;
+		g /= totalAlpha;
+		b /= totalAlpha;
+
+		// Convert that color in linear space back to sRGB.
+		// Use an alpha value of zero - this works since we only replace pixels with an alpha value of 0.
+		int resultColor = packLinearToSrgb(r, g, b);
+
+		for (int y = firstTransparentRow; y <= lastTransparentRow; y++) {
+			image.readRow(y, row, width);
+			boolean changed = false;
+
+			for (int x = 0; x < width; x++) {
+				// If this pixel has nonzero alpha, don't touch it.
+				if ((row[x] >>> 24) == 0) {
+					// Replace the color values of this pixel with the average colors.
+					row[x] = resultColor;
+					changed = true;
+				}
+			}
+
+			if (changed) {
+				image.writeRow(y, row, width);
+			}
+		}
+	}
+
+	// Packs 3 color components into sRGB from linear color space.
+	private static int packLinearToSrgb(float r, float g, float b) {
+		int srgbR = (int) (Math.pow(r, 1.0 / 2.2) * 255.0);
+		int srgbG = (int) (Math.pow(g, 1.0 / 2.2) * 255.0);
+		int srgbB = (int) (Math.pow(b, 1.0 / 2.2) * 255.0);
+
+		return (srgbB << 16) | (srgbG << 8) | srgbR;
+	}
+}
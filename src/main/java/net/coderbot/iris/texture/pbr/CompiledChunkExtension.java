@@ -0,0 +1,14 @@
+package net.coderbot.iris.texture.pbr;
+
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import org.jetbrains.annotations.Nullable;
+
+public interface CompiledChunkExtension {
+	/**
+	 * @return the sprites that were rendered when the chunk was built, or null if there are none
+	 */
+	@Nullable
+	TextureAtlasSprite[] getRenderedSprites();
+
+	void setRenderedSprites(@Nullable TextureAtlasSprite[] sprites);
+}
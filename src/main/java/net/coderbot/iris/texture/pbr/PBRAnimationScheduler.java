@@ -0,0 +1,118 @@
+package net.coderbot.iris.texture.pbr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Advances the animations of the sprites of a PBR atlas every tick, like TextureAtlasSprite.cycleFrames().
+ *
+ * <p>Frames are only uploaded if they actually changed, and the atlas is only bound if at least one frame is uploaded.
+ * Sprites whose base sprite hasn't been rendered since the last tick keep advancing their animation without uploading
+ * anything, and their current frame is uploaded once the base sprite is rendered again. See
+ * {@link PBRSpriteVisibility}.</p>
+ */
+public class PBRAnimationScheduler {
+	protected final List<ScheduledAnimation> animations = new ArrayList<>();
+
+	public void add(Animation animation) {
+		animations.add(new ScheduledAnimation(animation));
+	}
+
+	public boolean isEmpty() {
+		return animations.isEmpty();
+	}
+
+	public void clear() {
+		animations.clear();
+	}
+
+	/**
+	 * @param bind binds the atlas, which is only called before the first frame that is uploaded
+	 */
+	public void tick(Runnable bind) {
+		boolean bound = false;
+
+		for (ScheduledAnimation scheduled : animations) {
+			Animation animation = scheduled.animation;
+
+			if (!animation.isBaseSpriteVisible()) {
+				animation.advance();
+				scheduled.stale = true;
+				continue;
+			}
+
+			if (scheduled.stale) {
+				animation.advance();
+				if (!bound) {
+					bind.run();
+					bound = true;
+				}
+				animation.uploadCurrentFrame();
+				scheduled.stale = false;
+				continue;
+			}
+
+			if (!bound && animation.willUploadOnCycle()) {
+				bind.run();
+				bound = true;
+			}
+			animation.cycle();
+		}
+	}
+
+	/**
+	 * Resets the visibility of all base sprites. This is done after the animations of both the normal and specular
+	 * atlas have been advanced, since they share their base sprites.
+	 */
+	public void resetVisibility() {
+		for (ScheduledAnimation scheduled : animations) {
+			scheduled.animation.resetBaseSpriteVisibility();
+		}
+	}
+
+	/**
+	 * An animated sprite of a PBR atlas, along with the sprite of the base atlas it belongs to.
+	 */
+	public interface Animation {
+		/**
+		 * @return whether the base sprite has been rendered since the animations were last advanced
+		 */
+		boolean isBaseSpriteVisible();
+
+		void resetBaseSpriteVisibility();
+
+		/**
+		 * Advances the animation by a tick without uploading anything.
+		 */
+		void advance();
+
+		/**
+		 * @return whether {@link #cycle()} will upload anything
+		 */
+		boolean willUploadOnCycle();
+
+		/**
+		 * Advances the animation by a tick and uploads the new frame if it changed. The atlas must be bound if
+		 * {@link #willUploadOnCycle()} returned true.
+		 */
+		void cycle();
+
+		/**
+		 * Uploads the current frame. The atlas must be bound.
+		 */
+		void uploadCurrentFrame();
+	}
+
+	protected static class ScheduledAnimation {
+		protected final Animation animation;
+		/**
+		 * Whether the uploaded frame may be out of date, since frames weren't uploaded while the base sprite wasn't
+		 * visible.
+		 */
+		protected boolean stale;
+
+		protected ScheduledAnimation(Animation animation) {
+			this.animation = animation;
+		}
+	}
+}
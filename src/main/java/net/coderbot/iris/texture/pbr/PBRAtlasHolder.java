@@ -31,5 +31,15 @@ public class PBRAtlasHolder {
 		if (specularAtlas != null) {
 			specularAtlas.cycleAnimationFrames();
 		}
+
+		// Both atlases share the same base sprites, so their visibility is only reset once both have been animated
+		if (normalAtlas != null) {
+			normalAtlas.resetSpriteVisibility();
+		}
+		if (specularAtlas != null) {
+			specularAtlas.resetSpriteVisibility();
+		}
+
+		PBRSpriteVisibility.onVisibilityReset();
 	}
 }
@@ -1,7 +1,9 @@
 package net.coderbot.iris.texture.pbr;
 
+import com.mojang.blaze3d.platform.NativeImage;
 import com.mojang.blaze3d.platform.TextureUtil;
-import net.coderbot.iris.mixin.texture.TextureAtlasSpriteAccessor;
+import net.coderbot.iris.texture.mipmap.NativeImageRows;
+import net.coderbot.iris.texture.pbr.cache.CachedAtlas;
 import net.coderbot.iris.texture.util.TextureExporter;
 import net.coderbot.iris.texture.util.TextureManipulationUtil;
 import net.minecraft.CrashReport;
@@ -10,22 +12,19 @@ import net.minecraft.ReportedException;
 import net.minecraft.client.renderer.texture.AbstractTexture;
 import net.minecraft.client.renderer.texture.TextureAtlas;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
-import net.minecraft.client.resources.metadata.animation.AnimationMetadataSection;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.ResourceManager;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 public class PBRAtlasTexture extends AbstractTexture {
 	protected final TextureAtlas atlasTexture;
 	protected final PBRType type;
 	protected final ResourceLocation id;
 	protected final Map<ResourceLocation, TextureAtlasSprite> sprites = new HashMap<>();
-	protected final Set<TextureAtlasSprite> animatedSprites = new HashSet<>();
+	protected final PBRAnimationScheduler animationScheduler = new PBRAnimationScheduler();
 
 	public PBRAtlasTexture(TextureAtlas atlasTexture, PBRType type) {
 		this.atlasTexture = atlasTexture;
@@ -41,10 +40,10 @@ public class PBRAtlasTexture extends AbstractTexture {
 		return id;
 	}
 
-	public void addSprite(TextureAtlasSprite sprite) {
+	public void addSprite(TextureAtlasSprite sprite, TextureAtlasSprite baseSprite) {
 		sprites.put(sprite.getName(), sprite);
 		if (sprite.isAnimation()) {
-			animatedSprites.add(sprite);
+			animationScheduler.add(new PBRSpriteAnimation(sprite, baseSprite));
 		}
 	}
 
@@ -55,13 +54,25 @@ public class PBRAtlasTexture extends AbstractTexture {
 
 	public void clear() {
 		sprites.clear();
-		animatedSprites.clear();
+		animationScheduler.clear();
 	}
 
 	public void upload(int atlasWidth, int atlasHeight, int mipLevel) {
+		upload(atlasWidth, atlasHeight, mipLevel, null);
+	}
+
+	/**
+	 * Uploads the atlas. If a cached atlas is given, its mip levels are uploaded instead of stitching them together, and
+	 * only the sprites that have been added, which should be the animated ones, are uploaded on top of it.
+	 */
+	public void upload(int atlasWidth, int atlasHeight, int mipLevel, @Nullable CachedAtlas cachedAtlas) {
 		int glId = getId();
 		TextureUtil.prepareImage(glId, mipLevel, atlasWidth, atlasHeight);
-		TextureManipulationUtil.fillWithColor(glId, mipLevel, type.getDefaultValue());
+		if (cachedAtlas != null) {
+			uploadCachedAtlas(cachedAtlas);
+		} else {
+			TextureManipulationUtil.fillWithColor(glId, mipLevel, type.getDefaultValue());
+		}
 
 		for (TextureAtlasSprite sprite : sprites.values()) {
 			try {
@@ -75,7 +86,7 @@ public class PBRAtlasTexture extends AbstractTexture {
 			}
 		}
 
-		if (!animatedSprites.isEmpty()) {
+		if (!animationScheduler.isEmpty()) {
 			PBRAtlasHolder pbrHolder = ((TextureAtlasExtension) atlasTexture).getOrCreatePBRHolder();
 			switch (type) {
 			case NORMAL:
@@ -93,39 +104,77 @@ public class PBRAtlasTexture extends AbstractTexture {
 	}
 
 	public boolean tryUpload(int atlasWidth, int atlasHeight, int mipLevel) {
+		return tryUpload(atlasWidth, atlasHeight, mipLevel, null);
+	}
+
+	public boolean tryUpload(int atlasWidth, int atlasHeight, int mipLevel, @Nullable CachedAtlas cachedAtlas) {
 		try {
-			upload(atlasWidth, atlasHeight, mipLevel);
+			upload(atlasWidth, atlasHeight, mipLevel, cachedAtlas);
 			return true;
 		} catch (Throwable t) {
 			return false;
 		}
 	}
 
-	protected void uploadSprite(TextureAtlasSprite sprite) {
-		if (sprite.isAnimation()) {
-			TextureAtlasSpriteAccessor accessor = (TextureAtlasSpriteAccessor) sprite;
-			AnimationMetadataSection metadata = accessor.getMetadata();
-
-			int frameCount = sprite.getFrameCount();
-			for (int frame = accessor.getFrame(); frame >= 0; frame--) {
-				int frameIndex = metadata.getFrameIndex(frame);
-				if (frameIndex >= 0 && frameIndex < frameCount) {
-					accessor.callUpload(frameIndex);
-					return;
+	protected void uploadCachedAtlas(CachedAtlas cachedAtlas) {
+		bind();
+		for (int level = 0; level <= cachedAtlas.getMipLevel(); level++) {
+			int width = CachedAtlas.getLevelWidth(cachedAtlas.getWidth(), level);
+			int height = CachedAtlas.getLevelHeight(cachedAtlas.getHeight(), level);
+			int[] pixels = cachedAtlas.getLevel(level);
+
+			try (NativeImage image = new NativeImage(width, height, false)) {
+				NativeImageRows rows = new NativeImageRows(image);
+				int[] row = new int[width];
+				for (int y = 0; y < height; y++) {
+					System.arraycopy(pixels, y * width, row, 0, width);
+					rows.writeRow(y, row, width);
 				}
+				image.upload(level, 0, 0, false);
 			}
 		}
-
-		sprite.uploadFirstFrame();
 	}
 
-	public void cycleAnimationFrames() {
+	/**
+	 * Reads every mip level of the uploaded atlas back from the GPU, so that it can be cached.
+	 */
+	public CachedAtlas download(int atlasWidth, int atlasHeight, int mipLevel) {
 		bind();
-		for (TextureAtlasSprite sprite : animatedSprites) {
-			sprite.cycleFrames();
+		int[][] levels = new int[mipLevel + 1][];
+		for (int level = 0; level <= mipLevel; level++) {
+			int width = CachedAtlas.getLevelWidth(atlasWidth, level);
+			int height = CachedAtlas.getLevelHeight(atlasHeight, level);
+			levels[level] = new int[width * height];
+
+			try (NativeImage image = new NativeImage(width, height, false)) {
+				image.downloadTexture(level, false);
+				NativeImageRows rows = new NativeImageRows(image);
+				int[] row = new int[width];
+				for (int y = 0; y < height; y++) {
+					rows.readRow(y, row, width);
+					System.arraycopy(row, 0, levels[level], y * width, width);
+				}
+			}
+		}
+		return new CachedAtlas(atlasWidth, atlasHeight, levels);
+	}
+
+	protected void uploadSprite(TextureAtlasSprite sprite) {
+		if (sprite.isAnimation()) {
+			PBRSpriteAnimation.uploadCurrentFrame(sprite);
+		} else {
+			sprite.uploadFirstFrame();
 		}
 	}
 
+	public void cycleAnimationFrames() {
+		animationScheduler.tick(this::bind);
+	}
+
+	public void resetSpriteVisibility() {
+		animationScheduler.resetVisibility();
+	}
+
 	@Override
 	public void close() {
 		PBRAtlasHolder pbrHolder = ((TextureAtlasExtension) atlasTexture).getPBRHolder();
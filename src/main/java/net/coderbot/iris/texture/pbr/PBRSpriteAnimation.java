@@ -0,0 +1,101 @@
+package net.coderbot.iris.texture.pbr;
+
+import net.coderbot.iris.mixin.texture.TextureAtlasSpriteAccessor;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.metadata.animation.AnimationMetadataSection;
+
+/**
+ * Animates a sprite of a PBR atlas in the same way as {@link TextureAtlasSprite#cycleFrames()}, with the extra
+ * operations needed by {@link PBRAnimationScheduler}.
+ */
+public class PBRSpriteAnimation implements PBRAnimationScheduler.Animation {
+	protected final TextureAtlasSprite sprite;
+	protected final TextureAtlasSprite baseSprite;
+
+	public PBRSpriteAnimation(TextureAtlasSprite sprite, TextureAtlasSprite baseSprite) {
+		this.sprite = sprite;
+		this.baseSprite = baseSprite;
+	}
+
+	@Override
+	public boolean isBaseSpriteVisible() {
+		return PBRSpriteVisibility.isVisible(baseSprite);
+	}
+
+	@Override
+	public void resetBaseSpriteVisibility() {
+		PBRSpriteHolder holder = ((TextureAtlasSpriteExtension) baseSprite).getPBRHolder();
+		if (holder != null) {
+			holder.resetVisible();
+		}
+	}
+
+	@Override
+	public void advance() {
+		TextureAtlasSpriteAccessor accessor = (TextureAtlasSpriteAccessor) sprite;
+		AnimationMetadataSection metadata = accessor.getMetadata();
+
+		int frame = accessor.getFrame();
+		int subFrame = accessor.getSubFrame() + 1;
+		if (subFrame >= metadata.getFrameTime(frame)) {
+			frame = (frame + 1) % getAnimationLength(sprite, metadata);
+			subFrame = 0;
+		}
+
+		accessor.setFrame(frame);
+		accessor.setSubFrame(subFrame);
+	}
+
+	/**
+	 * @return whether {@link TextureAtlasSprite#cycleFrames()} will upload anything, which is the case if the frame
+	 *         changes to a different valid frame, or if an interpolated frame is in between two frames
+	 */
+	@Override
+	public boolean willUploadOnCycle() {
+		TextureAtlasSpriteAccessor accessor = (TextureAtlasSpriteAccessor) sprite;
+		AnimationMetadataSection metadata = accessor.getMetadata();
+
+		int frame = accessor.getFrame();
+		if (accessor.getSubFrame() + 1 >= metadata.getFrameTime(frame)) {
+			int nextFrame = (frame + 1) % getAnimationLength(sprite, metadata);
+			int frameIndex = metadata.getFrameIndex(frame);
+			int nextFrameIndex = metadata.getFrameIndex(nextFrame);
+			return frameIndex != nextFrameIndex && nextFrameIndex >= 0 && nextFrameIndex < sprite.getFrameCount();
+		}
+
+		return metadata.isInterpolatedFrames();
+	}
+
+	@Override
+	public void cycle() {
+		sprite.cycleFrames();
+	}
+
+	@Override
+	public void uploadCurrentFrame() {
+		uploadCurrentFrame(sprite);
+	}
+
+	/**
+	 * Uploads the most recent valid frame of an animated sprite, including all of its mip levels.
+	 */
+	public static void uploadCurrentFrame(TextureAtlasSprite sprite) {
+		TextureAtlasSpriteAccessor accessor = (TextureAtlasSpriteAccessor) sprite;
+		AnimationMetadataSection metadata = accessor.getMetadata();
+
+		int frameCount = sprite.getFrameCount();
+		for (int frame = accessor.getFrame(); frame >= 0; frame--) {
+			int frameIndex = metadata.getFrameIndex(frame);
+			if (frameIndex >= 0 && frameIndex < frameCount) {
+				accessor.callUpload(frameIndex);
+				return;
+			}
+		}
+
+		sprite.uploadFirstFrame();
+	}
+
+	protected static int getAnimationLength(TextureAtlasSprite sprite, AnimationMetadataSection metadata) {
+		return metadata.getFrameCount() == 0 ? sprite.getFrameCount() : metadata.getFrameCount();
+	}
+}
@@ -6,6 +6,7 @@ import org.jetbrains.annotations.Nullable;
 public class PBRSpriteHolder {
 	protected TextureAtlasSprite normalSprite;
 	protected TextureAtlasSprite specularSprite;
+	protected boolean visible;
 
 	@Nullable
 	public TextureAtlasSprite getNormalSprite() {
@@ -25,6 +26,21 @@ public class PBRSpriteHolder {
 		specularSprite = sprite;
 	}
 
+	/**
+	 * @return whether the base sprite has been rendered since the animations were last advanced
+	 */
+	public boolean isVisible() {
+		return visible;
+	}
+
+	public void markVisible() {
+		visible = true;
+	}
+
+	public void resetVisible() {
+		visible = false;
+	}
+
 	public void close() {
 		if (normalSprite != null) {
 			normalSprite.close();
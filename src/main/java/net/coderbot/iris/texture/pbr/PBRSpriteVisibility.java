@@ -0,0 +1,99 @@
+package net.coderbot.iris.texture.pbr;
+
+import net.coderbot.iris.Iris;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tracks which sprites with animated PBR textures have been rendered recently, so that the PBR animations of sprites
+ * that can't be seen don't need to be uploaded.
+ *
+ * <p>Chunks remember which sprites they contain while they are built, and those sprites are marked as visible on every
+ * frame where the chunk is going to be rendered. Every sprite is remembered, not just the ones that currently have
+ * animated PBR textures, since PBR textures are loaded in the background and may only be attached to a sprite after
+ * the chunks using it have been built. Sprites rendered outside of chunks, such as items and falling blocks, are
+ * marked as they are rendered.</p>
+ *
+ * <p>The sprites of chunks only need to be marked once between two ticks, since visibility is only read when the
+ * animations are advanced. They are marked on the first frame after visibility was reset, rather than on every frame.
+ * </p>
+ *
+ * <p>Sodium builds and renders chunks in its own way, and instead reports the animated sprites of the chunks it renders
+ * through its markActive hook. Sodium doesn't report sprites that aren't animated in the base atlas, so with Sodium
+ * installed, those are always treated as visible.</p>
+ */
+public final class PBRSpriteVisibility {
+	private static final ThreadLocal<SpriteCollector<TextureAtlasSprite>> COLLECTORS = ThreadLocal.withInitial(SpriteCollector::new);
+	private static boolean chunksMarked;
+
+	private PBRSpriteVisibility() {
+	}
+
+	/**
+	 * @return whether the given sprite of a base atlas has been rendered since visibility was last reset
+	 */
+	public static boolean isVisible(TextureAtlasSprite sprite) {
+		if (Iris.isSodiumInstalled() && !sprite.isAnimation()) {
+			return true;
+		}
+
+		PBRSpriteHolder holder = ((TextureAtlasSpriteExtension) sprite).getPBRHolder();
+		return holder != null && holder.isVisible();
+	}
+
+	/**
+	 * @return whether the sprites of the chunks that are going to be rendered still need to be marked as visible
+	 */
+	public static boolean shouldMarkChunks() {
+		return !chunksMarked;
+	}
+
+	public static void onChunksMarked() {
+		chunksMarked = true;
+	}
+
+	/**
+	 * Called once the visibility of sprites has been reset, after the animations have been advanced.
+	 */
+	public static void onVisibilityReset() {
+		chunksMarked = false;
+	}
+
+	/**
+	 * Starts collecting the sprites rendered on the current thread, which is done while a chunk is being built.
+	 */
+	public static void beginCollecting() {
+		COLLECTORS.get().begin();
+	}
+
+	/**
+	 * @return the sprites rendered on the current thread since collection began, or null if there are none
+	 */
+	@Nullable
+	public static TextureAtlasSprite[] finishCollecting() {
+		return COLLECTORS.get().finish(TextureAtlasSprite[]::new);
+	}
+
+	public static void onSpriteRendered(TextureAtlasSprite sprite) {
+		SpriteCollector<TextureAtlasSprite> collector = COLLECTORS.get();
+		if (collector.isActive()) {
+			collector.add(sprite);
+			return;
+		}
+
+		PBRSpriteHolder holder = ((TextureAtlasSpriteExtension) sprite).getPBRHolder();
+		if (holder != null) {
+			holder.markVisible();
+		}
+	}
+
+	public static void markVisible(TextureAtlasSprite[] sprites) {
+		for (TextureAtlasSprite sprite : sprites) {
+			// Most sprites don't have PBR textures, or haven't had them attached yet
+			PBRSpriteHolder holder = ((TextureAtlasSpriteExtension) sprite).getPBRHolder();
+			if (holder != null) {
+				holder.markVisible();
+			}
+		}
+	}
+}
@@ -1,19 +1,25 @@
 package net.coderbot.iris.texture.pbr;
 
 import com.mojang.blaze3d.platform.GlStateManager;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import net.coderbot.iris.Iris;
 import net.coderbot.iris.gl.state.StateUpdateNotifiers;
 import net.coderbot.iris.rendertarget.NativeImageBackedSingleColorTexture;
 import net.coderbot.iris.texture.TextureTracker;
 import net.coderbot.iris.texture.pbr.loader.PBRTextureLoader;
 import net.coderbot.iris.texture.pbr.loader.PBRTextureLoader.PBRTextureConsumer;
+import net.coderbot.iris.texture.pbr.loader.PBRTextureLoader.PBRTextureUpload;
 import net.coderbot.iris.texture.pbr.loader.PBRTextureLoaderRegistry;
+import net.minecraft.Util;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.AbstractTexture;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.CompletableFuture;
+
 public class PBRTextureManager {
 	public static final PBRTextureManager INSTANCE = new PBRTextureManager();
 
@@ -28,7 +34,16 @@ public class PBRTextureManager {
 		StateUpdateNotifiers.specularTextureChangeNotifier = listener -> specularTextureChangeListener = listener;
 	}
 
+	/**
+	 * The maximum time in nanoseconds to spend uploading PBR textures that have finished loading each frame.
+	 */
+	private static final long UPLOAD_BUDGET_NANOS = 2_000_000L;
+
 	private final Int2ObjectMap<PBRTextureHolder> holders = new Int2ObjectOpenHashMap<>();
+	// Linked to upload textures in the order they were requested
+	private final Int2ObjectMap<CompletableFuture<PBRTextureUpload>> pendingUploads = new Int2ObjectLinkedOpenHashMap<>();
+	// Work left over from uploads that have been done, see PBRTextureUpload#getDeferredWork
+	private final Int2ObjectMap<Runnable> deferredWork = new Int2ObjectLinkedOpenHashMap<>();
 	private final PBRTextureConsumerImpl consumer = new PBRTextureConsumerImpl();
 
 	private NativeImageBackedSingleColorTexture defaultNormalTexture;
@@ -62,27 +77,47 @@ public class PBRTextureManager {
 		return holder;
 	}
 
+	/**
+	 * Returns the PBR textures of the given texture. If they haven't been loaded yet, loading them is started in the
+	 * background, and the default textures are returned until they have been uploaded.
+	 */
 	public PBRTextureHolder getOrLoadHolder(int id) {
 		PBRTextureHolder holder = holders.get(id);
 		if (holder == null) {
-			holder = loadHolder(id);
-			holders.put(id, holder);
+			if (!pendingUploads.containsKey(id)) {
+				requestHolder(id, TextureTracker.INSTANCE.getTexture(id));
+			}
+			return defaultHolder;
 		}
 		return holder;
 	}
 
+	/**
+	 * Starts loading the PBR textures of a texture that has just been registered or reloaded, so that they are
+	 * usually ready by the time the texture is first bound. Any PBR textures loaded for a previous version of the
+	 * texture are deleted.
+	 */
+	public void preloadHolder(AbstractTexture texture) {
+		if (!Iris.getCurrentPack().isPresent()) {
+			// Without a shader pack, nothing will use the PBR textures, so they are only loaded once they are needed.
+			return;
+		}
+
+		int id = texture.getId();
+		onDeleteTexture(id);
+		requestHolder(id, texture);
+	}
+
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	private PBRTextureHolder loadHolder(int id) {
-		AbstractTexture texture = TextureTracker.INSTANCE.getTexture(id);
+	private void requestHolder(int id, AbstractTexture texture) {
 		if (texture != null) {
 			Class<? extends AbstractTexture> clazz = texture.getClass();
 			PBRTextureLoader loader = PBRTextureLoaderRegistry.INSTANCE.getLoader(clazz);
 			if (loader != null) {
 				int previousTextureBinding = GlStateManager.getActiveTextureName();
-				consumer.clear();
 				try {
-					loader.load(texture, Minecraft.getInstance().getResourceManager(), consumer);
-					return consumer.toHolder();
+					pendingUploads.put(id, loader.loadAsync(texture, Minecraft.getInstance().getResourceManager(), Util.backgroundExecutor()));
+					return;
 				} catch (Exception e) {
 					Iris.logger.debug("Failed to load PBR textures for texture " + id, e);
 				} finally {
@@ -90,17 +125,113 @@ public class PBRTextureManager {
 				}
 			}
 		}
+		holders.put(id, defaultHolder);
+	}
+
+	/**
+	 * Uploads the PBR textures that have finished loading in the background, until the time spent uploading in this
+	 * frame exceeds the upload budget. At least one upload is done every frame, so that uploads can't be held back
+	 * forever by a single large texture. On frames where nothing is uploaded, the deferred work of a single upload that
+	 * was done before is run instead.
+	 */
+	public void processPendingUploads() {
+		if (!uploadPendingTextures()) {
+			runDeferredWork();
+		}
+	}
+
+	/**
+	 * @return whether anything was uploaded
+	 */
+	private boolean uploadPendingTextures() {
+		if (pendingUploads.isEmpty()) {
+			return false;
+		}
+
+		boolean uploaded = false;
+		long start = System.nanoTime();
+		ObjectIterator<Int2ObjectMap.Entry<CompletableFuture<PBRTextureUpload>>> iterator = pendingUploads.int2ObjectEntrySet().iterator();
+
+		while (iterator.hasNext()) {
+			Int2ObjectMap.Entry<CompletableFuture<PBRTextureUpload>> entry = iterator.next();
+			CompletableFuture<PBRTextureUpload> future = entry.getValue();
+			if (!future.isDone()) {
+				continue;
+			}
+
+			iterator.remove();
+			int id = entry.getIntKey();
+			holders.put(id, uploadHolder(id, future));
+			uploaded = true;
+
+			if (System.nanoTime() - start > UPLOAD_BUDGET_NANOS) {
+				break;
+			}
+		}
+
+		return uploaded;
+	}
+
+	private void runDeferredWork() {
+		if (deferredWork.isEmpty()) {
+			return;
+		}
+
+		ObjectIterator<Int2ObjectMap.Entry<Runnable>> iterator = deferredWork.int2ObjectEntrySet().iterator();
+		Int2ObjectMap.Entry<Runnable> entry = iterator.next();
+		iterator.remove();
+
+		int previousTextureBinding = GlStateManager.getActiveTextureName();
+		try {
+			entry.getValue().run();
+		} catch (Exception e) {
+			Iris.logger.debug("Failed to finish loading PBR textures for texture " + entry.getIntKey(), e);
+		} finally {
+			GlStateManager._bindTexture(previousTextureBinding);
+		}
+	}
+
+	private PBRTextureHolder uploadHolder(int id, CompletableFuture<PBRTextureUpload> future) {
+		int previousTextureBinding = GlStateManager.getActiveTextureName();
+		consumer.clear();
+		try {
+			PBRTextureUpload upload = future.join();
+			upload.upload(consumer);
+			Runnable work = upload.getDeferredWork();
+			if (work != null) {
+				deferredWork.put(id, work);
+			}
+			return consumer.toHolder();
+		} catch (Exception e) {
+			Iris.logger.debug("Failed to load PBR textures for texture " + id, e);
+		} finally {
+			GlStateManager._bindTexture(previousTextureBinding);
+		}
 		return defaultHolder;
 	}
 
+	private static void discardUpload(CompletableFuture<PBRTextureUpload> future) {
+		future.thenAccept(PBRTextureUpload::discard);
+	}
+
 	public void onDeleteTexture(int id) {
 		PBRTextureHolder holder = holders.remove(id);
 		if (holder != null) {
 			closeHolder(holder);
 		}
+		CompletableFuture<PBRTextureUpload> pendingUpload = pendingUploads.remove(id);
+		if (pendingUpload != null) {
+			discardUpload(pendingUpload);
+		}
+		deferredWork.remove(id);
 	}
 
 	public void clear() {
+		for (CompletableFuture<PBRTextureUpload> pendingUpload : pendingUploads.values()) {
+			discardUpload(pendingUpload);
+		}
+		pendingUploads.clear();
+		deferredWork.clear();
 		for (PBRTextureHolder holder : holders.values()) {
 			if (holder != defaultHolder) {
 				closeHolder(holder);
@@ -0,0 +1,51 @@
+package net.coderbot.iris.texture.pbr;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Collects the distinct sprites that are rendered while a chunk is built. Consecutive quads usually share their
+ * sprite, so the most recently added sprite is remembered to skip most set lookups.
+ */
+public class SpriteCollector<T> {
+	private final Set<T> sprites = new ReferenceOpenHashSet<>();
+	private T lastSprite;
+	private boolean active;
+
+	public void begin() {
+		active = true;
+		sprites.clear();
+		lastSprite = null;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void add(T sprite) {
+		if (sprite != lastSprite) {
+			sprites.add(sprite);
+			lastSprite = sprite;
+		}
+	}
+
+	/**
+	 * @return the sprites added since collection began, or null if there are none
+	 */
+	@Nullable
+	public T[] finish(IntFunction<T[]> arrayFactory) {
+		active = false;
+		lastSprite = null;
+
+		if (sprites.isEmpty()) {
+			return null;
+		}
+
+		T[] collected = sprites.toArray(arrayFactory.apply(sprites.size()));
+		sprites.clear();
+		return collected;
+	}
+}
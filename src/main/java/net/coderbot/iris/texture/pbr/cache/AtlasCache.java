@@ -0,0 +1,176 @@
+package net.coderbot.iris.texture.pbr.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores the mip levels of processed atlases on disk, so that they can be uploaded directly the next time that an
+ * atlas with the same contents is loaded.
+ *
+ * <p>Entries are addressed by the name of the atlas and a key that is derived from everything that went into the
+ * atlas, see {@link CacheKeyBuilder}. When any of that changes, the key changes, and the old entry is simply not found
+ * anymore. Only the latest entry of each atlas is kept, so that the cache doesn't keep growing with every change.</p>
+ *
+ * <p>The format is uncompressed: a header with the size and the number of mip levels, followed by the pixels of each
+ * level as little endian ints.</p>
+ */
+public class AtlasCache {
+	private static final int MAGIC = 0x49504241;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 5 * 4;
+	private static final String EXTENSION = ".bin";
+
+	private final Path directory;
+
+	public AtlasCache(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads the entry with the given name and key.
+	 *
+	 * @return the atlas, or null if there is no entry with that key
+	 * @throws IOException if the entry exists but couldn't be read
+	 */
+	@Nullable
+	public CachedAtlas read(String name, String key) throws IOException {
+		Path path = getPath(name, key);
+
+		if (!Files.exists(path)) {
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = readFully(channel, HEADER_SIZE);
+
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Not a cached atlas, or from a different version: " + path);
+			}
+
+			int width = header.getInt();
+			int height = header.getInt();
+			int levelCount = header.getInt();
+
+			if (width <= 0 || height <= 0 || levelCount <= 0 || levelCount > 32) {
+				throw new IOException("Invalid size " + width + "x" + height + " with " + levelCount + " levels: " + path);
+			}
+
+			long expectedSize = HEADER_SIZE;
+			for (int level = 0; level < levelCount; level++) {
+				expectedSize += (long) CachedAtlas.getLevelWidth(width, level) * CachedAtlas.getLevelHeight(height, level) * 4L;
+			}
+
+			if (channel.size() != expectedSize) {
+				throw new IOException("Expected " + expectedSize + " bytes, but got " + channel.size() + ": " + path);
+			}
+
+			int[][] levels = new int[levelCount][];
+			for (int level = 0; level < levelCount; level++) {
+				int pixelCount = CachedAtlas.getLevelWidth(width, level) * CachedAtlas.getLevelHeight(height, level);
+				levels[level] = new int[pixelCount];
+				readFully(channel, pixelCount * 4).asIntBuffer().get(levels[level]);
+			}
+
+			return new CachedAtlas(width, height, levels);
+		}
+	}
+
+	/**
+	 * Writes the entry with the given name and key, and removes any other entries with the same name.
+	 */
+	public void write(String name, String key, CachedAtlas atlas) throws IOException {
+		Files.createDirectories(directory);
+
+		// Written to a temporary file first, so that an interrupted write never leaves a truncated entry behind
+		Path temporaryPath = Files.createTempFile(directory, getFileName(name, key), ".tmp");
+
+		try {
+			try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(MAGIC).putInt(VERSION).putInt(atlas.getWidth()).putInt(atlas.getHeight()).putInt(atlas.getMipLevel() + 1);
+				header.flip();
+				writeFully(channel, header);
+
+				for (int level = 0; level <= atlas.getMipLevel(); level++) {
+					int[] pixels = atlas.getLevel(level);
+					ByteBuffer buffer = ByteBuffer.allocate(pixels.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+					buffer.asIntBuffer().put(pixels);
+					writeFully(channel, buffer);
+				}
+			}
+
+			Files.move(temporaryPath, getPath(name, key), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+
+		removeOtherEntries(name, key);
+	}
+
+	private void removeOtherEntries(String name, String key) throws IOException {
+		String prefix = sanitizeName(name) + "-";
+		String current = getFileName(name, key) + EXTENSION;
+
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+			for (Path entry : entries) {
+				String fileName = entry.getFileName().toString();
+
+				if (fileName.startsWith(prefix) && fileName.endsWith(EXTENSION) && !fileName.equals(current)) {
+					Files.deleteIfExists(entry);
+				}
+			}
+		}
+	}
+
+	private Path getPath(String name, String key) {
+		return directory.resolve(getFileName(name, key) + EXTENSION);
+	}
+
+	private static String getFileName(String name, String key) {
+		return sanitizeName(name) + "-" + key;
+	}
+
+	/**
+	 * Replaces anything but lowercase letters, digits, dots and underscores, so that names like resource locations
+	 * can be used as file names, and so that a name never contains the separator between the name and the key.
+	 */
+	private static String sanitizeName(String name) {
+		StringBuilder builder = new StringBuilder(name.length());
+
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean allowed = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '_';
+			builder.append(allowed ? c : '_');
+		}
+
+		return builder.toString();
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package net.coderbot.iris.texture.pbr.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Derives the cache key of a PBR atlas from everything that goes into it: the size of the atlas, the texture format,
+ * which decides how the mip levels are generated, and the position, image and animation of every sprite.
+ *
+ * <p>Each sprite is added with {@link #addSprite}, followed by {@link #addAnimation} and one {@link #addFrame} call
+ * for each frame of its animation.</p>
+ */
+public class AtlasCacheKey {
+	/**
+	 * Bump this whenever the way that PBR atlases are stitched changes, so that atlases cached before are not used.
+	 */
+	private static final int VERSION = 2;
+
+	private final CacheKeyBuilder builder = new CacheKeyBuilder();
+
+	public AtlasCacheKey(int atlasWidth, int atlasHeight, int mipLevel, @Nullable String formatName, @Nullable String formatVersion) {
+		builder.putInt(VERSION)
+				.putInt(atlasWidth)
+				.putInt(atlasHeight)
+				.putInt(mipLevel);
+
+		builder.putBoolean(formatName != null);
+		if (formatName != null) {
+			builder.putString(formatName).putString(String.valueOf(formatVersion));
+		}
+	}
+
+	public AtlasCacheKey addSprite(String name, int x, int y, int width, int height, byte[] data) {
+		builder.putString(name)
+				.putInt(x)
+				.putInt(y)
+				.putInt(width)
+				.putInt(height)
+				.putBytes(data);
+		return this;
+	}
+
+	public AtlasCacheKey addAnimation(int frameWidth, int frameHeight, int defaultFrameTime, boolean interpolatedFrames, int frameCount) {
+		builder.putInt(frameWidth)
+				.putInt(frameHeight)
+				.putInt(defaultFrameTime)
+				.putBoolean(interpolatedFrames)
+				.putInt(frameCount);
+		return this;
+	}
+
+	public AtlasCacheKey addFrame(int frameIndex, int frameTime) {
+		builder.putInt(frameIndex).putInt(frameTime);
+		return this;
+	}
+
+	/**
+	 * Returns the key. No more sprites can be added afterwards.
+	 */
+	public String build() {
+		return builder.build();
+	}
+}
@@ -0,0 +1,62 @@
+package net.coderbot.iris.texture.pbr.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Builds a key that identifies cached data by hashing everything that the data was created from. Every value is
+ * written with its length or a fixed size, so that different sequences of values can't produce the same input.
+ */
+public class CacheKeyBuilder {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+
+	public CacheKeyBuilder() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public CacheKeyBuilder putInt(int value) {
+		digest.update((byte) (value >>> 24));
+		digest.update((byte) (value >>> 16));
+		digest.update((byte) (value >>> 8));
+		digest.update((byte) value);
+		return this;
+	}
+
+	public CacheKeyBuilder putBoolean(boolean value) {
+		digest.update((byte) (value ? 1 : 0));
+		return this;
+	}
+
+	public CacheKeyBuilder putString(String value) {
+		return putBytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public CacheKeyBuilder putBytes(byte[] value) {
+		putInt(value.length);
+		digest.update(value);
+		return this;
+	}
+
+	/**
+	 * Returns the key as a lowercase hexadecimal string. The builder can't be used anymore afterwards.
+	 */
+	public String build() {
+		byte[] hash = digest.digest();
+		char[] chars = new char[hash.length * 2];
+
+		for (int i = 0; i < hash.length; i++) {
+			chars[i * 2] = HEX_DIGITS[(hash[i] >>> 4) & 0xF];
+			chars[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+		}
+
+		return new String(chars);
+	}
+}
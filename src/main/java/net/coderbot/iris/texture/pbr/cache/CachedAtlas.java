@@ -0,0 +1,50 @@
+package net.coderbot.iris.texture.pbr.cache;
+
+/**
+ * The pixels of every mip level of an atlas, in the same packed format as
+ * {@link com.mojang.blaze3d.platform.NativeImage#getPixelRGBA}. Level {@code i} is {@code width >> i} pixels wide and
+ * {@code height >> i} pixels high.
+ */
+public class CachedAtlas {
+	private final int width;
+	private final int height;
+	private final int[][] levels;
+
+	public CachedAtlas(int width, int height, int[][] levels) {
+		for (int level = 0; level < levels.length; level++) {
+			int expected = getLevelWidth(width, level) * getLevelHeight(height, level);
+
+			if (levels[level].length != expected) {
+				throw new IllegalArgumentException("Mip level " + level + " has " + levels[level].length + " pixels, but should have " + expected);
+			}
+		}
+
+		this.width = width;
+		this.height = height;
+		this.levels = levels;
+	}
+
+	public static int getLevelWidth(int width, int level) {
+		return width >> level;
+	}
+
+	public static int getLevelHeight(int height, int level) {
+		return height >> level;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getMipLevel() {
+		return levels.length - 1;
+	}
+
+	public int[] getLevel(int level) {
+		return levels[level];
+	}
+}
@@ -17,7 +17,13 @@ import net.coderbot.iris.texture.pbr.PBRAtlasTexture;
 import net.coderbot.iris.texture.pbr.PBRSpriteHolder;
 import net.coderbot.iris.texture.pbr.PBRType;
 import net.coderbot.iris.texture.pbr.TextureAtlasSpriteExtension;
+import net.coderbot.iris.texture.pbr.cache.AtlasCache;
+import net.coderbot.iris.texture.pbr.cache.AtlasCacheKey;
+import net.coderbot.iris.texture.pbr.cache.CachedAtlas;
 import net.coderbot.iris.texture.util.ImageManipulationUtil;
+import net.coderbot.iris.texture.util.OrderedParallelLoader;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.texture.MissingTextureAtlasSprite;
 import net.minecraft.client.renderer.texture.TextureAtlas;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
@@ -25,12 +31,21 @@ import net.minecraft.client.resources.metadata.animation.AnimationMetadataSectio
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
+import org.apache.commons.io.IOUtils;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
+	private static final String CACHE_DIRECTORY = "iris_cache/pbr_atlases";
+
 	public static final ChannelMipmapGenerator LINEAR_MIPMAP_GENERATOR = new ChannelMipmapGenerator(
 			LinearBlendFunction.INSTANCE,
 			LinearBlendFunction.INSTANCE,
@@ -40,67 +55,261 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 
 	@Override
 	public void load(TextureAtlas atlas, ResourceManager resourceManager, PBRTextureConsumer pbrTextureConsumer) {
+		PBRTextureUpload upload;
+		try {
+			upload = loadAsync(atlas, resourceManager, Util.backgroundExecutor()).join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+		upload.upload(pbrTextureConsumer);
+
+		Runnable deferredWork = upload.getDeferredWork();
+		if (deferredWork != null) {
+			deferredWork.run();
+		}
+	}
+
+	@Override
+	public CompletableFuture<PBRTextureUpload> loadAsync(TextureAtlas atlas, ResourceManager resourceManager, Executor executor) {
 		TextureInfo textureInfo = TextureInfoCache.INSTANCE.getInfo(atlas.getId());
 		int atlasWidth = textureInfo.getWidth();
 		int atlasHeight = textureInfo.getHeight();
-		int mipLevel = fetchAtlasMipLevel(atlas);
+		int mipLevel = textureInfo.getMipLevel();
+		AtlasCache cache = getCache();
 
-		PBRAtlasTexture normalAtlas = null;
-		PBRAtlasTexture specularAtlas = null;
+		List<TextureAtlasSprite> sprites = new ArrayList<>();
 		for (TextureAtlasSprite sprite : ((TextureAtlasAccessor) atlas).getTexturesByName().values()) {
 			if (!(sprite instanceof MissingTextureAtlasSprite)) {
-				TextureAtlasSprite normalSprite = createPBRSprite(sprite, resourceManager, atlas, atlasWidth, atlasHeight, mipLevel, PBRType.NORMAL);
-				TextureAtlasSprite specularSprite = createPBRSprite(sprite, resourceManager, atlas, atlasWidth, atlasHeight, mipLevel, PBRType.SPECULAR);
-				if (normalSprite != null) {
-					if (normalAtlas == null) {
-						normalAtlas = new PBRAtlasTexture(atlas, PBRType.NORMAL);
-					}
-					normalAtlas.addSprite(normalSprite);
-					PBRSpriteHolder pbrSpriteHolder = ((TextureAtlasSpriteExtension) sprite).getOrCreatePBRHolder();
-					pbrSpriteHolder.setNormalSprite(normalSprite);
+				sprites.add(sprite);
+			}
+		}
+
+		// Reading, decoding and scaling the images of each sprite is independent from the other sprites, and takes most
+		// of the time, so it is spread out over the worker threads. The sprites are then created and added to the atlases
+		// in the original order, which keeps the atlases the same regardless of which image finished decoding first.
+		if (cache == null) {
+			return OrderedParallelLoader.loadAsync(sprites.size() * 2, index -> {
+				TextureAtlasSprite sprite = sprites.get(index / 2);
+				PBRType pbrType = index % 2 == 0 ? PBRType.NORMAL : PBRType.SPECULAR;
+				return loadPBRImage(sprite, resourceManager, atlas, pbrType);
+			}, executor, PBRImage::close).thenApplyAsync(images -> createUpload(atlas, sprites, images, null, null, atlasWidth, atlasHeight, mipLevel), executor);
+		}
+
+		// The cache keys need the bytes of every image, so the images are read into memory first, and the cache can only
+		// be checked once all of them have been read. On a hit, only the animated sprites still need to be decoded, since
+		// they are uploaded on top of the cached atlas whenever their frame changes.
+		return OrderedParallelLoader.loadAsync(sprites.size() * 2, index -> {
+			TextureAtlasSprite sprite = sprites.get(index / 2);
+			PBRType pbrType = index % 2 == 0 ? PBRType.NORMAL : PBRType.SPECULAR;
+			return readPBRResource(sprite, resourceManager, atlas, pbrType);
+		}, executor).thenComposeAsync(resources -> {
+			CacheEntry normalEntry = lookUpCache(cache, atlas, sprites, resources, atlasWidth, atlasHeight, mipLevel, PBRType.NORMAL);
+			CacheEntry specularEntry = lookUpCache(cache, atlas, sprites, resources, atlasWidth, atlasHeight, mipLevel, PBRType.SPECULAR);
+
+			return OrderedParallelLoader.loadAsync(sprites.size() * 2, index -> {
+				PBRResource resource = resources.get(index);
+				CacheEntry entry = index % 2 == 0 ? normalEntry : specularEntry;
+				if (resource == null || (entry != null && entry.isHit() && !resource.isAnimated())) {
+					return null;
 				}
-				if (specularSprite != null) {
-					if (specularAtlas == null) {
-						specularAtlas = new PBRAtlasTexture(atlas, PBRType.SPECULAR);
-					}
-					specularAtlas.addSprite(specularSprite);
-					PBRSpriteHolder pbrSpriteHolder = ((TextureAtlasSpriteExtension) sprite).getOrCreatePBRHolder();
-					pbrSpriteHolder.setSpecularSprite(specularSprite);
+
+				PBRType pbrType = index % 2 == 0 ? PBRType.NORMAL : PBRType.SPECULAR;
+				return loadPBRImage(sprites.get(index / 2), resource, pbrType);
+			}, executor, PBRImage::close).thenApply(images -> createUpload(atlas, sprites, images, normalEntry, specularEntry, atlasWidth, atlasHeight, mipLevel));
+		}, executor);
+	}
+
+	/**
+	 * Creates the PBR sprites from the decoded images, and adds them to the PBR atlases. Sprites that aren't animated
+	 * are skipped if the atlas was found in the cache.
+	 */
+	protected AtlasUpload createUpload(TextureAtlas atlas, List<TextureAtlasSprite> sprites, List<PBRImage> images, @Nullable CacheEntry normalEntry, @Nullable CacheEntry specularEntry, int atlasWidth, int atlasHeight, int mipLevel) {
+		TextureAtlasSprite[] normalSprites = new TextureAtlasSprite[sprites.size()];
+		TextureAtlasSprite[] specularSprites = new TextureAtlasSprite[sprites.size()];
+		PBRAtlasTexture normalAtlas = normalEntry != null && normalEntry.isHit() ? new PBRAtlasTexture(atlas, PBRType.NORMAL) : null;
+		PBRAtlasTexture specularAtlas = specularEntry != null && specularEntry.isHit() ? new PBRAtlasTexture(atlas, PBRType.SPECULAR) : null;
+		for (int i = 0; i < sprites.size(); i++) {
+			TextureAtlasSprite sprite = sprites.get(i);
+			TextureAtlasSprite normalSprite = createPBRSprite(sprite, images.get(i * 2), atlas, atlasWidth, atlasHeight, mipLevel, PBRType.NORMAL);
+			TextureAtlasSprite specularSprite = createPBRSprite(sprite, images.get(i * 2 + 1), atlas, atlasWidth, atlasHeight, mipLevel, PBRType.SPECULAR);
+			if (normalSprite != null && normalEntry != null && normalEntry.isHit() && !normalSprite.isAnimation()) {
+				normalSprite.close();
+				normalSprite = null;
+			}
+			if (specularSprite != null && specularEntry != null && specularEntry.isHit() && !specularSprite.isAnimation()) {
+				specularSprite.close();
+				specularSprite = null;
+			}
+			if (normalSprite != null) {
+				if (normalAtlas == null) {
+					normalAtlas = new PBRAtlasTexture(atlas, PBRType.NORMAL);
 				}
+				normalAtlas.addSprite(normalSprite, sprite);
+				normalSprites[i] = normalSprite;
+			}
+			if (specularSprite != null) {
+				if (specularAtlas == null) {
+					specularAtlas = new PBRAtlasTexture(atlas, PBRType.SPECULAR);
+				}
+				specularAtlas.addSprite(specularSprite, sprite);
+				specularSprites[i] = specularSprite;
 			}
 		}
 
-		if (normalAtlas != null) {
-			if (normalAtlas.tryUpload(atlasWidth, atlasHeight, mipLevel)) {
-				pbrTextureConsumer.acceptNormalTexture(normalAtlas);
-			}
+		return new AtlasUpload(sprites, normalSprites, specularSprites, normalAtlas, specularAtlas, normalEntry, specularEntry, atlasWidth, atlasHeight, mipLevel);
+	}
+
+	@Nullable
+	protected static AtlasCache getCache() {
+		if (!Iris.getIrisConfig().isPBRAtlasCacheEnabled()) {
+			return null;
 		}
-		if (specularAtlas != null) {
-			if (specularAtlas.tryUpload(atlasWidth, atlasHeight, mipLevel)) {
-				pbrTextureConsumer.acceptSpecularTexture(specularAtlas);
+		return new AtlasCache(Minecraft.getInstance().gameDirectory.toPath().resolve(CACHE_DIRECTORY));
+	}
+
+	/**
+	 * Reads the bytes and the animation metadata of the PBR image of the given type for the given sprite. This doesn't
+	 * touch any GL or atlas state, so it may be called from any thread.
+	 *
+	 * @return the resource, or null if the sprite has no PBR image of the given type or it couldn't be read
+	 */
+	@Nullable
+	protected PBRResource readPBRResource(TextureAtlasSprite sprite, ResourceManager resourceManager, TextureAtlas atlas, PBRType pbrType) {
+		ResourceLocation pbrImageLocation = getPBRImageLocation(sprite, atlas, pbrType);
+
+		try (Resource resource = resourceManager.getResource(pbrImageLocation)) {
+			byte[] data = IOUtils.toByteArray(resource.getInputStream());
+			AnimationMetadataSection animationMetadata = resource.getMetadata(AnimationMetadataSection.SERIALIZER);
+			if (animationMetadata == null) {
+				animationMetadata = AnimationMetadataSection.EMPTY;
 			}
+			return new PBRResource(pbrImageLocation, data, animationMetadata);
+		} catch (FileNotFoundException e) {
+			//
+		} catch (RuntimeException e) {
+			Iris.logger.error("Unable to parse metadata from {} : {}", pbrImageLocation, e);
+		} catch (IOException e) {
+			Iris.logger.error("Unable to load {} : {}", pbrImageLocation, e);
 		}
+
+		return null;
 	}
 
-	protected static int fetchAtlasMipLevel(TextureAtlas atlas) {
-		TextureAtlasSprite missingSprite = atlas.getSprite(MissingTextureAtlasSprite.getLocation());
-		return ((TextureAtlasSpriteAccessor) missingSprite).getMainImage().length - 1;
+	protected static ResourceLocation getPBRImageLocation(TextureAtlasSprite sprite, TextureAtlas atlas, PBRType pbrType) {
+		ResourceLocation imageLocation = ((TextureAtlasAccessor) atlas).callGetResourceLocation(sprite.getName());
+		return pbrType.appendToFileLocation(imageLocation);
 	}
 
+	/**
+	 * Derives the cache key of the PBR atlas of the given type from everything that goes into it, and reads the cached
+	 * atlas with that key if there is one.
+	 *
+	 * @return the entry, or null if the cache is disabled
+	 */
 	@Nullable
-	protected TextureAtlasSprite createPBRSprite(TextureAtlasSprite sprite, ResourceManager resourceManager, TextureAtlas atlas, int atlasWidth, int atlasHeight, int mipLevel, PBRType pbrType) {
-		ResourceLocation spriteName = sprite.getName();
-		ResourceLocation imageLocation = ((TextureAtlasAccessor) atlas).callGetResourceLocation(spriteName);
-		ResourceLocation pbrImageLocation = pbrType.appendToFileLocation(imageLocation);
+	protected CacheEntry lookUpCache(@Nullable AtlasCache cache, TextureAtlas atlas, List<TextureAtlasSprite> sprites, List<PBRResource> resources, int atlasWidth, int atlasHeight, int mipLevel, PBRType pbrType) {
+		if (cache == null) {
+			return null;
+		}
+
+		// The texture format decides how the mip levels are generated
+		TextureFormat format = TextureFormatLoader.getFormat();
+		AtlasCacheKey cacheKey = format != null
+				? new AtlasCacheKey(atlasWidth, atlasHeight, mipLevel, format.getName(), format.getVersion())
+				: new AtlasCacheKey(atlasWidth, atlasHeight, mipLevel, null, null);
+
+		for (int i = 0; i < sprites.size(); i++) {
+			PBRResource resource = resources.get(pbrType == PBRType.NORMAL ? i * 2 : i * 2 + 1);
+			if (resource == null) {
+				continue;
+			}
+
+			TextureAtlasSprite sprite = sprites.get(i);
+			TextureAtlasSpriteAccessor spriteAccessor = (TextureAtlasSpriteAccessor) sprite;
+			cacheKey.addSprite(sprite.getName().toString(), spriteAccessor.getX(), spriteAccessor.getY(), sprite.getWidth(), sprite.getHeight(), resource.data);
+
+			AnimationMetadataSection animationMetadata = resource.animationMetadata;
+			AnimationMetadataSectionAccessor animationAccessor = (AnimationMetadataSectionAccessor) animationMetadata;
+			cacheKey.addAnimation(animationAccessor.getFrameWidth(), animationAccessor.getFrameHeight(), animationMetadata.getDefaultFrameTime(), animationMetadata.isInterpolatedFrames(), animationMetadata.getFrameCount());
+			for (int frame = 0; frame < animationMetadata.getFrameCount(); frame++) {
+				cacheKey.addFrame(animationMetadata.getFrameIndex(frame), animationMetadata.getFrameTime(frame));
+			}
+		}
+
+		String name = pbrType.appendToFileLocation(atlas.location()).toString();
+		String key = cacheKey.build();
 
-		TextureAtlasSprite pbrSprite = null;
+		CachedAtlas cachedAtlas = null;
+		try {
+			cachedAtlas = cache.read(name, key);
+			if (cachedAtlas != null && (cachedAtlas.getWidth() != atlasWidth || cachedAtlas.getHeight() != atlasHeight || cachedAtlas.getMipLevel() != mipLevel)) {
+				cachedAtlas = null;
+			}
+		} catch (IOException e) {
+			Iris.logger.warn("Unable to read cached PBR atlas {} : {}", name, e);
+		}
+
+		return new CacheEntry(cache, name, key, cachedAtlas);
+	}
+
+	/**
+	 * Reads, decodes and scales the PBR image of the given type for the given sprite in a single pass, without keeping
+	 * the bytes of the image around. This doesn't touch any GL or atlas state, so it may be called from any thread.
+	 *
+	 * @return the image, or null if the sprite has no PBR image of the given type or it couldn't be loaded
+	 */
+	@Nullable
+	protected PBRImage loadPBRImage(TextureAtlasSprite sprite, ResourceManager resourceManager, TextureAtlas atlas, PBRType pbrType) {
+		ResourceLocation pbrImageLocation = getPBRImageLocation(sprite, atlas, pbrType);
+
+		NativeImage nativeImage;
+		AnimationMetadataSection animationMetadata;
 		try (Resource resource = resourceManager.getResource(pbrImageLocation)) {
-			NativeImage nativeImage = NativeImage.read(resource.getInputStream());
-			AnimationMetadataSection animationMetadata = resource.getMetadata(AnimationMetadataSection.SERIALIZER);
+			animationMetadata = resource.getMetadata(AnimationMetadataSection.SERIALIZER);
 			if (animationMetadata == null) {
 				animationMetadata = AnimationMetadataSection.EMPTY;
 			}
+			nativeImage = NativeImage.read(resource.getInputStream());
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (RuntimeException e) {
+			Iris.logger.error("Unable to parse metadata from {} : {}", pbrImageLocation, e);
+			return null;
+		} catch (IOException e) {
+			Iris.logger.error("Unable to load {} : {}", pbrImageLocation, e);
+			return null;
+		}
+
+		return createPBRImage(sprite, pbrImageLocation, nativeImage, animationMetadata);
+	}
+
+	/**
+	 * Decodes and scales the PBR image of the given type for the given sprite from bytes that have already been read.
+	 * This doesn't touch any GL or atlas state, so it may be called from any thread.
+	 *
+	 * @return the image, or null if it couldn't be loaded
+	 */
+	@Nullable
+	protected PBRImage loadPBRImage(TextureAtlasSprite sprite, PBRResource resource, PBRType pbrType) {
+		NativeImage nativeImage;
+		try {
+			nativeImage = NativeImage.read(new ByteArrayInputStream(resource.data));
+		} catch (IOException e) {
+			Iris.logger.error("Unable to load {} : {}", resource.location, e);
+			return null;
+		}
 
+		return createPBRImage(sprite, resource.location, nativeImage, resource.animationMetadata);
+	}
+
+	/**
+	 * Scales a decoded PBR image to the size of the given sprite. The image is closed if this fails.
+	 *
+	 * @return the image, or null if its animation metadata doesn't fit the image
+	 */
+	@Nullable
+	protected PBRImage createPBRImage(TextureAtlasSprite sprite, ResourceLocation location, NativeImage nativeImage, AnimationMetadataSection animationMetadata) {
+		try {
 			Pair<Integer, Integer> frameSize = animationMetadata.getFrameSize(nativeImage.getWidth(), nativeImage.getHeight());
 			int frameWidth = frameSize.getFirst();
 			int frameHeight = frameSize.getSecond();
@@ -140,19 +349,33 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 				}
 			}
 
-			ResourceLocation pbrSpriteName = new ResourceLocation(spriteName.getNamespace(), spriteName.getPath() + pbrType.getSuffix());
-			TextureAtlasSprite.Info pbrSpriteInfo = new PBRTextureAtlasSpriteInfo(pbrSpriteName, frameWidth, frameHeight, animationMetadata, pbrType);
+			return new PBRImage(nativeImage, frameWidth, frameHeight, animationMetadata);
+		} catch (RuntimeException e) {
+			nativeImage.close();
+			Iris.logger.error("Unable to parse metadata from {} : {}", location, e);
+			return null;
+		}
+	}
 
-			int x = ((TextureAtlasSpriteAccessor) sprite).getX();
-			int y = ((TextureAtlasSpriteAccessor) sprite).getY();
-			pbrSprite = new PBRTextureAtlasSprite(atlas, pbrSpriteInfo, mipLevel, atlasWidth, atlasHeight, x, y, nativeImage);
-			syncAnimation(sprite, pbrSprite);
-		} catch (FileNotFoundException e) {
-			//
+	@Nullable
+	protected TextureAtlasSprite createPBRSprite(TextureAtlasSprite sprite, @Nullable PBRImage pbrImage, TextureAtlas atlas, int atlasWidth, int atlasHeight, int mipLevel, PBRType pbrType) {
+		if (pbrImage == null) {
+			return null;
+		}
+
+		ResourceLocation spriteName = sprite.getName();
+		ResourceLocation pbrSpriteName = new ResourceLocation(spriteName.getNamespace(), spriteName.getPath() + pbrType.getSuffix());
+		TextureAtlasSprite.Info pbrSpriteInfo = new PBRTextureAtlasSpriteInfo(pbrSpriteName, pbrImage.frameWidth, pbrImage.frameHeight, pbrImage.animationMetadata, pbrType);
+
+		int x = ((TextureAtlasSpriteAccessor) sprite).getX();
+		int y = ((TextureAtlasSpriteAccessor) sprite).getY();
+		TextureAtlasSprite pbrSprite;
+		try {
+			pbrSprite = new PBRTextureAtlasSprite(atlas, pbrSpriteInfo, mipLevel, atlasWidth, atlasHeight, x, y, pbrImage.nativeImage);
 		} catch (RuntimeException e) {
-			Iris.logger.error("Unable to parse metadata from {} : {}", pbrImageLocation, e);
-		} catch (IOException e) {
-			Iris.logger.error("Unable to load {} : {}", pbrImageLocation, e);
+			pbrImage.nativeImage.close();
+			Iris.logger.error("Unable to create PBR sprite {} : {}", pbrSpriteName, e);
+			return null;
 		}
 
 		return pbrSprite;
@@ -196,6 +419,186 @@ public class AtlasPBRLoader implements PBRTextureLoader<TextureAtlas> {
 		targetAccessor.setSubFrame(ticks + sourceAccessor.getSubFrame());
 	}
 
+	/**
+	 * The PBR sprites and atlases created for an atlas in the background, which are synced with the animations of the
+	 * original sprites and uploaded on the render thread.
+	 */
+	protected class AtlasUpload implements PBRTextureUpload {
+		protected final List<TextureAtlasSprite> sprites;
+		protected final TextureAtlasSprite[] normalSprites;
+		protected final TextureAtlasSprite[] specularSprites;
+		@Nullable
+		protected final PBRAtlasTexture normalAtlas;
+		@Nullable
+		protected final PBRAtlasTexture specularAtlas;
+		@Nullable
+		protected final CacheEntry normalEntry;
+		@Nullable
+		protected final CacheEntry specularEntry;
+		protected final int atlasWidth;
+		protected final int atlasHeight;
+		protected final int mipLevel;
+		protected boolean storeNormalAtlas;
+		protected boolean storeSpecularAtlas;
+
+		public AtlasUpload(List<TextureAtlasSprite> sprites, TextureAtlasSprite[] normalSprites, TextureAtlasSprite[] specularSprites, @Nullable PBRAtlasTexture normalAtlas, @Nullable PBRAtlasTexture specularAtlas, @Nullable CacheEntry normalEntry, @Nullable CacheEntry specularEntry, int atlasWidth, int atlasHeight, int mipLevel) {
+			this.sprites = sprites;
+			this.normalSprites = normalSprites;
+			this.specularSprites = specularSprites;
+			this.normalAtlas = normalAtlas;
+			this.specularAtlas = specularAtlas;
+			this.normalEntry = normalEntry;
+			this.specularEntry = specularEntry;
+			this.atlasWidth = atlasWidth;
+			this.atlasHeight = atlasHeight;
+			this.mipLevel = mipLevel;
+		}
+
+		@Override
+		public void upload(PBRTextureConsumer pbrTextureConsumer) {
+			for (int i = 0; i < sprites.size(); i++) {
+				TextureAtlasSprite sprite = sprites.get(i);
+				TextureAtlasSprite normalSprite = normalSprites[i];
+				TextureAtlasSprite specularSprite = specularSprites[i];
+				if (normalSprite != null) {
+					syncAnimation(sprite, normalSprite);
+					PBRSpriteHolder pbrSpriteHolder = ((TextureAtlasSpriteExtension) sprite).getOrCreatePBRHolder();
+					pbrSpriteHolder.setNormalSprite(normalSprite);
+				}
+				if (specularSprite != null) {
+					syncAnimation(sprite, specularSprite);
+					PBRSpriteHolder pbrSpriteHolder = ((TextureAtlasSpriteExtension) sprite).getOrCreatePBRHolder();
+					pbrSpriteHolder.setSpecularSprite(specularSprite);
+				}
+			}
+
+			if (normalAtlas != null) {
+				if (tryUpload(normalAtlas, normalEntry)) {
+					pbrTextureConsumer.acceptNormalTexture(normalAtlas);
+					storeNormalAtlas = normalEntry != null && !normalEntry.isHit();
+				}
+			}
+			if (specularAtlas != null) {
+				if (tryUpload(specularAtlas, specularEntry)) {
+					pbrTextureConsumer.acceptSpecularTexture(specularAtlas);
+					storeSpecularAtlas = specularEntry != null && !specularEntry.isHit();
+				}
+			}
+		}
+
+		protected boolean tryUpload(PBRAtlasTexture pbrAtlas, @Nullable CacheEntry entry) {
+			CachedAtlas cachedAtlas = entry != null ? entry.cachedAtlas : null;
+			return pbrAtlas.tryUpload(atlasWidth, atlasHeight, mipLevel, cachedAtlas);
+		}
+
+		/**
+		 * Atlases that weren't found in the cache are read back from the GPU to store them. Reading them back waits for
+		 * the GPU to finish uploading them, so this is left until a later frame.
+		 */
+		@Override
+		@Nullable
+		public Runnable getDeferredWork() {
+			if (!storeNormalAtlas && !storeSpecularAtlas) {
+				return null;
+			}
+
+			return () -> {
+				if (storeNormalAtlas) {
+					normalEntry.store(normalAtlas.download(atlasWidth, atlasHeight, mipLevel));
+				}
+				if (storeSpecularAtlas) {
+					specularEntry.store(specularAtlas.download(atlasWidth, atlasHeight, mipLevel));
+				}
+			};
+		}
+
+		@Override
+		public void discard() {
+			for (TextureAtlasSprite sprite : normalSprites) {
+				if (sprite != null) {
+					sprite.close();
+				}
+			}
+			for (TextureAtlasSprite sprite : specularSprites) {
+				if (sprite != null) {
+					sprite.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The cache entry of a PBR atlas, which was either found in the cache, or is stored once the atlas has been stitched.
+	 */
+	protected static class CacheEntry {
+		protected final AtlasCache cache;
+		protected final String name;
+		protected final String key;
+		@Nullable
+		protected final CachedAtlas cachedAtlas;
+
+		public CacheEntry(AtlasCache cache, String name, String key, @Nullable CachedAtlas cachedAtlas) {
+			this.cache = cache;
+			this.name = name;
+			this.key = key;
+			this.cachedAtlas = cachedAtlas;
+		}
+
+		public boolean isHit() {
+			return cachedAtlas != null;
+		}
+
+		public void store(CachedAtlas atlas) {
+			Util.ioPool().execute(() -> {
+				try {
+					cache.write(name, key, atlas);
+				} catch (IOException e) {
+					Iris.logger.warn("Unable to write cached PBR atlas {} : {}", name, e);
+				}
+			});
+		}
+	}
+
+	/**
+	 * The bytes and the animation metadata of a PBR image, which are read before deciding whether it needs to be decoded.
+	 */
+	protected static class PBRResource {
+		protected final ResourceLocation location;
+		protected final byte[] data;
+		protected final AnimationMetadataSection animationMetadata;
+
+		public PBRResource(ResourceLocation location, byte[] data, AnimationMetadataSection animationMetadata) {
+			this.location = location;
+			this.data = data;
+			this.animationMetadata = animationMetadata;
+		}
+
+		public boolean isAnimated() {
+			return animationMetadata != AnimationMetadataSection.EMPTY;
+		}
+	}
+
+	/**
+	 * A decoded PBR image, along with the frame size and animation of the sprite that will be created from it.
+	 */
+	protected static class PBRImage {
+		protected final NativeImage nativeImage;
+		protected final int frameWidth;
+		protected final int frameHeight;
+		protected final AnimationMetadataSection animationMetadata;
+
+		public PBRImage(NativeImage nativeImage, int frameWidth, int frameHeight, AnimationMetadataSection animationMetadata) {
+			this.nativeImage = nativeImage;
+			this.frameWidth = frameWidth;
+			this.frameHeight = frameHeight;
+			this.animationMetadata = animationMetadata;
+		}
+
+		public void close() {
+			nativeImage.close();
+		}
+	}
+
 	protected static class PBRTextureAtlasSpriteInfo extends TextureAtlasSprite.Info {
 		protected final PBRType pbrType;
 
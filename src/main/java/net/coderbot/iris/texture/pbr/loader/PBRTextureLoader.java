@@ -3,8 +3,12 @@ package net.coderbot.iris.texture.pbr.loader;
 import net.minecraft.client.renderer.texture.AbstractTexture;
 import net.minecraft.server.packs.resources.ResourceManager;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL11;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public interface PBRTextureLoader<T extends AbstractTexture> {
 	/**
 	 * This method must not modify global GL state except the texture binding for {@link GL11.GL_TEXTURE_2D}.
@@ -15,9 +19,52 @@ public interface PBRTextureLoader<T extends AbstractTexture> {
 	 */
 	void load(T texture, ResourceManager resourceManager, PBRTextureConsumer pbrTextureConsumer);
 
+	/**
+	 * Starts loading the PBR textures of the given texture in the background. This method is called on the render
+	 * thread, but the work that doesn't need GL, such as reading and decoding images, should be done on the executor.
+	 * The returned upload is then run on the render thread once it is ready.
+	 *
+	 * <p>By default, all of the work is done in the upload, for loaders that can't load in the background.</p>
+	 *
+	 * @param texture The base texture.
+	 * @param resourceManager The resource manager.
+	 * @param executor The executor to run background work on.
+	 */
+	default CompletableFuture<PBRTextureUpload> loadAsync(T texture, ResourceManager resourceManager, Executor executor) {
+		return CompletableFuture.completedFuture(consumer -> load(texture, resourceManager, consumer));
+	}
+
 	interface PBRTextureConsumer {
 		void acceptNormalTexture(@NotNull AbstractTexture texture);
 
 		void acceptSpecularTexture(@NotNull AbstractTexture texture);
 	}
+
+	interface PBRTextureUpload {
+		/**
+		 * Uploads the loaded PBR textures. This has the same restrictions on GL state as
+		 * {@link PBRTextureLoader#load}.
+		 *
+		 * @param pbrTextureConsumer The consumer that accepts resulting PBR textures.
+		 */
+		void upload(PBRTextureConsumer pbrTextureConsumer);
+
+		/**
+		 * Frees the loaded data if the textures are no longer needed and won't be uploaded.
+		 */
+		default void discard() {
+		}
+
+		/**
+		 * Returns work to do on the render thread after the upload, which can be left until a later frame, such as
+		 * reading the uploaded textures back from the GPU. It is run outside of the per-frame upload budget, and is
+		 * dropped if the base texture is deleted first.
+		 *
+		 * @return the work, or null if there is none
+		 */
+		@Nullable
+		default Runnable getDeferredWork() {
+			return null;
+		}
+	}
 }
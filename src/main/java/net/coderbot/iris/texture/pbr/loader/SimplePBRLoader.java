@@ -9,6 +9,8 @@ import net.minecraft.server.packs.resources.ResourceManager;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class SimplePBRLoader implements PBRTextureLoader<SimpleTexture> {
 	@Override
@@ -26,6 +28,41 @@ public class SimplePBRLoader implements PBRTextureLoader<SimpleTexture> {
 		}
 	}
 
+	@Override
+	public CompletableFuture<PBRTextureUpload> loadAsync(SimpleTexture texture, ResourceManager resourceManager, Executor executor) {
+		ResourceLocation location = ((SimpleTextureAccessor) texture).getLocation();
+
+		return CompletableFuture.supplyAsync(() -> {
+			SimpleTexture.TextureImage normalImage = loadPBRImage(location, resourceManager, PBRType.NORMAL);
+			SimpleTexture.TextureImage specularImage = loadPBRImage(location, resourceManager, PBRType.SPECULAR);
+
+			return new PBRTextureUpload() {
+				@Override
+				public void upload(PBRTextureConsumer pbrTextureConsumer) {
+					AbstractTexture normalTexture = createPBRTexture(location, resourceManager, PBRType.NORMAL, normalImage);
+					AbstractTexture specularTexture = createPBRTexture(location, resourceManager, PBRType.SPECULAR, specularImage);
+
+					if (normalTexture != null) {
+						pbrTextureConsumer.acceptNormalTexture(normalTexture);
+					}
+					if (specularTexture != null) {
+						pbrTextureConsumer.acceptSpecularTexture(specularTexture);
+					}
+				}
+
+				@Override
+				public void discard() {
+					if (normalImage != null) {
+						normalImage.close();
+					}
+					if (specularImage != null) {
+						specularImage.close();
+					}
+				}
+			};
+		}, executor);
+	}
+
 	@Nullable
 	protected AbstractTexture createPBRTexture(ResourceLocation imageLocation, ResourceManager resourceManager, PBRType pbrType) {
 		ResourceLocation pbrImageLocation = pbrType.appendToFileLocation(imageLocation);
@@ -39,4 +76,60 @@ public class SimplePBRLoader implements PBRTextureLoader<SimpleTexture> {
 
 		return pbrTexture;
 	}
+
+	/**
+	 * Reads and decodes the PBR image of the given type. This doesn't touch any GL state, so it may be called from any
+	 * thread.
+	 *
+	 * @return the image, or null if there is no PBR image of the given type or it couldn't be loaded
+	 */
+	@Nullable
+	protected SimpleTexture.TextureImage loadPBRImage(ResourceLocation imageLocation, ResourceManager resourceManager, PBRType pbrType) {
+		ResourceLocation pbrImageLocation = pbrType.appendToFileLocation(imageLocation);
+
+		SimpleTexture.TextureImage image = SimpleTexture.TextureImage.load(resourceManager, pbrImageLocation);
+		try {
+			image.throwIfError();
+		} catch (IOException e) {
+			image.close();
+			return null;
+		}
+
+		return image;
+	}
+
+	@Nullable
+	protected AbstractTexture createPBRTexture(ResourceLocation imageLocation, ResourceManager resourceManager, PBRType pbrType, @Nullable SimpleTexture.TextureImage image) {
+		if (image == null) {
+			return null;
+		}
+
+		ResourceLocation pbrImageLocation = pbrType.appendToFileLocation(imageLocation);
+
+		SimpleTexture pbrTexture = new PreloadedSimpleTexture(pbrImageLocation, image);
+		try {
+			pbrTexture.load(resourceManager);
+		} catch (IOException e) {
+			return null;
+		}
+
+		return pbrTexture;
+	}
+
+	/**
+	 * A simple texture that uploads an image which has already been decoded, instead of reading it when it is loaded.
+	 */
+	protected static class PreloadedSimpleTexture extends SimpleTexture {
+		private final SimpleTexture.TextureImage image;
+
+		public PreloadedSimpleTexture(ResourceLocation location, SimpleTexture.TextureImage image) {
+			super(location);
+			this.image = image;
+		}
+
+		@Override
+		protected SimpleTexture.TextureImage getTextureImage(ResourceManager resourceManager) {
+			return image;
+		}
+	}
 }
@@ -1,121 +1,221 @@
 package net.coderbot.iris.texture.util;
 
 import com.mojang.blaze3d.platform.NativeImage;
-
+import net.coderbot.iris.texture.mipmap.ImageRows;
+import net.coderbot.iris.texture.mipmap.NativeImageRows;
+
+/**
+ * Scales images a row at a time through their pixel memory. The rows of large images are split up over several
+ * threads, and the row buffers are kept per thread, so that scaling the many sprites of an atlas doesn't allocate
+ * anything but the scaled images themselves.
+ */
 public class ImageManipulationUtil {
+	private static final ThreadLocal<ScratchBuffers> SCRATCH = ThreadLocal.withInitial(ScratchBuffers::new);
+
 	public static NativeImage scaleNearestNeighbor(NativeImage image, int newWidth, int newHeight) {
 		NativeImage scaled = new NativeImage(image.format(), newWidth, newHeight, false);
-		float xScale = (float) newWidth / image.getWidth();
-		float yScale = (float) newHeight / image.getHeight();
-		for (int y = 0; y < newHeight; ++y) {
-			for (int x = 0; x < newWidth; ++x) {
-				float unscaledX = (x + 0.5f) / xScale;
-				float unscaledY = (y + 0.5f) / yScale;
-				scaled.setPixelRGBA(x, y, image.getPixelRGBA((int) unscaledX, (int) unscaledY));
-			}
-		}
+		scaleNearestNeighbor(new NativeImageRows(image), image.getWidth(), image.getHeight(), new NativeImageRows(scaled), newWidth, newHeight);
 		return scaled;
 	}
 
 	public static NativeImage scaleBilinear(NativeImage image, int newWidth, int newHeight) {
 		NativeImage scaled = new NativeImage(image.format(), newWidth, newHeight, false);
-		float xScale = (float) newWidth / image.getWidth();
-		float yScale = (float) newHeight / image.getHeight();
-		for (int y = 0; y < newHeight; ++y) {
-			for (int x = 0; x < newWidth; ++x) {
-				float unscaledX = (x + 0.5f) / xScale;
+		scaleBilinear(new NativeImageRows(image), image.getWidth(), image.getHeight(), new NativeImageRows(scaled), newWidth, newHeight);
+		return scaled;
+	}
+
+	public static void scaleNearestNeighbor(ImageRows image, int width, int height, ImageRows scaled, int newWidth, int newHeight) {
+		float xScale = (float) newWidth / width;
+		float yScale = (float) newHeight / height;
+
+		int[] sourceX = new int[newWidth];
+		for (int x = 0; x < newWidth; ++x) {
+			float unscaledX = (x + 0.5f) / xScale;
+			sourceX[x] = (int) unscaledX;
+		}
+
+		ParallelRows.forEach(newWidth, newHeight, (startY, endY) -> {
+			ScratchBuffers scratch = SCRATCH.get();
+			int[] sourceRow = scratch.getInts(0, width);
+			int[] scaledRow = scratch.getInts(1, newWidth);
+			int lastSourceY = -1;
+
+			for (int y = startY; y < endY; ++y) {
 				float unscaledY = (y + 0.5f) / yScale;
+				int sourceY = (int) unscaledY;
+
+				// When scaling up, consecutive rows come from the same source row, so the scaled row can be reused
+				if (sourceY != lastSourceY) {
+					image.readRow(sourceY, sourceRow, width);
+					for (int x = 0; x < newWidth; ++x) {
+						scaledRow[x] = sourceRow[sourceX[x]];
+					}
+					lastSourceY = sourceY;
+				}
+
+				scaled.writeRow(y, scaledRow, newWidth);
+			}
+		});
+	}
+
+	/**
+	 * Scales an image with a bilinear filter. The filter is applied separably: each source row is first filtered
+	 * horizontally, and the filtered rows are then blended vertically. Each filtered row is shared by all of the scaled
+	 * rows that sample it.
+	 *
+	 * <p>Along the edges, where only one row or column is sampled, the result is the same as blending the four
+	 * surrounding pixels with the product of their weights. Elsewhere, the floating point operations are done in a
+	 * different order, so a channel may rarely be rounded differently, by at most one.</p>
+	 */
+	public static void scaleBilinear(ImageRows image, int width, int height, ImageRows scaled, int newWidth, int newHeight) {
+		float xScale = (float) newWidth / width;
+		float yScale = (float) newHeight / height;
+
+		// The two source columns of each scaled column and their weights. Along the edges, both columns are the same
+		// and the whole weight is on the first one.
+		int[] x0s = new int[newWidth];
+		int[] x1s = new int[newWidth];
+		float[] leftWeights = new float[newWidth];
+		float[] rightWeights = new float[newWidth];
+		boolean[] blendX = new boolean[newWidth];
+
+		for (int x = 0; x < newWidth; ++x) {
+			float unscaledX = (x + 0.5f) / xScale;
+			int x1 = Math.round(unscaledX);
+			int x0 = x1 - 1;
+
+			if (x0 >= 0 && x1 < width) {
+				x0s[x] = x0;
+				x1s[x] = x1;
+				leftWeights[x] = (x1 + 0.5f) - unscaledX;
+				rightWeights[x] = unscaledX - (x0 + 0.5f);
+				blendX[x] = true;
+			} else {
+				int validX = x0 >= 0 ? x0 : x1;
+				x0s[x] = validX;
+				x1s[x] = validX;
+			}
+		}
+
+		ParallelRows.forEach(newWidth, newHeight, (startY, endY) -> {
+			ScratchBuffers scratch = SCRATCH.get();
+			int[] sourceRow = scratch.getInts(0, width);
+			int[] scaledRow = scratch.getInts(1, newWidth);
+			float[] filteredRow0 = scratch.getFloats(0, newWidth * 4);
+			float[] filteredRow1 = scratch.getFloats(1, newWidth * 4);
+			int filteredY0 = -1;
+			int filteredY1 = -1;
 
-				int x1 = Math.round(unscaledX);
+			for (int y = startY; y < endY; ++y) {
+				float unscaledY = (y + 0.5f) / yScale;
 				int y1 = Math.round(unscaledY);
-				int x0 = x1 - 1;
 				int y0 = y1 - 1;
+				boolean blendY = y0 >= 0 && y1 < height;
 
-				boolean x0valid = true;
-				boolean y0valid = true;
-				boolean x1valid = true;
-				boolean y1valid = true;
-				if (x0 < 0) {
-					x0valid = false;
-				}
-				if (y0 < 0) {
-					y0valid = false;
+				if (!blendY) {
+					y0 = y0 >= 0 ? y0 : y1;
+					y1 = y0;
 				}
-				if (x1 >= image.getWidth()) {
-					x1valid = false;
+
+				// Reuse the filtered rows of the previous scaled row where possible
+				if (y0 == filteredY1 && y0 != filteredY0) {
+					float[] swap = filteredRow0;
+					filteredRow0 = filteredRow1;
+					filteredRow1 = swap;
+					filteredY0 = filteredY1;
+					filteredY1 = -1;
 				}
-				if (y1 >= image.getHeight()) {
-					y1valid = false;
+				if (y0 != filteredY0) {
+					image.readRow(y0, sourceRow, width);
+					filterRow(sourceRow, filteredRow0, x0s, x1s, leftWeights, rightWeights, blendX, newWidth);
+					filteredY0 = y0;
 				}
 
-				int finalColor = 0;
-				if (x0valid & y0valid & x1valid & y1valid) {
-					float leftWeight = (x1 + 0.5f) - unscaledX;
-					float rightWeight = unscaledX - (x0 + 0.5f);
-					float topWeight = (y1 + 0.5f) - unscaledY;
-					float bottomWeight = unscaledY - (y0 + 0.5f);
-
-					float weightTL = leftWeight * topWeight;
-					float weightTR = rightWeight * topWeight;
-					float weightBL = leftWeight * bottomWeight;
-					float weightBR = rightWeight * bottomWeight;
-
-					int colorTL = image.getPixelRGBA(x0, y0);
-					int colorTR = image.getPixelRGBA(x1, y0);
-					int colorBL = image.getPixelRGBA(x0, y1);
-					int colorBR = image.getPixelRGBA(x1, y1);
-
-					finalColor = blendColor(colorTL, colorTR, colorBL, colorBR, weightTL, weightTR, weightBL, weightBR);
-				} else if (x0valid & x1valid) {
-					float leftWeight = (x1 + 0.5f) - unscaledX;
-					float rightWeight = unscaledX - (x0 + 0.5f);
+				if (blendY) {
+					if (y1 != filteredY1) {
+						image.readRow(y1, sourceRow, width);
+						filterRow(sourceRow, filteredRow1, x0s, x1s, leftWeights, rightWeights, blendX, newWidth);
+						filteredY1 = y1;
+					}
 
-					int validY = y0valid ? y0 : y1;
-					int colorLeft = image.getPixelRGBA(x0, validY);
-					int colorRight = image.getPixelRGBA(x1, validY);
-
-					finalColor = blendColor(colorLeft, colorRight, leftWeight, rightWeight);
-				} else if (y0valid & y1valid) {
 					float topWeight = (y1 + 0.5f) - unscaledY;
 					float bottomWeight = unscaledY - (y0 + 0.5f);
 
-					int validX = x0valid ? x0 : x1;
-					int colorTop = image.getPixelRGBA(validX, y0);
-					int colorBottom = image.getPixelRGBA(validX, y1);
-
-					finalColor = blendColor(colorTop, colorBottom, topWeight, bottomWeight);
+					for (int x = 0; x < newWidth; ++x) {
+						int i = x * 4;
+						scaledRow[x] = combine(
+								Math.round(filteredRow0[i] * topWeight + filteredRow1[i] * bottomWeight),
+								Math.round(filteredRow0[i + 1] * topWeight + filteredRow1[i + 1] * bottomWeight),
+								Math.round(filteredRow0[i + 2] * topWeight + filteredRow1[i + 2] * bottomWeight),
+								Math.round(filteredRow0[i + 3] * topWeight + filteredRow1[i + 3] * bottomWeight)
+						);
+					}
 				} else {
-					finalColor = image.getPixelRGBA(x0valid ? x0 : x1, y0valid ? y0 : y1);
+					for (int x = 0; x < newWidth; ++x) {
+						int i = x * 4;
+						scaledRow[x] = combine(
+								Math.round(filteredRow0[i]),
+								Math.round(filteredRow0[i + 1]),
+								Math.round(filteredRow0[i + 2]),
+								Math.round(filteredRow0[i + 3])
+						);
+					}
 				}
-				scaled.setPixelRGBA(x, y, finalColor);
+
+				scaled.writeRow(y, scaledRow, newWidth);
 			}
-		}
-		return scaled;
+		});
 	}
 
-	private static int blendColor(int c0, int c1, int c2, int c3, float w0, float w1, float w2, float w3) {
-		return NativeImage.combine(
-				blendChannel(NativeImage.getA(c0), NativeImage.getA(c1), NativeImage.getA(c2), NativeImage.getA(c3), w0, w1, w2, w3),
-				blendChannel(NativeImage.getB(c0), NativeImage.getB(c1), NativeImage.getB(c2), NativeImage.getB(c3), w0, w1, w2, w3),
-				blendChannel(NativeImage.getG(c0), NativeImage.getG(c1), NativeImage.getG(c2), NativeImage.getG(c3), w0, w1, w2, w3),
-				blendChannel(NativeImage.getR(c0), NativeImage.getR(c1), NativeImage.getR(c2), NativeImage.getR(c3), w0, w1, w2, w3)
-		);
+	/**
+	 * Filters a source row horizontally into four floats per scaled column, in the order red, green, blue and alpha.
+	 */
+	private static void filterRow(int[] sourceRow, float[] filteredRow, int[] x0s, int[] x1s, float[] leftWeights, float[] rightWeights, boolean[] blendX, int newWidth) {
+		for (int x = 0; x < newWidth; ++x) {
+			int i = x * 4;
+			int c0 = sourceRow[x0s[x]];
+
+			if (blendX[x]) {
+				int c1 = sourceRow[x1s[x]];
+				float w0 = leftWeights[x];
+				float w1 = rightWeights[x];
+				filteredRow[i] = NativeImage.getR(c0) * w0 + NativeImage.getR(c1) * w1;
+				filteredRow[i + 1] = NativeImage.getG(c0) * w0 + NativeImage.getG(c1) * w1;
+				filteredRow[i + 2] = NativeImage.getB(c0) * w0 + NativeImage.getB(c1) * w1;
+				filteredRow[i + 3] = NativeImage.getA(c0) * w0 + NativeImage.getA(c1) * w1;
+			} else {
+				filteredRow[i] = NativeImage.getR(c0);
+				filteredRow[i + 1] = NativeImage.getG(c0);
+				filteredRow[i + 2] = NativeImage.getB(c0);
+				filteredRow[i + 3] = NativeImage.getA(c0);
+			}
+		}
 	}
 
-	private static int blendChannel(int v0, int v1, int v2, int v3, float w0, float w1, float w2, float w3) {
-		return Math.round(v0 * w0 + v1 * w1 + v2 * w2 + v3 * w3);
+	private static int combine(int r, int g, int b, int a) {
+		return NativeImage.combine(a, b, g, r);
 	}
 
-	private static int blendColor(int c0, int c1, float w0, float w1) {
-		return NativeImage.combine(
-				blendChannel(NativeImage.getA(c0), NativeImage.getA(c1), w0, w1),
-				blendChannel(NativeImage.getB(c0), NativeImage.getB(c1), w0, w1),
-				blendChannel(NativeImage.getG(c0), NativeImage.getG(c1), w0, w1),
-				blendChannel(NativeImage.getR(c0), NativeImage.getR(c1), w0, w1)
-		);
-	}
+	/**
+	 * Row buffers that are reused by every scaling operation on the same thread. A thread only ever runs one range of
+	 * rows at a time, since the ranges never wait on other tasks, so the buffers are never used by two ranges at once.
+	 */
+	private static class ScratchBuffers {
+		private final int[][] ints = new int[2][0];
+		private final float[][] floats = new float[2][0];
+
+		int[] getInts(int index, int size) {
+			if (ints[index].length < size) {
+				ints[index] = new int[size];
+			}
+			return ints[index];
+		}
 
-	private static int blendChannel(int v0, int v1, float w0, float w1) {
-		return Math.round(v0 * w0 + v1 * w1);
+		float[] getFloats(int index, int size) {
+			if (floats[index].length < size) {
+				floats[index] = new float[size];
+			}
+			return floats[index];
+		}
 	}
 }
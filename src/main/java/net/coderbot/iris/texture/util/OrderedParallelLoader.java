@@ -0,0 +1,111 @@
+package net.coderbot.iris.texture.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Runs independent loading tasks, such as reading and decoding images, on an executor, and collects their results in
+ * the order of the tasks rather than the order in which they finish. This keeps anything built from the results, such
+ * as the sprites of an atlas, the same from one reload to the next.
+ */
+public class OrderedParallelLoader {
+	/**
+	 * Runs the task for every index from 0 up to the given count, and waits for all of them to complete.
+	 *
+	 * <p>The task must be safe to call from several threads at once. If a task throws, the exception is rethrown after
+	 * all other tasks have completed, so that none of them are still running when this returns.</p>
+	 *
+	 * @return the results, where the result of the task for index {@code i} is at position {@code i}
+	 */
+	public static <T> List<T> load(int count, IntFunction<T> task, Executor executor) {
+		return load(count, task, executor, result -> {
+		});
+	}
+
+	/**
+	 * Like {@link #load(int, IntFunction, Executor)}, but if a task throws, the results of all tasks that completed are
+	 * passed to {@code discard} before the exception is rethrown, so that results holding resources aren't leaked.
+	 */
+	public static <T> List<T> load(int count, IntFunction<T> task, Executor executor, Consumer<? super T> discard) {
+		if (count <= 1) {
+			List<T> results = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+				results.add(task.apply(i));
+			}
+
+			return results;
+		}
+
+		try {
+			return loadAsync(count, task, executor, discard).join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
+	/**
+	 * Runs the task for every index from 0 up to the given count, without waiting for them to complete.
+	 *
+	 * <p>The task must be safe to call from several threads at once. If a task throws, the returned future completes
+	 * exceptionally with that exception once all other tasks have completed.</p>
+	 *
+	 * @return a future of the results, where the result of the task for index {@code i} is at position {@code i}
+	 */
+	public static <T> CompletableFuture<List<T>> loadAsync(int count, IntFunction<T> task, Executor executor) {
+		return loadAsync(count, task, executor, result -> {
+		});
+	}
+
+	/**
+	 * Like {@link #loadAsync(int, IntFunction, Executor)}, but if a task throws, the results of all tasks that completed
+	 * are passed to {@code discard} before the returned future completes exceptionally, so that results holding
+	 * resources aren't leaked.
+	 */
+	public static <T> CompletableFuture<List<T>> loadAsync(int count, IntFunction<T> task, Executor executor, Consumer<? super T> discard) {
+		List<CompletableFuture<T>> futures = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			int index = i;
+			futures.add(CompletableFuture.supplyAsync(() -> task.apply(index), executor));
+		}
+
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((unused, throwable) -> {
+			List<T> results = new ArrayList<>(count);
+			RuntimeException failure = null;
+
+			for (CompletableFuture<T> future : futures) {
+				try {
+					results.add(future.join());
+				} catch (CompletionException e) {
+					results.add(null);
+
+					if (failure == null) {
+						failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+					}
+				}
+			}
+
+			if (failure != null) {
+				for (T result : results) {
+					if (result != null) {
+						try {
+							discard.accept(result);
+						} catch (RuntimeException e) {
+							failure.addSuppressed(e);
+						}
+					}
+				}
+
+				throw failure;
+			}
+
+			return results;
+		});
+	}
+}
@@ -0,0 +1,69 @@
+package net.coderbot.iris.texture.util;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits up work on the rows of an image over several threads, if the image is large enough for that to pay off.
+ *
+ * <p>If this is called from a fork/join pool, which is the case when loading textures in the background, the rows
+ * are processed by the same pool. Otherwise, the common pool is used.</p>
+ */
+public class ParallelRows {
+	/**
+	 * The minimum number of pixels in an image before its rows are split up over several threads.
+	 */
+	private static final int PARALLEL_THRESHOLD = 256 * 256;
+	private static final int MIN_PIXELS_PER_TASK = PARALLEL_THRESHOLD / 4;
+
+	/**
+	 * Runs the action on ranges of rows that together cover every row of an image of the given size, and waits for all
+	 * of them to complete. The action must be safe to run on different ranges from several threads at once.
+	 */
+	public static void forEach(int width, int height, RowRangeAction action) {
+		if ((long) width * height < PARALLEL_THRESHOLD) {
+			action.run(0, height);
+		} else {
+			new RowRangeTask(action, width, 0, height).invoke();
+		}
+	}
+
+	@FunctionalInterface
+	public interface RowRangeAction {
+		/**
+		 * @param startY the first row, inclusive
+		 * @param endY the last row, exclusive
+		 */
+		void run(int startY, int endY);
+	}
+
+	private static class RowRangeTask extends RecursiveAction {
+		private final RowRangeAction action;
+		private final int width;
+		private final int startY;
+		private final int endY;
+
+		private RowRangeTask(RowRangeAction action, int width, int startY, int endY) {
+			this.action = action;
+			this.width = width;
+			this.startY = startY;
+			this.endY = endY;
+		}
+
+		@Override
+		protected void compute() {
+			int rows = endY - startY;
+
+			if (rows < 2 || (long) rows * width <= MIN_PIXELS_PER_TASK) {
+				action.run(startY, endY);
+				return;
+			}
+
+			int middleY = startY + rows / 2;
+			ForkJoinTask.invokeAll(
+					new RowRangeTask(action, width, startY, middleY),
+					new RowRangeTask(action, width, middleY, endY)
+			);
+		}
+	}
+}
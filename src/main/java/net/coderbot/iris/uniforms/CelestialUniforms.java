@@ -17,6 +17,7 @@ import static net.coderbot.iris.gl.uniform.UniformUpdateFrequency.PER_FRAME;
  */
 public final class CelestialUniforms {
 	private final float sunPathRotation;
+	private final net.coderbot.iris.vendored.joml.Matrix4f celestialScratch = new net.coderbot.iris.vendored.joml.Matrix4f();
 
 	public CelestialUniforms(float sunPathRotation) {
 		this.sunPathRotation = sunPathRotation;
@@ -65,25 +66,20 @@ public final class CelestialUniforms {
 	}
 
 	public Vector4f getShadowLightPositionInWorldSpace() {
-		return isDay() ? getCelestialPositionInWorldSpace(100.0F) : getCelestialPositionInWorldSpace(-100.0F);
+		return getShadowLightPositionInWorldSpace(new Vector4f());
 	}
 
-	private Vector4f getCelestialPositionInWorldSpace(float y) {
-		com.mojang.math.Vector4f position = new com.mojang.math.Vector4f(0.0F, y, 0.0F, 0.0F);
-
-		// TODO: Deduplicate / remove this function.
-		Matrix4f celestial = new Matrix4f();
-		celestial.setIdentity();
-
+	/**
+	 * Like {@link #getShadowLightPositionInWorldSpace()}, but writes into an existing vector instead of allocating.
+	 */
+	public Vector4f getShadowLightPositionInWorldSpace(Vector4f dest) {
 		// This is the same transformation applied by renderSky, however, it's been moved to here.
 		// This is because we need the result of it before it's actually performed in vanilla.
-		celestial.multiply(Vector3f.YP.rotationDegrees(-90.0F));
-		celestial.multiply(Vector3f.ZP.rotationDegrees(sunPathRotation));
-		celestial.multiply(Vector3f.XP.rotationDegrees(getSkyAngle() * 360.0F));
-
-		position.transform(celestial);
+		celestialScratch.rotationY((float) Math.toRadians(-90.0F));
+		celestialScratch.rotateZ((float) Math.toRadians(sunPathRotation));
+		celestialScratch.rotateX((float) Math.toRadians(getSkyAngle() * 360.0F));
 
-		return JomlConversions.toJoml(position);
+		return dest.set(0.0F, isDay() ? 100.0F : -100.0F, 0.0F, 0.0F).mul(celestialScratch);
 	}
 
 	private Vector4f getCelestialPosition(float y) {
@@ -0,0 +1,103 @@
+package net.coderbot.iris.uniforms;
+
+import net.coderbot.iris.gl.state.StateUpdateNotifiers;
+import net.coderbot.iris.gl.uniform.DynamicUniformHolder;
+import net.coderbot.iris.pipeline.ShadowRenderer;
+import net.coderbot.iris.shaderpack.PackDirectives;
+import net.coderbot.iris.shaderpack.PackShadowDirectives;
+import net.coderbot.iris.shadow.ShadowMatrices;
+import net.coderbot.iris.shadows.Matrix4fAccess;
+import net.coderbot.iris.shadows.ShadowCascades;
+import net.coderbot.iris.vendored.joml.Vector3d;
+import net.coderbot.iris.vendored.joml.Vector3f;
+
+import static net.coderbot.iris.gl.uniform.UniformUpdateFrequency.ONCE;
+import static net.coderbot.iris.gl.uniform.UniformUpdateFrequency.PER_FRAME;
+
+/**
+ * Uniforms describing cascaded shadow maps. These are only added if the shader pack enables cascades with
+ * shadowCascadeCount.
+ *
+ * <ul>
+ *     <li>shadowCascadeCount: the number of cascades</li>
+ *     <li>shadowCascadeIndex: the cascade currently being rendered in the shadow pass, or -1 outside of it</li>
+ *     <li>shadowCascadeModelViewN / shadowCascadeProjectionN: the matrices that cascade N was last rendered with</li>
+ *     <li>shadowCascadeAtlasN: the offset (xy) and scale (zw) of cascade N within the shadow map textures</li>
+ *     <li>shadowCascadeCameraOffsetN: the camera movement since cascade N was last rendered. Cascades that aren't
+ *     updated every frame must add this to camera-relative positions before applying the cascade model view matrix.</li>
+ * </ul>
+ */
+public final class ShadowCascadeUniforms {
+	private ShadowCascadeUniforms() {
+	}
+
+	public static void addShadowCascadeUniforms(DynamicUniformHolder uniforms, PackDirectives directives) {
+		PackShadowDirectives shadowDirectives = directives.getShadowDirectives();
+		int count = shadowDirectives.getCascadeCount();
+
+		if (count <= 1) {
+			return;
+		}
+
+		// Used for the layout and as a fallback for the matrices if the shadow pass hasn't rendered any cascades yet
+		ShadowCascades layout = new ShadowCascades(count, shadowDirectives.getCascadeUpdateInterval(),
+			shadowDirectives.getDistance(), shadowDirectives.getResolution());
+
+		uniforms.uniform1i(ONCE, "shadowCascadeCount", () -> count);
+		uniforms.uniform1i("shadowCascadeIndex", ShadowCascades::getCurrentCascade, StateUpdateNotifiers.shadowCascadeNotifier);
+
+		for (int i = 0; i < count; i++) {
+			final int cascade = i;
+
+			uniforms
+				.uniformMatrixFromArray(PER_FRAME, "shadowCascadeModelView" + cascade, () -> {
+					ShadowCascades cascades = getRenderedCascades(cascade);
+
+					if (cascades != null) {
+						return cascades.getModelView(cascade);
+					}
+
+					return ((Matrix4fAccess) (Object) ShadowRenderer.createShadowModelView(directives.getSunPathRotation(),
+						shadowDirectives.getIntervalSize()).last().pose()).copyIntoArray();
+				})
+				.uniformMatrixFromArray(PER_FRAME, "shadowCascadeProjection" + cascade, () -> {
+					ShadowCascades cascades = getRenderedCascades(cascade);
+
+					if (cascades != null) {
+						return cascades.getProjection(cascade);
+					}
+
+					return ShadowMatrices.createOrthoMatrix(layout.getHalfPlaneLength(cascade));
+				})
+				.uniform4f(ONCE, "shadowCascadeAtlas" + cascade, () -> layout.getAtlasTransform(cascade))
+				.uniform3f(PER_FRAME, "shadowCascadeCameraOffset" + cascade, () -> {
+					ShadowCascades cascades = getRenderedCascades(cascade);
+
+					if (cascades == null) {
+						return new Vector3f();
+					}
+
+					double[] renderedPosition = cascades.getCameraPosition(cascade);
+					Vector3d cameraPosition = CameraUniforms.getUnshiftedCameraPosition();
+
+					return new Vector3f((float) (cameraPosition.x - renderedPosition[0]),
+						(float) (cameraPosition.y - renderedPosition[1]),
+						(float) (cameraPosition.z - renderedPosition[2]));
+				});
+		}
+	}
+
+	private static ShadowCascades getRenderedCascades(int cascade) {
+		ShadowCascades cascades = ShadowRenderer.CASCADES;
+
+		if (cascades == null || cascade >= cascades.getCount() || !cascades.hasRendered(cascade)) {
+			return null;
+		}
+
+		return cascades;
+	}
+
+	static {
+		ShadowCascades.init();
+	}
+}
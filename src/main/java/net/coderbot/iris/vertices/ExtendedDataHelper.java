@@ -6,6 +6,12 @@ public final class ExtendedDataHelper {
 	/** All fluids have a ShadersMod render type of 1, to match behavior of Minecraft 1.7 and earlier. */
 	public static final short FLUID_RENDER_TYPE = 1;
 
+	/**
+	 * The compact terrain vertex format stores midTexCoord as unsigned shorts that are denormalized inside of the
+	 * shader. This must be a power of two so that texel boundaries in the atlas are represented exactly.
+	 */
+	public static final float MID_TEX_COORD_SCALE = 1.0f / 32768.0f;
+
 	public static int packMidBlock(float x, float y, float z) {
 		return ((int) (x * 64) & 0xFF) | (((int) (y * 64) & 0xFF) << 8) | (((int) (z * 64) & 0xFF) << 16);
 	}
@@ -17,4 +23,23 @@ public final class ExtendedDataHelper {
 				localPosZ + 0.5f - z
 		);
 	}
+
+	/**
+	 * Encodes a midTexCoord component as an unsigned short in units of {@link #MID_TEX_COORD_SCALE}. Unlike a
+	 * normalized short, this is exact for every atlas coordinate that lies on a multiple of 1/32768.
+	 */
+	public static short encodeMidTexCoord(float value) {
+		return (short) Math.round(Math.max(0.0f, Math.min(value, 65535.0f * MID_TEX_COORD_SCALE)) * 32768.0f);
+	}
+
+	/**
+	 * Performs the same denormalization as the patched terrain vertex shader.
+	 */
+	public static float decodeMidTexCoord(short encoded) {
+		return (encoded & 0xFFFF) * MID_TEX_COORD_SCALE;
+	}
+
+	public static int packMidTexCoord(float u, float v) {
+		return (encodeMidTexCoord(u) & 0xFFFF) | ((encodeMidTexCoord(v) & 0xFFFF) << 16);
+	}
 }
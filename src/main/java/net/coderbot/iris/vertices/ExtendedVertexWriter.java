@@ -0,0 +1,92 @@
+package net.coderbot.iris.vertices;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Writes entire vertices in the extended vertex formats at once, without any bounds checks. This mirrors the fast path
+ * of {@link com.mojang.blaze3d.vertex.BufferBuilder} for the vanilla formats, which can't be used as-is since it doesn't
+ * know about the extended vertex attributes.
+ *
+ * <p>The mid texture coordinate and tangent are written as zero, just like in the regular path. They are filled in for
+ * the entire polygon once its last vertex has been written.</p>
+ */
+public final class ExtendedVertexWriter {
+	/**
+	 * Writes a vertex in the {@link IrisVertexFormats#ENTITY} format.
+	 *
+	 * @return the number of bytes written, which is always the stride of the format
+	 */
+	public static int writeEntityVertex(long pointer, float x, float y, float z, float red, float green, float blue,
+										float alpha, float u, float v, int overlay, int light, float normalX,
+										float normalY, float normalZ) {
+		writeBase(pointer, x, y, z, red, green, blue, alpha, u, v);
+
+		// UV1 (overlay)
+		MemoryUtil.memPutShort(pointer + 24, (short) (overlay & 0xFFFF));
+		MemoryUtil.memPutShort(pointer + 26, (short) (overlay >> 16 & 0xFFFF));
+
+		writeLightAndNormal(pointer + 28, light, normalX, normalY, normalZ);
+
+		// MID_TEXTURE_ELEMENT
+		MemoryUtil.memPutFloat(pointer + 36, 0.0F);
+		MemoryUtil.memPutFloat(pointer + 40, 0.0F);
+		// TANGENT_ELEMENT
+		MemoryUtil.memPutInt(pointer + 44, 0);
+
+		return 48;
+	}
+
+	/**
+	 * Writes a vertex in the {@link IrisVertexFormats#TERRAIN} format.
+	 *
+	 * @return the number of bytes written, which is always the stride of the format
+	 */
+	public static int writeTerrainVertex(long pointer, float x, float y, float z, float red, float green, float blue,
+										 float alpha, float u, float v, int light, float normalX, float normalY,
+										 float normalZ, short block, short renderType, int midBlock) {
+		writeBase(pointer, x, y, z, red, green, blue, alpha, u, v);
+		writeLightAndNormal(pointer + 24, light, normalX, normalY, normalZ);
+
+		// ENTITY_ELEMENT
+		MemoryUtil.memPutShort(pointer + 32, block);
+		MemoryUtil.memPutShort(pointer + 34, renderType);
+		// MID_TEXTURE_ELEMENT
+		MemoryUtil.memPutFloat(pointer + 36, 0.0F);
+		MemoryUtil.memPutFloat(pointer + 40, 0.0F);
+		// TANGENT_ELEMENT
+		MemoryUtil.memPutInt(pointer + 44, 0);
+		// MID_BLOCK_ELEMENT
+		MemoryUtil.memPutInt(pointer + 48, midBlock);
+
+		return 52;
+	}
+
+	private static void writeBase(long pointer, float x, float y, float z, float red, float green, float blue,
+								  float alpha, float u, float v) {
+		MemoryUtil.memPutFloat(pointer, x);
+		MemoryUtil.memPutFloat(pointer + 4, y);
+		MemoryUtil.memPutFloat(pointer + 8, z);
+		MemoryUtil.memPutByte(pointer + 12, (byte) ((int) (red * 255.0F)));
+		MemoryUtil.memPutByte(pointer + 13, (byte) ((int) (green * 255.0F)));
+		MemoryUtil.memPutByte(pointer + 14, (byte) ((int) (blue * 255.0F)));
+		MemoryUtil.memPutByte(pointer + 15, (byte) ((int) (alpha * 255.0F)));
+		MemoryUtil.memPutFloat(pointer + 16, u);
+		MemoryUtil.memPutFloat(pointer + 20, v);
+	}
+
+	private static void writeLightAndNormal(long pointer, int light, float normalX, float normalY, float normalZ) {
+		MemoryUtil.memPutShort(pointer, (short) (light & 0xFFFF));
+		MemoryUtil.memPutShort(pointer + 2, (short) (light >> 16 & 0xFFFF));
+		MemoryUtil.memPutByte(pointer + 4, normalIntValue(normalX));
+		MemoryUtil.memPutByte(pointer + 5, normalIntValue(normalY));
+		MemoryUtil.memPutByte(pointer + 6, normalIntValue(normalZ));
+		MemoryUtil.memPutByte(pointer + 7, (byte) 0);
+	}
+
+	/**
+	 * Same as BufferVertexConsumer.normalIntValue, copied so that this class can be benchmarked without Minecraft.
+	 */
+	private static byte normalIntValue(float value) {
+		return (byte) ((int) (Math.max(-1.0F, Math.min(value, 1.0F)) * 127.0F) & 0xFF);
+	}
+}
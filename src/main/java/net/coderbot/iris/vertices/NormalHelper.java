@@ -53,6 +53,62 @@ public abstract class NormalHelper {
 		return ((byte) (packedNormal >> (8 * component))) / 127f;
 	}
 
+	/**
+	 * Stores a unit normal as an octahedral-mapped pair of signed bytes in the low 16 bits of the returned value.
+	 * The compact terrain vertex format uses this, and the patched terrain vertex shader decodes it with the
+	 * same math as {@link #unpackOctahedral(int, Vector3f)}. Axis-aligned normals round-trip exactly.
+	 */
+	public static int packOctahedral(float x, float y, float z) {
+		float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+
+		if (l1 == 0.0f) {
+			return 0;
+		}
+
+		float ox = x / l1;
+		float oy = y / l1;
+
+		if (z < 0.0f) {
+			float foldedX = (1.0f - Math.abs(oy)) * signNotZero(ox);
+			float foldedY = (1.0f - Math.abs(ox)) * signNotZero(oy);
+			ox = foldedX;
+			oy = foldedY;
+		}
+
+		int bx = Math.round(Mth.clamp(ox, -1, 1) * 127);
+		int by = Math.round(Mth.clamp(oy, -1, 1) * 127);
+
+		return (bx & 0xFF) | ((by & 0xFF) << 8);
+	}
+
+	/**
+	 * Version of {@link #packOctahedral(float, float, float)} that accepts a vector type.
+	 */
+	public static int packOctahedral(Vector3f normal) {
+		return packOctahedral(normal.x, normal.y, normal.z);
+	}
+
+	/**
+	 * Retrieves a normal packed by {@link #packOctahedral(float, float, float)} and saves it in the provided vector.
+	 */
+	public static void unpackOctahedral(int packed, @NotNull Vector3f saveTo) {
+		// Matches the OpenGL conversion rule for normalized signed bytes.
+		float ex = Math.max(((byte) packed) / 127f, -1.0f);
+		float ey = Math.max(((byte) (packed >> 8)) / 127f, -1.0f);
+
+		float x = ex;
+		float y = ey;
+		float z = 1.0f - Math.abs(ex) - Math.abs(ey);
+
+		if (z < 0.0f) {
+			x = (1.0f - Math.abs(ey)) * signNotZero(ex);
+			y = (1.0f - Math.abs(ex)) * signNotZero(ey);
+		}
+
+		float length = (float) Math.sqrt(x * x + y * y + z * z);
+		saveTo.set(x / length, y / length, z / length);
+	}
+
 	/**
 	 * Computes the face normal of the given quad and saves it in the provided non-null vector.
 	 *
@@ -239,6 +295,10 @@ public abstract class NormalHelper {
 		return packNormal(tangentx, tangenty, tangentz, tangentW);
 	}
 
+	private static float signNotZero(float value) {
+		return value >= 0.0f ? 1.0f : -1.0f;
+	}
+
 	private static float rsqrt(float value) {
 		if (value == 0.0f) {
 			// You heard it here first, folks: 1 divided by 0 equals 1
@@ -0,0 +1,8 @@
+package net.coderbot.iris.vertices;
+
+public interface SeparateAoBufferBuilder {
+	/**
+	 * @return the alpha to write for the next vertex, which is its ambient occlusion if it is stored separately
+	 */
+	float iris$applySeparateAo(float alpha);
+}
@@ -0,0 +1,86 @@
+package net.coderbot.iris.compat.sodium.impl.shadow_map;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import me.jellysquid.mods.sodium.client.render.chunk.ChunkGraphicsState;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderListIterator;
+import net.coderbot.iris.shadows.LightSortedChunkOrder;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.minecraft.core.BlockPos;
+
+/**
+ * A copy of one of Sodium's chunk render lists for the shadow pass, ordered along the direction of the shadow light
+ * instead of outwards from the player camera.
+ */
+public class LightSortedChunkRenderList<T extends ChunkGraphicsState> {
+	private final LightSortedChunkOrder order = new LightSortedChunkOrder();
+	private final ObjectArrayList<T> states = new ObjectArrayList<>();
+	private final IntArrayList visibleFaces = new IntArrayList();
+	private final SortedIterator iterator = new SortedIterator();
+
+	/**
+	 * Copies the chunks from the given render list, and sorts them front to back from the light. The order from the
+	 * previous call is reused as a starting point, so this is cheap if only a few chunks were added or removed.
+	 */
+	public void update(ChunkRenderList<T> list, Vector3f lightDirection, BlockPos origin) {
+		states.clear();
+		visibleFaces.clear();
+
+		order.begin(lightDirection.x(), lightDirection.y(), lightDirection.z(), origin.getX(), origin.getY(), origin.getZ());
+
+		ChunkRenderListIterator<T> chunks = list.iterator(false);
+
+		while (chunks.hasNext()) {
+			T state = chunks.getGraphicsState();
+
+			states.add(state);
+			visibleFaces.add(chunks.getVisibleFaces());
+			order.add(state.getX(), state.getY(), state.getZ());
+
+			chunks.advance();
+		}
+
+		order.sort();
+	}
+
+	/**
+	 * Returns an iterator over the chunks front to back from the light, or back to front if backwards is true. The
+	 * iterator is reused, so only one iterator per list may be in use at a time.
+	 */
+	public ChunkRenderListIterator<T> iterator(boolean backwards) {
+		iterator.reset(backwards);
+
+		return iterator;
+	}
+
+	private class SortedIterator implements ChunkRenderListIterator<T> {
+		private int position;
+		private int step;
+
+		private void reset(boolean backwards) {
+			this.position = backwards ? order.size() - 1 : 0;
+			this.step = backwards ? -1 : 1;
+		}
+
+		@Override
+		public T getGraphicsState() {
+			return states.get(order.get(position));
+		}
+
+		@Override
+		public int getVisibleFaces() {
+			return visibleFaces.getInt(order.get(position));
+		}
+
+		@Override
+		public boolean hasNext() {
+			return position >= 0 && position < order.size();
+		}
+
+		@Override
+		public void advance() {
+			position += step;
+		}
+	}
+}
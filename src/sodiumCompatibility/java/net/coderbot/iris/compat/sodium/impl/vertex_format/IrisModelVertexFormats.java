@@ -1,7 +1,19 @@
 package net.coderbot.iris.compat.sodium.impl.vertex_format;
 
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import net.coderbot.iris.block_rendering.BlockRenderingSettings;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.XHFPCompactModelVertexType;
 import net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.XHFPModelVertexType;
 
 public class IrisModelVertexFormats {
 	public static final XHFPModelVertexType MODEL_VERTEX_XHFP = new XHFPModelVertexType();
+	public static final XHFPCompactModelVertexType MODEL_VERTEX_XHFP_COMPACT = new XHFPCompactModelVertexType();
+
+	/**
+	 * Selects the extended terrain vertex format. This must agree with how SodiumTerrainPipeline patched the terrain
+	 * shaders, which is why both read the same setting.
+	 */
+	public static ChunkVertexType getExtendedTerrainVertexType() {
+		return BlockRenderingSettings.INSTANCE.shouldUseCompactVertexFormat() ? MODEL_VERTEX_XHFP_COMPACT : MODEL_VERTEX_XHFP;
+	}
 }
@@ -0,0 +1,115 @@
+package net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp;
+
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferWriterUnsafe;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexUtil;
+import net.coderbot.iris.compat.sodium.impl.block_context.BlockContextHolder;
+import net.coderbot.iris.compat.sodium.impl.block_context.ContextAwareVertexWriter;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisModelVertexFormats;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vertices.ExtendedDataHelper;
+import net.coderbot.iris.vertices.NormalHelper;
+import org.lwjgl.system.MemoryUtil;
+
+import static net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp.XHFPCompactModelVertexType.STRIDE;
+
+public class XHFPCompactModelVertexBufferWriterUnsafe extends VertexBufferWriterUnsafe implements ModelVertexSink, ContextAwareVertexWriter {
+	private final QuadViewTerrain.QuadViewTerrainUnsafe quad = new QuadViewTerrain.QuadViewTerrainUnsafe();
+	private final Vector3f normal = new Vector3f();
+
+	private BlockContextHolder contextHolder;
+
+	private int vertexCount;
+	private float uSum;
+	private float vSum;
+
+	public XHFPCompactModelVertexBufferWriterUnsafe(VertexBufferView backingBuffer) {
+		super(backingBuffer, IrisModelVertexFormats.MODEL_VERTEX_XHFP_COMPACT);
+	}
+
+	@Override
+	public void writeQuad(float x, float y, float z, int color, float u, float v, int light) {
+		uSum += u;
+		vSum += v;
+
+		this.writeQuadInternal(
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(x),
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(y),
+				ModelVertexUtil.denormalizeVertexPositionFloatAsShort(z),
+				color,
+				ModelVertexUtil.denormalizeVertexTextureFloatAsShort(u),
+				ModelVertexUtil.denormalizeVertexTextureFloatAsShort(v),
+				ModelVertexUtil.encodeLightMapTexCoord(light),
+				contextHolder.blockId,
+				contextHolder.renderType,
+				ExtendedDataHelper.computeMidBlock(x, y, z, contextHolder.localPosX, contextHolder.localPosY, contextHolder.localPosZ)
+		);
+	}
+
+	private void writeQuadInternal(short x, short y, short z, int color, short u, short v, int light, short materialId,
+								   short renderType, int packedMidBlock) {
+		long i = this.writePointer;
+
+		vertexCount++;
+		// NB: uSum and vSum must already be incremented outside of this function.
+
+		MemoryUtil.memPutShort(i, x);
+		MemoryUtil.memPutShort(i + 2, y);
+		MemoryUtil.memPutShort(i + 4, z);
+		MemoryUtil.memPutInt(i + 8, color);
+		MemoryUtil.memPutShort(i + 12, u);
+		MemoryUtil.memPutShort(i + 14, v);
+		MemoryUtil.memPutInt(i + 16, light);
+		// NB: We don't set the normal, midTexCoord, and tangent here, they will be filled in later.
+		// block ID: We only set the first 2 values, any legacy shaders using z or w will get filled in based on the GLSL spec
+		// https://www.khronos.org/opengl/wiki/Vertex_Specification#Vertex_format
+		MemoryUtil.memPutShort(i + 28, materialId);
+		MemoryUtil.memPutShort(i + 30, renderType);
+		MemoryUtil.memPutInt(i + 32, packedMidBlock);
+
+		if (vertexCount == 4) {
+			vertexCount = 0;
+
+			// midTexCoord uses the same power-of-two scale as the regular texture coordinates, and is divided by
+			// 32768 inside of the patched shader instead of being normalized by OpenGL. This keeps texel boundaries
+			// exact, which is what the float fallback in XHFPModelVertexType is working around.
+			int midTexCoord = ExtendedDataHelper.packMidTexCoord(uSum * 0.25f, vSum * 0.25f);
+
+			MemoryUtil.memPutInt(i + 20, midTexCoord);
+			MemoryUtil.memPutInt(i + 20 - STRIDE, midTexCoord);
+			MemoryUtil.memPutInt(i + 20 - STRIDE * 2, midTexCoord);
+			MemoryUtil.memPutInt(i + 20 - STRIDE * 3, midTexCoord);
+
+			uSum = 0;
+			vSum = 0;
+
+			// normal computation
+			// Implementation based on the algorithm found here:
+			// https://github.com/IrisShaders/ShaderDoc/blob/master/vertex-format-extensions.md#surface-normal-vector
+
+			quad.setup(i, STRIDE);
+			NormalHelper.computeFaceNormal(normal, quad);
+			short packedNormal = (short) NormalHelper.packOctahedral(normal);
+
+			MemoryUtil.memPutShort(i + 6, packedNormal);
+			MemoryUtil.memPutShort(i + 6 - STRIDE, packedNormal);
+			MemoryUtil.memPutShort(i + 6 - STRIDE * 2, packedNormal);
+			MemoryUtil.memPutShort(i + 6 - STRIDE * 3, packedNormal);
+
+			int tangent = NormalHelper.computeTangent(normal.x, normal.y, normal.z, quad);
+
+			MemoryUtil.memPutInt(i + 24, tangent);
+			MemoryUtil.memPutInt(i + 24 - STRIDE, tangent);
+			MemoryUtil.memPutInt(i + 24 - STRIDE * 2, tangent);
+			MemoryUtil.memPutInt(i + 24 - STRIDE * 3, tangent);
+		}
+
+		this.advance();
+	}
+
+	@Override
+	public void iris$setContextHolder(BlockContextHolder holder) {
+		this.contextHolder = holder;
+	}
+}
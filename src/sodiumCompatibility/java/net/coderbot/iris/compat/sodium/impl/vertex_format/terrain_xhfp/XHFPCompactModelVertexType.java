@@ -0,0 +1,67 @@
+package net.coderbot.iris.compat.sodium.impl.vertex_format.terrain_xhfp;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexAttributeFormat;
+import me.jellysquid.mods.sodium.client.gl.attribute.GlVertexFormat;
+import me.jellysquid.mods.sodium.client.model.vertex.buffer.VertexBufferView;
+import me.jellysquid.mods.sodium.client.model.vertex.type.BlittableVertexType;
+import me.jellysquid.mods.sodium.client.model.vertex.type.ChunkVertexType;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ChunkMeshAttribute;
+import me.jellysquid.mods.sodium.client.render.chunk.format.ModelVertexSink;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisChunkMeshAttributes;
+import net.coderbot.iris.compat.sodium.impl.vertex_format.IrisGlVertexAttributeFormat;
+
+/**
+ * A smaller version of {@link XHFPModelVertexType}. The normal is octahedral-encoded into the padding after the
+ * position, and midTexCoord is stored as unsigned shorts that the patched terrain vertex shader divides by 32768,
+ * the same way that Sodium handles the regular texture coordinates. This brings the stride down from 44 to 36 bytes.
+ *
+ * <p>This format only works with shaders patched with the compact vertex format enabled in SodiumTerrainTransformer.
+ */
+public class XHFPCompactModelVertexType implements ChunkVertexType {
+	public static final int STRIDE = 36;
+	public static final GlVertexFormat<ChunkMeshAttribute> VERTEX_FORMAT = GlVertexFormat.builder(ChunkMeshAttribute.class, STRIDE)
+			.addElement(ChunkMeshAttribute.POSITION, 0, GlVertexAttributeFormat.UNSIGNED_SHORT, 3, false)
+			.addElement(IrisChunkMeshAttributes.NORMAL, 6, IrisGlVertexAttributeFormat.BYTE, 2, true)
+			.addElement(ChunkMeshAttribute.COLOR, 8, GlVertexAttributeFormat.UNSIGNED_BYTE, 4, true)
+			.addElement(ChunkMeshAttribute.TEXTURE, 12, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false)
+			.addElement(ChunkMeshAttribute.LIGHT, 16, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, true)
+			.addElement(IrisChunkMeshAttributes.MID_TEX_COORD, 20, GlVertexAttributeFormat.UNSIGNED_SHORT, 2, false)
+			.addElement(IrisChunkMeshAttributes.TANGENT, 24, IrisGlVertexAttributeFormat.BYTE, 4, true)
+			.addElement(IrisChunkMeshAttributes.BLOCK_ID, 28, IrisGlVertexAttributeFormat.SHORT, 2, false)
+			.addElement(IrisChunkMeshAttributes.MID_BLOCK, 32, IrisGlVertexAttributeFormat.BYTE, 3, false)
+			.build();
+
+	public static final float MODEL_SCALE = (32.0f / 65536.0f);
+	public static final float TEXTURE_SCALE = (1.0f / 32768.0f);
+
+	@Override
+	public ModelVertexSink createFallbackWriter(VertexConsumer consumer) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public ModelVertexSink createBufferWriter(VertexBufferView buffer, boolean direct) {
+		return direct ? new XHFPCompactModelVertexBufferWriterUnsafe(buffer) : new XHFPCompactModelVertexBufferWriterNio(buffer);
+	}
+
+	@Override
+	public BlittableVertexType<ModelVertexSink> asBlittable() {
+		return this;
+	}
+
+	@Override
+	public GlVertexFormat<ChunkMeshAttribute> getCustomVertexFormat() {
+		return VERTEX_FORMAT;
+	}
+
+	@Override
+	public float getModelScale() {
+		return MODEL_SCALE;
+	}
+
+	@Override
+	public float getTextureScale() {
+		return TEXTURE_SCALE;
+	}
+}
@@ -15,6 +15,10 @@ public class MixinTextureAtlasSprite {
 	private void iris$onTailMarkActive(CallbackInfo ci) {
 		PBRSpriteHolder pbrHolder = ((TextureAtlasSpriteExtension) this).getPBRHolder();
 		if (pbrHolder != null) {
+			// Sodium calls this for the animated sprites of every chunk it renders, which is what PBR animations use
+			// to skip uploads for sprites that can't be seen
+			pbrHolder.markVisible();
+
 			TextureAtlasSprite normalSprite = pbrHolder.getNormalSprite();
 			TextureAtlasSprite specularSprite = pbrHolder.getSpecularSprite();
 			if (normalSprite != null) {
@@ -0,0 +1,22 @@
+package net.coderbot.iris.compat.sodium.mixin.shadow_map;
+
+import me.jellysquid.mods.sodium.client.render.chunk.compile.ChunkBuilder;
+import net.coderbot.iris.shadows.ShadowVisibilityCache;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Newly uploaded chunks may change which chunks are visible to the shadow camera, so the cached shadow visibility
+ * state needs to be recomputed.
+ */
+@Mixin(ChunkBuilder.class)
+public class MixinChunkBuilder {
+	@Inject(method = "performPendingUploads()Z", remap = false, at = @At("RETURN"))
+	private void iris$invalidateShadowVisibility(CallbackInfoReturnable<Boolean> cir) {
+		if (cir.getReturnValue()) {
+			ShadowVisibilityCache.onChunksChanged();
+		}
+	}
+}
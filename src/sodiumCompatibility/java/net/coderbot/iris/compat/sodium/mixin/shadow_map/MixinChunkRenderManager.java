@@ -9,10 +9,14 @@ import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderContainer;
 import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderManager;
 import me.jellysquid.mods.sodium.client.render.chunk.cull.ChunkFaceFlags;
 import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderList;
+import me.jellysquid.mods.sodium.client.render.chunk.lists.ChunkRenderListIterator;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPass;
 import me.jellysquid.mods.sodium.client.render.chunk.passes.BlockRenderPassManager;
+import net.coderbot.iris.compat.sodium.impl.shadow_map.LightSortedChunkRenderList;
 import net.coderbot.iris.compat.sodium.impl.shadow_map.SwappableChunkRenderManager;
+import net.coderbot.iris.pipeline.ShadowRenderer;
 import net.coderbot.iris.shadows.ShadowRenderingState;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import org.spongepowered.asm.mixin.Final;
@@ -29,6 +33,9 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 /**
  * Modifies {@link ChunkRenderManager} to support maintaining a separate visibility list for the shadow camera, as well
  * as disabling chunk rebuilds when computing visibility for the shadow camera.
+ *
+ * <p>In the shadow pass, chunks are also drawn in order along the direction of the shadow light instead of outwards
+ * from the player camera.</p>
  */
 @Mixin(ChunkRenderManager.class)
 public class MixinChunkRenderManager implements SwappableChunkRenderManager {
@@ -76,6 +83,9 @@ public class MixinChunkRenderManager implements SwappableChunkRenderManager {
 	@Unique
 	private boolean dirtySwap;
 
+	@Unique
+	private LightSortedChunkRenderList<?>[] iris$lightSortedLists;
+
 	@Unique
 	private static final ObjectArrayFIFOQueue<?> EMPTY_QUEUE = new ObjectArrayFIFOQueue<>();
 
@@ -91,6 +101,12 @@ public class MixinChunkRenderManager implements SwappableChunkRenderManager {
 			this.chunkRenderListsSwap[i] = new ChunkRenderList<>();
 		}
 
+		this.iris$lightSortedLists = new LightSortedChunkRenderList[BlockRenderPass.COUNT];
+
+		for (int i = 0; i < this.iris$lightSortedLists.length; i++) {
+			this.iris$lightSortedLists[i] = new LightSortedChunkRenderList<>();
+		}
+
 		this.dirtySwap = true;
 	}
 
@@ -117,6 +133,34 @@ public class MixinChunkRenderManager implements SwappableChunkRenderManager {
 		dirtySwap = dirtyTmp;
 	}
 
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	@Redirect(method = "renderLayer", remap = false,
+			at = @At(value = "INVOKE",
+					target = "me/jellysquid/mods/sodium/client/render/chunk/lists/ChunkRenderList.iterator " +
+								 "(Z)Lme/jellysquid/mods/sodium/client/render/chunk/lists/ChunkRenderListIterator;",
+					remap = false))
+	private ChunkRenderListIterator<?> iris$sortByLightInShadowPass(ChunkRenderList list, boolean backwards) {
+		// Translucent chunks are iterated backwards. Sorting them along the light only makes a difference if the pack
+		// blends them into the shadow map, so they're left in their usual order unless the pack asks otherwise.
+		if (!ShadowRenderingState.areShadowsCurrentlyBeingRendered() || (backwards && !ShadowRenderer.SORT_TRANSLUCENT_BY_LIGHT)) {
+			return list.iterator(backwards);
+		}
+
+		for (int pass = 0; pass < chunkRenderLists.length; pass++) {
+			if (chunkRenderLists[pass] == list) {
+				LightSortedChunkRenderList sortedList = iris$lightSortedLists[pass];
+				sortedList.update(list, ShadowRenderer.LIGHT_DIRECTION,
+					Minecraft.getInstance().gameRenderer.getMainCamera().getBlockPosition());
+
+				// Opaque chunks are drawn front to back from the light so that early depth testing can reject hidden
+				// fragments, and translucent chunks back to front so that they blend properly.
+				return sortedList.iterator(backwards);
+			}
+		}
+
+		return list.iterator(backwards);
+	}
+
 	@Redirect(method = "addChunk", remap = false,
 			at = @At(value = "INVOKE",
 					target = "me/jellysquid/mods/sodium/client/render/chunk/ChunkRenderContainer.canRebuild ()Z",
@@ -132,7 +176,10 @@ public class MixinChunkRenderManager implements SwappableChunkRenderManager {
 	@Inject(method = "computeVisibleFaces", at = @At("HEAD"), cancellable = true, remap = false)
 	private void iris$disableBlockFaceCullingInShadowPass(ChunkRenderContainer<?> render,
 														  CallbackInfoReturnable<Integer> cir) {
-		// TODO: Enable chunk face culling during the shadow pass
+		// The shadow pass renders with backface culling disabled, so faces pointing away from the light still end up
+		// in the shadow map and can't be culled here, even when light-space occlusion culling is enabled.
+		//
+		// TODO: Enable chunk face culling during the shadow pass for packs that render with backface culling
 		if (ShadowRenderingState.areShadowsCurrentlyBeingRendered()) {
 			cir.setReturnValue(ChunkFaceFlags.ALL);
 		}
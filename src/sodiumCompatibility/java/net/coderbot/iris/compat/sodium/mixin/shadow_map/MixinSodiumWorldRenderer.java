@@ -6,6 +6,7 @@ import me.jellysquid.mods.sodium.client.render.chunk.ChunkRenderManager;
 import net.coderbot.iris.compat.sodium.impl.shadow_map.SwappableChunkRenderManager;
 import net.coderbot.iris.pipeline.ShadowRenderer;
 import net.coderbot.iris.shadows.ShadowRenderingState;
+import net.coderbot.iris.shadows.ShadowVisibilityCache;
 import net.minecraft.client.Camera;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.culling.Frustum;
@@ -21,8 +22,9 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
  * Ensures that the state of the chunk render visibility graph gets properly swapped when in the shadow map pass,
  * because we must maintain one visibility graph for the shadow camera and one visibility graph for the player camera.
  *
- * Also ensures that the visibility graph is always rebuilt in the shadow pass, since the shadow camera is generally
- * always moving.
+ * Also ensures that the visibility graph is rebuilt in the shadow pass whenever terrain setup is requested, since the
+ * shadow camera is generally always moving. ShadowRenderer passes hasForcedFrustum to skip the rebuild when its
+ * {@link ShadowVisibilityCache} says that the previous shadow visibility is still valid.
  */
 @Mixin(SodiumWorldRenderer.class)
 public class MixinSodiumWorldRenderer {
@@ -121,13 +123,18 @@ public class MixinSodiumWorldRenderer {
 			// think that the chunk graph always needs to be rebuilt. This is generally true in the shadow map pass,
 			// unless time is frozen.
 			//
-			// TODO: Detect when the sun/moon isn't moving
+			// ShadowVisibilityCache detects when the sun/moon isn't moving.
 			return Double.NaN;
 		} else {
 			return lastCameraX;
 		}
 	}
 
+	@Inject(method = "reload()V", remap = false, at = @At("HEAD"))
+	private void iris$invalidateShadowVisibilityOnReload(CallbackInfo ci) {
+		ShadowVisibilityCache.onChunksChanged();
+	}
+
 	@Inject(method = "drawChunkLayer",  remap = false, at = @At("HEAD"))
 	private void iris$beforeDrawChunkLayer(RenderType renderType, PoseStack poseStack, double x, double y,
 										   double z, CallbackInfo ci) {
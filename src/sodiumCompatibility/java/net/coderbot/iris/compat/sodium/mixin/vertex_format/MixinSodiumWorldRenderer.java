@@ -22,6 +22,6 @@ public class MixinSodiumWorldRenderer {
 							")Lme/jellysquid/mods/sodium/client/render/chunk/ChunkRenderBackend;"))
 	private ChunkVertexType iris$overrideVertexType(ChunkVertexType vertexType) {
 		return BlockRenderingSettings.INSTANCE.shouldUseExtendedVertexFormat()
-			? IrisModelVertexFormats.MODEL_VERTEX_XHFP : vertexType;
+			? IrisModelVertexFormats.getExtendedTerrainVertexType() : vertexType;
 	}
 }
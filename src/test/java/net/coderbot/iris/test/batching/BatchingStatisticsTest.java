@@ -0,0 +1,73 @@
+package net.coderbot.iris.test.batching;
+
+import net.coderbot.batchedentityrendering.impl.statistics.BatchingStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+
+public class BatchingStatisticsTest {
+	/**
+	 * Mimics OuterWrappedRenderType, which is created again for every entity but is equal to every other wrapper of
+	 * the same render type.
+	 */
+	private static class WrappedType {
+		private final String wrapped;
+
+		private WrappedType(String wrapped) {
+			this.wrapped = wrapped;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (object == null || getClass() != object.getClass()) {
+				return false;
+			}
+
+			return Objects.equals(wrapped, ((WrappedType) object).wrapped);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(wrapped) + 1;
+		}
+	}
+
+	@Test
+	void testEqualWrappedTypesShareHistory() {
+		BatchingStatistics<WrappedType> statistics = new BatchingStatistics<>();
+
+		for (int batch = 0; batch < 4; batch++) {
+			statistics.recordSegment(new WrappedType("entity_cutout"), 24, 768);
+			statistics.recordSegment(new WrappedType("entity_cutout"), 12, 384);
+			statistics.endBatch(1, 1);
+		}
+
+		Assertions.assertEquals(1, statistics.getTypeHistories().size());
+
+		BatchingStatistics.TypeHistory history = statistics.getTypeHistories().get(new WrappedType("entity_cutout"));
+		Assertions.assertNotNull(history);
+		Assertions.assertEquals(4, history.size());
+
+		for (int row = 0; row < history.size(); row++) {
+			Assertions.assertEquals(36, history.getVertices(row));
+			Assertions.assertEquals(1152, history.getBytes(row));
+			Assertions.assertEquals(2, history.getSegments(row));
+		}
+	}
+
+	@Test
+	void testDifferentWrappedTypesAreKeptApart() {
+		BatchingStatistics<WrappedType> statistics = new BatchingStatistics<>();
+
+		statistics.recordSegment(new WrappedType("entity_cutout"), 24, 768);
+		statistics.recordSegment(new WrappedType("entity_translucent"), 12, 384);
+		statistics.endBatch(2, 2);
+
+		Assertions.assertEquals(2, statistics.getTypeHistories().size());
+	}
+}
@@ -0,0 +1,115 @@
+package net.coderbot.iris.test.shaderpack;
+
+import net.coderbot.iris.gl.texture.InternalTextureFormat;
+import net.coderbot.iris.gl.texture.PixelFormat;
+import net.coderbot.iris.gl.texture.PixelType;
+import net.coderbot.iris.gl.texture.TextureType;
+import net.coderbot.iris.shaderpack.texture.RawTextureDirective;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+public class RawTextureDirectiveTest {
+	private static RawTextureDirective parse(String value) {
+		Optional<RawTextureDirective> directive = RawTextureDirective.parse(value);
+		Assertions.assertTrue(directive.isPresent(), "expected a raw texture directive: " + value);
+
+		return directive.get();
+	}
+
+	private static void assertInvalid(String value) {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> RawTextureDirective.parse(value), value);
+	}
+
+	@Test
+	void testPlainPathsAreNotRaw() {
+		Assertions.assertEquals(Optional.empty(), RawTextureDirective.parse("textures/noise.png"));
+		Assertions.assertEquals(Optional.empty(), RawTextureDirective.parse("/textures/noise.png"));
+		Assertions.assertEquals(Optional.empty(), RawTextureDirective.parse(" textures/noise.png "));
+	}
+
+	@Test
+	void testTexture3D() {
+		RawTextureDirective directive = parse("textures/lut.dat TEXTURE_3D RGBA8 64 32 16 RGBA UNSIGNED_BYTE");
+
+		Assertions.assertEquals("textures/lut.dat", directive.getPath());
+		Assertions.assertEquals(TextureType.TEXTURE_3D, directive.getType());
+		Assertions.assertEquals(InternalTextureFormat.RGBA8, directive.getInternalFormat());
+		Assertions.assertEquals(64, directive.getSizeX());
+		Assertions.assertEquals(32, directive.getSizeY());
+		Assertions.assertEquals(16, directive.getSizeZ());
+		Assertions.assertEquals(PixelFormat.RGBA, directive.getPixelFormat());
+		Assertions.assertEquals(PixelType.UNSIGNED_BYTE, directive.getPixelType());
+		Assertions.assertEquals(64L * 32L * 16L * 4L, directive.getByteSize());
+	}
+
+	@Test
+	void testTexture2DAndRectangle() {
+		RawTextureDirective texture2D = parse("textures/noise.dat TEXTURE_2D R16F 256 128 RED HALF_FLOAT");
+
+		Assertions.assertEquals(TextureType.TEXTURE_2D, texture2D.getType());
+		Assertions.assertEquals(256, texture2D.getSizeX());
+		Assertions.assertEquals(128, texture2D.getSizeY());
+		Assertions.assertEquals(1, texture2D.getSizeZ());
+		Assertions.assertEquals(256L * 128L * 2L, texture2D.getByteSize());
+
+		RawTextureDirective rectangle = parse("textures/table.dat TEXTURE_RECTANGLE RGB32F 3 5 RGB FLOAT");
+
+		Assertions.assertEquals(TextureType.TEXTURE_RECTANGLE, rectangle.getType());
+		Assertions.assertEquals(3L * 5L * 3L * 4L, rectangle.getByteSize());
+	}
+
+	@Test
+	void testTexture1D() {
+		RawTextureDirective directive = parse("textures/curve.dat TEXTURE_1D RG32UI 1024 RG_INTEGER UNSIGNED_INT");
+
+		Assertions.assertEquals(TextureType.TEXTURE_1D, directive.getType());
+		Assertions.assertEquals(1024, directive.getSizeX());
+		Assertions.assertEquals(1, directive.getSizeY());
+		Assertions.assertEquals(1, directive.getSizeZ());
+		Assertions.assertEquals(1024L * 2L * 4L, directive.getByteSize());
+	}
+
+	@Test
+	void testPackedPixelTypes() {
+		// All components of a pixel share a single value of a packed type
+		RawTextureDirective directive = parse("textures/packed.dat TEXTURE_2D RGB10_A2 16 16 RGBA UNSIGNED_INT_2_10_10_10_REV");
+
+		Assertions.assertEquals(16L * 16L * 4L, directive.getByteSize());
+	}
+
+	@Test
+	void testExtraWhitespace() {
+		RawTextureDirective directive = parse("  textures/lut.dat   TEXTURE_3D\tRGBA8 8  8 8 RGBA UNSIGNED_BYTE ");
+
+		Assertions.assertEquals("textures/lut.dat", directive.getPath());
+		Assertions.assertEquals(8, directive.getSizeZ());
+	}
+
+	@Test
+	void testWrongNumberOfSizes() {
+		assertInvalid("textures/lut.dat TEXTURE_3D RGBA8 64 64 RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA8 64 64 64 RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_1D RGBA8 RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D");
+	}
+
+	@Test
+	void testUnknownNames() {
+		assertInvalid("textures/lut.dat TEXTURE_4D RGBA8 64 64 RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA7 64 64 RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA8 64 64 ARGB UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA8 64 64 RGBA UNSIGNED_NIBBLE");
+
+		// Names are case sensitive
+		assertInvalid("textures/lut.dat texture_2d RGBA8 64 64 RGBA UNSIGNED_BYTE");
+	}
+
+	@Test
+	void testInvalidSizes() {
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA8 64 abc RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA8 64 0 RGBA UNSIGNED_BYTE");
+		assertInvalid("textures/lut.dat TEXTURE_2D RGBA8 -64 64 RGBA UNSIGNED_BYTE");
+	}
+}
@@ -0,0 +1,108 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.LightSortedChunkOrder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class LightSortedChunkOrderTest {
+	private static List<int[]> createSections(int radius) {
+		List<int[]> sections = new ArrayList<>();
+
+		for (int x = -radius; x <= radius; x++) {
+			for (int y = 0; y < 8; y++) {
+				for (int z = -radius; z <= radius; z++) {
+					sections.add(new int[] { x * 16, y * 16, z * 16 });
+				}
+			}
+		}
+
+		return sections;
+	}
+
+	private static void addAll(LightSortedChunkOrder order, List<int[]> sections, float lightX, float lightY, float lightZ) {
+		order.begin(lightX, lightY, lightZ, 0, 64, 0);
+
+		for (int[] section : sections) {
+			order.add(section[0], section[1], section[2]);
+		}
+
+		order.sort();
+	}
+
+	private static void assertSorted(LightSortedChunkOrder order, List<int[]> sections, float lightX, float lightY, float lightZ) {
+		Assertions.assertEquals(sections.size(), order.size());
+
+		boolean[] seen = new boolean[sections.size()];
+		float previous = Float.POSITIVE_INFINITY;
+
+		for (int i = 0; i < order.size(); i++) {
+			int index = order.get(i);
+			int[] section = sections.get(index);
+
+			Assertions.assertFalse(seen[index], "section drawn twice");
+			seen[index] = true;
+
+			float towardsLight = section[0] * lightX + section[1] * lightY + section[2] * lightZ;
+			Assertions.assertTrue(towardsLight <= previous + 0.001f, "sections closer to the light must come first");
+			previous = towardsLight;
+		}
+	}
+
+	@Test
+	void testFrontToBackAlongLight() {
+		List<int[]> sections = createSections(6);
+		Collections.shuffle(sections, new Random(3));
+
+		LightSortedChunkOrder order = new LightSortedChunkOrder();
+		addAll(order, sections, 0.6f, 0.64f, 0.48f);
+
+		assertSorted(order, sections, 0.6f, 0.64f, 0.48f);
+		Assertions.assertTrue(order.wasLastSortFull());
+	}
+
+	@Test
+	void testSmallChangesAreIncremental() {
+		List<int[]> sections = createSections(6);
+		Collections.shuffle(sections, new Random(5));
+
+		LightSortedChunkOrder order = new LightSortedChunkOrder();
+		addAll(order, sections, 0.6f, 0.64f, 0.48f);
+
+		// The light moves slightly, some sections are removed, and a few new ones are added in a different list order
+		Random random = new Random(9);
+		sections.subList(0, 20).clear();
+		sections.add(new int[] { 7 * 16, 0, 0 });
+		sections.add(new int[] { -7 * 16, 16, 32 });
+		Collections.shuffle(sections, random);
+
+		float lightX = 0.61f;
+		float lightY = 0.63f;
+		float lightZ = 0.48f;
+
+		addAll(order, sections, lightX, lightY, lightZ);
+
+		assertSorted(order, sections, lightX, lightY, lightZ);
+		Assertions.assertFalse(order.wasLastSortFull());
+	}
+
+	@Test
+	void testLargeLightChangeFallsBackToFullSort() {
+		List<int[]> sections = createSections(6);
+
+		LightSortedChunkOrder order = new LightSortedChunkOrder();
+		addAll(order, sections, 0.0f, 1.0f, 0.0f);
+		addAll(order, sections, 1.0f, 0.0f, 0.0f);
+
+		assertSorted(order, sections, 1.0f, 0.0f, 0.0f);
+		Assertions.assertTrue(order.wasLastSortFull());
+
+		// Nothing changed, so the order is kept
+		addAll(order, sections, 1.0f, 0.0f, 0.0f);
+		assertSorted(order, sections, 1.0f, 0.0f, 0.0f);
+	}
+}
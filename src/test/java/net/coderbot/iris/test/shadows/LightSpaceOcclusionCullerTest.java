@@ -0,0 +1,162 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.occlusion.LightSpaceOcclusionCuller;
+import net.coderbot.iris.shadows.occlusion.SectionVisibilityGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LightSpaceOcclusionCullerTest {
+	/**
+	 * An 8x8x8 block of sections, where sections are either fully open or fully opaque.
+	 */
+	private static class TestGraph implements SectionVisibilityGraph {
+		private static final int SIZE = 8;
+		private final boolean[] opaque = new boolean[SIZE * SIZE * SIZE];
+
+		void setOpaque(int x, int y, int z) {
+			opaque[(x * SIZE + y) * SIZE + z] = true;
+		}
+
+		void fillLayer(int y) {
+			for (int x = 0; x < SIZE; x++) {
+				for (int z = 0; z < SIZE; z++) {
+					setOpaque(x, y, z);
+				}
+			}
+		}
+
+		void clear(int x, int y, int z) {
+			opaque[(x * SIZE + y) * SIZE + z] = false;
+		}
+
+		@Override
+		public boolean contains(int sectionX, int sectionY, int sectionZ) {
+			return sectionX >= 0 && sectionY >= 0 && sectionZ >= 0
+				&& sectionX < SIZE && sectionY < SIZE && sectionZ < SIZE;
+		}
+
+		@Override
+		public boolean canSeeThrough(int sectionX, int sectionY, int sectionZ, int fromFace, int toFace) {
+			return !opaque[(sectionX * SIZE + sectionY) * SIZE + sectionZ];
+		}
+	}
+
+	private static LightSpaceOcclusionCuller compute(TestGraph graph, float lightX, float lightY, float lightZ) {
+		LightSpaceOcclusionCuller culler = new LightSpaceOcclusionCuller(1.0E-4f);
+		culler.setLightDirection(lightX, lightY, lightZ);
+		culler.compute(graph, 0, 0, 0, TestGraph.SIZE - 1, TestGraph.SIZE - 1, TestGraph.SIZE - 1);
+
+		return culler;
+	}
+
+	@Test
+	void testOpenSpaceIsFullyVisible() {
+		LightSpaceOcclusionCuller culler = compute(new TestGraph(), 0.3f, 1.0f, 0.2f);
+
+		Assertions.assertEquals(TestGraph.SIZE * TestGraph.SIZE * TestGraph.SIZE, culler.getReachedCount());
+	}
+
+	@Test
+	void testOpaqueLayerHidesSectionsBelow() {
+		TestGraph graph = new TestGraph();
+		graph.fillLayer(4);
+
+		LightSpaceOcclusionCuller culler = compute(graph, 0.0f, 1.0f, 0.0f);
+
+		for (int x = 0; x < TestGraph.SIZE; x++) {
+			for (int z = 0; z < TestGraph.SIZE; z++) {
+				// The occluding layer itself is lit from above and casts the shadow
+				Assertions.assertTrue(culler.isVisible(x, 4, z));
+				Assertions.assertTrue(culler.isVisible(x, 7, z));
+
+				for (int y = 1; y < 4; y++) {
+					Assertions.assertFalse(culler.isVisible(x, y, z), "section " + x + ", " + y + ", " + z);
+				}
+			}
+		}
+
+		// The bottom layer borders open space below, but light from above can't enter through its bottom faces
+		Assertions.assertFalse(culler.isVisible(3, 0, 3));
+
+		// The outer columns border open space at the sides, but those faces are parallel to the light
+		Assertions.assertFalse(culler.isVisible(0, 2, 0));
+	}
+
+	@Test
+	void testHoleLetsLightThrough() {
+		TestGraph graph = new TestGraph();
+		graph.fillLayer(4);
+		graph.clear(2, 4, 5);
+
+		LightSpaceOcclusionCuller culler = compute(graph, 0.0f, 1.0f, 0.0f);
+
+		for (int y = 0; y < 4; y++) {
+			Assertions.assertTrue(culler.isVisible(2, y, 5));
+		}
+
+		// Light passing straight down doesn't spread sideways
+		Assertions.assertFalse(culler.isVisible(3, 2, 5));
+		Assertions.assertFalse(culler.isVisible(2, 2, 4));
+	}
+
+	@Test
+	void testSlantedLightSpreadsThroughHole() {
+		TestGraph graph = new TestGraph();
+		graph.fillLayer(4);
+		graph.clear(2, 4, 5);
+
+		// Close off the west side below the layer, so that light can only get below it through the hole
+		for (int y = 0; y < 4; y++) {
+			for (int z = 0; z < TestGraph.SIZE; z++) {
+				graph.setOpaque(0, y, z);
+			}
+		}
+
+		// Light coming from above and from the west travels downwards and towards the east
+		LightSpaceOcclusionCuller culler = compute(graph, -1.0f, 1.0f, 0.0f);
+
+		Assertions.assertTrue(culler.isVisible(2, 3, 5));
+		Assertions.assertTrue(culler.isVisible(3, 3, 5));
+		Assertions.assertTrue(culler.isVisible(5, 1, 5));
+
+		// Light never travels back towards the west, or into other rows
+		Assertions.assertFalse(culler.isVisible(1, 3, 5));
+		Assertions.assertFalse(culler.isVisible(3, 3, 4));
+
+		// The closed off west side is lit through its west faces, but doesn't let light through
+		Assertions.assertTrue(culler.isVisible(0, 1, 1));
+		Assertions.assertFalse(culler.isVisible(1, 1, 1));
+	}
+
+	@Test
+	void testWallCastsShadowOnlyOnTheFarSide() {
+		TestGraph graph = new TestGraph();
+
+		for (int y = 0; y < TestGraph.SIZE; y++) {
+			for (int z = 0; z < TestGraph.SIZE; z++) {
+				graph.setOpaque(3, y, z);
+			}
+		}
+
+		// Light coming horizontally from the east
+		LightSpaceOcclusionCuller culler = compute(graph, 1.0f, 0.0f, 0.0f);
+
+		Assertions.assertTrue(culler.isVisible(7, 2, 2));
+		Assertions.assertTrue(culler.isVisible(3, 2, 2));
+
+		// The far side of the wall borders open space above, below, and to the north and south, but those faces are
+		// parallel to the light
+		Assertions.assertFalse(culler.isVisible(1, 2, 2));
+	}
+
+	@Test
+	void testSectionsOutsideOfTheRegionAreVisible() {
+		TestGraph graph = new TestGraph();
+		graph.fillLayer(7);
+
+		LightSpaceOcclusionCuller culler = compute(graph, 0.0f, 1.0f, 0.0f);
+
+		Assertions.assertTrue(culler.isVisible(-1, 3, 3));
+		Assertions.assertTrue(culler.isVisible(3, 3, TestGraph.SIZE));
+	}
+}
@@ -0,0 +1,88 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.frustum.advanced.MethodOverrideCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MethodOverrideCacheTest {
+	// Mirrors EntityRenderer, MobRenderer and the renderers that extend them
+	private static class Renderer<T extends Number> {
+		public boolean shouldRender(T value, double distance) {
+			return true;
+		}
+
+		public boolean shouldShowName(T value) {
+			return false;
+		}
+	}
+
+	private static class KnownRenderer<T extends Integer> extends Renderer<T> {
+		@Override
+		public boolean shouldRender(T value, double distance) {
+			return super.shouldRender(value, distance) || value > 0;
+		}
+	}
+
+	private static class PlainRenderer extends KnownRenderer<Integer> {
+		@Override
+		public boolean shouldShowName(Integer value) {
+			return true;
+		}
+	}
+
+	private static class BeamRenderer extends KnownRenderer<Integer> {
+		@Override
+		public boolean shouldRender(Integer value, double distance) {
+			return true;
+		}
+	}
+
+	private static class SubclassOfBeamRenderer extends BeamRenderer {
+	}
+
+	private static class CrystalRenderer extends Renderer<Double> {
+		@Override
+		public boolean shouldRender(Double value, double distance) {
+			return true;
+		}
+	}
+
+	private static MethodOverrideCache createCache() {
+		return new MethodOverrideCache(Renderer.class, boolean.class, new Class<?>[] { Number.class, double.class },
+			KnownRenderer.class);
+	}
+
+	@Test
+	void testRendererWithoutOverride() {
+		MethodOverrideCache cache = createCache();
+
+		Assertions.assertFalse(cache.isOverridden(Renderer.class));
+		Assertions.assertFalse(cache.isOverridden(PlainRenderer.class));
+	}
+
+	@Test
+	void testOverrideInKnownClassIsIgnored() {
+		Assertions.assertFalse(createCache().isOverridden(KnownRenderer.class));
+	}
+
+	@Test
+	void testOverrideWithNarrowerTypeIsFound() {
+		MethodOverrideCache cache = createCache();
+
+		Assertions.assertTrue(cache.isOverridden(BeamRenderer.class));
+		Assertions.assertTrue(cache.isOverridden(CrystalRenderer.class));
+	}
+
+	@Test
+	void testInheritedOverrideIsFound() {
+		Assertions.assertTrue(createCache().isOverridden(SubclassOfBeamRenderer.class));
+	}
+
+	@Test
+	void testUnknownMethodCountsAsOverridden() {
+		MethodOverrideCache cache = new MethodOverrideCache(Renderer.class, boolean.class,
+			new Class<?>[] { String.class }, KnownRenderer.class);
+
+		Assertions.assertTrue(cache.isOverridden(PlainRenderer.class));
+	}
+}
@@ -0,0 +1,40 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.MipmapLevels;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MipmapLevelsTest {
+	@Test
+	void testLevelCount() {
+		Assertions.assertEquals(1, MipmapLevels.getLevelCount(1));
+		Assertions.assertEquals(12, MipmapLevels.getLevelCount(2048));
+		Assertions.assertEquals(11, MipmapLevels.getLevelCount(2047));
+		Assertions.assertEquals(1, MipmapLevels.getLevelSize(2048, 11));
+		Assertions.assertEquals(1, MipmapLevels.getLevelSize(2047, 11));
+	}
+
+	@Test
+	void testCascadeRegion() {
+		// The top right cascade of a 2048x2048 shadow map with four cascades
+		for (int level = 1; level < MipmapLevels.getLevelCount(2048); level++) {
+			int start = MipmapLevels.getRegionStart(1024, level);
+			int end = MipmapLevels.getRegionEnd(2048, 2048, level);
+
+			Assertions.assertEquals(MipmapLevels.getLevelSize(2048, level) / 2, start);
+			Assertions.assertEquals(MipmapLevels.getLevelSize(2048, level), end);
+		}
+	}
+
+	@Test
+	void testUnalignedRegionIsRoundedOutwards() {
+		// Texels 5 to 10 of the base level touch texels 2 to 5 of level 1, and 1 to 2 of level 2
+		Assertions.assertEquals(2, MipmapLevels.getRegionStart(5, 1));
+		Assertions.assertEquals(6, MipmapLevels.getRegionEnd(11, 64, 1));
+		Assertions.assertEquals(1, MipmapLevels.getRegionStart(5, 2));
+		Assertions.assertEquals(3, MipmapLevels.getRegionEnd(11, 64, 2));
+
+		// Regions are clamped to the size of the level
+		Assertions.assertEquals(3, MipmapLevels.getRegionEnd(7, 7, 1));
+	}
+}
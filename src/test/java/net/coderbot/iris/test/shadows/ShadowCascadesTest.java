@@ -0,0 +1,103 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.ShadowCascades;
+import net.coderbot.iris.vendored.joml.Vector4f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShadowCascadesTest {
+	private static final float[] IDENTITY = new float[] {
+		1.0f, 0.0f, 0.0f, 0.0f,
+		0.0f, 1.0f, 0.0f, 0.0f,
+		0.0f, 0.0f, 1.0f, 0.0f,
+		0.0f, 0.0f, 0.0f, 1.0f
+	};
+
+	private static void markAllRendered(ShadowCascades cascades) {
+		for (int i = 0; i < cascades.getCount(); i++) {
+			cascades.markRendered(i, IDENTITY, IDENTITY, 0.0, 0.0, 0.0);
+		}
+	}
+
+	@Test
+	void testHalfPlaneLengths() {
+		ShadowCascades cascades = new ShadowCascades(4, 1, 160.0f, 2048);
+
+		Assertions.assertEquals(20.0f, cascades.getHalfPlaneLength(0));
+		Assertions.assertEquals(40.0f, cascades.getHalfPlaneLength(1));
+		Assertions.assertEquals(80.0f, cascades.getHalfPlaneLength(2));
+		// The last cascade matches a regular shadow map
+		Assertions.assertEquals(160.0f, cascades.getHalfPlaneLength(3));
+	}
+
+	@Test
+	void testLayout() {
+		ShadowCascades cascades = new ShadowCascades(3, 1, 160.0f, 2048);
+
+		Assertions.assertEquals(1024, cascades.getViewportSize());
+
+		Assertions.assertEquals(0, cascades.getViewportX(0));
+		Assertions.assertEquals(0, cascades.getViewportY(0));
+		Assertions.assertEquals(1024, cascades.getViewportX(1));
+		Assertions.assertEquals(0, cascades.getViewportY(1));
+		Assertions.assertEquals(0, cascades.getViewportX(2));
+		Assertions.assertEquals(1024, cascades.getViewportY(2));
+
+		Assertions.assertEquals(new Vector4f(0.5f, 0.0f, 0.5f, 0.5f), cascades.getAtlasTransform(1));
+		Assertions.assertEquals(new Vector4f(0.0f, 0.5f, 0.5f, 0.5f), cascades.getAtlasTransform(2));
+	}
+
+	@Test
+	void testEveryCascadeIsRenderedAtFirst() {
+		ShadowCascades cascades = new ShadowCascades(4, 3, 160.0f, 2048);
+
+		cascades.beginFrame(7);
+
+		Assertions.assertTrue(cascades.isUpdatingAll());
+	}
+
+	@Test
+	void testUpdatesAreStaggered() {
+		ShadowCascades cascades = new ShadowCascades(4, 3, 160.0f, 2048);
+		markAllRendered(cascades);
+
+		int[] updates = new int[4];
+
+		for (int frame = 0; frame < 30; frame++) {
+			cascades.beginFrame(frame);
+
+			int farUpdates = 0;
+
+			for (int i = 0; i < 4; i++) {
+				if (cascades.shouldUpdate(i)) {
+					updates[i]++;
+
+					if (i > 0) {
+						farUpdates++;
+					}
+				}
+			}
+
+			// Only one of the far cascades is rendered in any given frame
+			Assertions.assertEquals(1, farUpdates, "frame " + frame);
+		}
+
+		Assertions.assertEquals(30, updates[0]);
+		Assertions.assertEquals(10, updates[1]);
+		Assertions.assertEquals(10, updates[2]);
+		Assertions.assertEquals(10, updates[3]);
+	}
+
+	@Test
+	void testInvalidateRendersEverything() {
+		ShadowCascades cascades = new ShadowCascades(4, 3, 160.0f, 2048);
+		markAllRendered(cascades);
+
+		cascades.beginFrame(0);
+		Assertions.assertFalse(cascades.isUpdatingAll());
+
+		cascades.invalidate();
+		cascades.beginFrame(0);
+		Assertions.assertTrue(cascades.isUpdatingAll());
+	}
+}
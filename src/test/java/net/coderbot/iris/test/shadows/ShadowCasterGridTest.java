@@ -0,0 +1,78 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.frustum.advanced.ShadowCasterGrid;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowClippingPlanes;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ShadowCasterGridTest {
+	@Test
+	void testGridMatchesIndividualTests() {
+		ShadowClippingPlanes planes = ShadowClippingPlanesTest.createPlanes(1.3f, 0.4f, new Vector3f(-0.6f, 0.5f, 0.2f));
+		ShadowCasterGrid grid = new ShadowCasterGrid(4);
+		Random random = new Random(7);
+
+		double cameraX = 1200.5;
+		double cameraY = 70.0;
+		double cameraZ = -300.5;
+
+		float[][] boxes = new float[3000][];
+
+		grid.reset(cameraX, cameraY, cameraZ);
+
+		for (int i = 0; i < boxes.length; i++) {
+			// Boxes relative to the camera, roughly the size of entities
+			float x = random.nextFloat() * 256.0f - 128.0f;
+			float y = random.nextFloat() * 64.0f - 32.0f;
+			float z = random.nextFloat() * 256.0f - 128.0f;
+			float width = 0.5f + random.nextFloat() * 2.0f;
+			float height = 0.5f + random.nextFloat() * 3.0f;
+
+			boxes[i] = new float[] { x, y, z, x + width, y + height, z + width };
+			grid.add(cameraX + x, cameraY + y, cameraZ + z, cameraX + x + width, cameraY + y + height, cameraZ + z + width);
+		}
+
+		// The batch is relative to the camera position, so there's no offset to apply
+		grid.test((batch, results) -> planes.test(batch, 0.0f, 0.0f, 0.0f, results));
+
+		for (int i = 0; i < boxes.length; i++) {
+			float[] box = boxes[i];
+			int expected = planes.test(box[0], box[1], box[2], box[3], box[4], box[5]);
+
+			Assertions.assertEquals(expected, grid.getResult(i), "box " + i);
+		}
+
+		// Most boxes should be decided by their cell
+		Assertions.assertTrue(grid.getCellCount() < boxes.length);
+		Assertions.assertTrue(grid.getIndividuallyTestedCount() < boxes.length / 2);
+	}
+
+	@Test
+	void testResetRemovesBoxes() {
+		ShadowCasterGrid grid = new ShadowCasterGrid(4);
+
+		grid.reset(0.0, 0.0, 0.0);
+		grid.add(0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+		grid.add(100.0, 0.0, 0.0, 101.0, 1.0, 1.0);
+		grid.test((batch, results) -> {
+			for (int i = 0; i < batch.size(); i++) {
+				results[i] = ShadowClippingPlanes.INSIDE;
+			}
+		});
+
+		Assertions.assertEquals(2, grid.getCellCount());
+
+		grid.reset(0.0, 0.0, 0.0);
+		grid.add(5.0, 5.0, 5.0, 6.0, 6.0, 6.0);
+		grid.test((batch, results) -> {
+			Assertions.assertEquals(1, batch.size());
+			results[0] = ShadowClippingPlanes.OUTSIDE;
+		});
+
+		Assertions.assertEquals(1, grid.getCellCount());
+		Assertions.assertEquals(ShadowClippingPlanes.OUTSIDE, grid.getResult(0));
+	}
+}
@@ -0,0 +1,213 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.frustum.advanced.AabbBatch;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowClippingPlanes;
+import net.coderbot.iris.vendored.joml.Math;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vendored.joml.Vector4f;
+
+/**
+ * Compares the different ways of testing chunk sections against the Advanced Frustum Culling planes, using every
+ * section within a 32 chunk render distance. This isn't a unit test, run the main method manually.
+ *
+ * <ul>
+ *     <li>legacy: one {@code Vector4f} per plane, testing one section at a time (the previous implementation)</li>
+ *     <li>scalar: the structure-of-arrays planes, testing one section at a time</li>
+ *     <li>batch: the structure-of-arrays planes, testing all sections at once</li>
+ *     <li>hierarchical: testing each chunk column first, and only testing sections of intersecting columns</li>
+ * </ul>
+ */
+public class ShadowClippingPlanesBenchmark {
+	private static final int RENDER_DISTANCE = 32;
+	private static final int SECTIONS_PER_COLUMN = 16;
+	private static final int WARMUP_ITERATIONS = 200;
+	private static final int ITERATIONS = 500;
+
+	public static void main(String[] args) {
+		ShadowClippingPlanes planes = ShadowClippingPlanesTest.createPlanes(0.8f, 0.3f, new Vector3f(0.3f, 0.9f, 0.1f));
+
+		Vector4f[] legacyPlanes = new Vector4f[planes.getPlaneCount()];
+
+		for (int i = 0; i < legacyPlanes.length; i++) {
+			legacyPlanes[i] = planes.getPlane(i, new Vector4f());
+		}
+
+		// Camera in the middle of a section, at y = 70 in a world spanning y = 0 to y = 256
+		float cameraOffsetX = 8.5f;
+		float cameraOffsetY = 70.0f;
+		float cameraOffsetZ = 8.5f;
+
+		int diameter = RENDER_DISTANCE * 2 + 1;
+		int sectionCount = diameter * diameter * SECTIONS_PER_COLUMN;
+
+		AabbBatch sections = new AabbBatch(sectionCount);
+		AabbBatch columns = new AabbBatch(diameter * diameter);
+		sections.reset(0.0, 0.0, 0.0);
+		columns.reset(0.0, 0.0, 0.0);
+
+		for (int cx = -RENDER_DISTANCE; cx <= RENDER_DISTANCE; cx++) {
+			for (int cz = -RENDER_DISTANCE; cz <= RENDER_DISTANCE; cz++) {
+				float x = cx * 16.0f - cameraOffsetX;
+				float z = cz * 16.0f - cameraOffsetZ;
+
+				columns.addRelative(x, -cameraOffsetY, z, x + 16.0f, 256.0f - cameraOffsetY, z + 16.0f);
+
+				for (int cy = 0; cy < SECTIONS_PER_COLUMN; cy++) {
+					float y = cy * 16.0f - cameraOffsetY;
+
+					sections.addRelative(x, y, z, x + 16.0f, y + 16.0f, z + 16.0f);
+				}
+			}
+		}
+
+		float[][] boxes = new float[sectionCount][];
+
+		for (int cx = -RENDER_DISTANCE, i = 0; cx <= RENDER_DISTANCE; cx++) {
+			for (int cz = -RENDER_DISTANCE; cz <= RENDER_DISTANCE; cz++) {
+				for (int cy = 0; cy < SECTIONS_PER_COLUMN; cy++, i++) {
+					float x = cx * 16.0f - cameraOffsetX;
+					float y = cy * 16.0f - cameraOffsetY;
+					float z = cz * 16.0f - cameraOffsetZ;
+
+					boxes[i] = new float[] { x, y, z, x + 16.0f, y + 16.0f, z + 16.0f };
+				}
+			}
+		}
+
+		byte[] sectionResults = new byte[sectionCount];
+		byte[] columnResults = new byte[diameter * diameter];
+
+		System.out.println("Testing " + sectionCount + " sections against " + planes.getPlaneCount() + " planes");
+
+		run("legacy", () -> {
+			int visible = 0;
+
+			for (float[] box : boxes) {
+				if (legacyTest(legacyPlanes, box[0], box[1], box[2], box[3], box[4], box[5]) != 0) {
+					visible++;
+				}
+			}
+
+			return visible;
+		});
+
+		run("scalar", () -> {
+			int visible = 0;
+
+			for (float[] box : boxes) {
+				if (planes.test(box[0], box[1], box[2], box[3], box[4], box[5]) != ShadowClippingPlanes.OUTSIDE) {
+					visible++;
+				}
+			}
+
+			return visible;
+		});
+
+		run("batch", () -> {
+			planes.test(sections, 0.0f, 0.0f, 0.0f, sectionResults);
+
+			int visible = 0;
+
+			for (int i = 0; i < sectionCount; i++) {
+				if (sectionResults[i] != ShadowClippingPlanes.OUTSIDE) {
+					visible++;
+				}
+			}
+
+			return visible;
+		});
+
+		run("hierarchical", () -> {
+			planes.test(columns, 0.0f, 0.0f, 0.0f, columnResults);
+
+			int visible = 0;
+
+			for (int column = 0; column < columnResults.length; column++) {
+				int result = columnResults[column];
+
+				if (result == ShadowClippingPlanes.INSIDE) {
+					visible += SECTIONS_PER_COLUMN;
+				} else if (result == ShadowClippingPlanes.INTERSECTING) {
+					for (int i = column * SECTIONS_PER_COLUMN; i < (column + 1) * SECTIONS_PER_COLUMN; i++) {
+						float[] box = boxes[i];
+
+						if (planes.test(box[0], box[1], box[2], box[3], box[4], box[5]) != ShadowClippingPlanes.OUTSIDE) {
+							visible++;
+						}
+					}
+				}
+			}
+
+			return visible;
+		});
+	}
+
+	private interface Pass {
+		int run();
+	}
+
+	private static void run(String name, Pass pass) {
+		int visible = 0;
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			visible = pass.run();
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			visible += pass.run();
+		}
+
+		double microseconds = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+		System.out.printf("%-12s %10.1f us / pass (%d visible)%n", name, microseconds, visible / (ITERATIONS + 1));
+	}
+
+	/**
+	 * The previous implementation of the plane tests, for comparison.
+	 */
+	private static int legacyTest(Vector4f[] planes, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		boolean inside = true;
+		float outsideBoundX;
+		float outsideBoundY;
+		float outsideBoundZ;
+		float insideBoundX;
+		float insideBoundY;
+		float insideBoundZ;
+
+		for (Vector4f plane : planes) {
+			if (plane.x() < 0) {
+				outsideBoundX = minX;
+				insideBoundX = maxX;
+			} else {
+				outsideBoundX = maxX;
+				insideBoundX = minX;
+			}
+
+			if (plane.y() < 0) {
+				outsideBoundY = minY;
+				insideBoundY = maxY;
+			} else {
+				outsideBoundY = maxY;
+				insideBoundY = minY;
+			}
+
+			if (plane.z() < 0) {
+				outsideBoundZ = minZ;
+				insideBoundZ = maxZ;
+			} else {
+				outsideBoundZ = maxZ;
+				insideBoundZ = minZ;
+			}
+
+			if (Math.fma(plane.x(), outsideBoundX, Math.fma(plane.y(), outsideBoundY, plane.z() * outsideBoundZ)) < -plane.w()) {
+				return 0;
+			}
+
+			inside &= Math.fma(plane.x(), insideBoundX, Math.fma(plane.y(), insideBoundY, plane.z() * insideBoundZ)) >= -plane.w();
+		}
+
+		return inside ? 1 : 2;
+	}
+}
@@ -0,0 +1,116 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.frustum.advanced.AabbBatch;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowClippingPlanes;
+import net.coderbot.iris.vendored.joml.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ShadowClippingPlanesTest {
+	static ShadowClippingPlanes createPlanes(float yaw, float pitch, Vector3f lightDirection) {
+		Matrix4f view = new Matrix4f().rotateX(pitch).rotateY(yaw);
+		Matrix4f projection = new Matrix4f().perspective((float) Math.toRadians(70.0), 16.0f / 9.0f, 0.05f, 512.0f);
+
+		return new ShadowClippingPlanes(view, projection, new Vector3f(lightDirection).normalize());
+	}
+
+	private static ShadowClippingPlanes[] createTestPlanes() {
+		return new ShadowClippingPlanes[] {
+			createPlanes(0.0f, 0.0f, new Vector3f(0.3f, 0.9f, 0.1f)),
+			createPlanes(1.3f, 0.4f, new Vector3f(-0.6f, 0.5f, 0.2f)),
+			createPlanes(-2.5f, -0.7f, new Vector3f(0.0f, 1.0f, 0.0f)),
+			// Looking straight at the light
+			createPlanes(3.0f, -0.8f, new Vector3f(0.1f, 0.7f, -0.7f))
+		};
+	}
+
+	@Test
+	void testBatchMatchesSingleTests() {
+		Random random = new Random(42);
+		AabbBatch batch = new AabbBatch(16);
+		float[][] boxes = new float[4096][];
+		byte[] results = new byte[boxes.length];
+
+		for (ShadowClippingPlanes planes : createTestPlanes()) {
+			batch.reset(0.0, 0.0, 0.0);
+
+			for (int i = 0; i < boxes.length; i++) {
+				float x = random.nextFloat() * 512.0f - 256.0f;
+				float y = random.nextFloat() * 256.0f - 128.0f;
+				float z = random.nextFloat() * 512.0f - 256.0f;
+				float size = random.nextFloat() * 32.0f;
+
+				boxes[i] = new float[] { x, y, z, x + size, y + size, z + size };
+				batch.addRelative(x, y, z, x + size, y + size, z + size);
+			}
+
+			planes.test(batch, 0.0f, 0.0f, 0.0f, results);
+
+			for (int i = 0; i < boxes.length; i++) {
+				float[] box = boxes[i];
+				int expected = planes.test(box[0], box[1], box[2], box[3], box[4], box[5]);
+
+				Assertions.assertEquals(expected, results[i], "box " + i);
+			}
+		}
+	}
+
+	@Test
+	void testBatchOriginIsRespected() {
+		ShadowClippingPlanes planes = createPlanes(0.0f, 0.0f, new Vector3f(0.3f, 0.9f, 0.1f));
+		AabbBatch batch = new AabbBatch(4);
+		byte[] results = new byte[4];
+
+		// One box containing the camera, and one far below it. The camera is not at the batch origin.
+		batch.reset(1000.0, 64.0, -2000.0);
+		batch.add(999.0, 63.0, -2001.0, 1001.0, 65.0, -1999.0);
+		batch.add(700.0, -900.0, -2030.0, 716.0, -884.0, -2014.0);
+
+		planes.test(batch, 1000.0f - 1000.5f, 64.0f - 64.5f, -2000.0f + 2000.5f, results);
+
+		Assertions.assertNotEquals(ShadowClippingPlanes.OUTSIDE, results[0]);
+		Assertions.assertEquals(planes.test(-300.5f, -964.5f, -29.5f, -284.5f, -948.5f, -13.5f), results[1]);
+	}
+
+	@Test
+	void testChildrenOfInsideBoxesAreInside() {
+		Random random = new Random(1234);
+		int insideParents = 0;
+		int outsideParents = 0;
+
+		for (ShadowClippingPlanes planes : createTestPlanes()) {
+			for (int parent = 0; parent < 2000; parent++) {
+				float x = random.nextInt(64) * 16.0f - 512.0f;
+				float y = random.nextInt(16) * 16.0f - 128.0f;
+				float z = random.nextInt(64) * 16.0f - 512.0f;
+
+				int parentResult = planes.test(x, y, z, x + 16.0f, y + 16.0f, z + 16.0f);
+
+				if (parentResult == ShadowClippingPlanes.INTERSECTING) {
+					continue;
+				}
+
+				if (parentResult == ShadowClippingPlanes.INSIDE) {
+					insideParents++;
+				} else {
+					outsideParents++;
+				}
+
+				for (int child = 0; child < 16; child++) {
+					float cx = x + random.nextInt(16);
+					float cy = y + random.nextInt(16);
+					float cz = z + random.nextInt(16);
+
+					Assertions.assertEquals(parentResult, planes.test(cx, cy, cz, cx + 1.0f, cy + 1.0f, cz + 1.0f));
+				}
+			}
+		}
+
+		// Make sure that the test actually covered both cases
+		Assertions.assertTrue(insideParents > 100);
+		Assertions.assertTrue(outsideParents > 100);
+	}
+}
@@ -0,0 +1,76 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.ShadowDistanceController;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShadowDistanceControllerTest {
+	private static int run(ShadowDistanceController controller, float time, int frames) {
+		int changes = 0;
+
+		for (int i = 0; i < frames; i++) {
+			if (controller.update(time)) {
+				changes++;
+			}
+		}
+
+		return changes;
+	}
+
+	@Test
+	void testReducesEntitiesBeforeTerrain() {
+		ShadowDistanceController controller = new ShadowDistanceController(4.0F);
+
+		run(controller, 8.0F, 100);
+
+		Assertions.assertTrue(controller.getEntityDistanceScale() < 1.0F);
+		Assertions.assertEquals(1.0F, controller.getTerrainDistanceScale());
+
+		run(controller, 8.0F, 10000);
+
+		// The distances are never reduced below the minimum, no matter how slow the shadow pass is
+		Assertions.assertEquals(0.5F, controller.getEntityDistanceScale());
+		Assertions.assertEquals(0.5F, controller.getTerrainDistanceScale());
+	}
+
+	@Test
+	void testHoldsDistanceWithinHysteresis() {
+		ShadowDistanceController controller = new ShadowDistanceController(4.0F);
+
+		run(controller, 8.0F, 200);
+
+		// Let the smoothed time settle first
+		run(controller, 3.5F, 100);
+		float entityScale = controller.getEntityDistanceScale();
+		Assertions.assertTrue(entityScale < 1.0F);
+
+		// Slightly under budget isn't enough headroom to increase the distance again
+		Assertions.assertEquals(0, run(controller, 3.5F, 2000));
+		Assertions.assertEquals(entityScale, controller.getEntityDistanceScale());
+	}
+
+	@Test
+	void testRecoversSlowly() {
+		ShadowDistanceController controller = new ShadowDistanceController(4.0F);
+
+		run(controller, 8.0F, 10000);
+		int increases = run(controller, 1.0F, 300);
+
+		// Increasing the distance waits longer between steps than reducing it
+		Assertions.assertTrue(increases > 0 && increases <= 3, "increased " + increases + " times");
+
+		run(controller, 1.0F, 10000);
+		Assertions.assertEquals(1.0F, controller.getEntityDistanceScale());
+		Assertions.assertEquals(1.0F, controller.getTerrainDistanceScale());
+	}
+
+	@Test
+	void testSingleSpikeIsSmoothedOut() {
+		ShadowDistanceController controller = new ShadowDistanceController(4.0F);
+
+		run(controller, 2.0F, 100);
+		Assertions.assertEquals(0, run(controller, 12.0F, 1));
+		Assertions.assertEquals(0, run(controller, 2.0F, 100));
+		Assertions.assertEquals(1.0F, controller.getEntityDistanceScale());
+	}
+}
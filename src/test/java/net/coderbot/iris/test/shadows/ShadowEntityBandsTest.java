@@ -0,0 +1,106 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.ShadowEntityBands;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShadowEntityBandsTest {
+	private static double squared(double distance) {
+		return distance * distance;
+	}
+
+	@Test
+	void testDisabledByDefault() {
+		Assertions.assertFalse(new ShadowEntityBands(1, 0).isEnabled());
+		Assertions.assertTrue(new ShadowEntityBands(3, 0).isEnabled());
+		Assertions.assertTrue(new ShadowEntityBands(1, 16).isEnabled());
+	}
+
+	@Test
+	void testBands() {
+		ShadowEntityBands bands = new ShadowEntityBands(4, 0);
+		bands.begin(0, 160.0);
+
+		Assertions.assertEquals(0, bands.getBand(squared(10.0)));
+		Assertions.assertEquals(1, bands.getBand(squared(50.0)));
+		Assertions.assertEquals(3, bands.getBand(squared(150.0)));
+		// Entities beyond the shadow distance are part of the outermost band
+		Assertions.assertEquals(3, bands.getBand(squared(500.0)));
+	}
+
+	@Test
+	void testFarBandsRenderLessOften() {
+		ShadowEntityBands bands = new ShadowEntityBands(4, 0);
+		int[] renders = new int[4];
+
+		for (int frame = 0; frame < 24; frame++) {
+			bands.begin(frame, 160.0);
+
+			for (int band = 0; band < 4; band++) {
+				if (bands.shouldRender(squared(band * 40.0 + 20.0))) {
+					renders[band]++;
+				}
+			}
+		}
+
+		Assertions.assertEquals(24, renders[0]);
+		Assertions.assertEquals(12, renders[1]);
+		Assertions.assertEquals(8, renders[2]);
+		Assertions.assertEquals(6, renders[3]);
+	}
+
+	@Test
+	void testBudgetOnlyLimitsFarEntities() {
+		ShadowEntityBands bands = new ShadowEntityBands(1, 2);
+		bands.begin(0, 160.0);
+
+		int rendered = 0;
+
+		for (int i = 0; i < 5; i++) {
+			if (bands.shouldRender(squared(10.0))) {
+				rendered++;
+			}
+		}
+
+		// With a single band, every entity counts against the budget
+		Assertions.assertEquals(2, rendered);
+		Assertions.assertEquals(3, bands.getDeferredCount());
+
+		// The far band is rendered on odd frames
+		bands = new ShadowEntityBands(2, 1);
+		bands.begin(1, 160.0);
+
+		Assertions.assertTrue(bands.shouldRender(squared(10.0)));
+		Assertions.assertTrue(bands.shouldRender(squared(10.0)));
+		Assertions.assertTrue(bands.shouldRender(squared(100.0)));
+		Assertions.assertFalse(bands.shouldRender(squared(100.0)));
+		Assertions.assertEquals(1, bands.getDeferredCount());
+
+		// The budget is reset every frame
+		bands.begin(3, 160.0);
+		Assertions.assertTrue(bands.shouldRender(squared(100.0)));
+	}
+	@Test
+	void testCascadesShareBudget() {
+		ShadowEntityBands bands = new ShadowEntityBands(1, 2);
+		Object[] entities = { new Object(), new Object(), new Object() };
+		bands.begin(0, 160.0);
+
+		// The first cascade contains the first two entities, which use up the budget
+		Assertions.assertTrue(bands.shouldRender(entities[0], squared(10.0)));
+		Assertions.assertTrue(bands.shouldRender(entities[1], squared(20.0)));
+
+		// The second cascade contains all three, and gets the same decisions for the ones it shares with the first
+		Assertions.assertTrue(bands.shouldRender(entities[0], squared(10.0)));
+		Assertions.assertTrue(bands.shouldRender(entities[1], squared(20.0)));
+		Assertions.assertFalse(bands.shouldRender(entities[2], squared(30.0)));
+		Assertions.assertFalse(bands.shouldRender(entities[2], squared(30.0)));
+
+		// Each entity is only counted once
+		Assertions.assertEquals(1, bands.getDeferredCount());
+
+		bands.end();
+		bands.begin(1, 160.0);
+		Assertions.assertTrue(bands.shouldRender(entities[2], squared(30.0)));
+	}
+}
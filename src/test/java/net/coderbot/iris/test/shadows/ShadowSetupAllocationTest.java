@@ -0,0 +1,95 @@
+package net.coderbot.iris.test.shadows;
+
+import net.coderbot.iris.shadows.ShadowCamera;
+import net.coderbot.iris.shadows.frustum.advanced.ShadowClippingPlanes;
+import net.coderbot.iris.vendored.joml.Matrix4f;
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vendored.joml.Vector4f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class ShadowSetupAllocationTest {
+	private static final int WARMUP_FRAMES = 20000;
+	private static final int FRAMES = 1000;
+	/**
+	 * Reading the allocation counters may allocate a little on its own on some JVMs, but allocating anything at all
+	 * per frame would exceed this by far.
+	 */
+	private static final long MAX_ALLOCATED_BYTES = 1024;
+
+	@Test
+	void testUpdateMatchesNewPlanes() {
+		ShadowClippingPlanes planes = ShadowClippingPlanesTest.createPlanes(0.0f, 0.0f, new Vector3f(0.3f, 0.9f, 0.1f));
+		Vector4f actual = new Vector4f();
+		Vector4f expected = new Vector4f();
+
+		float[][] views = { { 1.3f, 0.4f }, { -2.5f, -0.7f }, { 3.0f, -0.8f } };
+		Vector3f[] lights = { new Vector3f(-0.6f, 0.5f, 0.2f), new Vector3f(0.0f, 1.0f, 0.0f), new Vector3f(0.1f, 0.7f, -0.7f) };
+
+		for (int i = 0; i < views.length; i++) {
+			ShadowClippingPlanes fresh = ShadowClippingPlanesTest.createPlanes(views[i][0], views[i][1], lights[i]);
+
+			Matrix4f view = new Matrix4f().rotateX(views[i][1]).rotateY(views[i][0]);
+			Matrix4f projection = new Matrix4f().perspective((float) Math.toRadians(70.0), 16.0f / 9.0f, 0.05f, 512.0f);
+			planes.update(view, projection, new Vector3f(lights[i]).normalize());
+
+			Assertions.assertEquals(fresh.getPlaneCount(), planes.getPlaneCount());
+
+			for (int plane = 0; plane < fresh.getPlaneCount(); plane++) {
+				Assertions.assertEquals(fresh.getPlane(plane, expected), planes.getPlane(plane, actual), "plane " + plane);
+			}
+		}
+	}
+
+	@Test
+	void testSteadyStateSetupDoesNotAllocate() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+		Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "thread allocation counters are unavailable");
+
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+
+		Assumptions.assumeTrue(allocationBean.isThreadAllocatedMemorySupported(), "thread allocation counters are unsupported");
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+		Matrix4f playerView = new Matrix4f();
+		Matrix4f playerProjection = new Matrix4f().perspective((float) Math.toRadians(70.0), 16.0f / 9.0f, 0.05f, 512.0f);
+		ShadowCamera camera = new ShadowCamera();
+		ShadowClippingPlanes planes = ShadowClippingPlanesTest.createPlanes(0.0f, 0.0f, new Vector3f(0.3f, 0.9f, 0.1f));
+
+		// Let the JIT compile the setup code first, since the interpreter may allocate on its own
+		runFrames(WARMUP_FRAMES, planes, camera, playerView, playerProjection);
+
+		long threadId = Thread.currentThread().getId();
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		runFrames(FRAMES, planes, camera, playerView, playerProjection);
+		long after = allocationBean.getThreadAllocatedBytes(threadId);
+
+		// Planes must still be computed
+		Assertions.assertTrue(planes.getPlaneCount() > 0);
+		long allocated = after - before;
+		Assertions.assertTrue(allocated <= MAX_ALLOCATED_BYTES,
+			allocated + " bytes allocated by " + FRAMES + " frames of shadow setup");
+	}
+
+	/**
+	 * Does the per-frame work of the shadow renderer to set up the shadow camera and the advanced frustum, whose update
+	 * only forwards to {@link ShadowClippingPlanes#update}.
+	 */
+	private static void runFrames(int frames, ShadowClippingPlanes planes, ShadowCamera camera, Matrix4f playerView,
+								  Matrix4f playerProjection) {
+		for (int frame = 0; frame < frames; frame++) {
+			float time = (frame % 360) / 360.0f;
+
+			playerView.rotationX(time - 0.5f).rotateY(time * 6.0f);
+
+			camera.updateModelView(time, 2.0f, 10.0f, frame * 0.25, 70.0, -frame * 0.5);
+			camera.updateLightVector(0.3f - time, 0.9f, 0.1f + time);
+
+			planes.update(playerView, playerProjection, camera.getLightVectorFromOrigin());
+		}
+	}
+}
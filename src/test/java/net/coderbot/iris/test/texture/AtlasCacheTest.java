@@ -0,0 +1,215 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.pbr.cache.AtlasCache;
+import net.coderbot.iris.texture.pbr.cache.AtlasCacheKey;
+import net.coderbot.iris.texture.pbr.cache.CachedAtlas;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class AtlasCacheTest {
+	private static final String ATLAS_NAME = "minecraft:textures/atlas/blocks.png_n";
+	private static final int ATLAS_SIZE = 64;
+	private static final int MIP_LEVEL = 4;
+
+	private static final String FORMAT_NAME = "lab-pbr";
+	private static final String FORMAT_VERSION = "1.3";
+
+	/**
+	 * Stands in for the sprites of an atlas: the position of each sprite, the bytes of its PBR image, and the frame
+	 * times of its animation.
+	 */
+	private static class Sprite {
+		private final String name;
+		private final int x;
+		private final int y;
+		private final byte[] data;
+		private final int[] frameTimes;
+
+		private Sprite(String name, int x, int y, byte[] data, int[] frameTimes) {
+			this.name = name;
+			this.x = x;
+			this.y = y;
+			this.data = data;
+			this.frameTimes = frameTimes;
+		}
+	}
+
+	private static List<Sprite> createSprites() {
+		Random random = new Random(0);
+		List<Sprite> sprites = new ArrayList<>();
+
+		for (int i = 0; i < 16; i++) {
+			byte[] data = new byte[256];
+			random.nextBytes(data);
+			int[] frameTimes = i % 5 == 0 ? new int[] { 2, 2, 4 } : new int[0];
+			sprites.add(new Sprite("minecraft:block/sprite_" + i, (i % 4) * 16, (i / 4) * 16, data, frameTimes));
+		}
+
+		return sprites;
+	}
+
+	/**
+	 * Adds the sprites in the same way as AtlasPBRLoader#lookUpCache.
+	 */
+	private static String createKey(List<Sprite> sprites, int atlasSize, int mipLevel, String formatName) {
+		AtlasCacheKey key = new AtlasCacheKey(atlasSize, atlasSize, mipLevel, formatName, formatName != null ? FORMAT_VERSION : null);
+
+		for (Sprite sprite : sprites) {
+			key.addSprite(sprite.name, sprite.x, sprite.y, 16, 16, sprite.data);
+			key.addAnimation(-1, -1, 1, false, sprite.frameTimes.length);
+			for (int frame = 0; frame < sprite.frameTimes.length; frame++) {
+				key.addFrame(frame, sprite.frameTimes[frame]);
+			}
+		}
+
+		return key.build();
+	}
+
+	private static String createKey(List<Sprite> sprites, int atlasSize, int mipLevel) {
+		return createKey(sprites, atlasSize, mipLevel, FORMAT_NAME);
+	}
+
+	private static CachedAtlas createAtlas(long seed) {
+		Random random = new Random(seed);
+		int[][] levels = new int[MIP_LEVEL + 1][];
+
+		for (int level = 0; level <= MIP_LEVEL; level++) {
+			levels[level] = new int[(ATLAS_SIZE >> level) * (ATLAS_SIZE >> level)];
+
+			for (int i = 0; i < levels[level].length; i++) {
+				levels[level][i] = random.nextInt();
+			}
+		}
+
+		return new CachedAtlas(ATLAS_SIZE, ATLAS_SIZE, levels);
+	}
+
+	private static void assertAtlasEquals(CachedAtlas expected, CachedAtlas actual) {
+		Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+		Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+		Assertions.assertEquals(expected.getMipLevel(), actual.getMipLevel());
+
+		for (int level = 0; level <= expected.getMipLevel(); level++) {
+			Assertions.assertArrayEquals(expected.getLevel(level), actual.getLevel(level), "level " + level);
+		}
+	}
+
+	private static long countFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static void deleteRecursively(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	void testKeyIsStable() {
+		Assertions.assertEquals(createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL), createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL));
+	}
+
+	@Test
+	void testKeyChangesWithInputs() {
+		String key = createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL);
+
+		Assertions.assertNotEquals(key, createKey(createSprites(), ATLAS_SIZE * 2, MIP_LEVEL));
+		Assertions.assertNotEquals(key, createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL - 1));
+
+		List<Sprite> changedData = createSprites();
+		changedData.get(7).data[100] ^= 1;
+		Assertions.assertNotEquals(key, createKey(changedData, ATLAS_SIZE, MIP_LEVEL));
+
+		List<Sprite> moved = createSprites();
+		Sprite sprite = moved.get(3);
+		moved.set(3, new Sprite(sprite.name, sprite.x, sprite.y + 1, sprite.data, sprite.frameTimes));
+		Assertions.assertNotEquals(key, createKey(moved, ATLAS_SIZE, MIP_LEVEL));
+
+		List<Sprite> retimed = createSprites();
+		retimed.get(5).frameTimes[1] = 3;
+		Assertions.assertNotEquals(key, createKey(retimed, ATLAS_SIZE, MIP_LEVEL));
+
+		Assertions.assertNotEquals(key, createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL, null));
+		Assertions.assertNotEquals(key, createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL, "other-format"));
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		Path directory = Files.createTempDirectory("iris-atlas-cache");
+
+		try {
+			AtlasCache cache = new AtlasCache(directory);
+			String key = createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL);
+			CachedAtlas atlas = createAtlas(1);
+
+			Assertions.assertNull(cache.read(ATLAS_NAME, key));
+			cache.write(ATLAS_NAME, key, atlas);
+			assertAtlasEquals(atlas, cache.read(ATLAS_NAME, key));
+		} finally {
+			deleteRecursively(directory);
+		}
+	}
+
+	@Test
+	void testChangedSpriteInvalidatesEntry() throws IOException {
+		Path directory = Files.createTempDirectory("iris-atlas-cache");
+
+		try {
+			AtlasCache cache = new AtlasCache(directory);
+			List<Sprite> sprites = createSprites();
+			String oldKey = createKey(sprites, ATLAS_SIZE, MIP_LEVEL);
+			cache.write(ATLAS_NAME, oldKey, createAtlas(1));
+
+			// An unrelated atlas must not be affected by writes to this one
+			cache.write("minecraft:textures/atlas/blocks.png_s", oldKey, createAtlas(2));
+
+			sprites.get(11).data[0] ^= 1;
+			String newKey = createKey(sprites, ATLAS_SIZE, MIP_LEVEL);
+
+			// The old entry is not found under the new key, and is replaced once the new atlas is written
+			Assertions.assertNull(cache.read(ATLAS_NAME, newKey));
+			CachedAtlas newAtlas = createAtlas(3);
+			cache.write(ATLAS_NAME, newKey, newAtlas);
+
+			assertAtlasEquals(newAtlas, cache.read(ATLAS_NAME, newKey));
+			Assertions.assertNull(cache.read(ATLAS_NAME, oldKey));
+			Assertions.assertNotNull(cache.read("minecraft:textures/atlas/blocks.png_s", oldKey));
+			Assertions.assertEquals(2L, countFiles(directory));
+		} finally {
+			deleteRecursively(directory);
+		}
+	}
+
+	@Test
+	void testTruncatedEntryIsRejected() throws IOException {
+		Path directory = Files.createTempDirectory("iris-atlas-cache");
+
+		try {
+			AtlasCache cache = new AtlasCache(directory);
+			String key = createKey(createSprites(), ATLAS_SIZE, MIP_LEVEL);
+			cache.write(ATLAS_NAME, key, createAtlas(1));
+
+			try (Stream<Path> files = Files.list(directory)) {
+				Path file = files.findFirst().orElseThrow(IllegalStateException::new);
+				byte[] data = Files.readAllBytes(file);
+				Files.write(file, Arrays.copyOf(data, data.length - 4));
+			}
+
+			Assertions.assertThrows(IOException.class, () -> cache.read(ATLAS_NAME, key));
+		} finally {
+			deleteRecursively(directory);
+		}
+	}
+}
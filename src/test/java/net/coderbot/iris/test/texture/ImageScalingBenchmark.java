@@ -0,0 +1,61 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.util.ImageManipulationUtil;
+
+/**
+ * Compares scaling PBR sprites a pixel at a time (the previous implementation) with scaling them a row at a time, for
+ * a sprite that is smaller than its base sprite (16 to 128) and one that is larger (512 to 128). This isn't a unit
+ * test, run the main method manually.
+ */
+public class ImageScalingBenchmark {
+	private static final int WARMUP_ITERATIONS = 2000;
+	private static final int ITERATIONS = 5000;
+
+	public static void main(String[] args) {
+		int[][] sizes = { { 16, 128 }, { 512, 128 } };
+
+		for (int[] size : sizes) {
+			int width = size[0];
+			int newWidth = size[1];
+			int[] image = ImageScalingTest.randomImage(0, width, width);
+			int[] scaled = new int[newWidth * newWidth];
+			ImageScalingTest.IntArrayRows source = new ImageScalingTest.IntArrayRows(image, width);
+			ImageScalingTest.IntArrayRows target = new ImageScalingTest.IntArrayRows(scaled, newWidth);
+
+			System.out.println("Scaling " + width + "x" + width + " to " + newWidth + "x" + newWidth);
+
+			run("nearest, legacy", () -> ImageScalingTest.scaleNearestNeighborReference(image, width, width, newWidth, newWidth)[0]);
+			run("nearest, rows", () -> {
+				ImageManipulationUtil.scaleNearestNeighbor(source, width, width, target, newWidth, newWidth);
+				return scaled[0];
+			});
+			run("bilinear, legacy", () -> ImageScalingTest.scaleBilinearReference(image, width, width, newWidth, newWidth)[0]);
+			run("bilinear, rows", () -> {
+				ImageManipulationUtil.scaleBilinear(source, width, width, target, newWidth, newWidth);
+				return scaled[0];
+			});
+		}
+	}
+
+	private interface Pass {
+		int run();
+	}
+
+	private static void run(String name, Pass pass) {
+		int checksum = 0;
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			checksum += pass.run();
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			checksum += pass.run();
+		}
+
+		double microseconds = (System.nanoTime() - start) / 1000.0 / ITERATIONS;
+
+		System.out.printf("%-18s %10.1f us / image (checksum %08x)%n", name, microseconds, checksum);
+	}
+}
@@ -0,0 +1,202 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.mipmap.ImageRows;
+import net.coderbot.iris.texture.util.ImageManipulationUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ImageScalingTest {
+	static class IntArrayRows implements ImageRows {
+		final int[] pixels;
+		private final int width;
+
+		IntArrayRows(int[] pixels, int width) {
+			this.pixels = pixels;
+			this.width = width;
+		}
+
+		@Override
+		public void readRow(int y, int[] row, int count) {
+			System.arraycopy(pixels, y * width, row, 0, count);
+		}
+
+		@Override
+		public void writeRow(int y, int[] row, int count) {
+			System.arraycopy(row, 0, pixels, y * width, count);
+		}
+	}
+
+	static int[] randomImage(long seed, int width, int height) {
+		Random random = new Random(seed);
+		int[] pixels = new int[width * height];
+
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = random.nextInt();
+		}
+
+		return pixels;
+	}
+
+	/**
+	 * Scales an image a pixel at a time, in the same way as before images were scaled a row at a time.
+	 */
+	static int[] scaleNearestNeighborReference(int[] image, int width, int height, int newWidth, int newHeight) {
+		int[] scaled = new int[newWidth * newHeight];
+		float xScale = (float) newWidth / width;
+		float yScale = (float) newHeight / height;
+		for (int y = 0; y < newHeight; ++y) {
+			for (int x = 0; x < newWidth; ++x) {
+				float unscaledX = (x + 0.5f) / xScale;
+				float unscaledY = (y + 0.5f) / yScale;
+				scaled[x + y * newWidth] = image[(int) unscaledX + (int) unscaledY * width];
+			}
+		}
+		return scaled;
+	}
+
+	/**
+	 * Scales an image a pixel at a time, in the same way as before images were scaled a row at a time.
+	 */
+	static int[] scaleBilinearReference(int[] image, int width, int height, int newWidth, int newHeight) {
+		int[] scaled = new int[newWidth * newHeight];
+		float xScale = (float) newWidth / width;
+		float yScale = (float) newHeight / height;
+		for (int y = 0; y < newHeight; ++y) {
+			for (int x = 0; x < newWidth; ++x) {
+				float unscaledX = (x + 0.5f) / xScale;
+				float unscaledY = (y + 0.5f) / yScale;
+
+				int x1 = Math.round(unscaledX);
+				int y1 = Math.round(unscaledY);
+				int x0 = x1 - 1;
+				int y0 = y1 - 1;
+
+				boolean x0valid = x0 >= 0;
+				boolean y0valid = y0 >= 0;
+				boolean x1valid = x1 < width;
+				boolean y1valid = y1 < height;
+
+				int finalColor;
+				if (x0valid & y0valid & x1valid & y1valid) {
+					float leftWeight = (x1 + 0.5f) - unscaledX;
+					float rightWeight = unscaledX - (x0 + 0.5f);
+					float topWeight = (y1 + 0.5f) - unscaledY;
+					float bottomWeight = unscaledY - (y0 + 0.5f);
+
+					finalColor = blend(new int[] {
+							image[x0 + y0 * width], image[x1 + y0 * width], image[x0 + y1 * width], image[x1 + y1 * width]
+					}, new float[] {
+							leftWeight * topWeight, rightWeight * topWeight, leftWeight * bottomWeight, rightWeight * bottomWeight
+					});
+				} else if (x0valid & x1valid) {
+					int validY = y0valid ? y0 : y1;
+					finalColor = blend(new int[] { image[x0 + validY * width], image[x1 + validY * width] },
+							new float[] { (x1 + 0.5f) - unscaledX, unscaledX - (x0 + 0.5f) });
+				} else if (y0valid & y1valid) {
+					int validX = x0valid ? x0 : x1;
+					finalColor = blend(new int[] { image[validX + y0 * width], image[validX + y1 * width] },
+							new float[] { (y1 + 0.5f) - unscaledY, unscaledY - (y0 + 0.5f) });
+				} else {
+					finalColor = image[(x0valid ? x0 : x1) + (y0valid ? y0 : y1) * width];
+				}
+				scaled[x + y * newWidth] = finalColor;
+			}
+		}
+		return scaled;
+	}
+
+	private static int blend(int[] colors, float[] weights) {
+		int result = 0;
+
+		for (int shift = 0; shift < 32; shift += 8) {
+			float sum = 0.0f;
+
+			for (int i = 0; i < colors.length; i++) {
+				sum += ((colors[i] >>> shift) & 0xFF) * weights[i];
+			}
+
+			result |= (Math.round(sum) & 0xFF) << shift;
+		}
+
+		return result;
+	}
+
+	private static int[] scaleNearestNeighbor(int[] image, int width, int height, int newWidth, int newHeight) {
+		int[] scaled = new int[newWidth * newHeight];
+		ImageManipulationUtil.scaleNearestNeighbor(new IntArrayRows(image, width), width, height, new IntArrayRows(scaled, newWidth), newWidth, newHeight);
+		return scaled;
+	}
+
+	private static int[] scaleBilinear(int[] image, int width, int height, int newWidth, int newHeight) {
+		int[] scaled = new int[newWidth * newHeight];
+		ImageManipulationUtil.scaleBilinear(new IntArrayRows(image, width), width, height, new IntArrayRows(scaled, newWidth), newWidth, newHeight);
+		return scaled;
+	}
+
+	private static void assertBilinearMatchesReference(long seed, int width, int height, int newWidth, int newHeight) {
+		int[] image = randomImage(seed, width, height);
+		int[] expected = scaleBilinearReference(image, width, height, newWidth, newHeight);
+		int[] actual = scaleBilinear(image, width, height, newWidth, newHeight);
+		String size = width + "x" + height + " to " + newWidth + "x" + newHeight;
+
+		int roundedDifferently = 0;
+		for (int i = 0; i < expected.length; i++) {
+			for (int shift = 0; shift < 32; shift += 8) {
+				int difference = Math.abs(((expected[i] >>> shift) & 0xFF) - ((actual[i] >>> shift) & 0xFF));
+				Assertions.assertTrue(difference <= 1, "channel differs by " + difference + " at pixel " + i + ", " + size);
+
+				if (difference != 0) {
+					roundedDifferently++;
+				}
+			}
+		}
+
+		// Only ties that are rounded differently because of the order of the floating point operations may differ
+		Assertions.assertTrue(roundedDifferently <= expected.length * 4 / 100, roundedDifferently + " channels differ, " + size);
+	}
+
+	@Test
+	void testNearestNeighborMatchesReference() {
+		int[][] sizes = { { 16, 16, 128, 128 }, { 512, 512, 128, 128 }, { 16, 48, 32, 96 }, { 7, 5, 21, 15 }, { 1024, 512, 2048, 1024 } };
+
+		for (int[] size : sizes) {
+			int[] image = randomImage(size[0], size[0], size[1]);
+			Assertions.assertArrayEquals(scaleNearestNeighborReference(image, size[0], size[1], size[2], size[3]),
+					scaleNearestNeighbor(image, size[0], size[1], size[2], size[3]),
+					size[0] + "x" + size[1] + " to " + size[2] + "x" + size[3]);
+		}
+	}
+
+	@Test
+	void testBilinearMatchesReference() {
+		assertBilinearMatchesReference(1, 16, 16, 24, 24);
+		assertBilinearMatchesReference(2, 512, 512, 128, 128);
+		assertBilinearMatchesReference(3, 16, 48, 40, 120);
+		assertBilinearMatchesReference(4, 7, 5, 10, 8);
+		assertBilinearMatchesReference(5, 1024, 512, 1536, 768);
+	}
+
+	@Test
+	void testBilinearEdgesMatchReferenceExactly() {
+		// A single row or column is only ever blended along one axis, which is done in exactly the same way as before
+		int[] row = randomImage(6, 37, 1);
+		Assertions.assertArrayEquals(scaleBilinearReference(row, 37, 1, 80, 3), scaleBilinear(row, 37, 1, 80, 3));
+
+		int[] column = randomImage(7, 1, 37);
+		Assertions.assertArrayEquals(scaleBilinearReference(column, 1, 37, 3, 80), scaleBilinear(column, 1, 37, 3, 80));
+	}
+
+	@Test
+	void testBilinearKeepsSolidColor() {
+		int[] image = new int[32 * 32];
+		Arrays.fill(image, 0x80FF4020);
+
+		int[] scaled = scaleBilinear(image, 32, 32, 48, 48);
+		for (int pixel : scaled) {
+			Assertions.assertEquals(0x80FF4020, pixel);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.mipmap.AbstractMipmapGenerator;
+import net.coderbot.iris.texture.mipmap.ChannelMipmapGenerator;
+import net.coderbot.iris.texture.mipmap.DiscreteBlendFunction;
+import net.coderbot.iris.texture.mipmap.ImageRows;
+import net.coderbot.iris.texture.mipmap.LinearBlendFunction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MipmapGeneratorTest {
+	private static final ChannelMipmapGenerator LINEAR = new ChannelMipmapGenerator(
+			LinearBlendFunction.INSTANCE,
+			LinearBlendFunction.INSTANCE,
+			LinearBlendFunction.INSTANCE,
+			LinearBlendFunction.INSTANCE
+	);
+
+	// The same functions as the LabPBR specular generator
+	private static final ChannelMipmapGenerator DISCRETE = new ChannelMipmapGenerator(
+			LinearBlendFunction.INSTANCE,
+			new DiscreteBlendFunction(v -> v < 230 ? 0 : v - 229),
+			new DiscreteBlendFunction(v -> v < 65 ? 0 : 1),
+			new DiscreteBlendFunction(v -> v < 255 ? 0 : 1)
+	);
+
+	private static class IntArrayRows implements ImageRows {
+		private final int[] pixels;
+		private final int width;
+
+		private IntArrayRows(int[] pixels, int width) {
+			this.pixels = pixels;
+			this.width = width;
+		}
+
+		@Override
+		public void readRow(int y, int[] row, int count) {
+			System.arraycopy(pixels, y * width, row, 0, count);
+		}
+
+		@Override
+		public void writeRow(int y, int[] row, int count) {
+			System.arraycopy(row, 0, pixels, y * width, count);
+		}
+	}
+
+	private static int[] randomImage(Random random, int width, int height) {
+		int[] pixels = new int[width * height];
+
+		for (int i = 0; i < pixels.length; i++) {
+			// Mix in extreme values, which are the most likely to overflow into a neighbouring channel
+			switch (random.nextInt(8)) {
+			case 0:
+				pixels[i] = 0xFFFFFFFF;
+				break;
+			case 1:
+				pixels[i] = 0;
+				break;
+			default:
+				pixels[i] = random.nextInt();
+			}
+		}
+
+		return pixels;
+	}
+
+	/**
+	 * Generates a mip level a pixel at a time, in the same way as before mip levels were generated a row at a time.
+	 */
+	private static int[] generateReference(AbstractMipmapGenerator generator, int[] source, int sourceWidth, int width, int height) {
+		int[] target = new int[width * height];
+
+		for (int x = 0; x < width; ++x) {
+			for (int y = 0; y < height; ++y) {
+				target[x + y * width] = generator.blend(
+						source[(x * 2 + 0) + (y * 2 + 0) * sourceWidth],
+						source[(x * 2 + 1) + (y * 2 + 0) * sourceWidth],
+						source[(x * 2 + 0) + (y * 2 + 1) * sourceWidth],
+						source[(x * 2 + 1) + (y * 2 + 1) * sourceWidth]
+				);
+			}
+		}
+
+		return target;
+	}
+
+	private static void assertMatchesReference(AbstractMipmapGenerator generator, long seed, int sourceWidth, int sourceHeight) {
+		int[] source = randomImage(new Random(seed), sourceWidth, sourceHeight);
+		int width = sourceWidth >> 1;
+		int height = sourceHeight >> 1;
+
+		int[] target = new int[width * height];
+		generator.generateLevel(new IntArrayRows(source, sourceWidth), new IntArrayRows(target, width), width, height);
+
+		Assertions.assertArrayEquals(generateReference(generator, source, sourceWidth, width, height), target,
+				sourceWidth + "x" + sourceHeight + " image with seed " + seed);
+	}
+
+	@Test
+	void testLinearMatchesBlendFunctions() {
+		for (int seed = 0; seed < 20; seed++) {
+			assertMatchesReference(LINEAR, seed, 16, 16);
+			assertMatchesReference(LINEAR, seed, 64, 32);
+		}
+	}
+
+	@Test
+	void testDiscreteMatchesBlendFunctions() {
+		for (int seed = 0; seed < 20; seed++) {
+			assertMatchesReference(DISCRETE, seed, 16, 16);
+			assertMatchesReference(DISCRETE, seed, 64, 32);
+		}
+	}
+
+	@Test
+	void testOddSizesIgnoreLastColumnAndRow() {
+		assertMatchesReference(LINEAR, 1, 17, 9);
+		assertMatchesReference(LINEAR, 2, 3, 3);
+		assertMatchesReference(DISCRETE, 3, 33, 5);
+	}
+
+	@Test
+	void testLargeImagesSplitOverThreadsMatch() {
+		// Large enough for the rows to be split up over several threads
+		assertMatchesReference(LINEAR, 4, 2048, 1024);
+		assertMatchesReference(DISCRETE, 5, 1024, 1024);
+	}
+}
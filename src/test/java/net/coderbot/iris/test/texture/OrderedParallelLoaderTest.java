@@ -0,0 +1,176 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.util.OrderedParallelLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+public class OrderedParallelLoaderTest {
+	private static final int SPRITE_COUNT = 200;
+
+	/**
+	 * A synthetic atlas of sprites with different sizes. "Decoding" a sprite fills its pixels from a seed, and takes a
+	 * varying amount of time, so that the tasks finish out of order.
+	 */
+	private static int[] decodeSprite(int index) {
+		Random random = new Random(index);
+		int size = 16 << random.nextInt(3);
+		int[] pixels = new int[size * size];
+
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = random.nextInt();
+		}
+
+		try {
+			Thread.sleep(random.nextInt(3));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return pixels;
+	}
+
+	private static List<int[]> decodeSequentially(int count, IntFunction<int[]> task) {
+		List<int[]> results = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			results.add(task.apply(i));
+		}
+
+		return results;
+	}
+
+	@Test
+	void testResultsKeepTaskOrder() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+
+		try {
+			List<int[]> parallel = OrderedParallelLoader.load(SPRITE_COUNT, index -> {
+				threads.add(Thread.currentThread().getName());
+				return decodeSprite(index);
+			}, executor);
+
+			List<int[]> sequential = decodeSequentially(SPRITE_COUNT, OrderedParallelLoaderTest::decodeSprite);
+
+			Assertions.assertEquals(SPRITE_COUNT, parallel.size());
+
+			for (int i = 0; i < SPRITE_COUNT; i++) {
+				Assertions.assertArrayEquals(sequential.get(i), parallel.get(i), "sprite " + i);
+			}
+
+			Assertions.assertTrue(threads.size() > 1, "decoding should be spread over several threads");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testMissingSpritesStayInPlace() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			// Like sprites without a PBR image, every third task has no result
+			List<int[]> results = OrderedParallelLoader.load(SPRITE_COUNT,
+				index -> index % 3 == 0 ? null : decodeSprite(index), executor);
+
+			for (int i = 0; i < SPRITE_COUNT; i++) {
+				Assertions.assertEquals(i % 3 == 0, results.get(i) == null, "sprite " + i);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testFailureWaitsForOtherTasks() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		AtomicInteger completed = new AtomicInteger();
+
+		try {
+			IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () ->
+				OrderedParallelLoader.load(SPRITE_COUNT, index -> {
+					if (index == 0) {
+						throw new IllegalStateException("broken sprite");
+					}
+
+					decodeSprite(index);
+					completed.incrementAndGet();
+					return null;
+				}, executor));
+
+			Assertions.assertEquals("broken sprite", exception.getMessage());
+			Assertions.assertEquals(SPRITE_COUNT - 1, completed.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testFailureDiscardsCompletedResults() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Set<Integer> loaded = ConcurrentHashMap.newKeySet();
+		Set<Integer> discarded = ConcurrentHashMap.newKeySet();
+
+		try {
+			// Like decoded images, each result must be released if the load as a whole fails
+			Assertions.assertThrows(IllegalStateException.class, () ->
+				OrderedParallelLoader.load(SPRITE_COUNT, index -> {
+					if (index == SPRITE_COUNT / 2) {
+						throw new IllegalStateException("broken sprite");
+					}
+
+					decodeSprite(index);
+					loaded.add(index);
+					return index;
+				}, executor, discarded::add));
+
+			Assertions.assertEquals(SPRITE_COUNT - 1, loaded.size());
+			Assertions.assertEquals(loaded, discarded);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testAsyncDoesNotWaitForTasks() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch release = new CountDownLatch(1);
+
+		try {
+			CompletableFuture<List<int[]>> future = OrderedParallelLoader.loadAsync(SPRITE_COUNT, index -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				return decodeSprite(index);
+			}, executor);
+
+			// None of the tasks can finish before they are released, so this must have returned without waiting
+			Assertions.assertFalse(future.isDone());
+			release.countDown();
+
+			List<int[]> results = future.join();
+			Assertions.assertEquals(SPRITE_COUNT, results.size());
+
+			for (int i = 0; i < SPRITE_COUNT; i++) {
+				Assertions.assertArrayEquals(decodeSprite(i), results.get(i), "sprite " + i);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
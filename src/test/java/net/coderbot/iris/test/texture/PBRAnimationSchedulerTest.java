@@ -0,0 +1,150 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.pbr.PBRAnimationScheduler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PBRAnimationSchedulerTest {
+	/**
+	 * An animation that changes its frame every tick, and keeps track of what was uploaded.
+	 */
+	private static class FakeAnimation implements PBRAnimationScheduler.Animation {
+		private final int frameCount;
+		private boolean visible;
+		private int frame;
+		private int uploadedFrame;
+		private int uploads;
+
+		private FakeAnimation(int frameCount) {
+			this.frameCount = frameCount;
+		}
+
+		@Override
+		public boolean isBaseSpriteVisible() {
+			return visible;
+		}
+
+		@Override
+		public void resetBaseSpriteVisibility() {
+			visible = false;
+		}
+
+		@Override
+		public void advance() {
+			frame = (frame + 1) % frameCount;
+		}
+
+		@Override
+		public boolean willUploadOnCycle() {
+			return frameCount > 1;
+		}
+
+		@Override
+		public void cycle() {
+			advance();
+			if (frameCount > 1) {
+				uploadCurrentFrame();
+			}
+		}
+
+		@Override
+		public void uploadCurrentFrame() {
+			uploadedFrame = frame;
+			uploads++;
+		}
+	}
+
+	private static class BindCounter implements Runnable {
+		private int binds;
+
+		@Override
+		public void run() {
+			binds++;
+		}
+	}
+
+	@Test
+	void testHiddenSpriteIsNotUploaded() {
+		PBRAnimationScheduler scheduler = new PBRAnimationScheduler();
+		FakeAnimation animation = new FakeAnimation(4);
+		scheduler.add(animation);
+		BindCounter bind = new BindCounter();
+
+		for (int tick = 0; tick < 3; tick++) {
+			scheduler.tick(bind);
+		}
+
+		Assertions.assertEquals(3, animation.frame);
+		Assertions.assertEquals(0, animation.uploads);
+		Assertions.assertEquals(0, bind.binds);
+	}
+
+	@Test
+	void testSpriteCatchesUpOnceVisible() {
+		PBRAnimationScheduler scheduler = new PBRAnimationScheduler();
+		FakeAnimation animation = new FakeAnimation(4);
+		scheduler.add(animation);
+		BindCounter bind = new BindCounter();
+
+		scheduler.tick(bind);
+		scheduler.tick(bind);
+
+		// Like a chunk built before the PBR textures were attached, which is rendered afterwards
+		animation.visible = true;
+		scheduler.tick(bind);
+
+		Assertions.assertEquals(3, animation.frame);
+		Assertions.assertEquals(3, animation.uploadedFrame);
+		Assertions.assertEquals(1, animation.uploads);
+		Assertions.assertEquals(1, bind.binds);
+
+		scheduler.tick(bind);
+
+		Assertions.assertEquals(0, animation.uploadedFrame);
+		Assertions.assertEquals(2, animation.uploads);
+	}
+
+	@Test
+	void testVisibleSpritesShareOneBind() {
+		PBRAnimationScheduler scheduler = new PBRAnimationScheduler();
+		FakeAnimation first = new FakeAnimation(2);
+		FakeAnimation second = new FakeAnimation(3);
+		first.visible = true;
+		second.visible = true;
+		scheduler.add(first);
+		scheduler.add(second);
+		BindCounter bind = new BindCounter();
+
+		scheduler.tick(bind);
+
+		Assertions.assertEquals(1, first.uploads);
+		Assertions.assertEquals(1, second.uploads);
+		Assertions.assertEquals(1, bind.binds);
+	}
+
+	@Test
+	void testAtlasIsNotBoundWithoutUploads() {
+		PBRAnimationScheduler scheduler = new PBRAnimationScheduler();
+		FakeAnimation animation = new FakeAnimation(1);
+		animation.visible = true;
+		scheduler.add(animation);
+		BindCounter bind = new BindCounter();
+
+		scheduler.tick(bind);
+
+		Assertions.assertEquals(0, animation.uploads);
+		Assertions.assertEquals(0, bind.binds);
+	}
+
+	@Test
+	void testResetVisibility() {
+		PBRAnimationScheduler scheduler = new PBRAnimationScheduler();
+		FakeAnimation animation = new FakeAnimation(4);
+		animation.visible = true;
+		scheduler.add(animation);
+
+		scheduler.resetVisibility();
+
+		Assertions.assertFalse(animation.visible);
+	}
+}
@@ -0,0 +1,79 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.pbr.SpriteCollector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class SpriteCollectorTest {
+	@Test
+	void testDistinctSpritesAreCollected() {
+		SpriteCollector<Object> collector = new SpriteCollector<>();
+		Object stone = new Object();
+		Object lava = new Object();
+
+		collector.begin();
+		Assertions.assertTrue(collector.isActive());
+
+		collector.add(stone);
+		collector.add(stone);
+		collector.add(lava);
+		collector.add(stone);
+
+		Object[] sprites = collector.finish(Object[]::new);
+
+		Assertions.assertFalse(collector.isActive());
+		Assertions.assertNotNull(sprites);
+		Assertions.assertEquals(2, sprites.length);
+		Assertions.assertEquals(new HashSet<>(Arrays.asList(stone, lava)), new HashSet<>(Arrays.asList(sprites)));
+	}
+
+	@Test
+	void testEmptyChunkHasNoSprites() {
+		SpriteCollector<Object> collector = new SpriteCollector<>();
+
+		collector.begin();
+
+		Assertions.assertNull(collector.finish(Object[]::new));
+	}
+
+	@Test
+	void testPreviousChunkIsForgotten() {
+		SpriteCollector<Object> collector = new SpriteCollector<>();
+		Object stone = new Object();
+		Object lava = new Object();
+
+		collector.begin();
+		collector.add(stone);
+		collector.finish(Object[]::new);
+
+		collector.begin();
+		collector.add(lava);
+		// The last sprite of the previous chunk must still be collected
+		collector.add(stone);
+		Object[] sprites = collector.finish(Object[]::new);
+
+		Assertions.assertNotNull(sprites);
+		Assertions.assertEquals(2, sprites.length);
+	}
+
+	@Test
+	void testAbandonedCollectionIsCleared() {
+		SpriteCollector<Object> collector = new SpriteCollector<>();
+		Object stone = new Object();
+		Object lava = new Object();
+
+		// A chunk build that threw before it finished
+		collector.begin();
+		collector.add(stone);
+
+		collector.begin();
+		collector.add(lava);
+		Object[] sprites = collector.finish(Object[]::new);
+
+		Assertions.assertNotNull(sprites);
+		Assertions.assertArrayEquals(new Object[] { lava }, sprites);
+	}
+}
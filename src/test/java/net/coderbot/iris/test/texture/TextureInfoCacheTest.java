@@ -0,0 +1,267 @@
+package net.coderbot.iris.test.texture;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.coderbot.iris.texture.TextureInfoCache;
+import net.coderbot.iris.texture.TextureInfoCache.TextureInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GL20C;
+import org.lwjgl.opengl.GL30C;
+
+public class TextureInfoCacheTest {
+	/**
+	 * Keeps track of texture levels like GL would, and counts how often it was queried.
+	 */
+	private static class FakeGl implements TextureInfoCache.GlTextureQueries {
+		private final Int2ObjectMap<int[][]> textures = new Int2ObjectOpenHashMap<>();
+		private int boundTexture;
+		private int queries;
+
+		/**
+		 * Allocates a level without telling the cache, like a texture created by another mod through raw GL calls.
+		 * Like GL, allocating the base level again keeps the other levels.
+		 */
+		private void allocate(int id, int level, int internalFormat, int width, int height) {
+			int[][] levels = textures.computeIfAbsent(id, key -> new int[16][]);
+			levels[level] = new int[] { internalFormat, width, height };
+		}
+
+		/**
+		 * Allocates a level of the bound texture and reports it to the cache, like GlStateManager._texImage2D.
+		 */
+		private void texImage2D(TextureInfoCache cache, int level, int internalFormat, int width, int height) {
+			allocate(boundTexture, level, internalFormat, width, height);
+			cache.onTexImage2D(GL20C.GL_TEXTURE_2D, level, internalFormat, width, height, 0, GL20C.GL_RGBA,
+				GL20C.GL_UNSIGNED_BYTE, null);
+		}
+
+		/**
+		 * Allocates every mip level of the bound texture, like TextureUtil.prepareImage.
+		 */
+		private void prepareImage(TextureInfoCache cache, int mipLevel, int width, int height) {
+			for (int level = 0; level <= mipLevel; level++) {
+				texImage2D(cache, level, GL20C.GL_RGBA, width >> level, height >> level);
+			}
+		}
+
+		@Override
+		public int getBoundTexture() {
+			return boundTexture;
+		}
+
+		@Override
+		public int getTexLevelParameter(int id, int level, int pname) {
+			queries++;
+
+			int[][] levels = textures.get(id);
+			int[] parameters = levels != null ? levels[level] : null;
+
+			switch (pname) {
+			case GL20C.GL_TEXTURE_INTERNAL_FORMAT:
+				// GL reports a default format for levels that haven't been allocated
+				return parameters != null ? parameters[0] : GL20C.GL_RGBA;
+			case GL20C.GL_TEXTURE_WIDTH:
+				return parameters != null ? parameters[1] : 0;
+			case GL20C.GL_TEXTURE_HEIGHT:
+				return parameters != null ? parameters[2] : 0;
+			default:
+				throw new IllegalArgumentException("Unexpected parameter " + pname);
+			}
+		}
+	}
+
+	@Test
+	void testRecordedTextureIsNotQueried() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		gl.boundTexture = 3;
+		gl.texImage2D(cache, 0, GL30C.GL_RGBA16F, 640, 480);
+
+		TextureInfo info = cache.getInfo(3);
+		Assertions.assertEquals(GL30C.GL_RGBA16F, info.getInternalFormat());
+		Assertions.assertEquals(640, info.getWidth());
+		Assertions.assertEquals(480, info.getHeight());
+		Assertions.assertEquals(0, info.getMipLevel());
+		Assertions.assertEquals(0, gl.queries);
+	}
+
+	@Test
+	void testMipLevelsAreRecorded() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		gl.boundTexture = 7;
+		gl.prepareImage(cache, 4, 1024, 512);
+
+		TextureInfo info = cache.getInfo(7);
+		Assertions.assertEquals(1024, info.getWidth());
+		Assertions.assertEquals(512, info.getHeight());
+		Assertions.assertEquals(4, info.getMipLevel());
+
+		// Allocating the texture again with fewer mip levels, like when the mipmap setting is lowered
+		gl.prepareImage(cache, 2, 2048, 1024);
+
+		Assertions.assertEquals(2048, info.getWidth());
+		Assertions.assertEquals(1024, info.getHeight());
+		Assertions.assertEquals(2, info.getMipLevel());
+		Assertions.assertEquals(0, gl.queries);
+	}
+
+	@Test
+	void testExplicitTextureIdIgnoresBinding() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		// IrisRenderSystem.texImage2D may allocate a texture that isn't bound through GlStateManager
+		gl.boundTexture = 1;
+		cache.onTexImage2D(5, 0, GL30C.GL_R32F, 16, 8);
+
+		Assertions.assertEquals(GL30C.GL_R32F, cache.getInfo(5).getInternalFormat());
+		Assertions.assertEquals(16, cache.getInfo(5).getWidth());
+		Assertions.assertEquals(0, gl.queries);
+	}
+
+	@Test
+	void testUnrecordedTextureIsQueriedOnce() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		gl.allocate(9, 0, GL30C.GL_RGB10_A2, 300, 200);
+		gl.allocate(9, 1, GL30C.GL_RGB10_A2, 150, 100);
+		gl.allocate(9, 2, GL30C.GL_RGB10_A2, 75, 50);
+
+		TextureInfo info = cache.getInfo(9);
+		Assertions.assertEquals(GL30C.GL_RGB10_A2, info.getInternalFormat());
+		Assertions.assertEquals(300, info.getWidth());
+		Assertions.assertEquals(200, info.getHeight());
+		Assertions.assertEquals(2, info.getMipLevel());
+
+		int queries = gl.queries;
+		Assertions.assertTrue(queries > 0);
+
+		info.getWidth();
+		info.getHeight();
+		info.getInternalFormat();
+		info.getMipLevel();
+		Assertions.assertEquals(queries, gl.queries);
+	}
+
+	@Test
+	void testUnallocatedTextureIsQueriedOnce() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		// Texture 0 is never allocated, but is still bound when uniforms like gtextureSize are updated
+		TextureInfo info = cache.getInfo(0);
+		Assertions.assertEquals(0, info.getWidth());
+		Assertions.assertEquals(0, info.getHeight());
+		Assertions.assertEquals(0, info.getMipLevel());
+
+		int queries = gl.queries;
+
+		info.getWidth();
+		info.getHeight();
+		info.getMipLevel();
+		Assertions.assertEquals(queries, gl.queries);
+	}
+
+	@Test
+	void testUnallocatedTextureIsForgottenOnAllocation() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		TextureInfo info = cache.getInfo(4);
+		Assertions.assertEquals(0, info.getWidth());
+
+		gl.boundTexture = 4;
+		gl.texImage2D(cache, 0, GL20C.GL_RGBA8, 32, 64);
+
+		int queries = gl.queries;
+		Assertions.assertEquals(32, info.getWidth());
+		Assertions.assertEquals(64, info.getHeight());
+		Assertions.assertEquals(GL20C.GL_RGBA8, info.getInternalFormat());
+		Assertions.assertEquals(queries, gl.queries);
+	}
+
+	@Test
+	void testUnallocatedTextureIsForgottenOnMipLevelAllocation() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		TextureInfo info = cache.getInfo(6);
+		Assertions.assertEquals(0, info.getWidth());
+
+		// The base level is allocated through raw GL calls, but the mip levels go through the cache
+		gl.allocate(6, 0, GL20C.GL_RGBA8, 16, 16);
+		gl.boundTexture = 6;
+		gl.texImage2D(cache, 1, GL20C.GL_RGBA8, 8, 8);
+
+		Assertions.assertEquals(16, info.getWidth());
+		Assertions.assertEquals(1, info.getMipLevel());
+	}
+
+	@Test
+	void testDeletedTextureIsForgotten() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		gl.boundTexture = 2;
+		gl.texImage2D(cache, 0, GL20C.GL_RGBA8, 64, 64);
+		cache.onDeleteTexture(2);
+
+		// GL reuses the name for a texture that was allocated elsewhere
+		gl.allocate(2, 0, GL30C.GL_RG16F, 8, 4);
+
+		Assertions.assertEquals(GL30C.GL_RG16F, cache.getInfo(2).getInternalFormat());
+		Assertions.assertEquals(8, cache.getInfo(2).getWidth());
+		Assertions.assertTrue(gl.queries > 0);
+	}
+
+	@Test
+	void testDeletedUnallocatedTextureIsForgotten() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, false);
+
+		Assertions.assertEquals(0, cache.getInfo(2).getWidth());
+		cache.onDeleteTexture(2);
+
+		gl.allocate(2, 0, GL20C.GL_RGBA8, 8, 4);
+
+		Assertions.assertEquals(8, cache.getInfo(2).getWidth());
+	}
+
+	@Test
+	void testVerificationMatches() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, true);
+
+		gl.boundTexture = 8;
+		gl.prepareImage(cache, 2, 64, 32);
+
+		TextureInfo info = cache.getInfo(8);
+		Assertions.assertEquals(64, info.getWidth());
+		Assertions.assertEquals(32, info.getHeight());
+		Assertions.assertEquals(2, info.getMipLevel());
+		Assertions.assertTrue(gl.queries > 0);
+	}
+
+	@Test
+	void testVerificationReplacesMismatchedInfo() {
+		FakeGl gl = new FakeGl();
+		TextureInfoCache cache = new TextureInfoCache(gl, true);
+
+		gl.boundTexture = 8;
+		gl.prepareImage(cache, 2, 64, 32);
+
+		// Another mod allocates the base level again through raw GL calls, keeping the mip levels
+		gl.allocate(8, 0, GL30C.GL_RGBA16F, 128, 16);
+
+		TextureInfo info = cache.getInfo(8);
+		Assertions.assertEquals(128, info.getWidth());
+		Assertions.assertEquals(16, info.getHeight());
+		Assertions.assertEquals(GL30C.GL_RGBA16F, info.getInternalFormat());
+		Assertions.assertEquals(2, info.getMipLevel());
+	}
+}
@@ -0,0 +1,220 @@
+package net.coderbot.iris.test.texture;
+
+import net.coderbot.iris.texture.mipmap.ImageRows;
+import net.coderbot.iris.texture.mipmap.TransparentPixelFiller;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class TransparentPixelFillerTest {
+	private static final float[] SRGB_TO_LINEAR = new float[256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			SRGB_TO_LINEAR[i] = (float) Math.pow(i / 255.0, 2.2);
+		}
+	}
+
+	private enum Kind {
+		OPAQUE,
+		CUTOUT,
+		TRANSLUCENT,
+		EMPTY
+	}
+
+	private static class Sprite {
+		private final int width;
+		private final int height;
+		private final Kind kind;
+
+		private Sprite(int width, int height, Kind kind) {
+			this.width = width;
+			this.height = height;
+			this.kind = kind;
+		}
+
+		private int[] createPixels(long seed) {
+			Random random = new Random(seed);
+			int[] pixels = new int[width * height];
+
+			for (int i = 0; i < pixels.length; i++) {
+				int color = random.nextInt() & 0x00FFFFFF;
+
+				switch (kind) {
+				case OPAQUE:
+					pixels[i] = color | 0xFF000000;
+					break;
+				case CUTOUT:
+					// Transparent pixels saved as black, the case this is meant to fix
+					pixels[i] = random.nextInt(3) == 0 ? 0 : color | 0xFF000000;
+					break;
+				case TRANSLUCENT:
+					pixels[i] = color | (random.nextInt(4) == 0 ? 0 : random.nextInt(256) << 24);
+					break;
+				default:
+					pixels[i] = random.nextBoolean() ? 0 : color;
+				}
+			}
+
+			return pixels;
+		}
+	}
+
+	private static class IntArrayRows implements ImageRows {
+		private final int[] pixels;
+		private final int width;
+
+		private IntArrayRows(int[] pixels, int width) {
+			this.pixels = pixels;
+			this.width = width;
+		}
+
+		@Override
+		public void readRow(int y, int[] row, int count) {
+			System.arraycopy(pixels, y * width, row, 0, count);
+		}
+
+		@Override
+		public void writeRow(int y, int[] row, int count) {
+			System.arraycopy(row, 0, pixels, y * width, count);
+		}
+	}
+
+	/**
+	 * Roughly the sprites of the vanilla block atlas: mostly plain 16x16 sprites, some animated sprites with their
+	 * frames stacked vertically, and a few sprites from higher resolution resource packs.
+	 */
+	private static List<Sprite> createBlockAtlas() {
+		List<Sprite> sprites = new ArrayList<>();
+		Kind[] kinds = Kind.values();
+
+		for (int i = 0; i < 600; i++) {
+			sprites.add(new Sprite(16, 16, kinds[i % kinds.length]));
+		}
+
+		// Water, lava, fire, portal, sea lantern, prismarine, kelp and so on
+		int[] animatedHeights = { 512, 320, 512, 512, 80, 352, 288, 64, 32, 48 };
+
+		for (int i = 0; i < animatedHeights.length; i++) {
+			sprites.add(new Sprite(16, animatedHeights[i], kinds[i % kinds.length]));
+		}
+
+		for (int i = 0; i < 8; i++) {
+			sprites.add(new Sprite(32 << (i % 3), 32 << (i % 3), kinds[i % kinds.length]));
+		}
+
+		// Sprites that are a single row or column high
+		sprites.add(new Sprite(16, 1, Kind.CUTOUT));
+		sprites.add(new Sprite(1, 16, Kind.OPAQUE));
+
+		return sprites;
+	}
+
+	/**
+	 * Fills in transparent pixels a pixel at a time, in the same way as before images were processed a row at a time.
+	 */
+	private static void fillReference(int[] pixels, int width, int height) {
+		float r = 0.0f;
+		float g = 0.0f;
+		float b = 0.0f;
+		float totalAlpha = 0.0f;
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int color = pixels[x + y * width];
+				int alpha = (color >> 24) & 255;
+
+				if (alpha == 0) {
+					continue;
+				}
+
+				totalAlpha += alpha;
+
+				r += SRGB_TO_LINEAR[color & 255] * alpha;
+				g += SRGB_TO_LINEAR[(color >> 8) & 255] * alpha;
+				b += SRGB_TO_LINEAR[(color >> 16) & 255] * alpha;
+			}
+		}
+
+		r /= totalAlpha;
+		g /= totalAlpha;
+		b /= totalAlpha;
+
+		if (totalAlpha == 0.0f) {
+			return;
+		}
+
+		int srgbR = (int) (Math.pow(r, 1.0 / 2.2) * 255.0);
+		int srgbG = (int) (Math.pow(g, 1.0 / 2.2) * 255.0);
+		int srgbB = (int) (Math.pow(b, 1.0 / 2.2) * 255.0);
+		int resultColor = (srgbB << 16) | (srgbG << 8) | srgbR;
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int alpha = (pixels[x + y * width] >> 24) & 255;
+
+				if (alpha > 0) {
+					continue;
+				}
+
+				pixels[x + y * width] = resultColor;
+			}
+		}
+	}
+
+	@Test
+	void testMatchesReferenceOverBlockAtlas() {
+		List<Sprite> sprites = createBlockAtlas();
+
+		for (int i = 0; i < sprites.size(); i++) {
+			Sprite sprite = sprites.get(i);
+			int[] expected = sprite.createPixels(i);
+			int[] actual = sprite.createPixels(i);
+
+			fillReference(expected, sprite.width, sprite.height);
+			TransparentPixelFiller.fill(new IntArrayRows(actual, sprite.width), sprite.width, sprite.height);
+
+			Assertions.assertArrayEquals(expected, actual, "sprite " + i + " (" + sprite.width + "x" + sprite.height + ", " + sprite.kind + ")");
+		}
+	}
+
+	@Test
+	void testSpritesFilledInParallelMatchReference() {
+		List<Sprite> sprites = createBlockAtlas();
+		int[][] actual = new int[sprites.size()][];
+
+		// Sprites are loaded in parallel while the atlas is stitched
+		for (int i = 0; i < sprites.size(); i++) {
+			actual[i] = sprites.get(i).createPixels(i);
+		}
+
+		IntStream.range(0, sprites.size()).parallel().forEach(i -> {
+			Sprite sprite = sprites.get(i);
+			TransparentPixelFiller.fill(new IntArrayRows(actual[i], sprite.width), sprite.width, sprite.height);
+		});
+
+		for (int i = 0; i < sprites.size(); i++) {
+			Sprite sprite = sprites.get(i);
+			int[] expected = sprite.createPixels(i);
+			fillReference(expected, sprite.width, sprite.height);
+
+			Assertions.assertArrayEquals(expected, actual[i], "sprite " + i);
+		}
+	}
+
+	@Test
+	void testOpaqueSpriteIsNotWritten() {
+		int[] pixels = new Sprite(16, 16, Kind.OPAQUE).createPixels(0);
+
+		TransparentPixelFiller.fill(new IntArrayRows(pixels, 16) {
+			@Override
+			public void writeRow(int y, int[] row, int count) {
+				Assertions.fail("row " + y + " of an opaque sprite was written");
+			}
+		}, 16, 16);
+	}
+}
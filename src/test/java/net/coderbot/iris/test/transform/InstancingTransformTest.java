@@ -0,0 +1,82 @@
+package net.coderbot.iris.test.transform;
+
+import net.coderbot.iris.gbuffer_overrides.matching.InputAvailability;
+import net.coderbot.iris.pipeline.transform.PatchShaderType;
+import net.coderbot.iris.pipeline.transform.TransformPatcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class InstancingTransformTest {
+	private static final InputAvailability ENTITY_INPUTS = new InputAvailability(true, true, true);
+
+	private static String vertexShader(String tangentDeclaration, String tangentUsage) {
+		return "#version 120\n" +
+			tangentDeclaration + "\n" +
+			"varying vec3 tangent;\n" +
+			"void main() {\n" +
+			"	tangent = " + tangentUsage + ";\n" +
+			"	gl_Position = ftransform();\n" +
+			"}\n";
+	}
+
+	/**
+	 * Removes all whitespace, so that the checks don't depend on how the patched shader is printed.
+	 */
+	private static String patchVertex(String vertex) {
+		String patched = TransformPatcher.patchAttributes(vertex, null, null, ENTITY_INPUTS, true)
+			.get(PatchShaderType.VERTEX);
+
+		return patched.replaceAll("\\s+", "");
+	}
+
+	@Test
+	void testVec4Tangent() {
+		String patched = patchVertex(vertexShader("attribute vec4 at_tangent;", "at_tangent.xyz * at_tangent.w"));
+
+		Assertions.assertTrue(patched.contains("vec4iris_Tangent;"), patched);
+		Assertions.assertTrue(patched.contains("iris_Tangent=at_tangent;"), patched);
+		Assertions.assertTrue(patched.contains("iris_Tangent=vec4(normalize(vec3("), patched);
+		Assertions.assertTrue(patched.contains("tangent=iris_Tangent.xyz*iris_Tangent.w;"), patched);
+	}
+
+	@Test
+	void testVec3Tangent() {
+		String patched = patchVertex(vertexShader("attribute vec3 at_tangent;", "at_tangent"));
+
+		Assertions.assertTrue(patched.contains("vec3iris_Tangent;"), patched);
+		Assertions.assertTrue(patched.contains("iris_Tangent=at_tangent;"), patched);
+		Assertions.assertTrue(patched.contains("iris_Tangent=normalize(vec3("), patched);
+		Assertions.assertFalse(patched.contains("iris_Tangent.w"), patched);
+		Assertions.assertTrue(patched.contains("tangent=iris_Tangent;"), patched);
+	}
+
+	@Test
+	void testLocalVariableDoesNotDecideTangentType() {
+		String vertex = "#version 120\n" +
+			"attribute vec4 at_tangent;\n" +
+			"varying vec3 tangent;\n" +
+			"void main() {\n" +
+			"	vec3 localTangent = at_tangent.xyz;\n" +
+			"	tangent = localTangent;\n" +
+			"	gl_Position = ftransform();\n" +
+			"}\n";
+
+		String patched = patchVertex(vertex);
+
+		Assertions.assertTrue(patched.contains("vec4iris_Tangent;"), patched);
+		Assertions.assertTrue(patched.contains("vec3localTangent=iris_Tangent.xyz;"), patched);
+	}
+
+	@Test
+	void testWithoutTangent() {
+		String vertex = "#version 120\n" +
+			"void main() {\n" +
+			"	gl_Position = ftransform();\n" +
+			"}\n";
+
+		String patched = patchVertex(vertex);
+
+		Assertions.assertFalse(patched.contains("iris_Tangent"), patched);
+		Assertions.assertTrue(patched.contains("iris_Vertex=gl_Vertex;"), patched);
+	}
+}
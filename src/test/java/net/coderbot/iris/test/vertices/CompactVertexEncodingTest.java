@@ -0,0 +1,116 @@
+package net.coderbot.iris.test.vertices;
+
+import net.coderbot.iris.vendored.joml.Vector3f;
+import net.coderbot.iris.vertices.ExtendedDataHelper;
+import net.coderbot.iris.vertices.NormalHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class CompactVertexEncodingTest {
+	@Test
+	void testMidTexCoordRoundTripIsExact() {
+		// Every atlas size up to 32768 texels wide, sampled at each texel edge and center
+		for (int atlasSize = 1; atlasSize <= 32768; atlasSize <<= 1) {
+			int step = Math.max(1, atlasSize / 1024);
+
+			for (int texel = 0; texel <= atlasSize; texel += step) {
+				float edge = (float) texel / atlasSize;
+
+				Assertions.assertEquals(edge,
+					ExtendedDataHelper.decodeMidTexCoord(ExtendedDataHelper.encodeMidTexCoord(edge)));
+
+				if (texel < atlasSize && atlasSize < 32768) {
+					float center = (texel + 0.5f) / atlasSize;
+
+					Assertions.assertEquals(center,
+						ExtendedDataHelper.decodeMidTexCoord(ExtendedDataHelper.encodeMidTexCoord(center)));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testMidTexCoordEncodingIsStable() {
+		for (int encoded = 0; encoded <= 0xFFFF; encoded++) {
+			short value = (short) encoded;
+
+			Assertions.assertEquals(value,
+				ExtendedDataHelper.encodeMidTexCoord(ExtendedDataHelper.decodeMidTexCoord(value)));
+		}
+	}
+
+	@Test
+	void testPackedMidTexCoordDoesNotSignExtend() {
+		int packed = ExtendedDataHelper.packMidTexCoord(1.5f, 0.25f);
+
+		Assertions.assertEquals(1.5f, ExtendedDataHelper.decodeMidTexCoord((short) packed));
+		Assertions.assertEquals(0.25f, ExtendedDataHelper.decodeMidTexCoord((short) (packed >>> 16)));
+	}
+
+	@Test
+	void testAxisAlignedNormalsRoundTripExactly() {
+		float[][] axes = {
+			{1, 0, 0}, {-1, 0, 0},
+			{0, 1, 0}, {0, -1, 0},
+			{0, 0, 1}, {0, 0, -1}
+		};
+
+		Vector3f decoded = new Vector3f();
+
+		for (float[] axis : axes) {
+			NormalHelper.unpackOctahedral(NormalHelper.packOctahedral(axis[0], axis[1], axis[2]), decoded);
+
+			Assertions.assertEquals(axis[0], decoded.x);
+			Assertions.assertEquals(axis[1], decoded.y);
+			Assertions.assertEquals(axis[2], decoded.z);
+		}
+	}
+
+	@Test
+	void testOctahedralEncodingIsStable() {
+		Vector3f decoded = new Vector3f();
+		Vector3f redecoded = new Vector3f();
+
+		// Covers both the inner diamond (the upper hemisphere) and the folded corners (the lower hemisphere)
+		for (int x = -127; x <= 127; x++) {
+			for (int y = -127; y <= 127; y++) {
+				String code = "code (" + x + ", " + y + ")";
+				int packed = (x & 0xFF) | ((y & 0xFF) << 8);
+				NormalHelper.unpackOctahedral(packed, decoded);
+				int repacked = NormalHelper.packOctahedral(decoded);
+
+				if (Math.abs(x) != 127 && Math.abs(y) != 127) {
+					Assertions.assertEquals(packed, repacked, code);
+					continue;
+				}
+
+				// The outer edge of the square folds onto itself, so an edge code and its mirror image decode to the
+				// same normal, which is packed as either one of them
+				NormalHelper.unpackOctahedral(repacked, redecoded);
+
+				Assertions.assertEquals(decoded.x, redecoded.x, 0.0f, code);
+				Assertions.assertEquals(decoded.y, redecoded.y, 0.0f, code);
+				Assertions.assertEquals(decoded.z, redecoded.z, 0.0f, code);
+			}
+		}
+	}
+
+	@Test
+	void testOctahedralPrecision() {
+		Random random = new Random(1234);
+		Vector3f normal = new Vector3f();
+		Vector3f decoded = new Vector3f();
+
+		for (int i = 0; i < 100000; i++) {
+			normal.set((float) random.nextGaussian(), (float) random.nextGaussian(), (float) random.nextGaussian());
+			normal.normalize();
+
+			NormalHelper.unpackOctahedral(NormalHelper.packOctahedral(normal), decoded);
+
+			// Within about a degree, which is no worse than the previous three-byte format
+			Assertions.assertTrue(normal.dot(decoded) > 0.9998f, () -> normal + " decoded as " + decoded);
+		}
+	}
+}
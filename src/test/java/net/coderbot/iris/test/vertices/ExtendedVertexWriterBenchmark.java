@@ -0,0 +1,157 @@
+package net.coderbot.iris.test.vertices;
+
+import net.coderbot.iris.vertices.ExtendedVertexWriter;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compares writing entity vertices in the extended format an element at a time, like BufferBuilder does when the
+ * extended format disables its fast path (the previous implementation), with writing entire vertices at once through
+ * {@link ExtendedVertexWriter}. This isn't a unit test, run the main method manually.
+ */
+public class ExtendedVertexWriterBenchmark {
+	private static final int WARMUP_ITERATIONS = 2000;
+	private static final int ITERATIONS = 5000;
+	private static final int VERTICES = 4096;
+
+	/**
+	 * The element sizes of IrisVertexFormats.ENTITY: position, color, texture, overlay, light, normal, padding, mid
+	 * texture coordinate and tangent.
+	 */
+	private static final int[] ENTITY_ELEMENTS = { 12, 4, 8, 4, 4, 3, 1, 8, 4 };
+	private static final int PADDING_ELEMENT = 6;
+	private static final int ENTITY_STRIDE = 48;
+
+	public static void main(String[] args) {
+		ByteBuffer buffer = MemoryUtil.memAlloc(VERTICES * ENTITY_STRIDE);
+		ElementWiseBuffer elementWise = new ElementWiseBuffer(buffer);
+
+		try {
+			run("element-wise", () -> {
+				elementWise.reset();
+
+				for (int vertex = 0; vertex < VERTICES; vertex++) {
+					elementWise.vertex(vertex, vertex + 1, vertex + 2, 1.0F, 0.5F, 0.25F, 1.0F, 0.125F, 0.5F,
+						0xA0000, 0xF000F0, 0.0F, 1.0F, 0.0F);
+				}
+
+				return buffer.getInt(ENTITY_STRIDE * (VERTICES - 1));
+			});
+
+			run("full vertex", () -> {
+				long pointer = MemoryUtil.memAddress0(buffer);
+
+				for (int vertex = 0; vertex < VERTICES; vertex++) {
+					pointer += ExtendedVertexWriter.writeEntityVertex(pointer, vertex, vertex + 1, vertex + 2, 1.0F,
+						0.5F, 0.25F, 1.0F, 0.125F, 0.5F, 0xA0000, 0xF000F0, 0.0F, 1.0F, 0.0F);
+				}
+
+				return buffer.getInt(ENTITY_STRIDE * (VERTICES - 1));
+			});
+		} finally {
+			MemoryUtil.memFree(buffer);
+		}
+	}
+
+	/**
+	 * Mirrors the element-wise path of BufferBuilder: the default VertexConsumer.vertex writes each element separately
+	 * and advances to the next element afterwards, and endVertex writes the extended elements.
+	 */
+	private static class ElementWiseBuffer {
+		private final ByteBuffer buffer;
+		private int nextElementByte;
+		private int elementIndex;
+		private int vertices;
+
+		private ElementWiseBuffer(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		private void reset() {
+			nextElementByte = 0;
+			elementIndex = 0;
+			vertices = 0;
+		}
+
+		private void vertex(float x, float y, float z, float red, float green, float blue, float alpha, float u,
+							float v, int overlay, int light, float normalX, float normalY, float normalZ) {
+			buffer.putFloat(nextElementByte, x);
+			buffer.putFloat(nextElementByte + 4, y);
+			buffer.putFloat(nextElementByte + 8, z);
+			nextElement();
+
+			buffer.put(nextElementByte, (byte) ((int) (red * 255.0F)));
+			buffer.put(nextElementByte + 1, (byte) ((int) (green * 255.0F)));
+			buffer.put(nextElementByte + 2, (byte) ((int) (blue * 255.0F)));
+			buffer.put(nextElementByte + 3, (byte) ((int) (alpha * 255.0F)));
+			nextElement();
+
+			buffer.putFloat(nextElementByte, u);
+			buffer.putFloat(nextElementByte + 4, v);
+			nextElement();
+
+			buffer.putShort(nextElementByte, (short) (overlay & 0xFFFF));
+			buffer.putShort(nextElementByte + 2, (short) (overlay >> 16 & 0xFFFF));
+			nextElement();
+
+			buffer.putShort(nextElementByte, (short) (light & 0xFFFF));
+			buffer.putShort(nextElementByte + 2, (short) (light >> 16 & 0xFFFF));
+			nextElement();
+
+			buffer.put(nextElementByte, normalIntValue(normalX));
+			buffer.put(nextElementByte + 1, normalIntValue(normalY));
+			buffer.put(nextElementByte + 2, normalIntValue(normalZ));
+			nextElement();
+
+			endVertex();
+		}
+
+		private void endVertex() {
+			// MID_TEXTURE_ELEMENT
+			buffer.putFloat(nextElementByte, 0.0F);
+			buffer.putFloat(nextElementByte + 4, 0.0F);
+			nextElement();
+			// TANGENT_ELEMENT
+			buffer.putInt(nextElementByte, 0);
+			nextElement();
+
+			vertices++;
+		}
+
+		private void nextElement() {
+			nextElementByte += ENTITY_ELEMENTS[elementIndex];
+			elementIndex = (elementIndex + 1) % ENTITY_ELEMENTS.length;
+
+			if (elementIndex == PADDING_ELEMENT) {
+				nextElement();
+			}
+		}
+
+		private static byte normalIntValue(float value) {
+			return (byte) ((int) (Math.max(-1.0F, Math.min(value, 1.0F)) * 127.0F) & 0xFF);
+		}
+	}
+
+	private interface Pass {
+		int run();
+	}
+
+	private static void run(String name, Pass pass) {
+		int checksum = 0;
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			checksum += pass.run();
+		}
+
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			checksum += pass.run();
+		}
+
+		double nanoseconds = (double) (System.nanoTime() - start) / ITERATIONS / VERTICES;
+
+		System.out.printf("%-14s %8.2f ns / vertex (checksum %08x)%n", name, nanoseconds, checksum);
+	}
+}
@@ -0,0 +1,69 @@
+package net.coderbot.iris.test.vertices;
+
+import net.coderbot.iris.block_rendering.SeparateAoBrightnesses;
+import net.coderbot.iris.vertices.ExtendedVertexWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+
+public class SeparateAoTest {
+	private static final int TERRAIN_STRIDE = 52;
+
+	@Test
+	void testColorBrightnessesAreNeutral() {
+		SeparateAoBrightnesses brightnesses = new SeparateAoBrightnesses();
+
+		Assertions.assertArrayEquals(new float[] { 1.0f, 1.0f, 1.0f, 1.0f },
+			brightnesses.begin(new float[] { 0.2f, 0.4f, 0.6f, 0.8f }));
+	}
+
+	@Test
+	void testFastPathAlphaCarriesAmbientOcclusion() {
+		float[] ambientOcclusion = { 0.2f, 0.4f, 0.6f, 0.8f };
+		SeparateAoBrightnesses brightnesses = new SeparateAoBrightnesses();
+		ByteBuffer buffer = MemoryUtil.memAlloc(TERRAIN_STRIDE * 4);
+
+		try {
+			brightnesses.begin(ambientOcclusion);
+			long pointer = MemoryUtil.memAddress0(buffer);
+
+			// Like the fast path of MixinBufferBuilder, with the alpha of 1.0 that blocks are rendered with
+			for (int vertex = 0; vertex < 4; vertex++) {
+				pointer += ExtendedVertexWriter.writeTerrainVertex(pointer, vertex, 0.0f, 0.0f, 1.0f, 1.0f, 1.0f,
+					brightnesses.apply(1.0f), 0.0f, 0.0f, 0xF000F0, 0.0f, 1.0f, 0.0f, (short) 1, (short) 0, 0);
+			}
+
+			for (int vertex = 0; vertex < 4; vertex++) {
+				int alpha = buffer.get(TERRAIN_STRIDE * vertex + 15) & 0xFF;
+
+				Assertions.assertEquals((int) (ambientOcclusion[vertex] * 255.0f), alpha, "vertex " + vertex);
+			}
+		} finally {
+			MemoryUtil.memFree(buffer);
+		}
+	}
+
+	@Test
+	void testAlphaIsKeptOnceQuadIsWritten() {
+		SeparateAoBrightnesses brightnesses = new SeparateAoBrightnesses();
+		brightnesses.begin(new float[] { 0.5f, 0.5f, 0.5f, 0.5f });
+
+		for (int vertex = 0; vertex < 4; vertex++) {
+			brightnesses.apply(1.0f);
+		}
+
+		Assertions.assertEquals(0.75f, brightnesses.apply(0.75f));
+		Assertions.assertFalse(brightnesses.isPending());
+		Assertions.assertEquals(0.75f, brightnesses.apply(0.75f));
+	}
+
+	@Test
+	void testAlphaIsKeptWithoutQuad() {
+		SeparateAoBrightnesses brightnesses = new SeparateAoBrightnesses();
+
+		Assertions.assertFalse(brightnesses.isPending());
+		Assertions.assertEquals(0.5f, brightnesses.apply(0.5f));
+	}
+}